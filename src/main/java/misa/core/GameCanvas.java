@@ -47,8 +47,8 @@ public class GameCanvas extends JPanel
 
         if (graphics instanceof Graphics2D graphics2D)
         {
-            // Pass the Graphics2D context to the Renderer for drawing
-            renderer.render(graphics2D);
+            // Pass the Graphics2D context to the Renderer for drawing (scaled up if it renders at a fixed resolution)
+            renderer.renderFrame(graphics2D, getWidth(), getHeight());
         }
     }
 }
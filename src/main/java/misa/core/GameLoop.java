@@ -8,6 +8,7 @@ import misa.core.events.input.*;
 import misa.core.events.lifecycle.*;
 import misa.core.events.rendering.*;
 import misa.data.config.ConfigManager;
+import misa.data.tiled2misa.MapHotReloader;
 import misa.entities.GameObject;
 
 import java.util.ArrayList;
@@ -50,9 +51,12 @@ public class GameLoop implements Runnable
     private final ConfigManager configManager;
     private final EventManager eventManager;
 
-    // Lists of objects that need starting and updating
+    // Objects that need starting, and the scheduler that runs updatables
     private final List<Startable> startables;
-    private final List<Updatable> updatables;
+    private final TickScheduler tickScheduler;
+
+    // Applies map file changes between ticks (null when the map is not hot reloaded)
+    private MapHotReloader mapHotReloader;
 
     /**
      * Creates a new GameLoop.
@@ -70,7 +74,7 @@ public class GameLoop implements Runnable
         this.gameCanvas = new GameCanvas(renderer);
         this.running = false;
         this.startables = new ArrayList<>();
-        this.updatables = new ArrayList<>();
+        this.tickScheduler = new TickScheduler();
 
         this.configManager = new ConfigManager("config/config.properties");
         loadConfiguration(); // Load settings like FPS, screen size
@@ -136,6 +140,9 @@ public class GameLoop implements Runnable
             delta += (now - lastTime) / nsPerUpdate;
             lastTime = now;
 
+            // Take map file changes between ticks, so no update sees a map half reloaded
+            if (mapHotReloader != null) mapHotReloader.applyPending();
+
             // Update the game state if enough time has passed
             while (delta >= 1)
             {
@@ -172,16 +179,12 @@ public class GameLoop implements Runnable
     }
 
     /**
-     * Updates all registered Updatable objects and the TimeSystem.
+     * Updates the TimeSystem and every Updatable scheduled for this tick.
      */
     private void update()
     {
         timeSystem.update(deltaTime);
-
-        for (Updatable updatable : updatables)
-        {
-            updatable.update();
-        }
+        tickScheduler.tick();
     }
 
     /**
@@ -250,13 +253,34 @@ public class GameLoop implements Runnable
     }
 
     /**
-     * Adds an Updatable object to be updated every tick.
+     * Adds an Updatable object, updated according to its tick interval.
      *
      * @param updatable Object that implements Updatable.
      */
     public void addUpdatable(Updatable updatable)
     {
-        updatables.add(updatable);
+        tickScheduler.add(updatable);
+    }
+
+    /**
+     * Adds an Updatable object that should only update a given number of times per second.
+     *
+     * @param updatable Object that implements Updatable.
+     * @param hertz     Desired updates per second (e.g. 6 for slow AI).
+     */
+    public void addUpdatable(Updatable updatable, float hertz)
+    {
+        tickScheduler.add(updatable, TickScheduler.intervalForRate(targetUPS, hertz));
+    }
+
+    /**
+     * Removes an Updatable so it is no longer updated.
+     *
+     * @param updatable The Updatable to remove.
+     */
+    public void removeUpdatable(Updatable updatable)
+    {
+        tickScheduler.remove(updatable);
     }
 
     /**
@@ -269,6 +293,27 @@ public class GameLoop implements Runnable
         renderer.addGameObject(gameObject);
     }
 
+    /**
+     * Hot reloads the map from its files (development): reloads are applied on the game
+     * thread between ticks, and the Renderer follows them (see {@link Renderer#setMapHotReloader}).
+     * The caller shuts the reloader down.
+     *
+     * @param mapHotReloader A reloader watching the current map, or null to stop applying reloads.
+     */
+    public void setMapHotReloader(MapHotReloader mapHotReloader)
+    {
+        this.mapHotReloader = mapHotReloader;
+        renderer.setMapHotReloader(mapHotReloader);
+    }
+
+    /**
+     * @return The map hot reloader, or null if none is set.
+     */
+    public MapHotReloader getMapHotReloader()
+    {
+        return mapHotReloader;
+    }
+
     /**
      * Gets the time passed since the last frame.
      *
@@ -279,6 +324,26 @@ public class GameLoop implements Runnable
         return deltaTime;
     }
 
+    /**
+     * Gets the scheduler that decides which Updatables run each tick.
+     *
+     * @return The TickScheduler.
+     */
+    public TickScheduler getTickScheduler()
+    {
+        return tickScheduler;
+    }
+
+    /**
+     * Gets the configured number of updates per second.
+     *
+     * @return Target UPS.
+     */
+    public int getTargetUPS()
+    {
+        return targetUPS;
+    }
+
     /**
      * Gets the GameCanvas used for rendering.
      *
@@ -1,23 +1,74 @@
 package misa.core;
 
+import misa.core.rendering.DirtyRectRenderer;
+import misa.core.rendering.RasterBlitter;
+import misa.core.rendering.RenderQueue;
+import misa.core.rendering.RenderTarget;
+import misa.core.rendering.ScaledImageCache;
+import misa.core.rendering.SpriteBatch;
+import misa.core.rendering.StripRenderer;
+import misa.core.rendering.TextureAtlas;
+import misa.core.rendering.TileChunkCache;
+import misa.data.tiled2misa.ChunkStreamer;
+import misa.data.tiled2misa.ChunkedLayer;
+import misa.data.tiled2misa.MapDiff;
+import misa.data.tiled2misa.MapHotReloader;
+import misa.data.tiled2misa.TileOcclusion;
 import misa.data.tiled2misa.TiledLayer;
 import misa.data.tiled2misa.TiledMap;
 import misa.data.tiled2misa.TiledTileset;
 import misa.entities.GameObject;
+import misa.systems.animation.TileClock;
 import misa.systems.camera.Camera;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Renderer is responsible for drawing the game world onto the screen.
  * <p>
  * It handles rendering tilemaps, GameObjects, and managing camera offsets
  * to simulate movement through a larger world space.
+ * <p>
+ * GameObjects are depth-sorted every frame by render layer and Y, and drawn
+ * interleaved with the map layers: each TiledLayer has a render layer (its index
+ * in the map by default), and an object is drawn after every map layer whose render
+ * layer is lower or equal to its own.
+ * <p>
+ * Tiles and sprites are not drawn immediately: they are recorded into a
+ * {@link SpriteBatch}, sorted by depth and texture, and flushed once per frame.
+ * <p>
+ * If a {@link RenderTarget} is set, frames are drawn at the target's fixed internal
+ * resolution and scaled up to the window once, when presented.
+ * <p>
+ * Two backends can flush the recorded frame: {@link Backend#JAVA2D} draws through
+ * Graphics2D, {@link Backend#RASTER} writes pixels directly with a {@link RasterBlitter}.
+ * <p>
+ * Infinite maps are drawn from their {@link ChunkedLayer}s, with a {@link ChunkStreamer}
+ * loading chunks around the camera.
  */
 public class Renderer
 {
+    /**
+     * How recorded frames are drawn.
+     */
+    public enum Backend
+    {
+        /** Graphics2D drawImage calls (can use hardware acceleration). */
+        JAVA2D,
+        /** Direct writes into an int[] frame buffer (lowest per-sprite overhead). */
+        RASTER
+    }
+
+    // Pixel budget for pre-scaled images (16M pixels, about 64 MB)
+    public static final long DEFAULT_PRESCALE_BUDGET = 16L * 1024 * 1024;
+
     // Camera controls the view into the world
     private final Camera camera;
 
@@ -27,6 +78,68 @@ public class Renderer
     // List of all game objects that should be drawn
     private final ArrayList<GameObject> gameObjects = new ArrayList<>();
 
+    // Per-frame depth-sorted draw order for game objects
+    private final RenderQueue renderQueue = new RenderQueue();
+
+    // Render layer overrides for map layers, by layer name (default is the layer's index)
+    private final Map<String, Integer> tiledLayerRenderLayers = new HashMap<>();
+
+    // Retained draw commands for the current frame
+    private final SpriteBatch spriteBatch = new SpriteBatch();
+
+    // Nearest-neighbour scaled copies of tilesets and frames (null when pre-scaling is off)
+    private ScaledImageCache scaledImageCache;
+
+    // Optional fixed-resolution buffer the world is drawn into (null draws straight to the output)
+    private RenderTarget renderTarget;
+
+    // Backend used to flush frames
+    private Backend backend = Backend.JAVA2D;
+
+    // Software frame buffer and blitter for the RASTER backend (created on demand)
+    private BufferedImage rasterFrame;
+    private RasterBlitter rasterBlitter;
+
+    // Flushes RASTER frames in parallel horizontal strips (null renders on the calling thread)
+    private StripRenderer stripRenderer;
+
+    // Redraws only changed regions onto a persistent backbuffer (null redraws everything)
+    private DirtyRectRenderer dirtyRectRenderer;
+    private float lastCameraX = Float.NaN;
+    private float lastCameraY = Float.NaN;
+
+    // Shared clock for animated tiles (null when tiles are not animated)
+    private TileClock tileClock;
+
+    // Baked tile chunks (null draws every tile individually)
+    private TileChunkCache tileChunkCache;
+
+    // Loads the chunks of an infinite map around the camera
+    private ChunkStreamer chunkStreamer;
+    private boolean ownsChunkStreamer;
+
+    // Hot reloader of the map (null when the map is not hot reloaded); frames are drawn under its read lock
+    private MapHotReloader mapHotReloader;
+    private final MapHotReloader.Listener hotReloadListener = new MapHotReloader.Listener()
+    {
+        @Override
+        public void onTilesChanged(TiledMap map, MapDiff diff)
+        {
+            if (map == tiledMap) invalidateTiles(diff);
+        }
+
+        @Override
+        public void onMapReplaced(TiledMap oldMap, TiledMap newMap)
+        {
+            if (oldMap != tiledMap) return;
+            if (tileClock != null) tileClock.setMap(newMap);
+            setTiledMap(newMap);
+        }
+    };
+
+    // Next free draw depth while recording a frame
+    private int nextDepth;
+
     // How many pixels represent one unit in world space
     private final int pixelsPerUnit;
 
@@ -45,6 +158,9 @@ public class Renderer
         this.camera = camera;
         this.tiledMap = tiledMap;
         this.pixelsPerUnit = pixelsPerUnit;
+
+        setImagePrescaling(true);
+        createChunkStreamer();
     }
 
     /**
@@ -65,6 +181,328 @@ public class Renderer
     public void setTiledMap(TiledMap tiledMap)
     {
         this.tiledMap = tiledMap;
+        spriteBatch.clearTextureIds(); // Let the old map's tileset images be collected
+        if (scaledImageCache != null) scaledImageCache.clear();
+        if (rasterBlitter != null) rasterBlitter.clearSourceCache();
+        if (tileChunkCache != null) tileChunkCache.clear();
+        if (ownsChunkStreamer) chunkStreamer.shutdown();
+        chunkStreamer = null;
+        createChunkStreamer();
+        invalidateAll();
+    }
+
+    /**
+     * Sets the streamer that loads chunks of the current infinite map, replacing the default one
+     * (which keeps {@link ChunkStreamer#DEFAULT_RADIUS} chunks around the view). The caller
+     * owns it and shuts it down. Setting a new map replaces it with a default one again.
+     *
+     * @param chunkStreamer A streamer created for the current map.
+     */
+    public void setChunkStreamer(ChunkStreamer chunkStreamer)
+    {
+        if (ownsChunkStreamer) this.chunkStreamer.shutdown();
+        this.chunkStreamer = chunkStreamer;
+        this.ownsChunkStreamer = false;
+    }
+
+    /**
+     * @return The streamer of the current infinite map, or null if the map is not infinite.
+     */
+    public ChunkStreamer getChunkStreamer()
+    {
+        return chunkStreamer;
+    }
+
+    /**
+     * Hot reloads the map from its files (development). Changed tiles only rebake their chunks,
+     * and a replaced map is set as with {@link #setTiledMap(TiledMap)} (and on the tile clock).
+     * Reloads are applied by the game thread ({@link GameLoop#setMapHotReloader} sets both),
+     * so each frame is drawn holding {@link MapHotReloader#getReadLock()}. The caller shuts the
+     * reloader down.
+     *
+     * @param mapHotReloader A reloader watching the current map, or null to stop following reloads.
+     */
+    public void setMapHotReloader(MapHotReloader mapHotReloader)
+    {
+        if (this.mapHotReloader != null) this.mapHotReloader.removeListener(hotReloadListener);
+        this.mapHotReloader = mapHotReloader;
+        if (mapHotReloader == null) return;
+
+        mapHotReloader.addListener(hotReloadListener);
+        if (mapHotReloader.getMap() != tiledMap) setTiledMap(mapHotReloader.getMap());
+    }
+
+    /**
+     * @return The map hot reloader, or null if none is set.
+     */
+    public MapHotReloader getMapHotReloader()
+    {
+        return mapHotReloader;
+    }
+
+    /**
+     * Drops the baked chunks holding hot reloaded tiles. All layers of a changed cell are
+     * dropped, since a new opaque tile also changes which tiles below it are drawn.
+     */
+    private void invalidateTiles(MapDiff diff)
+    {
+        if (tileChunkCache == null) return;
+
+        int layerCount = tiledMap.getLayers().size();
+        for (int i = 0; i < diff.getLayerCount(); i++)
+        {
+            for (int n = 0; n < diff.getCellCount(i); n++)
+            {
+                int x = diff.getCellX(i, n);
+                int y = diff.getCellY(i, n);
+                for (int layerIndex = 0; layerIndex < layerCount; layerIndex++) tileChunkCache.invalidate(layerIndex, x, y);
+            }
+        }
+    }
+
+    /**
+     * Sets the clock that animates map tiles. Set it after calling {@link TileClock#setMap(TiledMap)}
+     * so baked chunks know which tiles are animated.
+     *
+     * @param tileClock The tile clock, or null to draw every tile's first frame.
+     */
+    public void setTileClock(TileClock tileClock)
+    {
+        this.tileClock = tileClock;
+        if (tileChunkCache != null) tileChunkCache.clear();
+    }
+
+    /**
+     * @return The tile clock, or null if tiles are not animated.
+     */
+    public TileClock getTileClock()
+    {
+        return tileClock;
+    }
+
+    /**
+     * Turns chunk baking on or off.
+     * <p>
+     * When on, static map tiles are baked into chunk images of chunkTiles x chunkTiles tiles,
+     * and only chunks inside the camera viewport are drawn. Animated tiles are still drawn
+     * one by one on top of their chunk.
+     *
+     * @param enabled True to draw map layers from baked chunks.
+     * @param chunkTiles Chunk size in tiles (e.g. {@link TileChunkCache#DEFAULT_CHUNK_TILES}).
+     */
+    public void setTileChunks(boolean enabled, int chunkTiles)
+    {
+        tileChunkCache = enabled ? new TileChunkCache(chunkTiles, DEFAULT_PRESCALE_BUDGET) : null;
+    }
+
+    /**
+     * @return The chunk cache, or null when chunk baking is off.
+     */
+    public TileChunkCache getTileChunkCache()
+    {
+        return tileChunkCache;
+    }
+
+    /**
+     * Turns dirty-rectangle rendering on or off.
+     * <p>
+     * When on, frames are drawn onto a persistent backbuffer and only screen regions whose
+     * tiles or sprites changed are redrawn. Moving the camera redraws everything. Best for
+     * mostly static scenes; applies to the JAVA2D backend.
+     *
+     * @param enabled True to redraw only changed regions.
+     * @param cellSize Tracking cell size in pixels (e.g. 32).
+     */
+    public void setDirtyRectangles(boolean enabled, int cellSize)
+    {
+        dirtyRectRenderer = enabled ? new DirtyRectRenderer(cellSize) : null;
+    }
+
+    /**
+     * Forces the next frame to be redrawn completely (e.g. after modifying an image in place).
+     */
+    public void invalidateAll()
+    {
+        if (dirtyRectRenderer != null) dirtyRectRenderer.invalidateAll();
+    }
+
+    /**
+     * @return The dirty-rectangle renderer, or null when the mode is off.
+     */
+    public DirtyRectRenderer getDirtyRectRenderer()
+    {
+        return dirtyRectRenderer;
+    }
+
+    /**
+     * Selects how frames are drawn.
+     *
+     * @param backend The backend.
+     */
+    public void setBackend(Backend backend)
+    {
+        this.backend = backend;
+        if (backend != Backend.RASTER)
+        {
+            rasterFrame = null;
+            rasterBlitter = null;
+        }
+    }
+
+    /**
+     * @return The active backend.
+     */
+    public Backend getBackend()
+    {
+        return backend;
+    }
+
+    /**
+     * Sets how many threads draw RASTER frames. The frame is split into horizontal strips
+     * that are drawn concurrently; the result is identical to a single-threaded frame.
+     * Has no effect on the JAVA2D backend.
+     *
+     * @param threads Number of threads (1 or less renders on the calling thread).
+     */
+    public void setRenderThreads(int threads)
+    {
+        if (stripRenderer != null) stripRenderer.shutdown();
+        stripRenderer = threads > 1 ? new StripRenderer(threads) : null;
+    }
+
+    /**
+     * Turns pre-scaling on or off.
+     * <p>
+     * When on (the default), each tileset and frame is scaled to pixelsPerUnit once with
+     * nearest-neighbour sampling and cached, so per-frame draws are unscaled copies.
+     * The cache is bounded by {@link #DEFAULT_PRESCALE_BUDGET} pixels.
+     *
+     * @param enabled True to pre-scale images.
+     */
+    public void setImagePrescaling(boolean enabled)
+    {
+        scaledImageCache = enabled ? new ScaledImageCache(DEFAULT_PRESCALE_BUDGET) : null;
+        spriteBatch.setScaledImageCache(scaledImageCache);
+    }
+
+    /**
+     * Sets a texture atlas so packed frames and tilesets are drawn from atlas pages.
+     *
+     * @param textureAtlas The atlas, or null to draw the original images.
+     */
+    public void setTextureAtlas(TextureAtlas textureAtlas)
+    {
+        spriteBatch.setTextureAtlas(textureAtlas);
+    }
+
+    /**
+     * Gets the draw-command batch (useful for reading per-frame draw statistics).
+     *
+     * @return The SpriteBatch.
+     */
+    public SpriteBatch getSpriteBatch()
+    {
+        return spriteBatch;
+    }
+
+    /**
+     * Sets the render layer of a map layer, overriding its default (its index in the map;
+     * chunked layers of infinite maps come after the fixed layers).
+     *
+     * @param layerName Name of the TiledLayer.
+     * @param renderLayer Render layer (0-255).
+     */
+    public void setTiledLayerRenderLayer(String layerName, int renderLayer)
+    {
+        tiledLayerRenderLayers.put(layerName, renderLayer);
+    }
+
+    /**
+     * Gets the render layer of a map layer, e.g. to place objects right above "Ground".
+     *
+     * @param layerName Name of the TiledLayer.
+     * @return Its render layer, or -1 if no layer with that name is loaded.
+     */
+    public int getTiledLayerRenderLayer(String layerName)
+    {
+        if (tiledMap == null) return -1;
+
+        List<TiledLayer> layers = tiledMap.getLayers();
+        for (int i = 0; i < layers.size(); i++)
+        {
+            if (layers.get(i).name().equals(layerName)) return renderLayerOf(layerName, i);
+        }
+
+        List<ChunkedLayer> chunkedLayers = tiledMap.getChunkedLayers();
+        for (int i = 0; i < chunkedLayers.size(); i++)
+        {
+            if (chunkedLayers.get(i).name().equals(layerName)) return renderLayerOf(layerName, layers.size() + i);
+        }
+        return -1;
+    }
+
+    /**
+     * Sets a fixed internal resolution to render at (null renders at the output resolution).
+     * <p>
+     * Example for 16x16 pixel art: {@code new Renderer(camera, map, 16)} with
+     * {@code setRenderTarget(new RenderTarget(640, 360, RenderTarget.ScaleMode.INTEGER))}.
+     *
+     * @param renderTarget The render target.
+     */
+    public void setRenderTarget(RenderTarget renderTarget)
+    {
+        this.renderTarget = renderTarget;
+    }
+
+    /**
+     * @return The active render target, or null.
+     */
+    public RenderTarget getRenderTarget()
+    {
+        return renderTarget;
+    }
+
+    /**
+     * Renders a frame to an output of the given size, going through the render target if one is set.
+     *
+     * @param graphics2D The output Graphics2D context.
+     * @param outputWidth Output width in pixels.
+     * @param outputHeight Output height in pixels.
+     */
+    public void renderFrame(Graphics2D graphics2D, int outputWidth, int outputHeight)
+    {
+        Lock mapLock = lockMap();
+        try
+        {
+            if (renderTarget == null)
+            {
+                renderTo(graphics2D, outputWidth, outputHeight, Color.BLACK);
+                return;
+            }
+
+            Graphics2D targetGraphics = renderTarget.begin();
+            try
+            {
+                if (backend == Backend.RASTER && RasterBlitter.isSupportedTarget(renderTarget.getBuffer()))
+                {
+                    render(blitterFor(renderTarget.getBuffer()));
+                }
+                else
+                {
+                    renderTo(targetGraphics, renderTarget.getWidth(), renderTarget.getHeight(), renderTarget.getClearColor());
+                }
+            }
+            finally
+            {
+                targetGraphics.dispose();
+            }
+        }
+        finally
+        {
+            if (mapLock != null) mapLock.unlock();
+        }
+
+        renderTarget.present(graphics2D, outputWidth, outputHeight);
     }
 
     /**
@@ -77,55 +515,302 @@ public class Renderer
         // Reset any previous transforms so we draw in clean pixel space
         graphics2D.setTransform(new AffineTransform());
 
-        // Draw the tile map layers if a map is loaded
-        if (tiledMap != null)
-            renderMapLayers(graphics2D);
+        Lock mapLock = lockMap();
+        try
+        {
+            recordFrame();
+            spriteBatch.flush(graphics2D);
+        }
+        finally
+        {
+            if (mapLock != null) mapLock.unlock();
+        }
+    }
+
+    /**
+     * Renders the map and all game objects by writing pixels directly into a blitter's target.
+     *
+     * @param blitter The blitter to draw with.
+     */
+    public void render(RasterBlitter blitter)
+    {
+        Lock mapLock = lockMap();
+        try
+        {
+            blitter.beginFrame();
+            recordFrame();
+            if (stripRenderer != null) stripRenderer.flush(spriteBatch, blitter);
+            else spriteBatch.flush(blitter);
+        }
+        finally
+        {
+            if (mapLock != null) mapLock.unlock();
+        }
+    }
+
+    /**
+     * Keeps a hot reload from changing the map or the caches built on it during a frame.
+     *
+     * @return The locked read lock of the hot reloader, or null if there is none.
+     */
+    private Lock lockMap()
+    {
+        if (mapHotReloader == null) return null;
 
-        // Draw all game objects
-        renderGameObjects(graphics2D);
+        Lock lock = mapHotReloader.getReadLock();
+        lock.lock();
+        return lock;
     }
 
     /**
-     * Renders all layers of the currently loaded TiledMap.
+     * Renders a frame with the active backend and mode.
      *
      * @param graphics2D The Graphics2D context to draw onto.
+     * @param width Frame width in pixels.
+     * @param height Frame height in pixels.
+     * @param background Color behind everything.
+     */
+    private void renderTo(Graphics2D graphics2D, int width, int height, Color background)
+    {
+        if (backend == Backend.RASTER) renderRaster(graphics2D, width, height);
+        else if (dirtyRectRenderer != null) renderDirty(graphics2D, width, height, background);
+        else render(graphics2D);
+    }
+
+    /**
+     * Updates the dirty-rectangle backbuffer and copies it to the output.
+     *
+     * @param graphics2D The output Graphics2D context.
+     * @param width Frame width in pixels.
+     * @param height Frame height in pixels.
+     * @param background Color behind everything.
+     */
+    private void renderDirty(Graphics2D graphics2D, int width, int height, Color background)
+    {
+        if (width <= 0 || height <= 0) return;
+
+        // A camera move shifts every pixel
+        if (camera.getX() != lastCameraX || camera.getY() != lastCameraY)
+        {
+            dirtyRectRenderer.invalidateAll();
+            lastCameraX = camera.getX();
+            lastCameraY = camera.getY();
+        }
+
+        recordFrame();
+        BufferedImage frame = dirtyRectRenderer.render(spriteBatch, width, height, background);
+
+        graphics2D.setTransform(new AffineTransform());
+        graphics2D.drawImage(frame, 0, 0, null);
+    }
+
+    /**
+     * Renders through the RASTER backend into the software frame buffer, then copies it to the output.
+     *
+     * @param graphics2D The output Graphics2D context.
+     * @param outputWidth Output width in pixels.
+     * @param outputHeight Output height in pixels.
+     */
+    private void renderRaster(Graphics2D graphics2D, int outputWidth, int outputHeight)
+    {
+        if (outputWidth <= 0 || outputHeight <= 0) return;
+
+        if (rasterFrame == null || rasterFrame.getWidth() != outputWidth || rasterFrame.getHeight() != outputHeight)
+        {
+            rasterFrame = new BufferedImage(outputWidth, outputHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+
+        RasterBlitter blitter = blitterFor(rasterFrame);
+        blitter.clear(0xFF000000);
+        render(blitter);
+
+        graphics2D.setTransform(new AffineTransform());
+        graphics2D.drawImage(rasterFrame, 0, 0, null);
+    }
+
+    /**
+     * Gets the blitter for a target image, creating it when the target changes.
+     * The source cache carries over so images are not converted again.
+     *
+     * @param target The frame buffer.
+     * @return Its blitter.
+     */
+    private RasterBlitter blitterFor(BufferedImage target)
+    {
+        if (rasterBlitter == null || rasterBlitter.getTarget() != target)
+        {
+            rasterBlitter = rasterBlitter == null ? new RasterBlitter(target) : rasterBlitter.retarget(target);
+        }
+        return rasterBlitter;
+    }
+
+    /**
+     * Records this frame's tiles and objects into the SpriteBatch, sorted and ready to flush.
+     */
+    private void recordFrame()
+    {
+        // Sort this frame's objects by layer and depth
+        buildRenderQueue();
+        spriteBatch.begin();
+        nextDepth = 0;
+        int nextObject = 0;
+
+        // Draw the tile map layers if a map is loaded, with objects interleaved between them
+        if (tiledMap != null)
+        {
+            List<TiledLayer> layers = tiledMap.getLayers();
+            for (int i = 0; i < layers.size(); i++)
+            {
+                TiledLayer tiledLayer = layers.get(i);
+                int layerRenderLayer = renderLayerOf(tiledLayer.name(), i);
+
+                // Objects on lower render layers go underneath this map layer
+                nextObject = submitGameObjects(nextObject, layerRenderLayer);
+                submitTileLayer(tiledLayer, i);
+            }
+
+            // Infinite maps: make sure the chunks around the camera are loaded, then draw them
+            if (chunkStreamer != null)
+            {
+                chunkStreamer.update(camera.getX(), camera.getY(), camera.getViewportUnitsWidth(), camera.getViewportUnitsHeight());
+            }
+
+            // Chunked layers are numbered after the fixed layers, so the two never share a slot
+            List<ChunkedLayer> chunkedLayers = tiledMap.getChunkedLayers();
+            for (int i = 0; i < chunkedLayers.size(); i++)
+            {
+                ChunkedLayer chunkedLayer = chunkedLayers.get(i);
+                nextObject = submitGameObjects(nextObject, renderLayerOf(chunkedLayer.name(), layers.size() + i));
+                submitChunkedLayer(chunkedLayer, nextDepth++);
+            }
+        }
+
+        // Draw all remaining game objects
+        submitGameObjects(nextObject, Integer.MAX_VALUE);
+
+        // Sort by depth, then texture
+        spriteBatch.sort();
+    }
+
+    /**
+     * Creates the default chunk streamer if the current map is infinite.
+     */
+    private void createChunkStreamer()
+    {
+        ownsChunkStreamer = tiledMap != null && tiledMap.isInfinite();
+        if (ownsChunkStreamer) chunkStreamer = new ChunkStreamer(tiledMap, ChunkStreamer.DEFAULT_RADIUS);
+    }
+
+    /**
+     * Gets the render layer for a map layer.
+     *
+     * @param layerName Name of the layer.
+     * @param index Its index in the map, counting fixed layers first, then chunked layers.
+     * @return The render layer.
+     */
+    private int renderLayerOf(String layerName, int index)
+    {
+        Integer override = tiledLayerRenderLayers.get(layerName);
+        return override != null ? override : index;
+    }
+
+    /**
+     * Fills and sorts the render queue with every GameObject.
+     */
+    private void buildRenderQueue()
+    {
+        renderQueue.clear();
+        for (int i = 0; i < gameObjects.size(); i++)
+        {
+            GameObject obj = gameObjects.get(i);
+            renderQueue.submit(obj, obj.getRenderLayer(), obj.getSortY());
+        }
+        renderQueue.sort();
+    }
+
+    /**
+     * Records one layer of the currently loaded TiledMap.
+     * <p>
+     * All tiles of a layer share one depth, so the batch is free to group them by tileset image.
+     * Tiles covered by an opaque tile on a higher layer are skipped.
+     *
+     * @param tiledLayer The layer to draw.
+     * @param layerIndex Index of the layer in the map.
+     */
+    private void submitTileLayer(TiledLayer tiledLayer, int layerIndex)
+    {
+        int depth = nextDepth++;
+
+        if (tileChunkCache != null)
+        {
+            submitTileChunks(tiledLayer, layerIndex, depth);
+            return;
+        }
+
+        TileOcclusion occlusion = tiledMap.getOcclusion();
+
+        for (int y = 0; y < tiledLayer.height(); y++)
+        {
+            for (int x = 0; x < tiledLayer.width(); x++)
+            {
+                int gid = tiledLayer.getGid(x, y);
+                if (gid == 0) continue; // No tile here
+                if (occlusion.isHidden(layerIndex, x, y)) continue; // Covered by an opaque tile above
+
+                // Calculate screen pixel position (applying camera offset)
+                int pixelX = Math.round((x - camera.getX()) * pixelsPerUnit);
+                int pixelY = Math.round((y - camera.getY()) * pixelsPerUnit);
+
+                submitTile(gid, tiledLayer.getFlags(x, y), pixelX, pixelY, depth);
+            }
+        }
+    }
+
+    /**
+     * Records the baked chunks of a layer that are inside the camera viewport,
+     * followed by the animated tiles of each chunk.
+     *
+     * @param tiledLayer The layer to draw.
+     * @param layerIndex Index of the layer in the map.
+     * @param depth Draw depth of the layer.
      */
-    private void renderMapLayers(Graphics2D graphics2D)
+    private void submitTileChunks(TiledLayer tiledLayer, int layerIndex, int depth)
     {
-        for (TiledLayer tiledLayer : tiledMap.getLayers())
+        int chunkTiles = tileChunkCache.getChunkTiles();
+
+        // Visible tile range, clamped to the layer
+        int minX = Math.max(0, (int) Math.floor(camera.getX()));
+        int minY = Math.max(0, (int) Math.floor(camera.getY()));
+        int maxX = Math.min(tiledLayer.width() - 1, (int) Math.ceil(camera.getX() + camera.getViewportUnitsWidth()));
+        int maxY = Math.min(tiledLayer.height() - 1, (int) Math.ceil(camera.getY() + camera.getViewportUnitsHeight()));
+        if (minX > maxX || minY > maxY) return;
+
+        for (int chunkY = minY / chunkTiles; chunkY <= maxY / chunkTiles; chunkY++)
         {
-            for (int y = 0; y < tiledLayer.height(); y++)
+            for (int chunkX = minX / chunkTiles; chunkX <= maxX / chunkTiles; chunkX++)
             {
-                for (int x = 0; x < tiledLayer.width(); x++)
+                TileChunkCache.Chunk chunk = tileChunkCache.getChunk(tiledMap, layerIndex, chunkX, chunkY, pixelsPerUnit, tileClock);
+
+                // Chunk origin on screen; its tiles are laid out in whole tiles from here
+                int originX = Math.round((chunk.getStartX() - camera.getX()) * pixelsPerUnit);
+                int originY = Math.round((chunk.getStartY() - camera.getY()) * pixelsPerUnit);
+
+                BufferedImage image = chunk.getImage();
+                if (image != null)
+                {
+                    spriteBatch.draw(image, originX, originY, image.getWidth(), image.getHeight(), depth);
+                }
+
+                for (int i = 0; i < chunk.getAnimatedCellCount(); i++)
                 {
-                    long gid = tiledLayer.tileData()[y][x];
-                    if (gid == 0) continue; // No tile here
-
-                    TiledTileset ts = getTilesetForTile(gid);
-                    if (ts == null) continue;
-
-                    int localId = (int)(gid - ts.firstGID());
-                    Image img = ts.getImage();
-                    if (img == null) continue;
-
-                    int sheetW = img.getWidth(null);
-                    int tilesPerRow = sheetW / tiledMap.getTileWidth();
-
-                    int sx = (localId % tilesPerRow) * tiledMap.getTileWidth();
-                    int sy = (localId / tilesPerRow) * tiledMap.getTileHeight();
-
-                    // Calculate screen pixel position (applying camera offset)
-                    int pixelX = Math.round((x - camera.getX()) * pixelsPerUnit);
-                    int pixelY = Math.round((y - camera.getY()) * pixelsPerUnit);
-
-                    // Draw one tile from the tileset
-                    graphics2D.drawImage(
-                            img,
-                            pixelX, pixelY,
-                            pixelX + pixelsPerUnit, pixelY + pixelsPerUnit,
-                            sx, sy,
-                            sx + tiledMap.getTileWidth(), sy + tiledMap.getTileHeight(),
-                            null
+                    int x = chunk.getAnimatedCellX(i);
+                    int y = chunk.getAnimatedCellY(i);
+                    submitTile(
+                            tiledLayer.getGid(x, y),
+                            tiledLayer.getFlags(x, y),
+                            originX + (x - chunk.getStartX()) * pixelsPerUnit,
+                            originY + (y - chunk.getStartY()) * pixelsPerUnit,
+                            depth
                     );
                 }
             }
@@ -133,39 +818,128 @@ public class Renderer
     }
 
     /**
-     * Finds the correct tileset for a given global tile ID (gid).
+     * Records the visible tiles of an infinite map layer from its resident chunks.
      *
-     * @param gid The global tile ID.
-     * @return The TiledTileset that contains this tile, or null if not found.
+     * @param chunkedLayer The layer to draw.
+     * @param depth Draw depth of the layer.
      */
-    private TiledTileset getTilesetForTile(long gid)
+    private void submitChunkedLayer(ChunkedLayer chunkedLayer, int depth)
     {
-        TiledTileset best = null;
+        int chunkWidth = chunkedLayer.getChunkWidth();
+        int chunkHeight = chunkedLayer.getChunkHeight();
+
+        // Visible tile range (tile coordinates can be negative)
+        int minX = (int) Math.floor(camera.getX());
+        int minY = (int) Math.floor(camera.getY());
+        int maxX = (int) Math.ceil(camera.getX() + camera.getViewportUnitsWidth()) - 1;
+        int maxY = (int) Math.ceil(camera.getY() + camera.getViewportUnitsHeight()) - 1;
 
-        // Search through all tilesets, find the highest firstGID that is <= gid
-        for (TiledTileset ts : tiledMap.getTilesets())
+        for (int chunkY = Math.floorDiv(minY, chunkHeight); chunkY <= Math.floorDiv(maxY, chunkHeight); chunkY++)
         {
-            if (gid >= ts.firstGID()) best = ts;
+            for (int chunkX = Math.floorDiv(minX, chunkWidth); chunkX <= Math.floorDiv(maxX, chunkWidth); chunkX++)
+            {
+                TiledLayer chunk = chunkedLayer.getChunk(chunkX, chunkY);
+                if (chunk == null) continue; // Empty area, or not loaded
+
+                int startX = chunkX * chunkWidth;
+                int startY = chunkY * chunkHeight;
+                int fromX = Math.max(minX, startX) - startX;
+                int fromY = Math.max(minY, startY) - startY;
+                int toX = Math.min(maxX, startX + chunk.width() - 1) - startX;
+                int toY = Math.min(maxY, startY + chunk.height() - 1) - startY;
+
+                for (int y = fromY; y <= toY; y++)
+                {
+                    for (int x = fromX; x <= toX; x++)
+                    {
+                        int index = y * chunk.width() + x;
+                        int gid = chunk.getGid(index);
+                        if (gid == 0) continue;
+
+                        int pixelX = Math.round((startX + x - camera.getX()) * pixelsPerUnit);
+                        int pixelY = Math.round((startY + y - camera.getY()) * pixelsPerUnit);
+                        submitTile(gid, chunk.getFlags(index), pixelX, pixelY, depth);
+                    }
+                }
+            }
         }
+    }
+
+    /**
+     * Records one map tile, showing the current frame if it is animated.
+     * <p>
+     * Flipped tiles are drawn from a flipped copy of their tileset sheet, using the same source rectangle.
+     *
+     * @param gid The tile's GID (without flip flags).
+     * @param flags The tile's flip flags.
+     * @param pixelX Screen X in pixels.
+     * @param pixelY Screen Y in pixels.
+     * @param depth Draw depth.
+     */
+    private void submitTile(int gid, int flags, int pixelX, int pixelY, int depth)
+    {
+        if (tileClock != null) gid = (int) tileClock.remap(gid);
 
-        return best;
+        TiledTileset ts = tiledMap.getTilesetForTile(gid);
+        if (ts == null) return;
+
+        int localId = gid - ts.firstGID();
+        Image img = flags == 0 ? ts.getImage() : ts.getFlippedImage(flags, tiledMap.getTileWidth(), tiledMap.getTileHeight());
+        if (img == null) return;
+
+        int sheetW = img.getWidth(null);
+        int tilesPerRow = sheetW / tiledMap.getTileWidth();
+
+        int sx = (localId % tilesPerRow) * tiledMap.getTileWidth();
+        int sy = (localId / tilesPerRow) * tiledMap.getTileHeight();
+
+        // Record one tile from the tileset
+        spriteBatch.draw(
+                img,
+                sx, sy, tiledMap.getTileWidth(), tiledMap.getTileHeight(),
+                pixelX, pixelY, pixelsPerUnit, pixelsPerUnit,
+                depth
+        );
     }
 
     /**
-     * Renders all GameObjects relative to the camera position.
+     * Records queued GameObjects, in sorted order, relative to the camera position.
+     * <p>
+     * Objects on the same render layer whose sort Y falls on the same pixel row share a depth,
+     * so the batch may group them by texture. Everything else keeps its sorted order.
      *
-     * @param graphics2D The Graphics2D context to draw onto.
+     * @param start First queue position to draw.
+     * @param belowLayer Stop at the first object whose render layer is at or above this.
+     * @return The queue position to continue from.
      */
-    private void renderGameObjects(Graphics2D graphics2D)
+    private int submitGameObjects(int start, int belowLayer)
     {
-        for (GameObject obj : gameObjects)
+        int previousLayer = -1;
+        int previousRow = Integer.MIN_VALUE;
+        int depth = nextDepth;
+
+        int index = start;
+        for (; index < renderQueue.size() && renderQueue.getLayer(index) < belowLayer; index++)
         {
+            GameObject obj = renderQueue.get(index);
+
+            // New depth whenever the layer or pixel row changes
+            int layer = renderQueue.getLayer(index);
+            int row = (int) Math.floor(obj.getSortY() * pixelsPerUnit);
+            if (layer != previousLayer || row != previousRow)
+            {
+                depth = nextDepth++;
+                previousLayer = layer;
+                previousRow = row;
+            }
+
             // Convert world position into screen pixel coordinates
             int px = Math.round((float)(obj.getCoordinateX() - camera.getX()) * pixelsPerUnit);
             int py = Math.round((float)(obj.getCoordinateY() - camera.getY()) * pixelsPerUnit);
 
-            // Let the GameObject draw itself
-            obj.drawAtPixel(graphics2D, px, py, pixelsPerUnit);
+            // Let the GameObject record its sprites
+            obj.submitSprites(spriteBatch, px, py, pixelsPerUnit, depth);
         }
+        return index;
     }
 }
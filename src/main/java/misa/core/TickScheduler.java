@@ -0,0 +1,274 @@
+package misa.core;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TickScheduler decides which Updatables run on each game tick.
+ * <p>
+ * Updatables with a tick interval of 1 run every tick. Updatables with a larger interval N
+ * are spread across N buckets, and only one bucket runs per tick. This keeps the per-tick
+ * cost flat: 10,000 objects ticking every 10th tick cost roughly 1,000 updates per tick,
+ * instead of 10,000 updates on one tick and none on the next nine.
+ * <p>
+ * New Updatables always go into the least-populated bucket of their interval, so the load
+ * stays evenly spread as objects are added and removed.
+ * <p>
+ * Updatables are tracked by identity, and removal is constant time. An Updatable removed
+ * while the schedule is ticking (e.g. one removing itself from its own update) does not run
+ * again, and the Updatables after it still run on this tick.
+ */
+@SuppressWarnings("unused")
+public class TickScheduler
+{
+    // Updatables that run every single tick (interval 1)
+    private final Bucket everyTick = new Bucket();
+
+    // Bucketed groups for intervals > 1, one per distinct interval
+    private final List<TickGroup> groups = new ArrayList<>();
+
+    // Where each scheduled Updatable is stored (needed for removal)
+    private final Map<Updatable, Slot> slots = new IdentityHashMap<>();
+
+    // Slots removed during tick(), taken out of their buckets once the tick is over
+    private final List<Slot> pendingRemovals = new ArrayList<>();
+    private boolean ticking;
+
+    // Number of ticks run so far
+    private long currentTick;
+
+    /**
+     * Registers an Updatable using its own {@link Updatable#getTickInterval()}.
+     *
+     * @param updatable The Updatable to schedule.
+     */
+    public void add(Updatable updatable)
+    {
+        add(updatable, updatable.getTickInterval());
+    }
+
+    /**
+     * Registers an Updatable with an explicit tick interval. An Updatable that is already
+     * scheduled is moved to the new interval.
+     *
+     * @param updatable    The Updatable to schedule.
+     * @param tickInterval Run once every this many ticks (values below 1 are treated as 1).
+     */
+    public void add(Updatable updatable, int tickInterval)
+    {
+        remove(updatable);
+
+        Bucket bucket = tickInterval <= 1 ? everyTick : findOrCreateGroup(tickInterval).emptiestBucket();
+        slots.put(updatable, bucket.add(updatable));
+    }
+
+    /**
+     * Removes an Updatable from the schedule.
+     *
+     * @param updatable The Updatable to remove.
+     * @return True if it was scheduled and has been removed.
+     */
+    public boolean remove(Updatable updatable)
+    {
+        Slot slot = slots.remove(updatable);
+        if (slot == null) return false;
+
+        if (ticking)
+        {
+            // The tick loops walk the buckets by index; keep them in place until the tick ends
+            slot.updatable = null;
+            pendingRemovals.add(slot);
+        }
+        else
+        {
+            slot.bucket.remove(slot);
+        }
+        return true;
+    }
+
+    /**
+     * Moves an Updatable to a new tick interval.
+     * <p>
+     * Call this after an object changes its tick interval at runtime.
+     *
+     * @param updatable The Updatable to move.
+     */
+    public void reschedule(Updatable updatable)
+    {
+        if (slots.containsKey(updatable))
+        {
+            add(updatable);
+        }
+    }
+
+    /**
+     * Runs one tick: every interval-1 Updatable, plus the current bucket of each interval group.
+     */
+    public void tick()
+    {
+        ticking = true;
+        try
+        {
+            // Indexed loops so Updatables can safely register new Updatables while running
+            everyTick.run();
+
+            for (int i = 0; i < groups.size(); i++)
+            {
+                groups.get(i).run(currentTick);
+            }
+        }
+        finally
+        {
+            ticking = false;
+            for (int i = 0; i < pendingRemovals.size(); i++)
+            {
+                Slot slot = pendingRemovals.get(i);
+                slot.bucket.remove(slot);
+            }
+            pendingRemovals.clear();
+        }
+
+        currentTick++;
+    }
+
+    /**
+     * @return The number of ticks that have run so far.
+     */
+    public long getCurrentTick()
+    {
+        return currentTick;
+    }
+
+    /**
+     * @return Total number of scheduled Updatables.
+     */
+    public int size()
+    {
+        return slots.size();
+    }
+
+    /**
+     * Converts a desired update rate into a tick interval.
+     *
+     * @param targetUPS The game loop's updates per second.
+     * @param hertz     How many times per second the object wants to update.
+     * @return The matching tick interval (at least 1).
+     */
+    public static int intervalForRate(int targetUPS, float hertz)
+    {
+        if (hertz <= 0) return 1;
+        return Math.max(1, Math.round(targetUPS / hertz));
+    }
+
+    /**
+     * Finds the group for an interval, creating it if needed.
+     *
+     * @param tickInterval The interval to look up.
+     * @return The group responsible for this interval.
+     */
+    private TickGroup findOrCreateGroup(int tickInterval)
+    {
+        for (TickGroup group : groups)
+        {
+            if (group.interval == tickInterval) return group;
+        }
+
+        TickGroup group = new TickGroup(tickInterval);
+        groups.add(group);
+        return group;
+    }
+
+    /**
+     * Where one scheduled Updatable is stored. The Updatable is cleared when it is removed mid-tick.
+     */
+    private static final class Slot
+    {
+        private Updatable updatable;
+        private final Bucket bucket;
+        private int index;
+
+        private Slot(Updatable updatable, Bucket bucket, int index)
+        {
+            this.updatable = updatable;
+            this.bucket = bucket;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Updatables that run on the same ticks, in no particular order.
+     */
+    private static final class Bucket
+    {
+        private final List<Slot> slots = new ArrayList<>();
+
+        private Slot add(Updatable updatable)
+        {
+            Slot slot = new Slot(updatable, this, slots.size());
+            slots.add(slot);
+            return slot;
+        }
+
+        private void remove(Slot slot)
+        {
+            // Swap the last slot into the hole
+            Slot last = slots.remove(slots.size() - 1);
+            if (last != slot)
+            {
+                slots.set(slot.index, last);
+                last.index = slot.index;
+            }
+        }
+
+        private void run()
+        {
+            for (int i = 0; i < slots.size(); i++)
+            {
+                Updatable updatable = slots.get(i).updatable;
+                if (updatable != null) updatable.update();
+            }
+        }
+
+        private int size()
+        {
+            return slots.size();
+        }
+    }
+
+    /**
+     * A set of buckets for one tick interval. Bucket {@code tick % interval} runs each tick.
+     */
+    private static final class TickGroup
+    {
+        private final int interval;
+        private final Bucket[] buckets;
+
+        private TickGroup(int interval)
+        {
+            this.interval = interval;
+            this.buckets = new Bucket[interval];
+            for (int i = 0; i < interval; i++)
+            {
+                buckets[i] = new Bucket();
+            }
+        }
+
+        private Bucket emptiestBucket()
+        {
+            // Always fill the emptiest bucket to keep per-tick load even
+            Bucket smallest = buckets[0];
+            for (Bucket bucket : buckets)
+            {
+                if (bucket.size() < smallest.size()) smallest = bucket;
+            }
+            return smallest;
+        }
+
+        private void run(long tick)
+        {
+            buckets[(int) (tick % interval)].run();
+        }
+    }
+}
@@ -14,4 +14,18 @@ public interface Updatable
      * This method should contain logic that needs to run every frame.
      */
     void update();
+
+    /**
+     * How often this object should be updated, in ticks.
+     * <p>
+     * 1 means every tick. Larger values are useful for slow systems such as AI thinking
+     * or regeneration: at 60 UPS, an interval of 10 updates the object 6 times per second.
+     * The interval is read when the object is registered with the GameLoop.
+     *
+     * @return Number of ticks between updates (1 or more).
+     */
+    default int getTickInterval()
+    {
+        return 1;
+    }
 }
@@ -0,0 +1,19 @@
+package misa.core.rendering;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * The location of one packed image inside a {@link TextureAtlas} page.
+ *
+ * <p>
+ * Each AtlasRegion contains:
+ * <ul>
+ *     <li><b>page</b> - The atlas image the source was copied into.</li>
+ *     <li><b>x</b>, <b>y</b> - Top-left corner of the region inside the page.</li>
+ *     <li><b>width</b>, <b>height</b> - Size of the region (same as the source image).</li>
+ * </ul>
+ * </p>
+ */
+public record AtlasRegion(BufferedImage page, int x, int y, int width, int height)
+{
+}
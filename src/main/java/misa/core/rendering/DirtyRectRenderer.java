@@ -0,0 +1,86 @@
+package misa.core.rendering;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * DirtyRectRenderer keeps a persistent backbuffer and only redraws the parts that changed.
+ *
+ * <p>
+ * Each frame, a {@link DirtyRegionTracker} compares the recorded {@link SpriteBatch} with the
+ * previous one. Only the commands touching dirty cells are drawn, clipped to the dirty area;
+ * the rest of the backbuffer keeps last frame's pixels. Static scenes (menus, dialogue,
+ * an idle overworld) then cost almost nothing to draw.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class DirtyRectRenderer
+{
+    private final DirtyRegionTracker tracker;
+    private BufferedImage backbuffer;
+
+    /**
+     * Creates a dirty-rectangle renderer.
+     *
+     * @param cellSize Tracking cell size in pixels.
+     */
+    public DirtyRectRenderer(int cellSize)
+    {
+        this.tracker = new DirtyRegionTracker(cellSize);
+    }
+
+    /**
+     * Brings the backbuffer up to date with a sorted batch.
+     *
+     * @param batch The sorted batch for this frame.
+     * @param width Frame width in pixels.
+     * @param height Frame height in pixels.
+     * @param background Color behind everything.
+     * @return The backbuffer holding the complete frame.
+     */
+    public BufferedImage render(SpriteBatch batch, int width, int height, Color background)
+    {
+        if (backbuffer == null || backbuffer.getWidth() != width || backbuffer.getHeight() != height)
+        {
+            backbuffer = ImagePreparer.createTarget(Math.max(1, width), Math.max(1, height), Transparency.OPAQUE);
+            tracker.invalidateAll();
+        }
+
+        if (tracker.update(batch, width, height) == 0) return backbuffer;
+
+        Graphics2D graphics = backbuffer.createGraphics();
+        try
+        {
+            boolean full = tracker.isFullyDirty();
+            if (!full) graphics.setClip(tracker.getDirtyArea());
+
+            graphics.setColor(background);
+            graphics.fillRect(0, 0, width, height);
+            batch.flush(graphics, full ? null : tracker);
+        }
+        finally
+        {
+            graphics.dispose();
+        }
+
+        return backbuffer;
+    }
+
+    /**
+     * Redraws everything next frame.
+     */
+    public void invalidateAll()
+    {
+        tracker.invalidateAll();
+    }
+
+    /**
+     * @return The tracker (useful for dirty-cell statistics).
+     */
+    public DirtyRegionTracker getTracker()
+    {
+        return tracker;
+    }
+}
@@ -0,0 +1,272 @@
+package misa.core.rendering;
+
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.util.Arrays;
+
+/**
+ * DirtyRegionTracker finds the parts of the screen that changed since the last frame.
+ *
+ * <p>
+ * The screen is divided into square cells. Every frame, each cell gets a hash of all the
+ * {@link SpriteBatch} commands that touch it, in draw order. A cell whose hash differs from
+ * the previous frame is dirty: something was added, removed, moved or switched to another
+ * animation frame there. Only dirty cells need to be redrawn onto a persistent backbuffer.
+ * </p>
+ *
+ * <p>
+ * Custom draw commands cannot be hashed (their output is unknown), so the cells they touch
+ * are always dirty. Images are hashed by identity: if an image's pixels are modified in place,
+ * call {@link #invalidateAll()}.
+ * </p>
+ *
+ * <p>
+ * Java2D samples a scaled image slightly differently when it is clipped, so a scaled image
+ * that touches a dirty cell has all of its cells marked dirty and is always redrawn whole.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class DirtyRegionTracker
+{
+    private final int cellSize;
+
+    private int columns;
+    private int rows;
+    private int width;
+    private int height;
+
+    // Per-cell hashes of the previous and the current frame
+    private long[] previousHashes = new long[0];
+    private long[] currentHashes = new long[0];
+
+    // Cells that must be redrawn this frame
+    private boolean[] dirty = new boolean[0];
+    private int dirtyCellCount;
+
+    private boolean invalidateAll = true;
+
+    /**
+     * Creates a tracker.
+     *
+     * @param cellSize Cell size in pixels (smaller cells redraw less but cost more to track).
+     */
+    public DirtyRegionTracker(int cellSize)
+    {
+        if (cellSize <= 0)
+            throw new IllegalArgumentException("cellSize must be > 0.");
+
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Marks the whole screen dirty for the next frame (e.g. after the camera moved).
+     */
+    public void invalidateAll()
+    {
+        invalidateAll = true;
+    }
+
+    /**
+     * Compares a sorted batch against the previous frame and finds the dirty cells.
+     *
+     * @param batch The sorted batch for this frame.
+     * @param screenWidth Screen width in pixels.
+     * @param screenHeight Screen height in pixels.
+     * @return Number of dirty cells.
+     */
+    public int update(SpriteBatch batch, int screenWidth, int screenHeight)
+    {
+        if (screenWidth != width || screenHeight != height) resize(screenWidth, screenHeight);
+
+        Arrays.fill(currentHashes, 0L);
+        Arrays.fill(dirty, false);
+
+        for (int i = 0; i < batch.size(); i++)
+        {
+            int dx = batch.destination(i, 0);
+            int dy = batch.destination(i, 1);
+            int dw = batch.destination(i, 2);
+            int dh = batch.destination(i, 3);
+
+            int minColumn = Math.max(0, Math.floorDiv(dx, cellSize));
+            int minRow = Math.max(0, Math.floorDiv(dy, cellSize));
+            int maxColumn = Math.min(columns - 1, Math.floorDiv(dx + dw - 1, cellSize));
+            int maxRow = Math.min(rows - 1, Math.floorDiv(dy + dh - 1, cellSize));
+            if (minColumn > maxColumn || minRow > maxRow) continue; // Off screen
+
+            boolean custom = batch.isCustom(i);
+            long hash = batch.commandHash(i);
+
+            for (int row = minRow; row <= maxRow; row++)
+            {
+                for (int column = minColumn; column <= maxColumn; column++)
+                {
+                    int cell = row * columns + column;
+                    currentHashes[cell] = currentHashes[cell] * 0xBF58476D1CE4E5B9L + hash;
+                    if (custom) dirty[cell] = true;
+                }
+            }
+        }
+
+        for (int cell = 0; cell < dirty.length; cell++)
+        {
+            if (invalidateAll || currentHashes[cell] != previousHashes[cell]) dirty[cell] = true;
+        }
+        invalidateAll = false;
+
+        // Scaled images are redrawn whole; repeat since growing one can touch another
+        boolean grown = true;
+        while (grown)
+        {
+            grown = false;
+            for (int i = 0; i < batch.size(); i++)
+            {
+                if (!batch.isScaled(i)) continue;
+
+                int dx = batch.destination(i, 0);
+                int dy = batch.destination(i, 1);
+                int dw = batch.destination(i, 2);
+                int dh = batch.destination(i, 3);
+                if (isDirty(dx, dy, dw, dh) && markDirty(dx, dy, dw, dh)) grown = true;
+            }
+        }
+
+        dirtyCellCount = 0;
+        for (boolean cellDirty : dirty)
+        {
+            if (cellDirty) dirtyCellCount++;
+        }
+
+        // This frame becomes the reference for the next one
+        long[] swap = previousHashes;
+        previousHashes = currentHashes;
+        currentHashes = swap;
+
+        return dirtyCellCount;
+    }
+
+    /**
+     * Checks whether a rectangle touches any dirty cell.
+     *
+     * @param x Rectangle X (pixels).
+     * @param y Rectangle Y.
+     * @param rectWidth Rectangle width.
+     * @param rectHeight Rectangle height.
+     * @return True if part of the rectangle must be redrawn.
+     */
+    public boolean isDirty(int x, int y, int rectWidth, int rectHeight)
+    {
+        int minColumn = Math.max(0, Math.floorDiv(x, cellSize));
+        int minRow = Math.max(0, Math.floorDiv(y, cellSize));
+        int maxColumn = Math.min(columns - 1, Math.floorDiv(x + rectWidth - 1, cellSize));
+        int maxRow = Math.min(rows - 1, Math.floorDiv(y + rectHeight - 1, cellSize));
+
+        for (int row = minRow; row <= maxRow; row++)
+        {
+            for (int column = minColumn; column <= maxColumn; column++)
+            {
+                if (dirty[row * columns + column]) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks every cell a rectangle touches as dirty.
+     *
+     * @return True if any cell was not dirty before.
+     */
+    private boolean markDirty(int x, int y, int rectWidth, int rectHeight)
+    {
+        int minColumn = Math.max(0, Math.floorDiv(x, cellSize));
+        int minRow = Math.max(0, Math.floorDiv(y, cellSize));
+        int maxColumn = Math.min(columns - 1, Math.floorDiv(x + rectWidth - 1, cellSize));
+        int maxRow = Math.min(rows - 1, Math.floorDiv(y + rectHeight - 1, cellSize));
+
+        boolean changed = false;
+        for (int row = minRow; row <= maxRow; row++)
+        {
+            for (int column = minColumn; column <= maxColumn; column++)
+            {
+                int cell = row * columns + column;
+                if (!dirty[cell])
+                {
+                    dirty[cell] = true;
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Builds the dirty area as a shape, merging neighbouring dirty cells of a row into one rectangle.
+     *
+     * @return The dirty area (empty if nothing changed).
+     */
+    public Area getDirtyArea()
+    {
+        Area area = new Area();
+        for (int row = 0; row < rows; row++)
+        {
+            int column = 0;
+            while (column < columns)
+            {
+                if (!dirty[row * columns + column])
+                {
+                    column++;
+                    continue;
+                }
+
+                int start = column;
+                while (column < columns && dirty[row * columns + column]) column++;
+
+                int x = start * cellSize;
+                int y = row * cellSize;
+                area.add(new Area(new Rectangle(
+                        x, y,
+                        Math.min(width, column * cellSize) - x,
+                        Math.min(height, y + cellSize) - y
+                )));
+            }
+        }
+        return area;
+    }
+
+    /**
+     * @return Number of dirty cells found by the last update.
+     */
+    public int getDirtyCellCount()
+    {
+        return dirtyCellCount;
+    }
+
+    /**
+     * @return Total number of cells on screen.
+     */
+    public int getCellCount()
+    {
+        return dirty.length;
+    }
+
+    /**
+     * @return True if every cell was dirty in the last update.
+     */
+    public boolean isFullyDirty()
+    {
+        return dirtyCellCount == dirty.length;
+    }
+
+    private void resize(int screenWidth, int screenHeight)
+    {
+        width = Math.max(0, screenWidth);
+        height = Math.max(0, screenHeight);
+        columns = (width + cellSize - 1) / cellSize;
+        rows = (height + cellSize - 1) / cellSize;
+
+        previousHashes = new long[columns * rows];
+        currentHashes = new long[columns * rows];
+        dirty = new boolean[columns * rows];
+        invalidateAll = true;
+    }
+}
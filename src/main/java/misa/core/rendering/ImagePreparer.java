@@ -0,0 +1,198 @@
+package misa.core.rendering;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.logging.Logger;
+
+/**
+ * ImagePreparer converts loaded images into the pixel format that draws fastest.
+ *
+ * <p>
+ * {@code ImageIO.read} returns whatever layout the file used (3-byte BGR, indexed, 4-byte ABGR...).
+ * Java2D has to convert those pixels on every draw. Converting once at load time into an image
+ * created by the screen's {@link GraphicsConfiguration} lets every later draw take the fast path
+ * (and lets Java2D cache the image in video memory).
+ * </p>
+ *
+ * <p>
+ * The transparency of the result is chosen from the image's actual alpha values:
+ * <ul>
+ *     <li><b>OPAQUE</b> - every pixel has alpha 255.</li>
+ *     <li><b>BITMASK</b> - every pixel is either fully opaque or fully transparent (typical pixel art).</li>
+ *     <li><b>TRANSLUCENT</b> - some pixels are partially transparent.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * In headless environments (servers, tools, tests) there is no screen configuration, so images
+ * fall back to {@code TYPE_INT_RGB} (opaque) or {@code TYPE_INT_ARGB_PRE} (everything else),
+ * which are the fastest formats for Java2D's software loops.
+ * </p>
+ *
+ * <p>
+ * Set the system property {@code misa.images.benchmark=true} to log blit throughput before
+ * and after conversion for each prepared image.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public final class ImagePreparer
+{
+    private static final Logger LOGGER = Logger.getLogger(ImagePreparer.class.getName());
+
+    private static final boolean BENCHMARK = Boolean.getBoolean("misa.images.benchmark");
+    private static final int BENCHMARK_BLITS = 2000;
+
+    private ImagePreparer()
+    {
+    }
+
+    /**
+     * Converts an image into the fastest format to draw.
+     *
+     * @param image The loaded image (may be null).
+     * @return A compatible copy, the same image if it is already compatible, or null if the input was null.
+     */
+    public static BufferedImage prepare(BufferedImage image)
+    {
+        if (image == null) return null;
+
+        int transparency = classifyAlpha(image, 0, 0, image.getWidth(), image.getHeight());
+        BufferedImage prepared = createTarget(image.getWidth(), image.getHeight(), transparency);
+
+        // Already in the right format: nothing to do
+        if (prepared.getType() != BufferedImage.TYPE_CUSTOM
+                && prepared.getType() == image.getType()
+                && prepared.getColorModel().equals(image.getColorModel()))
+        {
+            return image;
+        }
+
+        Graphics2D graphics = prepared.createGraphics();
+        graphics.setComposite(AlphaComposite.Src);
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+
+        if (BENCHMARK)
+        {
+            double before = measureBlitThroughput(image, BENCHMARK_BLITS);
+            double after = measureBlitThroughput(prepared, BENCHMARK_BLITS);
+            LOGGER.info(String.format(
+                    "Prepared %dx%d image (type %d -> %d, %s): %.0f -> %.0f blits/s",
+                    image.getWidth(), image.getHeight(), image.getType(), prepared.getType(),
+                    transparencyName(transparency), before, after
+            ));
+        }
+
+        return prepared;
+    }
+
+    /**
+     * Classifies the alpha channel of a region of an image.
+     *
+     * @param image The image.
+     * @param x Region X.
+     * @param y Region Y.
+     * @param width Region width.
+     * @param height Region height.
+     * @return {@link Transparency#OPAQUE}, {@link Transparency#BITMASK} or {@link Transparency#TRANSLUCENT}.
+     */
+    public static int classifyAlpha(BufferedImage image, int x, int y, int width, int height)
+    {
+        if (!image.getColorModel().hasAlpha()) return Transparency.OPAQUE;
+
+        int[] row = new int[width];
+        boolean sawTransparent = false;
+
+        for (int rowY = y; rowY < y + height; rowY++)
+        {
+            image.getRGB(x, rowY, width, 1, row, 0, width);
+            for (int argb : row)
+            {
+                int alpha = argb >>> 24;
+                if (alpha == 0) sawTransparent = true;
+                else if (alpha != 255) return Transparency.TRANSLUCENT;
+            }
+        }
+
+        return sawTransparent ? Transparency.BITMASK : Transparency.OPAQUE;
+    }
+
+    /**
+     * Measures how many times per second an image can be drawn into a compatible target.
+     *
+     * @param image The image to draw.
+     * @param blits Number of draws to time.
+     * @return Draws per second.
+     */
+    public static double measureBlitThroughput(BufferedImage image, int blits)
+    {
+        BufferedImage target = createTarget(Math.max(1, image.getWidth()), Math.max(1, image.getHeight()), Transparency.OPAQUE);
+        Graphics2D graphics = target.createGraphics();
+
+        // Warm up so the timed loop measures the steady-state path
+        for (int i = 0; i < blits / 10; i++) graphics.drawImage(image, 0, 0, null);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < blits; i++) graphics.drawImage(image, 0, 0, null);
+        long elapsed = Math.max(1, System.nanoTime() - start);
+
+        graphics.dispose();
+        return blits * 1_000_000_000.0 / elapsed;
+    }
+
+    /**
+     * Creates an empty image in the best format for a transparency class.
+     *
+     * @param width Width in pixels.
+     * @param height Height in pixels.
+     * @param transparency A {@link Transparency} constant.
+     * @return A new image.
+     */
+    public static BufferedImage createTarget(int width, int height, int transparency)
+    {
+        GraphicsConfiguration configuration = screenConfiguration();
+        if (configuration != null)
+        {
+            return configuration.createCompatibleImage(width, height, transparency);
+        }
+
+        // Headless fallback: Java2D's fastest software formats
+        return new BufferedImage(
+                width,
+                height,
+                transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE
+        );
+    }
+
+    /**
+     * @return The default screen's GraphicsConfiguration, or null when headless.
+     */
+    private static GraphicsConfiguration screenConfiguration()
+    {
+        if (GraphicsEnvironment.isHeadless()) return null;
+
+        try
+        {
+            return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        }
+        catch (Exception e)
+        {
+            // No usable display (e.g. misconfigured DISPLAY); use the software formats
+            return null;
+        }
+    }
+
+    private static String transparencyName(int transparency)
+    {
+        return switch (transparency)
+        {
+            case Transparency.OPAQUE -> "opaque";
+            case Transparency.BITMASK -> "bitmask";
+            default -> "translucent";
+        };
+    }
+}
@@ -0,0 +1,103 @@
+package misa.core.rendering;
+
+import java.util.Arrays;
+
+/**
+ * Sorts {@code long} keys (with an {@code int} payload) using an LSD radix sort.
+ *
+ * <p>
+ * The sorter keeps its scratch buffers between calls, so sorting the same number of
+ * items every frame allocates nothing. Passes where every key shares the same byte
+ * are skipped, so keys that only differ in a few bytes sort in a few passes.
+ * </p>
+ *
+ * <p>
+ * Keys are compared as unsigned values. The sort is stable.
+ * </p>
+ */
+public class RadixSorter
+{
+    private static final int BITS_PER_PASS = 8;
+    private static final int BUCKETS = 1 << BITS_PER_PASS;
+    private static final int PASSES = Long.SIZE / BITS_PER_PASS;
+
+    private final int[] counts = new int[BUCKETS * PASSES];
+    private long[] scratchKeys = new long[0];
+    private int[] scratchValues = new int[0];
+
+    /**
+     * Sorts the first {@code count} keys in ascending unsigned order, moving payloads along with them.
+     *
+     * @param keys Sort keys (sorted in place).
+     * @param values Payload values (reordered in place to match the keys).
+     * @param count Number of entries to sort.
+     */
+    public void sort(long[] keys, int[] values, int count)
+    {
+        if (count < 2) return;
+
+        if (scratchKeys.length < count)
+        {
+            scratchKeys = new long[keys.length];
+            scratchValues = new int[keys.length];
+        }
+
+        // Build all byte histograms in a single read of the keys
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < count; i++)
+        {
+            long key = keys[i];
+            for (int pass = 0; pass < PASSES; pass++)
+            {
+                counts[pass * BUCKETS + (int) ((key >>> (pass * BITS_PER_PASS)) & (BUCKETS - 1))]++;
+            }
+        }
+
+        long[] sourceKeys = keys;
+        int[] sourceValues = values;
+        long[] targetKeys = scratchKeys;
+        int[] targetValues = scratchValues;
+
+        for (int pass = 0; pass < PASSES; pass++)
+        {
+            int base = pass * BUCKETS;
+            int shift = pass * BITS_PER_PASS;
+
+            // Skip the pass if every key has the same byte here
+            int firstDigit = (int) ((sourceKeys[0] >>> shift) & (BUCKETS - 1));
+            if (counts[base + firstDigit] == count) continue;
+
+            // Turn counts into starting offsets
+            int offset = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++)
+            {
+                int bucketCount = counts[base + bucket];
+                counts[base + bucket] = offset;
+                offset += bucketCount;
+            }
+
+            for (int i = 0; i < count; i++)
+            {
+                long key = sourceKeys[i];
+                int destination = counts[base + (int) ((key >>> shift) & (BUCKETS - 1))]++;
+                targetKeys[destination] = key;
+                targetValues[destination] = sourceValues[i];
+            }
+
+            // Swap buffers
+            long[] tempKeys = sourceKeys;
+            sourceKeys = targetKeys;
+            targetKeys = tempKeys;
+            int[] tempValues = sourceValues;
+            sourceValues = targetValues;
+            targetValues = tempValues;
+        }
+
+        // An odd number of passes leaves the result in the scratch buffers
+        if (sourceKeys != keys)
+        {
+            System.arraycopy(sourceKeys, 0, keys, 0, count);
+            System.arraycopy(sourceValues, 0, values, 0, count);
+        }
+    }
+}
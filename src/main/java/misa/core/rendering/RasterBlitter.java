@@ -0,0 +1,721 @@
+package misa.core.rendering;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RasterBlitter draws images by writing straight into the {@code int[]} pixels of a target image.
+ *
+ * <p>
+ * Each {@code Graphics2D.drawImage} call has a fixed cost (pipeline validation, loop lookup,
+ * clipping) that dominates when a frame is tens of thousands of small tiles. This blitter skips
+ * all of that and uses a specialised loop per case:
+ * <ul>
+ *     <li><b>Opaque, unscaled</b> - one {@code System.arraycopy} per row (into {@code TYPE_INT_ARGB_PRE}).</li>
+ *     <li><b>Bitmask, unscaled</b> - copies pixels whose alpha is not zero.</li>
+ *     <li><b>Translucent</b> - premultiplied SrcOver blending.</li>
+ *     <li><b>Scaled</b> - nearest-neighbour; whole-number scales build each output row once and copy it.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * The target must be {@code TYPE_INT_ARGB_PRE} or {@code TYPE_INT_RGB}. Blending uses the same
+ * 8-bit multiply table as Java2D's software loops, and fractional scales use the same fixed-point
+ * stepping as the Java2D loop that would draw the image's format, so results match
+ * {@code drawImage} with nearest-neighbour interpolation pixel for pixel. The
+ * {@code misa.test.RasterCheck} harness verifies this on random draws.
+ * </p>
+ *
+ * <p>
+ * Source images are converted to premultiplied {@code int[]} copies the first time they are
+ * drawn. This costs one extra copy of every drawn image in memory, so copies of images no
+ * frame has drawn for {@value #SOURCE_IDLE_FRAMES} frames are dropped again by
+ * {@link #beginFrame()}. Images that stop being drawn, such as pre-scaled copies evicted from a
+ * {@link ScaledImageCache} or chunks re-baked by a {@link TileChunkCache}, are freed that way.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class RasterBlitter
+{
+    // Java2D's MUL8 table: MUL8[a][b] ~= round(a * b / 255)
+    private static final byte[] MUL8 = buildMul8Table();
+
+    // (image format, target type) -> whether Java2D scales it with ScaledBlit rather than the transform loop
+    private static final Map<List<Object>, Boolean> SCALED_BLIT_FORMATS = new ConcurrentHashMap<>();
+
+    /** Source copies not drawn for this many frames are dropped. */
+    public static final int SOURCE_IDLE_FRAMES = 120;
+
+    // Frames between two sweeps of the source cache
+    private static final int SOURCE_SWEEP_INTERVAL = 60;
+
+    private final BufferedImage target;
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+    private final boolean opaqueTarget;
+
+    // Current clip (inclusive min, exclusive max)
+    private int clipMinX;
+    private int clipMinY;
+    private int clipMaxX;
+    private int clipMaxY;
+
+    // Premultiplied pixel copies, shared with bands and retargeted blitters
+    private final SourceCache sources;
+
+    // Last image drawn by this blitter, valid while the cache is at the same generation
+    private Image lastImage;
+    private SourcePixels lastSource;
+    private int lastGeneration;
+
+    // Scratch row for whole-number scaling
+    private int[] rowBuffer = new int[0];
+
+    /**
+     * Creates a blitter for a target image.
+     *
+     * @param target A {@code TYPE_INT_ARGB_PRE} or {@code TYPE_INT_RGB} image.
+     */
+    public RasterBlitter(BufferedImage target)
+    {
+        this(target, new SourceCache());
+    }
+
+    private RasterBlitter(BufferedImage target, SourceCache sources)
+    {
+        if (!isSupportedTarget(target))
+            throw new IllegalArgumentException("RasterBlitter needs a TYPE_INT_ARGB_PRE or TYPE_INT_RGB target.");
+
+        this.target = target;
+        this.pixels = ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+        this.width = target.getWidth();
+        this.height = target.getHeight();
+        this.opaqueTarget = target.getType() == BufferedImage.TYPE_INT_RGB;
+        this.sources = sources;
+        resetClip();
+    }
+
+    /**
+     * Creates a blitter for another target that shares this blitter's source cache
+     * (e.g. after the window was resized).
+     *
+     * @param target The new target image.
+     * @return A new blitter.
+     */
+    public RasterBlitter retarget(BufferedImage target)
+    {
+        if (!isSupportedTarget(target))
+            throw new IllegalArgumentException("RasterBlitter needs a TYPE_INT_ARGB_PRE or TYPE_INT_RGB target.");
+
+        return new RasterBlitter(target, sources);
+    }
+
+    /**
+     * Checks whether an image can be used as a blitter target.
+     *
+     * @param image The image.
+     * @return True for {@code TYPE_INT_ARGB_PRE} and {@code TYPE_INT_RGB} images.
+     */
+    public static boolean isSupportedTarget(BufferedImage image)
+    {
+        return image.getType() == BufferedImage.TYPE_INT_ARGB_PRE || image.getType() == BufferedImage.TYPE_INT_RGB;
+    }
+
+    /**
+     * Restricts drawing to a rectangle (intersected with the target bounds).
+     *
+     * @param x Clip X.
+     * @param y Clip Y.
+     * @param clipWidth Clip width.
+     * @param clipHeight Clip height.
+     */
+    public void setClip(int x, int y, int clipWidth, int clipHeight)
+    {
+        clipMinX = Math.max(0, x);
+        clipMinY = Math.max(0, y);
+        clipMaxX = Math.min(width, x + clipWidth);
+        clipMaxY = Math.min(height, y + clipHeight);
+    }
+
+    /**
+     * Removes the clip (the whole target is drawable).
+     */
+    public void resetClip()
+    {
+        setClip(0, 0, width, height);
+    }
+
+    /**
+     * Fills the clip area with one color, replacing what was there.
+     *
+     * @param argb Non-premultiplied ARGB color.
+     */
+    public void clear(int argb)
+    {
+        int value = storeValue(premultiply(argb));
+        for (int y = clipMinY; y < clipMaxY; y++)
+        {
+            int row = y * width;
+            Arrays.fill(pixels, row + clipMinX, row + clipMaxX, value);
+        }
+    }
+
+    /**
+     * Fills a rectangle with SrcOver blending (same as {@code Graphics2D.fillRect}).
+     *
+     * @param argb Non-premultiplied ARGB color.
+     * @param x Rectangle X.
+     * @param y Rectangle Y.
+     * @param rectWidth Rectangle width.
+     * @param rectHeight Rectangle height.
+     */
+    public void fillRect(int argb, int x, int y, int rectWidth, int rectHeight)
+    {
+        int minX = Math.max(clipMinX, x);
+        int minY = Math.max(clipMinY, y);
+        int maxX = Math.min(clipMaxX, x + rectWidth);
+        int maxY = Math.min(clipMaxY, y + rectHeight);
+        if (minX >= maxX || minY >= maxY) return;
+
+        int color = premultiply(argb);
+        int alpha = color >>> 24;
+        if (alpha == 0) return;
+
+        for (int py = minY; py < maxY; py++)
+        {
+            int row = py * width;
+            if (alpha == 255)
+            {
+                Arrays.fill(pixels, row + minX, row + maxX, storeValue(color));
+            }
+            else
+            {
+                for (int i = row + minX; i < row + maxX; i++) pixels[i] = blend(color, pixels[i]);
+            }
+        }
+    }
+
+    /**
+     * Draws a region of an image into a destination rectangle with nearest-neighbour sampling.
+     *
+     * @param image Source image.
+     * @param sx Source X.
+     * @param sy Source Y.
+     * @param sw Source width.
+     * @param sh Source height.
+     * @param dx Destination X.
+     * @param dy Destination Y.
+     * @param dw Destination width.
+     * @param dh Destination height.
+     */
+    public void drawImage(Image image, int sx, int sy, int sw, int sh, int dx, int dy, int dw, int dh)
+    {
+        if (sw <= 0 || sh <= 0 || dw <= 0 || dh <= 0) return;
+
+        SourcePixels source = sourceOf(image);
+        if (source == null) return;
+
+        // Keep the source rectangle inside the image
+        if (sx < 0 || sy < 0 || sx + sw > source.width || sy + sh > source.height) return;
+
+        if (sw == dw && sh == dh)
+        {
+            blitUnscaled(source, sx, sy, dx, dy, dw, dh);
+        }
+        else if (dw % sw == 0 && dh % sh == 0)
+        {
+            blitIntegerScaled(source, sx, sy, sw, sh, dx, dy, dw / sw, dh / sh);
+        }
+        else
+        {
+            blitScaled(source, sx, sy, sw, sh, dx, dy, dw, dh);
+        }
+    }
+
+    /**
+     * Creates a Graphics2D on the target for drawing that the blitter cannot do (custom draw code).
+     * It writes into the same pixels. The caller must dispose it.
+     *
+     * @return A Graphics2D clipped like the blitter.
+     */
+    public Graphics2D createGraphics()
+    {
+        Graphics2D graphics = target.createGraphics();
+        graphics.setClip(clipMinX, clipMinY, clipMaxX - clipMinX, clipMaxY - clipMinY);
+        return graphics;
+    }
+
+    /**
+     * Creates a blitter for a horizontal band of the same target, sharing the source cache.
+     * <p>
+     * Used by {@link StripRenderer}: each band is drawn on its own thread, so every band
+     * needs its own clip and scratch row. Sources must be {@link #prepare prepared} on one thread
+     * first, since bands only read the shared cache.
+     *
+     * @param minY First row of the band.
+     * @param maxY Row after the last row of the band.
+     * @return A blitter clipped to the band.
+     */
+    RasterBlitter band(int minY, int maxY)
+    {
+        RasterBlitter band = new RasterBlitter(target, sources);
+        band.setClip(0, minY, width, maxY - minY);
+        return band;
+    }
+
+    /**
+     * Converts and caches an image's pixels now instead of on first draw.
+     *
+     * @param image The image.
+     */
+    void prepare(Image image)
+    {
+        sourceOf(image);
+    }
+
+    /**
+     * Starts a frame. Every 60 frames, drops the source copies of
+     * images that were not drawn in the last {@value #SOURCE_IDLE_FRAMES} frames.
+     * Call once per frame before drawing, on the thread that draws (the Renderer does).
+     */
+    public void beginFrame()
+    {
+        int frame = ++sources.frame;
+        if (frame % SOURCE_SWEEP_INTERVAL != 0) return;
+
+        Iterator<SourcePixels> iterator = sources.entries.values().iterator();
+        boolean removed = false;
+        while (iterator.hasNext())
+        {
+            if (frame - iterator.next().lastUsedFrame > SOURCE_IDLE_FRAMES)
+            {
+                iterator.remove();
+                removed = true;
+            }
+        }
+        if (removed) sources.generation++;
+    }
+
+    /**
+     * Forgets the cached source copies (call when images are unloaded or modified).
+     */
+    public void clearSourceCache()
+    {
+        sources.entries.clear();
+        sources.generation++;
+    }
+
+    /**
+     * @return Number of images with a cached source copy.
+     */
+    public int getSourceCount()
+    {
+        return sources.entries.size();
+    }
+
+    /**
+     * @return The target image.
+     */
+    public BufferedImage getTarget()
+    {
+        return target;
+    }
+
+    // ----------- Loops -----------
+
+    private void blitUnscaled(SourcePixels source, int sx, int sy, int dx, int dy, int dw, int dh)
+    {
+        // Clip the destination and shift the source to match
+        int minX = Math.max(clipMinX, dx);
+        int minY = Math.max(clipMinY, dy);
+        int maxX = Math.min(clipMaxX, dx + dw);
+        int maxY = Math.min(clipMaxY, dy + dh);
+        if (minX >= maxX || minY >= maxY) return;
+
+        int count = maxX - minX;
+        int[] src = source.pixels;
+
+        for (int y = minY; y < maxY; y++)
+        {
+            int s = (sy + y - dy) * source.width + sx + (minX - dx);
+            int d = y * width + minX;
+
+            switch (source.transparency)
+            {
+                case Transparency.OPAQUE ->
+                {
+                    if (opaqueTarget)
+                    {
+                        for (int i = 0; i < count; i++) pixels[d + i] = src[s + i] & 0x00FFFFFF;
+                    }
+                    else
+                    {
+                        System.arraycopy(src, s, pixels, d, count);
+                    }
+                }
+                case Transparency.BITMASK ->
+                {
+                    for (int i = 0; i < count; i++)
+                    {
+                        int pixel = src[s + i];
+                        if (pixel != 0) pixels[d + i] = storeValue(pixel);
+                    }
+                }
+                default ->
+                {
+                    for (int i = 0; i < count; i++)
+                    {
+                        int pixel = src[s + i];
+                        if (pixel != 0) pixels[d + i] = blend(pixel, pixels[d + i]);
+                    }
+                }
+            }
+        }
+    }
+
+    private void blitIntegerScaled(SourcePixels source, int sx, int sy, int sw, int sh, int dx, int dy, int scaleX, int scaleY)
+    {
+        int dw = sw * scaleX;
+        int dh = sh * scaleY;
+        int minX = Math.max(clipMinX, dx);
+        int minY = Math.max(clipMinY, dy);
+        int maxX = Math.min(clipMaxX, dx + dw);
+        int maxY = Math.min(clipMaxY, dy + dh);
+        if (minX >= maxX || minY >= maxY) return;
+
+        int count = maxX - minX;
+        if (rowBuffer.length < count) rowBuffer = new int[count];
+        int[] row = rowBuffer;
+        int[] src = source.pixels;
+        int builtRow = -1;
+
+        for (int y = minY; y < maxY; y++)
+        {
+            int sourceRow = sy + (y - dy) / scaleY;
+
+            // Expand each source row once, then reuse it for every repeated output row
+            if (sourceRow != builtRow)
+            {
+                int s = sourceRow * source.width + sx;
+                for (int i = 0; i < count; i++) row[i] = src[s + (minX - dx + i) / scaleX];
+                builtRow = sourceRow;
+            }
+
+            writeRow(row, count, source.transparency, y * width + minX);
+        }
+    }
+
+    private void blitScaled(SourcePixels source, int sx, int sy, int sw, int sh, int dx, int dy, int dw, int dh)
+    {
+        int minX = Math.max(clipMinX, dx);
+        int minY = Math.max(clipMinY, dy);
+        int maxX = Math.min(clipMaxX, dx + dw);
+        int maxY = Math.min(clipMaxY, dy + dh);
+        if (minX >= maxX || minY >= maxY) return;
+
+        int count = maxX - minX;
+        if (rowBuffer.length < count) rowBuffer = new int[count];
+        int[] row = rowBuffer;
+        int[] src = source.pixels;
+
+        // Pixel centers that land on (or within rounding of) a source edge go either way depending on
+        // which Java2D loop draws this format, so both loops' arithmetic is reproduced exactly
+        if (opaqueTarget ? source.scaledBlitOnRgb : source.scaledBlitOnArgbPre)
+        {
+            // ScaledBlit: fixed point with as many fraction bits as the source size allows,
+            // stepped from the unclipped destination origin
+            int shift = fixedPointShift(sw | sh);
+            double scaleX = (double) (sw << shift) / dw;
+            double scaleY = (double) (sh << shift) / dh;
+            int incrementX = (int) scaleX;
+            int incrementY = (int) scaleY;
+            int startX = (int) Math.ceil(0.5 * scaleX - 0.5) + (minX - dx) * incrementX;
+            int locationY = (int) Math.ceil(0.5 * scaleY - 0.5) + (minY - dy) * incrementY;
+
+            for (int y = minY; y < maxY; y++, locationY += incrementY)
+            {
+                int s = (sy + (locationY >> shift)) * source.width + sx;
+                int locationX = startX;
+                for (int i = 0; i < count; i++, locationX += incrementX) row[i] = src[s + (locationX >> shift)];
+
+                writeRow(row, count, source.transparency, y * width + minX);
+            }
+        }
+        else
+        {
+            // Transform loop: the first pixel center inside the target goes through the inverse of
+            // the drawImage transform, the rest are stepped in 32.32 fixed point. Stepping from the
+            // target edge rather than the clip keeps bands identical to a whole frame.
+            double scaleX = (double) dw / sw;
+            double scaleY = (double) dh / sh;
+            double inverseX = 1.0 / scaleX;
+            double inverseY = 1.0 / scaleY;
+            long incrementX = toFixed(inverseX);
+            long incrementY = toFixed(inverseY);
+            int originX = Math.max(0, dx);
+            int originY = Math.max(0, dy);
+            long startX = toFixed((originX + 0.5) * inverseX - dx / scaleX) + (minX - originX) * incrementX;
+            long locationY = toFixed((originY + 0.5) * inverseY - dy / scaleY) + (minY - originY) * incrementY;
+
+            for (int y = minY; y < maxY; y++, locationY += incrementY)
+            {
+                int s = (sy + (int) (locationY >> 32)) * source.width + sx;
+                long locationX = startX;
+                for (int i = 0; i < count; i++, locationX += incrementX) row[i] = src[s + (int) (locationX >> 32)];
+
+                writeRow(row, count, source.transparency, y * width + minX);
+            }
+        }
+    }
+
+    /**
+     * Fraction bits for source coordinates: as many as fit without the source size overflowing.
+     */
+    private static int fixedPointShift(int size)
+    {
+        int shift = 0;
+        while ((size <<= 1) > 0) shift++;
+        return shift;
+    }
+
+    private static long toFixed(double value)
+    {
+        return (long) (value * 4294967296.0);
+    }
+
+    private void writeRow(int[] row, int count, int transparency, int d)
+    {
+        switch (transparency)
+        {
+            case Transparency.OPAQUE ->
+            {
+                if (opaqueTarget)
+                {
+                    for (int i = 0; i < count; i++) pixels[d + i] = row[i] & 0x00FFFFFF;
+                }
+                else
+                {
+                    System.arraycopy(row, 0, pixels, d, count);
+                }
+            }
+            case Transparency.BITMASK ->
+            {
+                for (int i = 0; i < count; i++)
+                {
+                    if (row[i] != 0) pixels[d + i] = storeValue(row[i]);
+                }
+            }
+            default ->
+            {
+                for (int i = 0; i < count; i++)
+                {
+                    if (row[i] != 0) pixels[d + i] = blend(row[i], pixels[d + i]);
+                }
+            }
+        }
+    }
+
+    // ----------- Pixel math -----------
+
+    /**
+     * SrcOver of a premultiplied source pixel onto a target pixel.
+     */
+    private int blend(int source, int destination)
+    {
+        int sourceAlpha = source >>> 24;
+        if (sourceAlpha == 255) return storeValue(source);
+
+        int inverse = 255 - sourceAlpha;
+        int destinationAlpha = opaqueTarget ? 255 : destination >>> 24;
+
+        int a = sourceAlpha + mul8(inverse, destinationAlpha);
+        int r = ((source >> 16) & 0xFF) + mul8(inverse, (destination >> 16) & 0xFF);
+        int g = ((source >> 8) & 0xFF) + mul8(inverse, (destination >> 8) & 0xFF);
+        int b = (source & 0xFF) + mul8(inverse, destination & 0xFF);
+
+        return storeValue((a << 24) | (r << 16) | (g << 8) | b);
+    }
+
+    /**
+     * Converts a premultiplied pixel into the target's storage format.
+     */
+    private int storeValue(int premultiplied)
+    {
+        return opaqueTarget ? premultiplied & 0x00FFFFFF : premultiplied;
+    }
+
+    private static int premultiply(int argb)
+    {
+        int alpha = argb >>> 24;
+        if (alpha == 255) return argb;
+        if (alpha == 0) return 0;
+
+        int r = mul8(alpha, (argb >> 16) & 0xFF);
+        int g = mul8(alpha, (argb >> 8) & 0xFF);
+        int b = mul8(alpha, argb & 0xFF);
+        return (alpha << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    private static int mul8(int a, int b)
+    {
+        return MUL8[(a << 8) | b] & 0xFF;
+    }
+
+    private static byte[] buildMul8Table()
+    {
+        // Same construction as Java2D's AlphaMath so blended results match drawImage
+        byte[] table = new byte[256 * 256];
+        for (int i = 1; i < 256; i++)
+        {
+            long increment = i * 0x010101L;
+            long value = increment + (1L << 23);
+            for (int j = 1; j < 256; j++)
+            {
+                table[(i << 8) | j] = (byte) (value >>> 24);
+                value += increment;
+            }
+        }
+        return table;
+    }
+
+    // ----------- Sources -----------
+
+    private SourcePixels sourceOf(Image image)
+    {
+        // Bands keep their own last image, so dropped copies are detected by the cache generation
+        if (image == lastImage && lastGeneration == sources.generation)
+        {
+            lastSource.lastUsedFrame = sources.frame;
+            return lastSource;
+        }
+
+        SourcePixels source = sources.entries.get(image);
+        if (source == null)
+        {
+            if (!(image instanceof BufferedImage buffered)) return null;
+            source = SourcePixels.of(buffered);
+            sources.entries.put(image, source);
+        }
+
+        // Bands may write this concurrently, but always with the same frame number
+        source.lastUsedFrame = sources.frame;
+        lastImage = image;
+        lastSource = source;
+        lastGeneration = sources.generation;
+        return source;
+    }
+
+    /**
+     * Source copies by image, and the frame count used to age them.
+     */
+    private static final class SourceCache
+    {
+        private final Map<Image, SourcePixels> entries = new IdentityHashMap<>();
+        private int frame;
+        private int generation;     // Bumped whenever copies are dropped, so no blitter keeps using one
+    }
+
+    /**
+     * A premultiplied copy of a source image and its alpha class.
+     */
+    private static final class SourcePixels
+    {
+        private final int[] pixels;
+        private final int width;
+        private final int height;
+        private final int transparency;
+        private final boolean scaledBlitOnRgb;        // Which scaling arithmetic Java2D uses, per target type
+        private final boolean scaledBlitOnArgbPre;
+        private int lastUsedFrame;
+
+        private SourcePixels(int[] pixels, int width, int height, int transparency, BufferedImage image)
+        {
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+            this.transparency = transparency;
+            this.scaledBlitOnRgb = usesScaledBlit(image, BufferedImage.TYPE_INT_RGB);
+            this.scaledBlitOnArgbPre = usesScaledBlit(image, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+
+        private static SourcePixels of(BufferedImage image)
+        {
+            int imageWidth = image.getWidth();
+            int imageHeight = image.getHeight();
+            int[] data = new int[imageWidth * imageHeight];
+
+            if (image.getType() == BufferedImage.TYPE_INT_ARGB_PRE)
+            {
+                image.getRaster().getDataElements(0, 0, imageWidth, imageHeight, data);
+            }
+            else
+            {
+                image.getRGB(0, 0, imageWidth, imageHeight, data, 0, imageWidth);
+                for (int i = 0; i < data.length; i++) data[i] = premultiply(data[i]);
+            }
+
+            boolean sawTransparent = false;
+            boolean sawTranslucent = false;
+            for (int pixel : data)
+            {
+                int alpha = pixel >>> 24;
+                if (alpha == 0) sawTransparent = true;
+                else if (alpha != 255) sawTranslucent = true;
+            }
+
+            // Fully transparent pixels are stored as 0 so the loops can skip them with one compare
+            if (sawTransparent)
+            {
+                for (int i = 0; i < data.length; i++)
+                {
+                    if ((data[i] >>> 24) == 0) data[i] = 0;
+                }
+            }
+
+            int transparency = sawTranslucent ? Transparency.TRANSLUCENT
+                    : sawTransparent ? Transparency.BITMASK
+                    : Transparency.OPAQUE;
+            return new SourcePixels(data, imageWidth, imageHeight, transparency, image);
+        }
+
+        /**
+         * Finds out, once per image format, which loop Java2D scales it with: draws two source
+         * pixels over three, where the middle pixel center lies exactly on the source edge.
+         * ScaledBlit takes the pixel after the edge, the transform loop the one before.
+         */
+        private static boolean usesScaledBlit(BufferedImage image, int targetType)
+        {
+            Object format = image.getType() != BufferedImage.TYPE_CUSTOM ? image.getType()
+                    : List.of(image.getColorModel(), image.getSampleModel().getClass());
+            return SCALED_BLIT_FORMATS.computeIfAbsent(List.of(format, targetType), key ->
+            {
+                // Same color model and sample layout, so Java2D picks the same loops as for the image
+                ColorModel colorModel = image.getColorModel();
+                BufferedImage probe = new BufferedImage(colorModel, image.getRaster().createCompatibleWritableRaster(2, 1),
+                        colorModel.isAlphaPremultiplied(), null);
+                probe.setRGB(0, 0, 0xFF000000);
+                probe.setRGB(1, 0, 0xFFFFFFFF);
+
+                BufferedImage result = new BufferedImage(3, 1, targetType);
+                Graphics2D graphics = result.createGraphics();
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+                graphics.drawImage(probe, 0, 0, 3, 1, 0, 0, 2, 1, null);
+                graphics.dispose();
+
+                return result.getRGB(1, 0) == result.getRGB(2, 0) && result.getRGB(1, 0) != result.getRGB(0, 0);
+            });
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package misa.core.rendering;
+
+import misa.entities.GameObject;
+
+import java.util.Arrays;
+
+/**
+ * RenderQueue collects the GameObjects to draw this frame and sorts them by depth.
+ *
+ * <p>
+ * Each submission gets a 64-bit sort key built from:
+ * <ul>
+ *     <li><b>render layer</b> (8 bits) - explicit layer, drawn lowest first.</li>
+ *     <li><b>sort Y</b> (32 bits) - objects further down the screen draw on top (top-down RPG depth).</li>
+ *     <li><b>tiebreak</b> (24 bits) - submission order, so equal keys keep a stable order.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * The queue is cleared and refilled every frame. Its arrays only grow, and sorting uses
+ * a reusable {@link RadixSorter}, so a steady-state frame allocates nothing.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class RenderQueue
+{
+    /** Lowest render layer. */
+    public static final int MIN_LAYER = 0;
+
+    /** Highest render layer; objects here draw above every map layer. */
+    public static final int MAX_LAYER = 255;
+
+    private static final int TIEBREAK_BITS = 24;
+    private static final int TIEBREAK_MASK = (1 << TIEBREAK_BITS) - 1;
+
+    private GameObject[] objects;
+    private long[] keys;
+    private int[] order;
+    private int size;
+
+    private final RadixSorter sorter = new RadixSorter();
+
+    /**
+     * Creates an empty RenderQueue.
+     */
+    public RenderQueue()
+    {
+        this(256);
+    }
+
+    /**
+     * Creates an empty RenderQueue with an initial capacity.
+     *
+     * @param initialCapacity Number of objects expected per frame.
+     */
+    public RenderQueue(int initialCapacity)
+    {
+        int capacity = Math.max(1, initialCapacity);
+        objects = new GameObject[capacity];
+        keys = new long[capacity];
+        order = new int[capacity];
+    }
+
+    /**
+     * Removes every submission (call at the start of each frame).
+     */
+    public void clear()
+    {
+        // Drop references so removed objects can be garbage collected
+        Arrays.fill(objects, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Submits an object for this frame.
+     *
+     * @param gameObject The object to draw.
+     * @param renderLayer Render layer (0-255).
+     * @param sortY Depth within the layer; larger values draw later (on top).
+     */
+    public void submit(GameObject gameObject, int renderLayer, float sortY)
+    {
+        if (size == objects.length) grow();
+
+        objects[size] = gameObject;
+        keys[size] = makeKey(renderLayer, sortY, size);
+        order[size] = size;
+        size++;
+    }
+
+    /**
+     * Sorts the submissions by layer, then Y, then submission order.
+     */
+    public void sort()
+    {
+        sorter.sort(keys, order, size);
+    }
+
+    /**
+     * @return Number of submitted objects.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Gets an object in sorted order (after {@link #sort()}).
+     *
+     * @param index Position in draw order.
+     * @return The object to draw at that position.
+     */
+    public GameObject get(int index)
+    {
+        return objects[order[index]];
+    }
+
+    /**
+     * Gets the render layer of an entry in sorted order (after {@link #sort()}).
+     *
+     * @param index Position in draw order.
+     * @return Its render layer.
+     */
+    public int getLayer(int index)
+    {
+        return (int) (keys[index] >>> 56);
+    }
+
+    /**
+     * Builds a sort key.
+     *
+     * @param renderLayer Render layer (clamped to 0-255).
+     * @param sortY Depth value.
+     * @param tiebreak Submission index.
+     * @return The packed key.
+     */
+    static long makeKey(int renderLayer, float sortY, int tiebreak)
+    {
+        long layer = Math.max(MIN_LAYER, Math.min(MAX_LAYER, renderLayer));
+        return (layer << 56) | ((sortableFloat(sortY) & 0xFFFFFFFFL) << TIEBREAK_BITS) | (tiebreak & TIEBREAK_MASK);
+    }
+
+    /**
+     * Maps a float to an int whose unsigned order matches the float's numeric order.
+     *
+     * @param value The float.
+     * @return Order-preserving unsigned bits.
+     */
+    static int sortableFloat(float value)
+    {
+        int bits = Float.floatToIntBits(value);
+        // Negative floats: flip all bits. Positive floats: flip only the sign bit.
+        return bits ^ ((bits >> 31) | 0x80000000);
+    }
+
+    private void grow()
+    {
+        int capacity = objects.length * 2;
+        objects = Arrays.copyOf(objects, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        order = Arrays.copyOf(order, capacity);
+    }
+}
@@ -0,0 +1,182 @@
+package misa.core.rendering;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * RenderTarget is a fixed-resolution offscreen buffer the world is drawn into.
+ *
+ * <p>
+ * Pixel-art games usually want to render at a small native resolution (e.g. 640x360)
+ * and show the result scaled up to the window. With a RenderTarget, tiles and sprites are
+ * drawn unscaled into the buffer, and the buffer is scaled once per frame when presented.
+ * The fill cost of a frame then depends on the internal resolution, not the window size.
+ * </p>
+ *
+ * <p>
+ * Create the Renderer with the native pixelsPerUnit (e.g. 16 for 16x16 tiles) so nothing
+ * is scaled while drawing into the buffer.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class RenderTarget
+{
+    /**
+     * How the buffer is scaled to the output size.
+     */
+    public enum ScaleMode
+    {
+        /** Largest whole-number scale that fits (crisp pixels, may letterbox more). */
+        INTEGER,
+        /** Largest scale that fits, keeping the aspect ratio (pixels may be uneven). */
+        FIT
+    }
+
+    private final BufferedImage buffer;
+    private final ScaleMode scaleMode;
+    private Color clearColor = Color.BLACK;
+
+    // Placement of the buffer in the output during the last present
+    private double lastScale = 1.0;
+    private int lastOffsetX;
+    private int lastOffsetY;
+
+    /**
+     * Creates a render target.
+     *
+     * @param width Internal width in pixels (must be > 0).
+     * @param height Internal height in pixels (must be > 0).
+     * @param scaleMode How to scale the buffer when presenting.
+     */
+    public RenderTarget(int width, int height, ScaleMode scaleMode)
+    {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("RenderTarget size must be > 0.");
+
+        this.buffer = ImagePreparer.createTarget(width, height, Transparency.OPAQUE);
+        this.scaleMode = scaleMode;
+    }
+
+    /**
+     * Clears the buffer and returns a Graphics2D to draw the frame with.
+     * The caller must dispose it.
+     *
+     * @return Graphics2D drawing into the buffer.
+     */
+    public Graphics2D begin()
+    {
+        Graphics2D graphics = buffer.createGraphics();
+        graphics.setColor(clearColor);
+        graphics.fillRect(0, 0, buffer.getWidth(), buffer.getHeight());
+        return graphics;
+    }
+
+    /**
+     * Draws the buffer, scaled and centered, into an output of the given size.
+     *
+     * @param graphics2D The output Graphics2D (e.g. the window's).
+     * @param outputWidth Output width in pixels.
+     * @param outputHeight Output height in pixels.
+     */
+    public void present(Graphics2D graphics2D, int outputWidth, int outputHeight)
+    {
+        int width = buffer.getWidth();
+        int height = buffer.getHeight();
+
+        double scale = Math.min((double) outputWidth / width, (double) outputHeight / height);
+        if (scaleMode == ScaleMode.INTEGER) scale = Math.max(1, Math.floor(scale));
+
+        int scaledWidth = (int) Math.round(width * scale);
+        int scaledHeight = (int) Math.round(height * scale);
+        lastScale = scale;
+        lastOffsetX = (outputWidth - scaledWidth) / 2;
+        lastOffsetY = (outputHeight - scaledHeight) / 2;
+
+        graphics2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        graphics2D.drawImage(buffer, lastOffsetX, lastOffsetY, scaledWidth, scaledHeight, null);
+    }
+
+    /**
+     * Converts an output X coordinate (e.g. a mouse position) to a buffer pixel X,
+     * using the placement of the last present.
+     *
+     * @param outputX X in output pixels.
+     * @return X in buffer pixels.
+     */
+    public int toTargetX(int outputX)
+    {
+        return (int) Math.floor((outputX - lastOffsetX) / lastScale);
+    }
+
+    /**
+     * Converts an output Y coordinate to a buffer pixel Y.
+     *
+     * @param outputY Y in output pixels.
+     * @return Y in buffer pixels.
+     */
+    public int toTargetY(int outputY)
+    {
+        return (int) Math.floor((outputY - lastOffsetY) / lastScale);
+    }
+
+    /**
+     * Sets the color the buffer is cleared to each frame.
+     *
+     * @param clearColor The clear color.
+     */
+    public void setClearColor(Color clearColor)
+    {
+        this.clearColor = clearColor;
+    }
+
+    /**
+     * @return The color the buffer is cleared to each frame.
+     */
+    public Color getClearColor()
+    {
+        return clearColor;
+    }
+
+    /**
+     * @return The offscreen buffer.
+     */
+    public BufferedImage getBuffer()
+    {
+        return buffer;
+    }
+
+    /**
+     * @return Internal width in pixels.
+     */
+    public int getWidth()
+    {
+        return buffer.getWidth();
+    }
+
+    /**
+     * @return Internal height in pixels.
+     */
+    public int getHeight()
+    {
+        return buffer.getHeight();
+    }
+
+    /**
+     * @return The scale mode.
+     */
+    public ScaleMode getScaleMode()
+    {
+        return scaleMode;
+    }
+
+    /**
+     * @return Scale used by the last present.
+     */
+    public double getLastScale()
+    {
+        return lastScale;
+    }
+}
@@ -0,0 +1,199 @@
+package misa.core.rendering;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * ScaledImageCache keeps nearest-neighbour scaled copies of sprites and tileset sheets.
+ *
+ * <p>
+ * Drawing a 16x16 tile into a 32x32 screen cell forces Java2D through its slow scaling loop
+ * on every frame. With this cache, each image is scaled once per target size (e.g. once per
+ * pixelsPerUnit or zoom level), and every later frame is a plain 1:1 copy from the scaled image.
+ * </p>
+ *
+ * <p>
+ * The cache has a pixel budget. When it is exceeded, the least recently used scaled images
+ * are evicted.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class ScaledImageCache
+{
+    private static final Logger LOGGER = Logger.getLogger(ScaledImageCache.class.getName());
+
+    // Source image -> its scaled copies (usually one or two sizes per image)
+    private final Map<Image, List<Entry>> entries = new IdentityHashMap<>();
+
+    private final long maxPixels;
+    private long cachedPixels;
+    private long accessClock;
+
+    /**
+     * Creates a cache with a pixel budget.
+     *
+     * @param maxPixels Maximum total pixels of all scaled images (e.g. 16M pixels is about 64 MB).
+     */
+    public ScaledImageCache(long maxPixels)
+    {
+        this.maxPixels = maxPixels;
+    }
+
+    /**
+     * Gets a copy of an image scaled to a target size, creating it on first use.
+     *
+     * @param source The original image.
+     * @param width Target width in pixels.
+     * @param height Target height in pixels.
+     * @return The scaled image (or the source itself if no scaling is needed).
+     */
+    public Image get(Image source, int width, int height)
+    {
+        if (source.getWidth(null) == width && source.getHeight(null) == height) return source;
+
+        List<Entry> scaled = entries.get(source);
+        if (scaled != null)
+        {
+            for (int i = 0; i < scaled.size(); i++)
+            {
+                Entry entry = scaled.get(i);
+                if (entry.width == width && entry.height == height)
+                {
+                    entry.lastUsed = ++accessClock;
+                    return entry.image;
+                }
+            }
+        }
+        else
+        {
+            scaled = new ArrayList<>(2);
+            entries.put(source, scaled);
+        }
+
+        Entry entry = new Entry(scale(source, width, height), width, height);
+        entry.lastUsed = ++accessClock;
+        scaled.add(entry);
+        cachedPixels += (long) width * height;
+
+        if (cachedPixels > maxPixels) evict();
+        return entry.image;
+    }
+
+    /**
+     * Checks whether a scaled copy is small enough to cache. Larger copies would evict most
+     * of the cache each time they are made, so they should be drawn scaled instead.
+     *
+     * @param width Target width in pixels.
+     * @param height Target height in pixels.
+     * @return True if a copy of that size fits in half the budget.
+     */
+    public boolean fits(int width, int height)
+    {
+        return (long) width * height <= maxPixels / 2;
+    }
+
+    /**
+     * Removes every scaled copy (e.g. after a map change).
+     */
+    public void clear()
+    {
+        entries.clear();
+        cachedPixels = 0;
+    }
+
+    /**
+     * @return Total pixels currently held by scaled images.
+     */
+    public long getCachedPixels()
+    {
+        return cachedPixels;
+    }
+
+    /**
+     * Scales an image with nearest-neighbour sampling, keeping its transparency class.
+     *
+     * @param source The original image.
+     * @param width Target width.
+     * @param height Target height.
+     * @return The scaled image.
+     */
+    private static BufferedImage scale(Image source, int width, int height)
+    {
+        int transparency = source instanceof BufferedImage buffered ? buffered.getTransparency() : java.awt.Transparency.TRANSLUCENT;
+        BufferedImage target = ImagePreparer.createTarget(width, height, transparency);
+
+        Graphics2D graphics = target.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        graphics.drawImage(source, 0, 0, width, height, null);
+        graphics.dispose();
+
+        return target;
+    }
+
+    /**
+     * Evicts least recently used copies until the cache is back under 3/4 of its budget.
+     */
+    private void evict()
+    {
+        long target = maxPixels * 3 / 4;
+        int evicted = 0;
+
+        while (cachedPixels > target && !entries.isEmpty())
+        {
+            // Find the least recently used entry (eviction is rare, so a scan is fine)
+            List<Entry> oldestList = null;
+            Entry oldest = null;
+            for (List<Entry> list : entries.values())
+            {
+                for (Entry entry : list)
+                {
+                    if (oldest == null || entry.lastUsed < oldest.lastUsed)
+                    {
+                        oldest = entry;
+                        oldestList = list;
+                    }
+                }
+            }
+
+            if (oldest == null) break;
+            oldestList.remove(oldest);
+            cachedPixels -= (long) oldest.width * oldest.height;
+            evicted++;
+        }
+
+        // Drop sources that have no scaled copies left
+        Iterator<List<Entry>> iterator = entries.values().iterator();
+        while (iterator.hasNext())
+        {
+            if (iterator.next().isEmpty()) iterator.remove();
+        }
+
+        LOGGER.fine("ScaledImageCache evicted " + evicted + " image(s)");
+    }
+
+    /**
+     * One scaled copy of a source image.
+     */
+    private static final class Entry
+    {
+        private final Image image;
+        private final int width;
+        private final int height;
+        private long lastUsed;
+
+        private Entry(Image image, int width, int height)
+        {
+            this.image = image;
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package misa.core.rendering;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packs rectangles into a fixed-size page using the skyline bottom-left heuristic.
+ *
+ * <p>
+ * The packer tracks the "skyline" (the top edge of everything placed so far) as a list
+ * of horizontal segments, and places each new rectangle where its top edge ends up lowest.
+ * It is fast and wastes little space when rectangles are inserted tallest-first.
+ * </p>
+ */
+class SkylinePacker
+{
+    private final int pageWidth;
+    private final int pageHeight;
+    private final List<Segment> skyline = new ArrayList<>();
+
+    // Result of the last successful insert
+    private int placedX;
+    private int placedY;
+
+    /**
+     * Creates an empty page.
+     *
+     * @param pageWidth Page width in pixels.
+     * @param pageHeight Page height in pixels.
+     */
+    SkylinePacker(int pageWidth, int pageHeight)
+    {
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+        skyline.add(new Segment(0, 0, pageWidth));
+    }
+
+    /**
+     * Tries to place a rectangle.
+     *
+     * @param width Rectangle width.
+     * @param height Rectangle height.
+     * @return True if it fit; read the position with {@link #getPlacedX()} / {@link #getPlacedY()}.
+     */
+    boolean insert(int width, int height)
+    {
+        int bestIndex = -1;
+        int bestTop = Integer.MAX_VALUE;
+        int bestX = 0;
+        int bestY = 0;
+
+        for (int i = 0; i < skyline.size(); i++)
+        {
+            int y = fit(i, width, height);
+            if (y < 0) continue;
+
+            int top = y + height;
+            int x = skyline.get(i).x;
+            if (top < bestTop || (top == bestTop && x < bestX))
+            {
+                bestIndex = i;
+                bestTop = top;
+                bestX = x;
+                bestY = y;
+            }
+        }
+
+        if (bestIndex < 0) return false;
+
+        addSegment(bestIndex, bestX, bestY + height, width);
+        placedX = bestX;
+        placedY = bestY;
+        return true;
+    }
+
+    /**
+     * @return X position of the last placed rectangle.
+     */
+    int getPlacedX()
+    {
+        return placedX;
+    }
+
+    /**
+     * @return Y position of the last placed rectangle.
+     */
+    int getPlacedY()
+    {
+        return placedY;
+    }
+
+    /**
+     * Finds the Y a rectangle would rest at if its left edge starts at a skyline segment.
+     *
+     * @param index Segment index.
+     * @param width Rectangle width.
+     * @param height Rectangle height.
+     * @return The resting Y, or -1 if it does not fit there.
+     */
+    private int fit(int index, int width, int height)
+    {
+        int x = skyline.get(index).x;
+        if (x + width > pageWidth) return -1;
+
+        int y = 0;
+        int remaining = width;
+        for (int i = index; remaining > 0; i++)
+        {
+            Segment segment = skyline.get(i);
+            y = Math.max(y, segment.y);
+            if (y + height > pageHeight) return -1;
+            remaining -= segment.width;
+        }
+        return y;
+    }
+
+    /**
+     * Raises the skyline where a rectangle was placed.
+     *
+     * @param index Segment index the rectangle starts at.
+     * @param x Rectangle X.
+     * @param top New skyline height over the rectangle.
+     * @param width Rectangle width.
+     */
+    private void addSegment(int index, int x, int top, int width)
+    {
+        skyline.add(index, new Segment(x, top, width));
+
+        // Trim or remove the segments now covered by the new one
+        int end = x + width;
+        int i = index + 1;
+        while (i < skyline.size())
+        {
+            Segment segment = skyline.get(i);
+            if (segment.x >= end) break;
+
+            int overlap = end - segment.x;
+            if (overlap >= segment.width)
+            {
+                skyline.remove(i);
+            }
+            else
+            {
+                segment.x += overlap;
+                segment.width -= overlap;
+                break;
+            }
+        }
+
+        // Merge neighbours at the same height
+        for (int j = 0; j < skyline.size() - 1; j++)
+        {
+            Segment current = skyline.get(j);
+            Segment next = skyline.get(j + 1);
+            if (current.y == next.y)
+            {
+                current.width += next.width;
+                skyline.remove(j + 1);
+                j--;
+            }
+        }
+    }
+
+    /**
+     * One horizontal piece of the skyline.
+     */
+    private static final class Segment
+    {
+        private int x;
+        private final int y;
+        private int width;
+
+        private Segment(int x, int y, int width)
+        {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+        }
+    }
+}
@@ -0,0 +1,616 @@
+package misa.core.rendering;
+
+import misa.entities.GameObject;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * SpriteBatch is a retained list of draw commands for one frame.
+ *
+ * <p>
+ * Instead of drawing straight into Graphics2D, the Renderer records every sprite and
+ * tile as a command (image, source rectangle, destination rectangle, depth). At the end
+ * of the frame the commands are sorted by depth and then by texture, and flushed in one
+ * pass. Commands that share a depth (e.g. all tiles of one map layer) are grouped by
+ * source image, so Java2D keeps drawing from the same image instead of switching back
+ * and forth.
+ * </p>
+ *
+ * <p>
+ * If a {@link TextureAtlas} is set, draws of packed images are redirected to their
+ * region of the atlas page, so different frames share the same source image.
+ * </p>
+ *
+ * <p>
+ * If a {@link ScaledImageCache} is set, scaled draws are replaced by 1:1 draws from a
+ * pre-scaled copy of the source image. Tiles are taken from a pre-scaled copy of the whole
+ * sheet. With an atlas, the atlas page is looked up first and pre-scaled as a whole, so
+ * scaled sprites keep sharing their page and both options can be used together. Copies too
+ * large for the cache's budget are not made (Java2D scales those draws), so keep atlas pages
+ * small enough for the scale, e.g. 1024x1024 pages at 2x with the default budget.
+ * </p>
+ *
+ * <p>
+ * Command storage is kept between frames and only grows, so a steady-state frame
+ * does not allocate.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class SpriteBatch
+{
+    // Command kinds
+    private static final byte KIND_IMAGE = 0;
+    private static final byte KIND_RECT = 1;
+    private static final byte KIND_CUSTOM = 2;
+
+    // Struct-of-arrays command storage
+    private byte[] kinds;
+    private Image[] images;
+    private GameObject[] customObjects;
+    private int[] colors;
+    private int[] sourceRects;      // sx, sy, sw, sh per command
+    private int[] destinationRects; // dx, dy, dw, dh per command
+    private long[] keys;
+    private int[] order;
+    private int size;
+
+    // Texture IDs, assigned on first use in a frame; cleared by begin() so dropped images
+    // (e.g. evicted pre-scaled copies) are not kept alive
+    private final Map<Image, Integer> textureIds = new IdentityHashMap<>();
+    private Image lastTexture;
+    private int lastTextureId;
+
+    // Optional atlas that packed images are redirected to
+    private TextureAtlas textureAtlas;
+
+    // Optional cache of pre-scaled images, so scaled draws become 1:1 copies
+    private ScaledImageCache scaledImageCache;
+
+    private final RadixSorter sorter = new RadixSorter();
+
+    // Stats from the last flush
+    private int lastDrawCount;
+    private int lastTextureSwitches;
+
+    /**
+     * Creates an empty SpriteBatch.
+     */
+    public SpriteBatch()
+    {
+        this(1024);
+    }
+
+    /**
+     * Creates an empty SpriteBatch with an initial capacity.
+     *
+     * @param initialCapacity Number of commands expected per frame.
+     */
+    public SpriteBatch(int initialCapacity)
+    {
+        allocate(Math.max(1, initialCapacity));
+    }
+
+    /**
+     * Starts a new frame, discarding the previous frame's commands.
+     */
+    public void begin()
+    {
+        Arrays.fill(images, 0, size, null);
+        Arrays.fill(customObjects, 0, size, null);
+        size = 0;
+        clearTextureIds();
+    }
+
+    /**
+     * Records an image draw.
+     *
+     * @param image Source image.
+     * @param sx Source X.
+     * @param sy Source Y.
+     * @param sw Source width.
+     * @param sh Source height.
+     * @param dx Destination X (pixels).
+     * @param dy Destination Y (pixels).
+     * @param dw Destination width.
+     * @param dh Destination height.
+     * @param depth Draw depth; lower depths are drawn first. Equal depths may be reordered by texture.
+     */
+    public void draw(Image image, int sx, int sy, int sw, int sh, int dx, int dy, int dw, int dh, int depth)
+    {
+        // Redirect packed images to their atlas page
+        if (textureAtlas != null)
+        {
+            AtlasRegion region = textureAtlas.findRegion(image);
+            if (region != null)
+            {
+                image = region.page();
+                sx += region.x();
+                sy += region.y();
+            }
+        }
+
+        // Draw from a pre-scaled copy when the source rectangle lands on whole scaled pixels.
+        // Packed images are already redirected, so their whole atlas page is scaled once.
+        if (scaledImageCache != null && (sw != dw || sh != dh) && sw > 0 && sh > 0
+                && ((long) sx * dw) % sw == 0 && ((long) sy * dh) % sh == 0)
+        {
+            int scaledWidth = (int) ((long) image.getWidth(null) * dw / sw);
+            int scaledHeight = (int) ((long) image.getHeight(null) * dh / sh);
+            int scaledX = (int) ((long) sx * dw / sw);
+            int scaledY = (int) ((long) sy * dh / sh);
+
+            if (scaledWidth > 0 && scaledHeight > 0 && scaledX + dw <= scaledWidth && scaledY + dh <= scaledHeight
+                    && scaledImageCache.fits(scaledWidth, scaledHeight))
+            {
+                image = scaledImageCache.get(image, scaledWidth, scaledHeight);
+                sx = scaledX;
+                sy = scaledY;
+                sw = dw;
+                sh = dh;
+            }
+        }
+
+        int index = push(KIND_IMAGE, depth, textureIdOf(image));
+        images[index] = image;
+
+        int s = index * 4;
+        sourceRects[s] = sx;
+        sourceRects[s + 1] = sy;
+        sourceRects[s + 2] = sw;
+        sourceRects[s + 3] = sh;
+        setDestination(index, dx, dy, dw, dh);
+    }
+
+    /**
+     * Records a whole-image draw.
+     *
+     * @param image Source image.
+     * @param dx Destination X (pixels).
+     * @param dy Destination Y (pixels).
+     * @param dw Destination width.
+     * @param dh Destination height.
+     * @param depth Draw depth.
+     */
+    public void draw(Image image, int dx, int dy, int dw, int dh, int depth)
+    {
+        draw(image, 0, 0, image.getWidth(null), image.getHeight(null), dx, dy, dw, dh, depth);
+    }
+
+    /**
+     * Records a solid rectangle (used for placeholder sprites).
+     *
+     * @param argb Fill color.
+     * @param dx Destination X (pixels).
+     * @param dy Destination Y (pixels).
+     * @param dw Width.
+     * @param dh Height.
+     * @param depth Draw depth.
+     */
+    public void fillRect(int argb, int dx, int dy, int dw, int dh, int depth)
+    {
+        int index = push(KIND_RECT, depth, 0);
+        colors[index] = argb;
+        setDestination(index, dx, dy, dw, dh);
+    }
+
+    /**
+     * Records a call back into {@link GameObject#drawAtPixel} at flush time.
+     * <p>
+     * For GameObjects with custom drawing code that cannot be expressed as image draws.
+     *
+     * @param gameObject The object to draw.
+     * @param px Pixel X.
+     * @param py Pixel Y.
+     * @param sizeInPixels Size in pixels.
+     * @param depth Draw depth.
+     */
+    public void drawCustom(GameObject gameObject, int px, int py, int sizeInPixels, int depth)
+    {
+        int index = push(KIND_CUSTOM, depth, 0);
+        customObjects[index] = gameObject;
+        setDestination(index, px, py, sizeInPixels, sizeInPixels);
+    }
+
+    /**
+     * Sorts the recorded commands by depth, then texture. Submission order is kept otherwise.
+     */
+    public void sort()
+    {
+        sorter.sort(keys, order, size);
+    }
+
+    /**
+     * Draws every recorded command in sorted order.
+     *
+     * @param graphics2D The Graphics2D context to draw onto.
+     */
+    public void flush(Graphics2D graphics2D)
+    {
+        flush(graphics2D, null);
+    }
+
+    /**
+     * Draws the recorded commands that touch dirty cells (or every command if no tracker is given).
+     *
+     * @param graphics2D The Graphics2D context to draw onto.
+     * @param dirtyRegions Tracker whose dirty cells select the commands, or null.
+     */
+    void flush(Graphics2D graphics2D, DirtyRegionTracker dirtyRegions)
+    {
+        Image current = null;
+        Color color = null;
+        int switches = 0;
+        int drawn = 0;
+
+        for (int i = 0; i < size; i++)
+        {
+            int index = order[i];
+            int d = index * 4;
+            int dx = destinationRects[d];
+            int dy = destinationRects[d + 1];
+            int dw = destinationRects[d + 2];
+            int dh = destinationRects[d + 3];
+
+            if (dirtyRegions != null && !dirtyRegions.isDirty(dx, dy, dw, dh)) continue;
+            drawn++;
+
+            switch (kinds[index])
+            {
+                case KIND_IMAGE ->
+                {
+                    Image image = images[index];
+                    if (image != current)
+                    {
+                        current = image;
+                        switches++;
+                    }
+
+                    int s = index * 4;
+                    int sx = sourceRects[s];
+                    int sy = sourceRects[s + 1];
+                    graphics2D.drawImage(
+                            image,
+                            dx, dy, dx + dw, dy + dh,
+                            sx, sy, sx + sourceRects[s + 2], sy + sourceRects[s + 3],
+                            null
+                    );
+                }
+                case KIND_RECT ->
+                {
+                    if (color == null || color.getRGB() != colors[index]) color = new Color(colors[index], true);
+                    graphics2D.setColor(color);
+                    graphics2D.fillRect(dx, dy, dw, dh);
+                }
+                default -> customObjects[index].drawAtPixel(graphics2D, dx, dy, dw);
+            }
+        }
+
+        lastDrawCount = drawn;
+        lastTextureSwitches = switches;
+    }
+
+    /**
+     * Draws every recorded command in sorted order through a {@link RasterBlitter}.
+     * <p>
+     * Custom commands fall back to a Graphics2D on the blitter's target.
+     *
+     * @param blitter The blitter to draw with.
+     */
+    public void flush(RasterBlitter blitter)
+    {
+        Image current = null;
+        int switches = 0;
+
+        for (int i = 0; i < size; i++)
+        {
+            int index = order[i];
+            int d = index * 4;
+            int dx = destinationRects[d];
+            int dy = destinationRects[d + 1];
+            int dw = destinationRects[d + 2];
+            int dh = destinationRects[d + 3];
+
+            switch (kinds[index])
+            {
+                case KIND_IMAGE ->
+                {
+                    Image image = images[index];
+                    if (image != current)
+                    {
+                        current = image;
+                        switches++;
+                    }
+
+                    int s = index * 4;
+                    blitter.drawImage(
+                            image,
+                            sourceRects[s], sourceRects[s + 1], sourceRects[s + 2], sourceRects[s + 3],
+                            dx, dy, dw, dh
+                    );
+                }
+                case KIND_RECT -> blitter.fillRect(colors[index], dx, dy, dw, dh);
+                default ->
+                {
+                    Graphics2D graphics2D = blitter.createGraphics();
+                    customObjects[index].drawAtPixel(graphics2D, dx, dy, dw);
+                    graphics2D.dispose();
+                }
+            }
+        }
+
+        lastDrawCount = size;
+        lastTextureSwitches = switches;
+    }
+
+    /**
+     * Draws the commands that touch a band of rows, without updating the flush statistics.
+     * Safe to call from several threads at once with blitters clipped to disjoint bands.
+     *
+     * @param blitter Blitter clipped to the band.
+     * @param minY First row of the band.
+     * @param maxY Row after the last row of the band.
+     */
+    void flushBand(RasterBlitter blitter, int minY, int maxY)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            int index = order[i];
+            int d = index * 4;
+            int dy = destinationRects[d + 1];
+            int dh = destinationRects[d + 3];
+            if (dy >= maxY || dy + dh <= minY) continue; // Outside this band
+
+            int dx = destinationRects[d];
+            int dw = destinationRects[d + 2];
+            if (kinds[index] == KIND_IMAGE)
+            {
+                int s = index * 4;
+                blitter.drawImage(
+                        images[index],
+                        sourceRects[s], sourceRects[s + 1], sourceRects[s + 2], sourceRects[s + 3],
+                        dx, dy, dw, dh
+                );
+            }
+            else if (kinds[index] == KIND_RECT)
+            {
+                blitter.fillRect(colors[index], dx, dy, dw, dh);
+            }
+        }
+    }
+
+    /**
+     * Converts every image used this frame for a blitter, so bands drawn in parallel only read
+     * its cache. Also records the flush statistics, since bands do not.
+     *
+     * @param blitter The blitter whose cache to fill.
+     */
+    void prepareSources(RasterBlitter blitter)
+    {
+        Image current = null;
+        int switches = 0;
+
+        for (int i = 0; i < size; i++)
+        {
+            Image image = images[order[i]];
+            if (image != null && image != current)
+            {
+                blitter.prepare(image);
+                current = image;
+                switches++;
+            }
+        }
+
+        lastDrawCount = size;
+        lastTextureSwitches = switches;
+    }
+
+    /**
+     * Hashes what a command draws: its kind, image, rectangles and color.
+     * Two frames drawing the same thing at the same place give the same hash.
+     *
+     * @param position Position in sorted order.
+     * @return The command's hash.
+     */
+    long commandHash(int position)
+    {
+        int index = order[position];
+        int s = index * 4;
+        int d = index * 4;
+
+        long hash = kinds[index];
+        hash = hash * 0x9E3779B97F4A7C15L + System.identityHashCode(images[index]);
+        hash = hash * 0x9E3779B97F4A7C15L + colors[index];
+        hash = hash * 0x9E3779B97F4A7C15L + (((long) sourceRects[s] << 32) | (sourceRects[s + 1] & 0xFFFFFFFFL));
+        hash = hash * 0x9E3779B97F4A7C15L + (((long) sourceRects[s + 2] << 32) | (sourceRects[s + 3] & 0xFFFFFFFFL));
+        hash = hash * 0x9E3779B97F4A7C15L + (((long) destinationRects[d] << 32) | (destinationRects[d + 1] & 0xFFFFFFFFL));
+        hash = hash * 0x9E3779B97F4A7C15L + (((long) destinationRects[d + 2] << 32) | (destinationRects[d + 3] & 0xFFFFFFFFL));
+        return hash;
+    }
+
+    /**
+     * @param position Position in sorted order.
+     * @return True if the command calls back into custom drawing code (its result cannot be hashed).
+     */
+    boolean isCustom(int position)
+    {
+        return kinds[order[position]] == KIND_CUSTOM;
+    }
+
+    /**
+     * @param position Position in sorted order.
+     * @return True if the command is an image drawn at a different size than its source.
+     */
+    boolean isScaled(int position)
+    {
+        int index = order[position];
+        return kinds[index] == KIND_IMAGE
+                && (sourceRects[index * 4 + 2] != destinationRects[index * 4 + 2]
+                || sourceRects[index * 4 + 3] != destinationRects[index * 4 + 3]);
+    }
+
+    /**
+     * Gets one value of a command's destination rectangle.
+     *
+     * @param position Position in sorted order.
+     * @param component 0 = x, 1 = y, 2 = width, 3 = height.
+     * @return The value.
+     */
+    int destination(int position, int component)
+    {
+        return destinationRects[order[position] * 4 + component];
+    }
+
+    /**
+     * @return True if any command calls back into custom drawing code.
+     */
+    boolean hasCustomCommands()
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (kinds[i] == KIND_CUSTOM) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return Number of recorded commands.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return Number of commands drawn by the last flush.
+     */
+    public int getLastDrawCount()
+    {
+        return lastDrawCount;
+    }
+
+    /**
+     * @return Number of times the source image changed during the last flush.
+     */
+    public int getLastTextureSwitches()
+    {
+        return lastTextureSwitches;
+    }
+
+    /**
+     * Sets the atlas that packed images are drawn from (null to draw originals).
+     *
+     * @param textureAtlas The atlas.
+     */
+    public void setTextureAtlas(TextureAtlas textureAtlas)
+    {
+        this.textureAtlas = textureAtlas;
+        clearTextureIds();
+    }
+
+    /**
+     * @return The active atlas, or null.
+     */
+    public TextureAtlas getTextureAtlas()
+    {
+        return textureAtlas;
+    }
+
+    /**
+     * Sets the cache used to pre-scale images (null to let Java2D scale on every draw).
+     *
+     * @param scaledImageCache The cache.
+     */
+    public void setScaledImageCache(ScaledImageCache scaledImageCache)
+    {
+        this.scaledImageCache = scaledImageCache;
+        clearTextureIds();
+    }
+
+    /**
+     * @return The active pre-scale cache, or null.
+     */
+    public ScaledImageCache getScaledImageCache()
+    {
+        return scaledImageCache;
+    }
+
+    /**
+     * Forgets texture IDs. Done by every {@link #begin()}; IDs only group one frame's commands.
+     */
+    public void clearTextureIds()
+    {
+        textureIds.clear();
+        lastTexture = null;
+    }
+
+    // ----------- Internal Helpers -----------
+
+    private int push(byte kind, int depth, int textureId)
+    {
+        if (size == kinds.length) grow();
+
+        int index = size++;
+        kinds[index] = kind;
+        colors[index] = 0;
+        Arrays.fill(sourceRects, index * 4, index * 4 + 4, 0); // Keep unused fields stable for commandHash
+        order[index] = index;
+        keys[index] = ((long) Math.max(0, depth) << 32) | (textureId & 0xFFFFFFFFL);
+        return index;
+    }
+
+    private void setDestination(int index, int dx, int dy, int dw, int dh)
+    {
+        int d = index * 4;
+        destinationRects[d] = dx;
+        destinationRects[d + 1] = dy;
+        destinationRects[d + 2] = dw;
+        destinationRects[d + 3] = dh;
+    }
+
+    private int textureIdOf(Image image)
+    {
+        // Consecutive draws usually share an image, so skip the map lookup
+        if (image == lastTexture) return lastTextureId;
+
+        Integer id = textureIds.get(image);
+        if (id == null)
+        {
+            id = textureIds.size() + 1;
+            textureIds.put(image, id);
+        }
+
+        lastTexture = image;
+        lastTextureId = id;
+        return id;
+    }
+
+    private void allocate(int capacity)
+    {
+        kinds = new byte[capacity];
+        images = new Image[capacity];
+        customObjects = new GameObject[capacity];
+        colors = new int[capacity];
+        sourceRects = new int[capacity * 4];
+        destinationRects = new int[capacity * 4];
+        keys = new long[capacity];
+        order = new int[capacity];
+    }
+
+    private void grow()
+    {
+        int capacity = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, capacity);
+        images = Arrays.copyOf(images, capacity);
+        customObjects = Arrays.copyOf(customObjects, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+        sourceRects = Arrays.copyOf(sourceRects, capacity * 4);
+        destinationRects = Arrays.copyOf(destinationRects, capacity * 4);
+        keys = Arrays.copyOf(keys, capacity);
+        order = Arrays.copyOf(order, capacity);
+    }
+}
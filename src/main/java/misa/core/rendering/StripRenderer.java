@@ -0,0 +1,140 @@
+package misa.core.rendering;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.logging.Logger;
+
+/**
+ * StripRenderer flushes a {@link SpriteBatch} on several threads at once.
+ *
+ * <p>
+ * The frame is cut into horizontal strips. Each strip replays the whole sorted command
+ * list through its own {@link RasterBlitter} clipped to its rows, skipping commands that
+ * do not touch it. Strips never write the same pixels, so they need no locking, and the
+ * draw order inside each strip is the same as a single-threaded flush: the result is
+ * identical.
+ * </p>
+ *
+ * <p>
+ * Frames containing custom draw commands ({@link SpriteBatch#drawCustom}) are flushed on
+ * the calling thread, because custom drawing code (e.g. animation playback) is not safe to
+ * run once per strip or from worker threads.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class StripRenderer
+{
+    private static final Logger LOGGER = Logger.getLogger(StripRenderer.class.getName());
+
+    // Strips per worker thread; more strips than threads keeps threads busy when some strips are empty
+    private static final int STRIPS_PER_THREAD = 2;
+
+    // Strips shorter than this are not worth a task
+    private static final int MIN_STRIP_HEIGHT = 32;
+
+    private final ForkJoinPool pool;
+    private final int stripCount;
+
+    // Band blitters, rebuilt when the target changes
+    private RasterBlitter bandSource;
+    private RasterBlitter[] bands = new RasterBlitter[0];
+    private int[] bandMinY = new int[0];
+    private int[] bandMaxY = new int[0];
+
+    private final List<ForkJoinTask<?>> tasks = new ArrayList<>();
+
+    /**
+     * Creates a strip renderer on its own pool.
+     *
+     * @param threads Number of worker threads (must be > 0).
+     */
+    public StripRenderer(int threads)
+    {
+        this(new ForkJoinPool(threads));
+    }
+
+    /**
+     * Creates a strip renderer on an existing pool.
+     *
+     * @param pool The pool to run strips on.
+     */
+    public StripRenderer(ForkJoinPool pool)
+    {
+        this.pool = pool;
+        this.stripCount = Math.max(1, pool.getParallelism() * STRIPS_PER_THREAD);
+    }
+
+    /**
+     * Draws a sorted batch into a blitter's target using every worker thread.
+     *
+     * @param batch The sorted batch.
+     * @param blitter Blitter for the whole target; its source cache is shared by the strips.
+     */
+    public void flush(SpriteBatch batch, RasterBlitter blitter)
+    {
+        if (batch.hasCustomCommands() || pool.getParallelism() < 2)
+        {
+            batch.flush(blitter);
+            return;
+        }
+
+        // Convert new images once, on this thread, so strips only read the cache
+        batch.prepareSources(blitter);
+        ensureBands(blitter);
+
+        tasks.clear();
+        for (int i = 0; i < bands.length; i++)
+        {
+            RasterBlitter band = bands[i];
+            int minY = bandMinY[i];
+            int maxY = bandMaxY[i];
+            tasks.add(pool.submit(() -> batch.flushBand(band, minY, maxY)));
+        }
+
+        for (ForkJoinTask<?> task : tasks) task.join();
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    public void shutdown()
+    {
+        pool.shutdown();
+    }
+
+    /**
+     * @return The worker pool.
+     */
+    public ForkJoinPool getPool()
+    {
+        return pool;
+    }
+
+    /**
+     * Splits the target into strips, reusing the previous split while the target is unchanged.
+     *
+     * @param blitter Blitter for the whole target.
+     */
+    private void ensureBands(RasterBlitter blitter)
+    {
+        if (blitter == bandSource) return;
+
+        int height = blitter.getTarget().getHeight();
+        int count = Math.max(1, Math.min(stripCount, height / MIN_STRIP_HEIGHT));
+
+        bands = new RasterBlitter[count];
+        bandMinY = new int[count];
+        bandMaxY = new int[count];
+        for (int i = 0; i < count; i++)
+        {
+            bandMinY[i] = height * i / count;
+            bandMaxY[i] = height * (i + 1) / count;
+            bands[i] = blitter.band(bandMinY[i], bandMaxY[i]);
+        }
+
+        bandSource = blitter;
+        LOGGER.fine("StripRenderer split " + height + " rows into " + count + " strip(s)");
+    }
+}
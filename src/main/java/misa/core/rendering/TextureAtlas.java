@@ -0,0 +1,261 @@
+package misa.core.rendering;
+
+import misa.data.tiled2misa.TiledTileset;
+import misa.systems.animation.AnimationLoader;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * TextureAtlas packs many small images (animation frames, tileset sheets) into a few
+ * large page images.
+ *
+ * <p>
+ * The original images stay valid: the atlas only remembers where each one was copied to.
+ * When an atlas is set on the {@link SpriteBatch}, any draw of a packed image is redirected
+ * to the matching sub-region of its page, so hundreds of frames end up drawn from a
+ * handful of images instead of one image each.
+ * </p>
+ *
+ * <p>
+ * Use {@link TextureAtlas.Builder} to create an atlas.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class TextureAtlas
+{
+    private static final Logger LOGGER = Logger.getLogger(TextureAtlas.class.getName());
+
+    private final List<BufferedImage> pages;
+    private final Map<Image, AtlasRegion> regions;
+
+    /**
+     * Private constructor — use Builder to create TextureAtlas instances.
+     *
+     * @param pages The packed page images.
+     * @param regions Source image to region lookup.
+     */
+    private TextureAtlas(List<BufferedImage> pages, Map<Image, AtlasRegion> regions)
+    {
+        this.pages = Collections.unmodifiableList(pages);
+        this.regions = regions;
+    }
+
+    /**
+     * Finds where a source image was packed.
+     *
+     * @param image The original image.
+     * @return Its region, or null if the image is not in this atlas.
+     */
+    public AtlasRegion findRegion(Image image)
+    {
+        return regions.get(image);
+    }
+
+    /**
+     * @return Unmodifiable list of page images.
+     */
+    public List<BufferedImage> getPages()
+    {
+        return pages;
+    }
+
+    /**
+     * @return Number of packed images.
+     */
+    public int getRegionCount()
+    {
+        return regions.size();
+    }
+
+    /**
+     * Builder for packing images into a {@link TextureAtlas}.
+     *
+     * <p>
+     * Example usage:
+     * <pre>
+     * TextureAtlas atlas = new TextureAtlas.Builder()
+     *      .addLoadedAnimationFrames()
+     *      .addTilesets(map.getTilesets())
+     *      .build();
+     * renderer.setTextureAtlas(atlas);
+     * </pre>
+     * </p>
+     */
+    public static class Builder
+    {
+        private int pageWidth = 2048;
+        private int pageHeight = 2048;
+        private int padding = 1;
+        private final Set<BufferedImage> images = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        /**
+         * Sets the page size (pixels). Images larger than a page are left unpacked.
+         *
+         * @param width Page width.
+         * @param height Page height.
+         * @return This builder instance.
+         */
+        public Builder setPageSize(int width, int height)
+        {
+            this.pageWidth = width;
+            this.pageHeight = height;
+            return this;
+        }
+
+        /**
+         * Sets the empty border kept around each packed image.
+         *
+         * @param padding Padding in pixels.
+         * @return This builder instance.
+         */
+        public Builder setPadding(int padding)
+        {
+            this.padding = Math.max(0, padding);
+            return this;
+        }
+
+        /**
+         * Adds a single image.
+         *
+         * @param image The image to pack (null is ignored).
+         * @return This builder instance.
+         */
+        public Builder addImage(BufferedImage image)
+        {
+            if (image != null) images.add(image);
+            return this;
+        }
+
+        /**
+         * Adds every frame of an animation.
+         *
+         * @param frames Animation frames.
+         * @return This builder instance.
+         */
+        public Builder addFrames(BufferedImage[] frames)
+        {
+            if (frames != null)
+            {
+                for (BufferedImage frame : frames) addImage(frame);
+            }
+            return this;
+        }
+
+        /**
+         * Adds every frame of a set of named animations.
+         *
+         * @param animations Animation name to frames.
+         * @return This builder instance.
+         */
+        public Builder addAnimations(Map<String, BufferedImage[]> animations)
+        {
+            for (BufferedImage[] frames : animations.values()) addFrames(frames);
+            return this;
+        }
+
+        /**
+         * Adds every image loaded so far through {@link AnimationLoader}.
+         *
+         * @return This builder instance.
+         */
+        public Builder addLoadedAnimationFrames()
+        {
+            for (BufferedImage image : AnimationLoader.getLoadedImages()) addImage(image);
+            return this;
+        }
+
+        /**
+         * Adds the sheet images of tilesets.
+         *
+         * @param tilesets The tilesets to pack.
+         * @return This builder instance.
+         */
+        public Builder addTilesets(List<TiledTileset> tilesets)
+        {
+            for (TiledTileset tileset : tilesets)
+            {
+                if (tileset.getImage() instanceof BufferedImage sheet) addImage(sheet);
+            }
+            return this;
+        }
+
+        /**
+         * Packs every added image into pages.
+         *
+         * @return The finished TextureAtlas.
+         */
+        public TextureAtlas build()
+        {
+            // Tallest first keeps the skyline flat and the pages dense
+            List<BufferedImage> sorted = new ArrayList<>(images);
+            sorted.sort(Comparator.comparingInt((BufferedImage image) -> image.getHeight())
+                    .thenComparingInt(BufferedImage::getWidth)
+                    .reversed());
+
+            List<BufferedImage> pages = new ArrayList<>();
+            List<SkylinePacker> packers = new ArrayList<>();
+            List<Graphics2D> pageGraphics = new ArrayList<>();
+            Map<Image, AtlasRegion> regions = new IdentityHashMap<>();
+            int skipped = 0;
+
+            for (BufferedImage image : sorted)
+            {
+                int paddedWidth = image.getWidth() + padding * 2;
+                int paddedHeight = image.getHeight() + padding * 2;
+
+                if (paddedWidth > pageWidth || paddedHeight > pageHeight)
+                {
+                    skipped++;
+                    continue;
+                }
+
+                // Try existing pages first, then open a new one
+                int pageIndex = -1;
+                for (int i = 0; i < packers.size(); i++)
+                {
+                    if (packers.get(i).insert(paddedWidth, paddedHeight))
+                    {
+                        pageIndex = i;
+                        break;
+                    }
+                }
+
+                if (pageIndex < 0)
+                {
+                    SkylinePacker packer = new SkylinePacker(pageWidth, pageHeight);
+                    packer.insert(paddedWidth, paddedHeight);
+                    BufferedImage page = ImagePreparer.createTarget(pageWidth, pageHeight, Transparency.TRANSLUCENT);
+                    packers.add(packer);
+                    pages.add(page);
+                    pageGraphics.add(page.createGraphics());
+                    pageIndex = packers.size() - 1;
+                }
+
+                SkylinePacker packer = packers.get(pageIndex);
+                int x = packer.getPlacedX() + padding;
+                int y = packer.getPlacedY() + padding;
+
+                pageGraphics.get(pageIndex).drawImage(image, x, y, null);
+                regions.put(image, new AtlasRegion(pages.get(pageIndex), x, y, image.getWidth(), image.getHeight()));
+            }
+
+            for (Graphics2D graphics : pageGraphics) graphics.dispose();
+
+            LOGGER.info("TextureAtlas built: " + regions.size() + " image(s) on " + pages.size() + " page(s)"
+                    + (skipped > 0 ? ", " + skipped + " too large to pack" : ""));
+
+            return new TextureAtlas(pages, regions);
+        }
+    }
+}
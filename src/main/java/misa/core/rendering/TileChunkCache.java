@@ -0,0 +1,357 @@
+package misa.core.rendering;
+
+import misa.data.tiled2misa.TileOcclusion;
+import misa.data.tiled2misa.TiledLayer;
+import misa.data.tiled2misa.TiledMap;
+import misa.data.tiled2misa.TiledTileset;
+import misa.systems.animation.TileClock;
+import misa.util.collections.IntArrayList;
+import misa.util.collections.LongObjectMap;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.logging.Logger;
+
+/**
+ * TileChunkCache bakes square blocks of map tiles into single images.
+ *
+ * <p>
+ * A 16x16 chunk holds up to 256 tiles; drawing it is one image copy instead of 256 tile
+ * draws. Chunks are baked lazily the first time they are visible and kept until the pixel
+ * budget is exceeded, at which point the least recently drawn chunks are evicted.
+ * </p>
+ *
+ * <p>
+ * Animated tiles (see {@link TileClock}) are left out of the baked image. Each chunk keeps
+ * a list of its animated cells, which are drawn on top every frame with their current frame.
+ * A clock tick therefore never re-bakes anything, and chunks without animated tiles cost
+ * nothing extra.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class TileChunkCache
+{
+    private static final Logger LOGGER = Logger.getLogger(TileChunkCache.class.getName());
+
+    /** Default chunk size in tiles. */
+    public static final int DEFAULT_CHUNK_TILES = 16;
+
+    private final int chunkTiles;
+    private final long maxPixels;
+
+    // Packed (layer, chunk X, chunk Y) -> baked chunk
+    private final LongObjectMap<Chunk> chunks = new LongObjectMap<>();
+
+    private long cachedPixels;
+    private long accessClock;
+
+    /**
+     * Creates a chunk cache.
+     *
+     * @param chunkTiles Chunk width and height in tiles (e.g. 16).
+     * @param maxPixels Maximum total pixels of all baked chunks.
+     */
+    public TileChunkCache(int chunkTiles, long maxPixels)
+    {
+        if (chunkTiles <= 0)
+            throw new IllegalArgumentException("chunkTiles must be > 0.");
+
+        this.chunkTiles = chunkTiles;
+        this.maxPixels = maxPixels;
+    }
+
+    /**
+     * Gets a chunk, baking it on first use.
+     *
+     * @param map The map.
+     * @param layerIndex Index of the layer in the map.
+     * @param chunkX Chunk column.
+     * @param chunkY Chunk row.
+     * @param pixelsPerUnit Size of one tile in the baked image.
+     * @param tileClock The tile clock deciding which tiles are animated (can be null).
+     * @return The chunk.
+     */
+    public Chunk getChunk(TiledMap map, int layerIndex, int chunkX, int chunkY, int pixelsPerUnit, TileClock tileClock)
+    {
+        long key = key(layerIndex, chunkX, chunkY);
+        Chunk chunk = chunks.get(key);
+
+        if (chunk == null || chunk.pixelsPerUnit != pixelsPerUnit)
+        {
+            if (chunk != null) cachedPixels -= chunk.pixelCount();
+            chunk = bake(map, layerIndex, chunkX, chunkY, pixelsPerUnit, tileClock);
+            chunks.put(key, chunk);
+            cachedPixels += chunk.pixelCount();
+            if (cachedPixels > maxPixels) evict(key);
+        }
+
+        chunk.lastUsed = ++accessClock;
+        return chunk;
+    }
+
+    /**
+     * Drops the chunk holding a tile so it is baked again (e.g. after the tile was changed).
+     *
+     * @param layerIndex Index of the layer.
+     * @param tileX Tile column.
+     * @param tileY Tile row.
+     */
+    public void invalidate(int layerIndex, int tileX, int tileY)
+    {
+        Chunk chunk = chunks.remove(key(layerIndex, Math.floorDiv(tileX, chunkTiles), Math.floorDiv(tileY, chunkTiles)));
+        if (chunk != null) cachedPixels -= chunk.pixelCount();
+    }
+
+    /**
+     * Removes every baked chunk (e.g. after a map change).
+     */
+    public void clear()
+    {
+        chunks.clear();
+        cachedPixels = 0;
+    }
+
+    /**
+     * @return Chunk width and height in tiles.
+     */
+    public int getChunkTiles()
+    {
+        return chunkTiles;
+    }
+
+    /**
+     * @return Number of baked chunks.
+     */
+    public int getChunkCount()
+    {
+        return chunks.size();
+    }
+
+    /**
+     * @return Total pixels currently held by baked chunks.
+     */
+    public long getCachedPixels()
+    {
+        return cachedPixels;
+    }
+
+    /**
+     * Bakes the static tiles of one chunk and records its animated cells.
+     */
+    private Chunk bake(TiledMap map, int layerIndex, int chunkX, int chunkY, int pixelsPerUnit, TileClock tileClock)
+    {
+        TiledLayer layer = map.getLayers().get(layerIndex);
+        TileOcclusion occlusion = map.getOcclusion();
+
+        int startX = chunkX * chunkTiles;
+        int startY = chunkY * chunkTiles;
+        int columns = Math.max(0, Math.min(chunkTiles, layer.width() - startX));
+        int rows = Math.max(0, Math.min(chunkTiles, layer.height() - startY));
+
+        IntArrayList animatedCells = new IntArrayList();
+        int staticTiles = 0;
+        boolean opaque = true;
+
+        // First pass: sort cells into static and animated, and see if the chunk is fully covered
+        for (int y = startY; y < startY + rows; y++)
+        {
+            for (int x = startX; x < startX + columns; x++)
+            {
+                int gid = layer.getGid(x, y);
+                if (gid == 0 || occlusion.isHidden(layerIndex, x, y))
+                {
+                    opaque = false;
+                    continue;
+                }
+
+                if (tileClock != null && tileClock.isAnimated(gid))
+                {
+                    animatedCells.add(((y - startY) << 16) | (x - startX));
+                    opaque = false;
+                    continue;
+                }
+
+                TiledTileset tileset = map.getTilesetForTile(gid);
+                if (tileset == null || tileset.getImage() == null)
+                {
+                    opaque = false;
+                    continue;
+                }
+
+                if (!tileset.isTileOpaque(gid - tileset.firstGID())) opaque = false;
+                staticTiles++;
+            }
+        }
+
+        BufferedImage image = null;
+        if (staticTiles > 0)
+        {
+            image = ImagePreparer.createTarget(
+                    columns * pixelsPerUnit, rows * pixelsPerUnit,
+                    opaque ? Transparency.OPAQUE : Transparency.TRANSLUCENT
+            );
+
+            Graphics2D graphics = image.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+
+            int tileWidth = map.getTileWidth();
+            int tileHeight = map.getTileHeight();
+
+            for (int y = startY; y < startY + rows; y++)
+            {
+                for (int x = startX; x < startX + columns; x++)
+                {
+                    int gid = layer.getGid(x, y);
+                    if (gid == 0 || occlusion.isHidden(layerIndex, x, y)) continue;
+                    if (tileClock != null && tileClock.isAnimated(gid)) continue;
+
+                    TiledTileset tileset = map.getTilesetForTile(gid);
+                    if (tileset == null) continue;
+
+                    int flags = layer.getFlags(x, y);
+                    Image sheet = flags == 0 ? tileset.getImage() : tileset.getFlippedImage(flags, tileWidth, tileHeight);
+                    if (sheet == null) continue;
+
+                    int localId = gid - tileset.firstGID();
+                    int tilesPerRow = sheet.getWidth(null) / tileWidth;
+                    int sx = (localId % tilesPerRow) * tileWidth;
+                    int sy = (localId / tilesPerRow) * tileHeight;
+
+                    int dx = (x - startX) * pixelsPerUnit;
+                    int dy = (y - startY) * pixelsPerUnit;
+
+                    graphics.drawImage(
+                            sheet,
+                            dx, dy, dx + pixelsPerUnit, dy + pixelsPerUnit,
+                            sx, sy, sx + tileWidth, sy + tileHeight,
+                            null
+                    );
+                }
+            }
+            graphics.dispose();
+        }
+
+        return new Chunk(image, animatedCells.toArray(), startX, startY, pixelsPerUnit);
+    }
+
+    /**
+     * Evicts least recently drawn chunks until the cache is back under 3/4 of its budget.
+     *
+     * @param keep Key of the chunk being returned, which is never evicted.
+     */
+    private void evict(long keep)
+    {
+        long target = maxPixels * 3 / 4;
+        int evicted = 0;
+
+        while (cachedPixels > target && chunks.size() > 1)
+        {
+            // Find the least recently used chunk (eviction is rare, so a scan is fine)
+            long[] oldestKey = new long[1];
+            Chunk[] oldest = new Chunk[1];
+            chunks.forEach((key, chunk) ->
+            {
+                if (key != keep && (oldest[0] == null || chunk.lastUsed < oldest[0].lastUsed))
+                {
+                    oldest[0] = chunk;
+                    oldestKey[0] = key;
+                }
+            });
+
+            if (oldest[0] == null) break;
+            chunks.remove(oldestKey[0]);
+            cachedPixels -= oldest[0].pixelCount();
+            evicted++;
+        }
+
+        LOGGER.fine("TileChunkCache evicted " + evicted + " chunk(s)");
+    }
+
+    /**
+     * Packs a layer index and chunk coordinates into one key.
+     */
+    private static long key(int layerIndex, int chunkX, int chunkY)
+    {
+        return ((long) layerIndex << 48) | ((chunkX & 0xFFFFFFL) << 24) | (chunkY & 0xFFFFFFL);
+    }
+
+    /**
+     * One baked chunk: an image of its static tiles plus the cells that must be drawn live.
+     */
+    public static final class Chunk
+    {
+        private final BufferedImage image;
+        private final int[] animatedCells; // (row << 16) | column, relative to the chunk
+        private final int startX;
+        private final int startY;
+        private final int pixelsPerUnit;
+        private long lastUsed;
+
+        private Chunk(BufferedImage image, int[] animatedCells, int startX, int startY, int pixelsPerUnit)
+        {
+            this.image = image;
+            this.animatedCells = animatedCells;
+            this.startX = startX;
+            this.startY = startY;
+            this.pixelsPerUnit = pixelsPerUnit;
+        }
+
+        /**
+         * @return The baked static tiles, or null if the chunk has none.
+         */
+        public BufferedImage getImage()
+        {
+            return image;
+        }
+
+        /**
+         * @return Number of animated cells in the chunk.
+         */
+        public int getAnimatedCellCount()
+        {
+            return animatedCells.length;
+        }
+
+        /**
+         * @param index Animated cell index.
+         * @return Map tile column of the cell.
+         */
+        public int getAnimatedCellX(int index)
+        {
+            return startX + (animatedCells[index] & 0xFFFF);
+        }
+
+        /**
+         * @param index Animated cell index.
+         * @return Map tile row of the cell.
+         */
+        public int getAnimatedCellY(int index)
+        {
+            return startY + (animatedCells[index] >>> 16);
+        }
+
+        /**
+         * @return Map tile column of the chunk's top-left tile.
+         */
+        public int getStartX()
+        {
+            return startX;
+        }
+
+        /**
+         * @return Map tile row of the chunk's top-left tile.
+         */
+        public int getStartY()
+        {
+            return startY;
+        }
+
+        private long pixelCount()
+        {
+            return image == null ? 0 : (long) image.getWidth() * image.getHeight();
+        }
+    }
+}
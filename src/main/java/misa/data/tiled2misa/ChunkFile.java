@@ -0,0 +1,77 @@
+package misa.data.tiled2misa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * ChunkFile reads the encoded text of infinite-map chunks back from the TMX file.
+ *
+ * <p>
+ * Reads are positional, so several threads can read different chunks at the same time.
+ * The file is opened on first use.
+ * </p>
+ */
+final class ChunkFile
+{
+    private final Path path;
+    private volatile FileChannel channel;
+
+    ChunkFile(Path path)
+    {
+        this.path = path;
+    }
+
+    /**
+     * Reads a byte range as text. Chunk data (CSV or base64) is ASCII, so every byte is one character.
+     *
+     * @param start File offset.
+     * @param length Number of bytes.
+     * @return The characters.
+     * @throws IOException If the file cannot be read or ends early.
+     */
+    char[] readText(long start, int length) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        FileChannel fileChannel = channel();
+
+        long position = start;
+        while (buffer.hasRemaining())
+        {
+            int read = fileChannel.read(buffer, position);
+            if (read < 0) throw new IOException("Map file " + path + " ended inside a chunk.");
+            position += read;
+        }
+
+        byte[] bytes = buffer.array();
+        char[] text = new char[length];
+        for (int i = 0; i < length; i++) text[i] = (char) (bytes[i] & 0xFF);
+        return text;
+    }
+
+    /**
+     * Closes the file. It is opened again if another chunk is read.
+     */
+    synchronized void close() throws IOException
+    {
+        if (channel != null)
+        {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private FileChannel channel() throws IOException
+    {
+        FileChannel fileChannel = channel;
+        if (fileChannel != null) return fileChannel;
+
+        synchronized (this)
+        {
+            if (channel == null) channel = FileChannel.open(path, StandardOpenOption.READ);
+            return channel;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package misa.data.tiled2misa;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ChunkIndexer finds the byte range of every {@code <chunk>} in a TMX file.
+ *
+ * <p>
+ * XML readers report positions in characters, not bytes, so they cannot be used to seek
+ * back into a UTF-8 file. This is a small byte-level scan that understands just enough XML
+ * (tags, quoted attributes, comments, CDATA) to find chunks. It runs once per infinite map,
+ * next to the regular parse, and holds nothing but the offsets.
+ * </p>
+ */
+final class ChunkIndexer
+{
+    private final InputStream in;
+    private final byte[] buffer = new byte[64 * 1024];
+    private int length;
+    private int pos;
+    private long base; // File offset of buffer[0]
+
+    private ChunkIndexer(InputStream in)
+    {
+        this.in = in;
+    }
+
+    /**
+     * Scans a TMX file.
+     *
+     * @param path The TMX file.
+     * @return One list per {@code <layer>} element, in document order, holding its chunks
+     *         (without decoded tiles; empty for layers without chunks).
+     * @throws IOException If the file cannot be read.
+     */
+    static List<List<ChunkedLayer.Chunk>> scan(Path path) throws IOException
+    {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 4096))
+        {
+            return new ChunkIndexer(in).scan();
+        }
+    }
+
+    private List<List<ChunkedLayer.Chunk>> scan() throws IOException
+    {
+        List<List<ChunkedLayer.Chunk>> layers = new ArrayList<>();
+        List<ChunkedLayer.Chunk> current = null;
+        Map<String, String> attributes = new HashMap<>();
+
+        int c;
+        while ((c = read()) != -1)
+        {
+            if (c != '<') continue;
+
+            c = read();
+            if (c == '!')
+            {
+                skipSpecial();
+                continue;
+            }
+            if (c == '?')
+            {
+                skipPast("?>");
+                continue;
+            }
+
+            boolean endTag = c == '/';
+            String name = readName(endTag ? read() : c);
+
+            if (endTag)
+            {
+                if (name.equals("layer")) current = null;
+                skipPast(">");
+                continue;
+            }
+
+            boolean wanted = name.equals("layer") || name.equals("chunk");
+            attributes.clear();
+            boolean selfClosing = readAttributes(wanted ? attributes : null);
+
+            if (name.equals("layer"))
+            {
+                current = new ArrayList<>();
+                layers.add(current);
+                if (selfClosing) current = null;
+            }
+            else if (name.equals("chunk") && current != null && !selfClosing)
+            {
+                long start = position();
+                while ((c = read()) != -1 && c != '<')
+                {
+                    // Chunk text never contains '<'
+                }
+                long end = position() - 1;
+
+                current.add(new ChunkedLayer.Chunk(
+                        intValue(attributes, "x"), intValue(attributes, "y"),
+                        intValue(attributes, "width"), intValue(attributes, "height"),
+                        start, end, null
+                ));
+            }
+        }
+
+        return layers;
+    }
+
+    /**
+     * Reads a tag name, starting with an already read character.
+     */
+    private String readName(int first) throws IOException
+    {
+        StringBuilder name = new StringBuilder();
+        int c = first;
+        while (c != -1 && c != '>' && c != '/' && !Character.isWhitespace(c))
+        {
+            name.append((char) c);
+            c = read();
+        }
+        if (c != -1) pos--; // Leave the delimiter for the attribute reader
+        return name.toString();
+    }
+
+    /**
+     * Reads attributes up to the end of a start tag.
+     *
+     * @param attributes Receives the attributes (null to skip them).
+     * @return True if the tag is self-closing.
+     */
+    private boolean readAttributes(Map<String, String> attributes) throws IOException
+    {
+        StringBuilder name = new StringBuilder();
+        int c;
+        while ((c = read()) != -1)
+        {
+            if (c == '>') return false;
+            if (c == '/')
+            {
+                skipPast(">");
+                return true;
+            }
+            if (c == '"' || c == '\'')
+            {
+                // Attribute value: read up to the matching quote
+                StringBuilder value = new StringBuilder();
+                int quote = c;
+                while ((c = read()) != -1 && c != quote) value.append((char) c);
+                if (attributes != null) attributes.put(name.toString().trim(), value.toString());
+                name.setLength(0);
+            }
+            else if (c != '=')
+            {
+                name.append((char) c);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Skips a comment, CDATA section or declaration (after "&lt;!").
+     */
+    private void skipSpecial() throws IOException
+    {
+        int c = read();
+        if (c == '-')
+        {
+            skipPast("-->");
+        }
+        else if (c == '[')
+        {
+            skipPast("]]>");
+        }
+        else
+        {
+            skipPast(">");
+        }
+    }
+
+    private void skipPast(String terminator) throws IOException
+    {
+        // Compare the last few bytes read against the terminator
+        int size = terminator.length();
+        int[] window = new int[size];
+        int count = 0;
+        int c;
+        while ((c = read()) != -1)
+        {
+            window[count++ % size] = c;
+            if (count < size) continue;
+
+            boolean match = true;
+            for (int i = 0; i < size && match; i++)
+            {
+                match = window[(count - size + i) % size] == terminator.charAt(i);
+            }
+            if (match) return;
+        }
+    }
+
+    private int read() throws IOException
+    {
+        if (pos == length)
+        {
+            base += length;
+            pos = 0;
+            length = Math.max(0, in.read(buffer));
+            if (length == 0) return -1;
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    /**
+     * @return File offset of the next byte to read.
+     */
+    private long position()
+    {
+        return base + pos;
+    }
+
+    private static int intValue(Map<String, String> attributes, String name)
+    {
+        try
+        {
+            return Integer.parseInt(attributes.getOrDefault(name, "0").trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return 0;
+        }
+    }
+}
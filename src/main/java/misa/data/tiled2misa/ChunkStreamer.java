@@ -0,0 +1,488 @@
+package misa.data.tiled2misa;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ChunkStreamer keeps the chunks of an infinite map resident around the view.
+ *
+ * <p>
+ * Call {@link #update} once per frame, on the thread that draws the map, with the visible
+ * area in tiles. Chunks within {@code radius} chunks of the view are decoded on a background
+ * thread, nearest first. The view's recent movement is used to also prefetch chunks ahead of
+ * it, so a moving camera finds its chunks already loaded. Chunks that drift out of range are
+ * dropped again (one extra chunk of slack avoids loading and dropping the same chunk while
+ * the camera hovers on a border).
+ * </p>
+ *
+ * <p>
+ * A chunk that is visible but still not loaded when the frame is drawn is decoded right away
+ * on the calling thread, so tiles never pop in late. With a sensible radius this only happens
+ * after the camera jumps.
+ * </p>
+ *
+ * <p>
+ * Only layers read lazily from a file are streamed (see {@link ChunkedLayer#isStreamed()});
+ * other layers are always fully resident and are left alone.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class ChunkStreamer
+{
+    private static final Logger LOGGER = Logger.getLogger(ChunkStreamer.class.getName());
+
+    /** Default number of chunks kept loaded around the view. */
+    public static final int DEFAULT_RADIUS = 2;
+
+    // Weight of the previous velocity when smoothing camera movement
+    private static final float VELOCITY_SMOOTHING = 0.75f;
+
+    // How many updates ahead the prefetch looks
+    private static final int LOOKAHEAD_UPDATES = 30;
+
+    private final List<ChunkedLayer> layers;
+    private final int radius;
+
+    // Smallest chunk size of all streamed layers, used to notice when the view crosses a chunk
+    private final int cellWidth;
+    private final int cellHeight;
+
+    // Requests for the loader thread (packed layer and chunk keys, nearest first)
+    private final LinkedBlockingDeque<Long> requests = new LinkedBlockingDeque<>();
+
+    // Decoded chunks waiting to be installed on the render thread
+    private final ConcurrentLinkedQueue<Loaded> loaded = new ConcurrentLinkedQueue<>();
+
+    // Keys queued or being decoded, and keys that could not be decoded
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final Set<Long> failed = ConcurrentHashMap.newKeySet();
+
+    private final Thread loader;
+    private volatile boolean running = true;
+
+    // View movement, in tiles per update
+    private float lastViewX = Float.NaN;
+    private float lastViewY = Float.NaN;
+    private float velocityX;
+    private float velocityY;
+
+    // View and prefetch cells the queue was last built for
+    private long lastViewCell = Long.MIN_VALUE;
+    private long lastAheadCell = Long.MIN_VALUE;
+
+    // Statistics
+    private long installedCount;
+    private long evictedCount;
+    private long syncLoadCount;
+
+    private record Loaded(long key, TiledLayer tiles)
+    {
+    }
+
+    /**
+     * Creates a streamer for a map and starts its loader thread (if the map has streamed layers).
+     *
+     * @param map The map.
+     * @param radius Number of chunks kept loaded on each side of the view (e.g. {@link #DEFAULT_RADIUS}).
+     */
+    public ChunkStreamer(TiledMap map, int radius)
+    {
+        if (radius < 0)
+            throw new IllegalArgumentException("radius must be >= 0.");
+
+        this.layers = map.getChunkedLayers();
+        this.radius = radius;
+
+        int width = Integer.MAX_VALUE;
+        int height = Integer.MAX_VALUE;
+        boolean streamed = false;
+        for (ChunkedLayer layer : layers)
+        {
+            if (!layer.isStreamed()) continue;
+            streamed = true;
+            width = Math.min(width, layer.getChunkWidth());
+            height = Math.min(height, layer.getChunkHeight());
+        }
+        this.cellWidth = streamed ? width : 1;
+        this.cellHeight = streamed ? height : 1;
+
+        if (streamed)
+        {
+            loader = new Thread(this::runLoader, "ChunkStreamer");
+            loader.setDaemon(true);
+            loader.start();
+        }
+        else
+        {
+            loader = null;
+        }
+    }
+
+    /**
+     * Installs finished chunks, requests chunks around the view and drops far away ones.
+     * Call this on the thread that reads the map's chunked layers, before drawing them.
+     * Does nothing after {@link #shutdown()}.
+     *
+     * @param viewX Left edge of the view, in tiles.
+     * @param viewY Top edge of the view, in tiles.
+     * @param viewWidth View width in tiles.
+     * @param viewHeight View height in tiles.
+     */
+    public void update(float viewX, float viewY, float viewWidth, float viewHeight)
+    {
+        // After shutdown nothing would complete new requests
+        if (loader == null || !running) return;
+
+        boolean installed = installLoaded();
+
+        // Smoothed movement; a jump of more than a view resets it
+        if (!Float.isNaN(lastViewX))
+        {
+            float dx = viewX - lastViewX;
+            float dy = viewY - lastViewY;
+            if (Math.abs(dx) > viewWidth || Math.abs(dy) > viewHeight)
+            {
+                velocityX = 0;
+                velocityY = 0;
+            }
+            else
+            {
+                velocityX = velocityX * VELOCITY_SMOOTHING + dx * (1 - VELOCITY_SMOOTHING);
+                velocityY = velocityY * VELOCITY_SMOOTHING + dy * (1 - VELOCITY_SMOOTHING);
+            }
+        }
+        lastViewX = viewX;
+        lastViewY = viewY;
+
+        // Where the view will be soon, no further than the keep radius allows
+        float maxAheadX = (radius + 1) * cellWidth;
+        float maxAheadY = (radius + 1) * cellHeight;
+        float aheadX = viewX + clamp(velocityX * LOOKAHEAD_UPDATES, maxAheadX);
+        float aheadY = viewY + clamp(velocityY * LOOKAHEAD_UPDATES, maxAheadY);
+
+        long viewCell = ChunkedLayer.key(Math.floorDiv((int) Math.floor(viewX), cellWidth), Math.floorDiv((int) Math.floor(viewY), cellHeight));
+        long aheadCell = ChunkedLayer.key(Math.floorDiv((int) Math.floor(aheadX), cellWidth), Math.floorDiv((int) Math.floor(aheadY), cellHeight));
+
+        // Rebuild the queue only when the view or prefetch area moved to another chunk
+        if (installed || viewCell != lastViewCell || aheadCell != lastAheadCell)
+        {
+            lastViewCell = viewCell;
+            lastAheadCell = aheadCell;
+            requeue(viewX, viewY, viewWidth, viewHeight, aheadX, aheadY);
+            evict(viewX, viewY, viewWidth, viewHeight, aheadX, aheadY);
+        }
+
+        loadVisible(viewX, viewY, viewWidth, viewHeight);
+    }
+
+    /**
+     * Stops the loader thread and closes the map file. Resident chunks stay usable;
+     * later calls to {@link #update} do nothing.
+     */
+    public void shutdown()
+    {
+        running = false;
+        if (loader != null) loader.interrupt();
+        requests.clear();
+        inFlight.clear();
+
+        for (ChunkedLayer layer : layers)
+        {
+            try
+            {
+                layer.closeFile();
+            }
+            catch (IOException e)
+            {
+                LOGGER.log(Level.WARNING, "Failed to close chunk file of layer: " + layer.name(), e);
+            }
+        }
+    }
+
+    /**
+     * @return Number of chunks kept loaded on each side of the view.
+     */
+    public int getRadius()
+    {
+        return radius;
+    }
+
+    /**
+     * @return Number of chunks queued or being decoded.
+     */
+    public int getPendingCount()
+    {
+        return inFlight.size();
+    }
+
+    /**
+     * @return Number of chunks that could not be decoded (they are not retried).
+     */
+    public int getFailedCount()
+    {
+        return failed.size();
+    }
+
+    /**
+     * @return Total chunks installed so far.
+     */
+    public long getInstalledCount()
+    {
+        return installedCount;
+    }
+
+    /**
+     * @return Total chunks dropped so far.
+     */
+    public long getEvictedCount()
+    {
+        return evictedCount;
+    }
+
+    /**
+     * @return Total chunks that had to be decoded on the calling thread because they were visible.
+     */
+    public long getSyncLoadCount()
+    {
+        return syncLoadCount;
+    }
+
+    /**
+     * Decodes requested chunks until shut down.
+     */
+    private void runLoader()
+    {
+        while (running)
+        {
+            long key;
+            try
+            {
+                key = requests.takeFirst();
+            }
+            catch (InterruptedException e)
+            {
+                break;
+            }
+
+            TiledLayer tiles = null;
+            try
+            {
+                tiles = layers.get(layerOf(key)).decodeChunk(chunkXOf(key), chunkYOf(key));
+            }
+            catch (IOException | RuntimeException e)
+            {
+                LOGGER.log(Level.WARNING, "Failed to load chunk (" + chunkXOf(key) + ", " + chunkYOf(key)
+                        + ") of layer: " + layers.get(layerOf(key)).name(), e);
+            }
+            loaded.add(new Loaded(key, tiles));
+        }
+    }
+
+    /**
+     * Installs the chunks the loader finished.
+     *
+     * @return True if anything was installed or failed.
+     */
+    private boolean installLoaded()
+    {
+        boolean any = false;
+        Loaded result;
+        while ((result = loaded.poll()) != null)
+        {
+            any = true;
+            long key = result.key();
+            if (result.tiles() == null)
+            {
+                failed.add(key);
+            }
+            else
+            {
+                layers.get(layerOf(key)).install(chunkXOf(key), chunkYOf(key), result.tiles());
+                installedCount++;
+            }
+            inFlight.remove(key);
+        }
+        return any;
+    }
+
+    /**
+     * Replaces the request queue: chunks around the view first (nearest first), then the prefetch area.
+     */
+    private void requeue(float viewX, float viewY, float viewWidth, float viewHeight, float aheadX, float aheadY)
+    {
+        // Withdraw requests the loader has not started yet
+        List<Long> withdrawn = new ArrayList<>();
+        requests.drainTo(withdrawn);
+        inFlight.removeAll(withdrawn);
+
+        for (int i = 0; i < layers.size(); i++)
+        {
+            ChunkedLayer layer = layers.get(i);
+            if (!layer.isStreamed()) continue;
+
+            int[] view = chunkRange(layer, viewX, viewY, viewWidth, viewHeight, radius);
+            int[] ahead = chunkRange(layer, aheadX, aheadY, viewWidth, viewHeight, 0);
+
+            queueRings(i, layer, view, null);
+            queueRings(i, layer, ahead, view);
+        }
+    }
+
+    /**
+     * Queues the chunks of a range in rings around its center, skipping another range.
+     */
+    private void queueRings(int layerIndex, ChunkedLayer layer, int[] range, int[] skip)
+    {
+        int centerX = (range[0] + range[2]) >> 1;
+        int centerY = (range[1] + range[3]) >> 1;
+        int maxRing = Math.max(Math.max(centerX - range[0], range[2] - centerX), Math.max(centerY - range[1], range[3] - centerY));
+
+        for (int ring = 0; ring <= maxRing; ring++)
+        {
+            for (int chunkY = centerY - ring; chunkY <= centerY + ring; chunkY++)
+            {
+                // Only the ring's border: full rows at the top and bottom, two cells in between
+                boolean edgeRow = chunkY == centerY - ring || chunkY == centerY + ring;
+                int step = edgeRow ? 1 : Math.max(1, ring * 2);
+
+                for (int chunkX = centerX - ring; chunkX <= centerX + ring; chunkX += step)
+                {
+                    if (!contains(range, chunkX, chunkY)) continue;
+                    if (skip != null && contains(skip, chunkX, chunkY)) continue;
+                    request(layerIndex, layer, chunkX, chunkY);
+                }
+            }
+        }
+    }
+
+    private void request(int layerIndex, ChunkedLayer layer, int chunkX, int chunkY)
+    {
+        if (!layer.hasChunk(chunkX, chunkY) || layer.isResident(chunkX, chunkY)) return;
+
+        long key = packKey(layerIndex, chunkX, chunkY);
+        if (failed.contains(key) || !inFlight.add(key)) return;
+        requests.addLast(key);
+    }
+
+    /**
+     * Decodes visible chunks that are still missing, on this thread.
+     */
+    private void loadVisible(float viewX, float viewY, float viewWidth, float viewHeight)
+    {
+        for (int i = 0; i < layers.size(); i++)
+        {
+            ChunkedLayer layer = layers.get(i);
+            if (!layer.isStreamed()) continue;
+
+            int[] view = chunkRange(layer, viewX, viewY, viewWidth, viewHeight, 0);
+            for (int chunkY = view[1]; chunkY <= view[3]; chunkY++)
+            {
+                for (int chunkX = view[0]; chunkX <= view[2]; chunkX++)
+                {
+                    if (!layer.hasChunk(chunkX, chunkY) || layer.isResident(chunkX, chunkY)) continue;
+
+                    long key = packKey(i, chunkX, chunkY);
+                    if (failed.contains(key)) continue;
+
+                    try
+                    {
+                        layer.install(chunkX, chunkY, layer.decodeChunk(chunkX, chunkY));
+                        syncLoadCount++;
+                        installedCount++;
+                    }
+                    catch (IOException | RuntimeException e)
+                    {
+                        LOGGER.log(Level.WARNING, "Failed to load chunk (" + chunkX + ", " + chunkY + ") of layer: " + layer.name(), e);
+                        failed.add(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops resident chunks outside the kept range (plus one chunk of slack) and the prefetch area.
+     */
+    private void evict(float viewX, float viewY, float viewWidth, float viewHeight, float aheadX, float aheadY)
+    {
+        for (ChunkedLayer layer : layers)
+        {
+            if (!layer.isStreamed()) continue;
+
+            int[] keep = chunkRange(layer, viewX, viewY, viewWidth, viewHeight, radius + 1);
+            int[] ahead = chunkRange(layer, aheadX, aheadY, viewWidth, viewHeight, 1);
+
+            long[] far = new long[layer.getResidentChunkCount()];
+            int[] count = new int[1];
+            layer.forEachResident((key, tiles) ->
+            {
+                int chunkX = ChunkedLayer.chunkX(key);
+                int chunkY = ChunkedLayer.chunkY(key);
+                if (!contains(keep, chunkX, chunkY) && !contains(ahead, chunkX, chunkY)) far[count[0]++] = key;
+            });
+
+            for (int i = 0; i < count[0]; i++)
+            {
+                layer.evict(ChunkedLayer.chunkX(far[i]), ChunkedLayer.chunkY(far[i]));
+            }
+            evictedCount += count[0];
+        }
+    }
+
+    /**
+     * Gets the chunks a view touches, widened by a margin.
+     *
+     * @return {minChunkX, minChunkY, maxChunkX, maxChunkY}, inclusive.
+     */
+    private static int[] chunkRange(ChunkedLayer layer, float x, float y, float width, float height, int margin)
+    {
+        int chunkWidth = layer.getChunkWidth();
+        int chunkHeight = layer.getChunkHeight();
+        return new int[] {
+                Math.floorDiv((int) Math.floor(x), chunkWidth) - margin,
+                Math.floorDiv((int) Math.floor(y), chunkHeight) - margin,
+                Math.floorDiv((int) Math.ceil(x + width) - 1, chunkWidth) + margin,
+                Math.floorDiv((int) Math.ceil(y + height) - 1, chunkHeight) + margin
+        };
+    }
+
+    private static boolean contains(int[] range, int chunkX, int chunkY)
+    {
+        return chunkX >= range[0] && chunkX <= range[2] && chunkY >= range[1] && chunkY <= range[3];
+    }
+
+    private static float clamp(float value, float limit)
+    {
+        return Math.max(-limit, Math.min(limit, value));
+    }
+
+    /**
+     * Packs a layer index and chunk coordinates (24 bits each) into one key.
+     */
+    private static long packKey(int layerIndex, int chunkX, int chunkY)
+    {
+        return ((long) layerIndex << 48) | ((chunkX & 0xFFFFFFL) << 24) | (chunkY & 0xFFFFFFL);
+    }
+
+    private static int layerOf(long key)
+    {
+        return (int) (key >>> 48);
+    }
+
+    private static int chunkXOf(long key)
+    {
+        return (int) ((key << 16) >> 40);
+    }
+
+    private static int chunkYOf(long key)
+    {
+        return (int) ((key << 40) >> 40);
+    }
+}
@@ -0,0 +1,356 @@
+package misa.data.tiled2misa;
+
+import misa.util.collections.LongObjectMap;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A tile layer of an infinite Tiled map, stored as separately loaded chunks.
+ *
+ * <p>
+ * Infinite maps have no fixed size. Tiled saves each layer as {@code <chunk>} elements
+ * (16x16 tiles by default) placed anywhere on an unbounded grid:
+ * <pre>
+ * &lt;data encoding="csv"&gt;
+ *     &lt;chunk x="-16" y="0" width="16" height="16"&gt;...&lt;/chunk&gt;
+ * &lt;/data&gt;
+ * </pre>
+ * </p>
+ *
+ * <p>
+ * When a map is loaded from a file, only the position of each chunk in the file is kept;
+ * the tiles are decoded when the chunk is needed and dropped again when it is far away
+ * (see {@link ChunkStreamer}). Maps loaded from a stream have every chunk decoded at load.
+ * </p>
+ *
+ * <p>
+ * The resident chunks are not synchronized: install, evict and read them from one thread
+ * (the render thread, when the Renderer drives the ChunkStreamer). Only {@link #decodeChunk}
+ * may be called from other threads.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public final class ChunkedLayer
+{
+    private final String name;
+    private final String encoding;
+    private final String compression;
+    private final int chunkWidth;
+    private final int chunkHeight;
+
+    // Bounds of all chunks, in tiles (max exclusive)
+    private final int minX;
+    private final int minY;
+    private final int maxX;
+    private final int maxY;
+
+    // Chunks present in the map, by packed chunk coordinates
+    private final LongObjectMap<Chunk> chunks = new LongObjectMap<>();
+
+    // Where lazy chunks are read from (null when every chunk was decoded at load)
+    private final ChunkFile file;
+
+    // Chunks currently in memory, by packed chunk coordinates
+    private final LongObjectMap<TiledLayer> resident = new LongObjectMap<>();
+
+    /**
+     * One {@code <chunk>} of the layer.
+     *
+     * @param x First tile column.
+     * @param y First tile row.
+     * @param width Width in tiles.
+     * @param height Height in tiles.
+     * @param start File offset of the chunk's encoded text.
+     * @param end File offset just past the encoded text.
+     * @param tiles The decoded tiles, when decoded at load (otherwise null).
+     */
+    record Chunk(int x, int y, int width, int height, long start, long end, TiledLayer tiles)
+    {
+    }
+
+    /**
+     * Creates a chunked layer.
+     *
+     * @param name Layer name.
+     * @param encoding Data encoding ("csv" or "base64").
+     * @param compression Data compression ("" for none).
+     * @param chunkList The layer's chunks.
+     * @param file Where lazy chunks are read from (null if all chunks are decoded).
+     */
+    ChunkedLayer(String name, String encoding, String compression, List<Chunk> chunkList, ChunkFile file)
+    {
+        this.name = name;
+        this.encoding = encoding;
+        this.compression = compression;
+        this.file = file;
+
+        // Tiled writes chunks of one size, aligned to a grid of that size
+        this.chunkWidth = chunkList.isEmpty() ? 16 : Math.max(1, chunkList.get(0).width());
+        this.chunkHeight = chunkList.isEmpty() ? 16 : Math.max(1, chunkList.get(0).height());
+
+        int left = Integer.MAX_VALUE;
+        int top = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE;
+        int bottom = Integer.MIN_VALUE;
+
+        for (Chunk chunk : chunkList)
+        {
+            long key = key(Math.floorDiv(chunk.x(), chunkWidth), Math.floorDiv(chunk.y(), chunkHeight));
+            chunks.put(key, chunk);
+            if (chunk.tiles() != null) resident.put(key, chunk.tiles());
+
+            left = Math.min(left, chunk.x());
+            top = Math.min(top, chunk.y());
+            right = Math.max(right, chunk.x() + chunk.width());
+            bottom = Math.max(bottom, chunk.y() + chunk.height());
+        }
+
+        this.minX = chunkList.isEmpty() ? 0 : left;
+        this.minY = chunkList.isEmpty() ? 0 : top;
+        this.maxX = chunkList.isEmpty() ? 0 : right;
+        this.maxY = chunkList.isEmpty() ? 0 : bottom;
+    }
+
+    /**
+     * @return Name of the layer as defined in Tiled.
+     */
+    public String name()
+    {
+        return name;
+    }
+
+    /**
+     * Gets the gid of a cell, without flip flags.
+     *
+     * @param x Tile column (may be negative).
+     * @param y Tile row (may be negative).
+     * @return The gid, or 0 if the cell is empty or its chunk is not resident.
+     */
+    public int getGid(int x, int y)
+    {
+        TiledLayer chunk = getChunk(Math.floorDiv(x, chunkWidth), Math.floorDiv(y, chunkHeight));
+        return chunk == null ? 0 : chunk.getGid(Math.floorMod(x, chunkWidth), Math.floorMod(y, chunkHeight));
+    }
+
+    /**
+     * Gets the flip flags of a cell.
+     *
+     * @param x Tile column.
+     * @param y Tile row.
+     * @return The flags, or 0 if the cell is empty or its chunk is not resident.
+     */
+    public int getFlags(int x, int y)
+    {
+        TiledLayer chunk = getChunk(Math.floorDiv(x, chunkWidth), Math.floorDiv(y, chunkHeight));
+        return chunk == null ? 0 : chunk.getFlags(Math.floorMod(x, chunkWidth), Math.floorMod(y, chunkHeight));
+    }
+
+    /**
+     * Gets a resident chunk.
+     *
+     * @param chunkX Chunk column (tile column / chunk width).
+     * @param chunkY Chunk row.
+     * @return The chunk's tiles (indexed from its top-left tile), or null if not resident.
+     */
+    public TiledLayer getChunk(int chunkX, int chunkY)
+    {
+        return resident.get(key(chunkX, chunkY));
+    }
+
+    /**
+     * @param chunkX Chunk column.
+     * @param chunkY Chunk row.
+     * @return True if the map has a chunk there (resident or not).
+     */
+    public boolean hasChunk(int chunkX, int chunkY)
+    {
+        return chunks.containsKey(key(chunkX, chunkY));
+    }
+
+    /**
+     * @param chunkX Chunk column.
+     * @param chunkY Chunk row.
+     * @return True if the chunk is in memory.
+     */
+    public boolean isResident(int chunkX, int chunkY)
+    {
+        return resident.containsKey(key(chunkX, chunkY));
+    }
+
+    /**
+     * @return True if chunks are read from the map file on demand (false if all are always resident).
+     */
+    public boolean isStreamed()
+    {
+        return file != null;
+    }
+
+    /**
+     * Decodes a chunk from the map file. Safe to call from any thread; the chunk is not installed.
+     *
+     * @param chunkX Chunk column.
+     * @param chunkY Chunk row.
+     * @return The decoded tiles, or null if the map has no chunk there.
+     * @throws IOException If the map file cannot be read.
+     */
+    public TiledLayer decodeChunk(int chunkX, int chunkY) throws IOException
+    {
+        Chunk chunk = chunks.get(key(chunkX, chunkY));
+        if (chunk == null) return null;
+        if (chunk.tiles() != null) return chunk.tiles();
+
+        TileDataDecoder decoder = TileDataDecoder.forEncoding(encoding, compression, chunk.width(), chunk.height());
+        if (decoder == null)
+            throw new IOException("Unsupported chunk encoding: " + encoding + " " + compression);
+
+        char[] text = file.readText(chunk.start(), (int) (chunk.end() - chunk.start()));
+        decoder.feed(text, 0, text.length);
+        return new TiledLayer(name, chunk.width(), chunk.height(), decoder.finish());
+    }
+
+    /**
+     * Makes a decoded chunk resident.
+     *
+     * @param chunkX Chunk column.
+     * @param chunkY Chunk row.
+     * @param tiles The tiles from {@link #decodeChunk}.
+     */
+    public void install(int chunkX, int chunkY, TiledLayer tiles)
+    {
+        if (tiles != null) resident.put(key(chunkX, chunkY), tiles);
+    }
+
+    /**
+     * Drops a resident chunk. Chunks that cannot be read again (decoded at load) are kept.
+     *
+     * @param chunkX Chunk column.
+     * @param chunkY Chunk row.
+     */
+    public void evict(int chunkX, int chunkY)
+    {
+        if (file != null) resident.remove(key(chunkX, chunkY));
+    }
+
+    /**
+     * Closes the map file until the next chunk is decoded.
+     */
+    void closeFile() throws IOException
+    {
+        if (file != null) file.close();
+    }
+
+    /**
+     * Visits every chunk of the map, resident or not.
+     *
+     * @param visitor Receives the packed chunk coordinates and the chunk.
+     */
+    void forEachChunk(LongObjectMap.Visitor<? super Chunk> visitor)
+    {
+        chunks.forEach(visitor);
+    }
+
+    /**
+     * Visits every resident chunk.
+     *
+     * @param visitor Receives the packed chunk coordinates (see {@link #chunkX(long)}) and tiles.
+     */
+    public void forEachResident(LongObjectMap.Visitor<? super TiledLayer> visitor)
+    {
+        resident.forEach(visitor);
+    }
+
+    /**
+     * @return Number of chunks in memory.
+     */
+    public int getResidentChunkCount()
+    {
+        return resident.size();
+    }
+
+    /**
+     * @return Number of chunks in the map.
+     */
+    public int getChunkCount()
+    {
+        return chunks.size();
+    }
+
+    /**
+     * @return Chunk width in tiles.
+     */
+    public int getChunkWidth()
+    {
+        return chunkWidth;
+    }
+
+    /**
+     * @return Chunk height in tiles.
+     */
+    public int getChunkHeight()
+    {
+        return chunkHeight;
+    }
+
+    /**
+     * @return Leftmost tile column covered by a chunk.
+     */
+    public int getMinX()
+    {
+        return minX;
+    }
+
+    /**
+     * @return Topmost tile row covered by a chunk.
+     */
+    public int getMinY()
+    {
+        return minY;
+    }
+
+    /**
+     * @return Tile column just right of the rightmost chunk.
+     */
+    public int getMaxX()
+    {
+        return maxX;
+    }
+
+    /**
+     * @return Tile row just below the bottom chunk.
+     */
+    public int getMaxY()
+    {
+        return maxY;
+    }
+
+    /**
+     * Packs chunk coordinates into a key.
+     *
+     * @param chunkX Chunk column.
+     * @param chunkY Chunk row.
+     * @return The key.
+     */
+    public static long key(int chunkX, int chunkY)
+    {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param key A packed key.
+     * @return Its chunk column.
+     */
+    public static int chunkX(long key)
+    {
+        return (int) (key >> 32);
+    }
+
+    /**
+     * @param key A packed key.
+     * @return Its chunk row.
+     */
+    public static int chunkY(long key)
+    {
+        return (int) key;
+    }
+}
@@ -0,0 +1,80 @@
+package misa.data.tiled2misa;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Counts the tasks of one map load and reports them to a {@link TiledParser.ProgressListener}.
+ *
+ * <p>
+ * Tasks are tileset loads, layer decodes and object groups. They are counted as they are
+ * found, so the total keeps growing while the map file is read.
+ * </p>
+ */
+final class LoadProgress
+{
+    private static final Logger LOGGER = Logger.getLogger(LoadProgress.class.getName());
+
+    /** Reports nothing. */
+    static final LoadProgress NONE = new LoadProgress(null);
+
+    private final TiledParser.ProgressListener listener; // Null to report nothing
+
+    // Guarded by this
+    private int completed;
+    private int total;
+
+    /**
+     * @param listener Receives the progress (null for none).
+     */
+    LoadProgress(TiledParser.ProgressListener listener)
+    {
+        this.listener = listener;
+    }
+
+    /**
+     * Counts a background task, reporting when it completes.
+     *
+     * @param task The task.
+     * @return A future completing after the task and its report.
+     */
+    <T> CompletableFuture<T> track(CompletableFuture<T> task)
+    {
+        if (listener == null) return task;
+
+        synchronized (this)
+        {
+            total++;
+        }
+        return task.whenComplete((result, error) -> step());
+    }
+
+    /**
+     * Counts a task that was done on the loading thread.
+     */
+    void done()
+    {
+        if (listener == null) return;
+
+        synchronized (this)
+        {
+            total++;
+        }
+        step();
+    }
+
+    private synchronized void step()
+    {
+        completed++;
+        try
+        {
+            listener.onProgress(completed, total);
+        }
+        catch (RuntimeException e)
+        {
+            // A broken loading screen must not fail the load
+            LOGGER.log(Level.WARNING, "Progress listener failed", e);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package misa.data.tiled2misa;
+
+import misa.util.collections.IntArrayList;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The tiles that differ between a loaded map and a new version of its file.
+ *
+ * <p>
+ * {@link MapHotReloader} diffs every tile layer of a reloaded map against the live one and
+ * writes only the changed cells into the live map, so the renderer and game code keep their
+ * map and only redo the work for those cells. A diff only exists when the two maps have the
+ * same shape: same size, layers, tilesets and objects. Anything else is reloaded as a new map.
+ * </p>
+ *
+ * <p>
+ * Changes are grouped by layer, in layer order, and by cell index within a layer.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public final class MapDiff
+{
+    private final int mapWidth;
+
+    // One entry per changed layer: its index and where its cells start in the lists below
+    private final IntArrayList layerIndices = new IntArrayList(4);
+    private final IntArrayList layerStarts = new IntArrayList(4);
+
+    // One entry per changed cell: its index in the layer and the new tile
+    private final IntArrayList cells = new IntArrayList();
+    private final IntArrayList gids = new IntArrayList();
+    private final IntArrayList flags = new IntArrayList();
+
+    private MapDiff(int mapWidth)
+    {
+        this.mapWidth = mapWidth;
+    }
+
+    /**
+     * Diffs a reloaded map against the live one.
+     *
+     * @param live The map being rendered.
+     * @param reloaded The same file, parsed again.
+     * @return The changed tiles, or null if the maps differ in more than tiles.
+     */
+    static MapDiff compute(TiledMap live, TiledMap reloaded)
+    {
+        if (!sameShape(live, reloaded)) return null;
+
+        MapDiff diff = new MapDiff(live.getWidth());
+        List<TiledLayer> liveLayers = live.getLayers();
+        List<TiledLayer> newLayers = reloaded.getLayers();
+
+        for (int layerIndex = 0; layerIndex < liveLayers.size(); layerIndex++)
+        {
+            TiledLayer before = liveLayers.get(layerIndex);
+            TiledLayer after = newLayers.get(layerIndex);
+            int start = diff.cells.size();
+            int cellCount = before.width() * before.height();
+
+            for (int i = 0; i < cellCount; i++)
+            {
+                int gid = after.getGid(i);
+                int cellFlags = after.getFlags(i);
+                if (gid == before.getGid(i) && cellFlags == before.getFlags(i)) continue;
+
+                diff.cells.add(i);
+                diff.gids.add(gid);
+                diff.flags.add(cellFlags);
+            }
+
+            if (diff.cells.size() > start)
+            {
+                diff.layerIndices.add(layerIndex);
+                diff.layerStarts.add(start);
+            }
+        }
+
+        return diff;
+    }
+
+    /**
+     * Checks that a diff can turn one map into the other.
+     */
+    private static boolean sameShape(TiledMap live, TiledMap reloaded)
+    {
+        if (live.getWidth() != reloaded.getWidth() || live.getHeight() != reloaded.getHeight()) return false;
+        if (live.getTileWidth() != reloaded.getTileWidth() || live.getTileHeight() != reloaded.getTileHeight()) return false;
+
+        // Chunks stream in and out, so infinite maps are always reloaded whole
+        if (live.isInfinite() || reloaded.isInfinite()) return false;
+
+        List<TiledLayer> liveLayers = live.getLayers();
+        List<TiledLayer> newLayers = reloaded.getLayers();
+        if (liveLayers.size() != newLayers.size()) return false;
+        for (int i = 0; i < liveLayers.size(); i++)
+        {
+            TiledLayer before = liveLayers.get(i);
+            TiledLayer after = newLayers.get(i);
+            if (!Objects.equals(before.name(), after.name())) return false;
+            if (before.width() != after.width() || before.height() != after.height()) return false;
+
+            // Cells are addressed by map position, so layers must cover the map exactly
+            if (before.width() != live.getWidth() || before.height() != live.getHeight()) return false;
+        }
+
+        List<TiledTileset> liveTilesets = live.getTilesets();
+        List<TiledTileset> newTilesets = reloaded.getTilesets();
+        if (liveTilesets.size() != newTilesets.size()) return false;
+        for (int i = 0; i < liveTilesets.size(); i++)
+        {
+            TiledTileset before = liveTilesets.get(i);
+            TiledTileset after = newTilesets.get(i);
+            if (before.firstGID() != after.firstGID()) return false;
+            if (!Objects.equals(before.getCacheKey(), after.getCacheKey())) return false;
+            if (!Objects.equals(before.getSource(), after.getSource())) return false;
+        }
+
+        // Objects are few and indexed as a whole; any change to them reloads the map
+        return live.getObjectGroups().equals(reloaded.getObjectGroups());
+    }
+
+    /**
+     * Writes the changed tiles into a map and updates its occlusion for the changed cells.
+     * Called by {@link MapHotReloader#applyPending()}, under its write lock.
+     *
+     * @param map The live map this diff was computed against.
+     */
+    void applyTo(TiledMap map)
+    {
+        List<TiledLayer> layers = map.getLayers();
+        TileOcclusion occlusion = map.getOcclusion();
+
+        // A cell changed on several layers is updated once
+        BitSet changedCells = new BitSet();
+        for (int n = 0; n < cells.size(); n++) changedCells.set(cells.get(n));
+
+        for (int cell = changedCells.nextSetBit(0); cell >= 0; cell = changedCells.nextSetBit(cell + 1))
+        {
+            occlusion.forgetCell(map, cell % mapWidth, cell / mapWidth);
+        }
+
+        for (int i = 0; i < getLayerCount(); i++)
+        {
+            TiledLayer layer = layers.get(layerIndices.get(i));
+            for (int n = layerStarts.get(i); n < end(i); n++) layer.setTile(cells.get(n), gids.get(n), flags.get(n));
+        }
+
+        for (int cell = changedCells.nextSetBit(0); cell >= 0; cell = changedCells.nextSetBit(cell + 1))
+        {
+            occlusion.updateCell(map, cell % mapWidth, cell / mapWidth);
+        }
+    }
+
+    /**
+     * @return True if no tile changed.
+     */
+    public boolean isEmpty()
+    {
+        return cells.isEmpty();
+    }
+
+    /**
+     * @return Number of changed cells, over all layers.
+     */
+    public int getChangedCellCount()
+    {
+        return cells.size();
+    }
+
+    /**
+     * @return Number of layers with changed cells.
+     */
+    public int getLayerCount()
+    {
+        return layerIndices.size();
+    }
+
+    /**
+     * @param i Changed layer, from 0 to {@link #getLayerCount()}.
+     * @return Its index in {@link TiledMap#getLayers()}.
+     */
+    public int getLayerIndex(int i)
+    {
+        return layerIndices.get(i);
+    }
+
+    /**
+     * @param i Changed layer.
+     * @return Number of changed cells in it.
+     */
+    public int getCellCount(int i)
+    {
+        return end(i) - layerStarts.get(i);
+    }
+
+    /**
+     * @param i Changed layer.
+     * @param n Changed cell in that layer, from 0 to {@link #getCellCount(int)}.
+     * @return Its X, in tiles.
+     */
+    public int getCellX(int i, int n)
+    {
+        return cells.get(layerStarts.get(i) + n) % mapWidth;
+    }
+
+    /**
+     * @param i Changed layer.
+     * @param n Changed cell in that layer.
+     * @return Its Y, in tiles.
+     */
+    public int getCellY(int i, int n)
+    {
+        return cells.get(layerStarts.get(i) + n) / mapWidth;
+    }
+
+    private int end(int i)
+    {
+        return i + 1 < layerStarts.size() ? layerStarts.get(i + 1) : cells.size();
+    }
+}
@@ -0,0 +1,462 @@
+package misa.data.tiled2misa;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * MapHotReloader reloads a map while the game runs, whenever its files are saved in Tiled.
+ * Meant for development.
+ *
+ * <p>
+ * A background thread watches the TMX file, and the TSX files and images of its tilesets.
+ * When the TMX file changes, it is parsed again and diffed against the live map
+ * ({@link MapDiff}). If only tiles changed, just those cells are written into the live map,
+ * so renderer caches and game state built on the map stay valid apart from those cells.
+ * Any other change (layers added, map resized, objects moved, a tileset edited...) replaces
+ * the map with the reloaded one. A file that does not parse, e.g. one that is still being
+ * written, keeps the current map.
+ * </p>
+ *
+ * <p>
+ * Changes are applied on the game thread: {@link #applyPending()} is called between ticks
+ * ({@code GameLoop} does when given a reloader), which then tells the {@link Listener}s, so
+ * updates only ever see the map between two reloads. Game code that derives data from tiles,
+ * such as collision, listens for {@link Listener#onTilesChanged} and updates the cells of the
+ * diff. Other threads that read the map hold {@link #getReadLock()} while they do
+ * ({@code Renderer} holds it for each frame); reloads are applied under the matching write lock.
+ * </p>
+ *
+ * <p>
+ * Tilesets are watched where the class loader finds them. When resources are copied into a
+ * build directory, that is the copy that must change.
+ * </p>
+ *
+ * <pre>
+ * TiledMap map = parser.loadFromTMX(path);
+ * MapHotReloader reloader = new MapHotReloader(parser, path, map);
+ * gameLoop.setMapHotReloader(reloader);
+ * </pre>
+ */
+@SuppressWarnings("unused")
+public final class MapHotReloader
+{
+    private static final Logger LOGGER = Logger.getLogger(MapHotReloader.class.getName());
+
+    // Editors write a file in several steps; wait this long for the events to stop
+    private static final long SETTLE_MILLIS = 100;
+
+    // Owner of the TMX file in watchedFiles (tilesets are owned by their cache key)
+    private static final String MAP = "";
+
+    /**
+     * Receives reloads, on the thread that calls {@link #applyPending()}.
+     */
+    public interface Listener
+    {
+        /**
+         * Called after tiles of the live map changed.
+         *
+         * @param map The live map, already updated.
+         * @param diff The changed cells.
+         */
+        default void onTilesChanged(TiledMap map, MapDiff diff)
+        {
+        }
+
+        /**
+         * Called after the map was replaced. The old map is released once all listeners return.
+         *
+         * @param oldMap The map that was live until now.
+         * @param newMap The reloaded map.
+         */
+        default void onMapReplaced(TiledMap oldMap, TiledMap newMap)
+        {
+        }
+    }
+
+    /**
+     * A reload waiting for the game thread: either a diff or a new map.
+     */
+    private record Reload(MapDiff diff, TiledMap replacement)
+    {
+    }
+
+    private final TiledParser parser;   // Parses the changed map, with the settings of the first load
+    private final Path tmxFile;
+
+    private final WatchService watchService;
+    private final Thread watcher;
+    private volatile boolean running = true;
+
+    // Watched file -> what it belongs to (MAP or a tileset cache key); watcher thread only after construction
+    private final Map<Path, String> watchedFiles = new HashMap<>();
+    private final Set<Path> watchedDirectories = new HashSet<>();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // The live map; only changed by applyPending()
+    private volatile TiledMap map;
+
+    // Readers on other threads than the game thread hold the read lock; reloads are applied under the write lock
+    private final ReentrantReadWriteLock mapLock = new ReentrantReadWriteLock();
+
+    // Reload computed by the watcher, not yet applied
+    private final AtomicReference<Reload> pending = new AtomicReference<>();
+
+    /**
+     * Starts watching a map that was loaded from a TMX file.
+     * The reloader takes over the map: maps it replaces are released.
+     *
+     * @param parser The parser that loaded the map; reloads use its settings.
+     * @param tmxPath Path of the TMX file, as given to {@link TiledParser#loadFromTMX}.
+     * @param map The loaded map.
+     * @throws IOException If the TMX file cannot be watched.
+     */
+    public MapHotReloader(TiledParser parser, String tmxPath, TiledMap map) throws IOException
+    {
+        this.parser = parser;
+        this.tmxFile = Path.of(tmxPath).toAbsolutePath().normalize();
+        this.map = map;
+        this.watchService = tmxFile.getFileSystem().newWatchService();
+
+        try
+        {
+            watch(tmxFile, MAP);
+        }
+        catch (IOException e)
+        {
+            watchService.close();
+            throw e;
+        }
+        watchTilesets(map);
+
+        watcher = new Thread(this::runWatcher, "MapHotReloader");
+        watcher.setDaemon(true);
+        watcher.start();
+
+        LOGGER.info("Hot reload: watching " + tmxFile + " (" + watchedFiles.size() + " file(s))");
+    }
+
+    /**
+     * Applies a finished reload, if there is one, and notifies the listeners.
+     * Call this on the thread that updates the game, between ticks. Waits for
+     * holders of the {@link #getReadLock() read lock} to finish.
+     *
+     * @return True if the map changed.
+     */
+    public boolean applyPending()
+    {
+        Reload reload = pending.get();
+        if (reload == null) return false;
+
+        mapLock.writeLock().lock();
+        try
+        {
+            apply(reload);
+        }
+        finally
+        {
+            mapLock.writeLock().unlock();
+        }
+
+        // Lets the watcher diff the next change against the updated map
+        pending.set(null);
+        return true;
+    }
+
+    /**
+     * Writes a reload into the live map and notifies the listeners.
+     */
+    private void apply(Reload reload)
+    {
+        TiledMap live = map;
+        if (reload.diff() != null)
+        {
+            reload.diff().applyTo(live);
+            for (Listener listener : listeners)
+            {
+                try
+                {
+                    listener.onTilesChanged(live, reload.diff());
+                }
+                catch (RuntimeException e)
+                {
+                    LOGGER.log(Level.WARNING, "Hot reload listener failed", e);
+                }
+            }
+        }
+        else
+        {
+            map = reload.replacement();
+            for (Listener listener : listeners)
+            {
+                try
+                {
+                    listener.onMapReplaced(live, reload.replacement());
+                }
+                catch (RuntimeException e)
+                {
+                    LOGGER.log(Level.WARNING, "Hot reload listener failed", e);
+                }
+            }
+            live.release();
+        }
+    }
+
+    /**
+     * Lock to hold while reading the map on a thread other than the one calling
+     * {@link #applyPending()}, e.g. for the whole of a rendered frame. The same thread
+     * may take it again while holding it.
+     *
+     * @return The read lock.
+     */
+    public Lock getReadLock()
+    {
+        return mapLock.readLock();
+    }
+
+    /**
+     * @return The live map (changes after a reload that replaced it).
+     */
+    public TiledMap getMap()
+    {
+        return map;
+    }
+
+    /**
+     * @param listener Notified of every applied reload.
+     */
+    public void addListener(Listener listener)
+    {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener A listener added with {@link #addListener}.
+     */
+    public void removeListener(Listener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stops watching, waiting for a reload in progress. A reload that was not applied is dropped.
+     */
+    public void shutdown()
+    {
+        running = false;
+        watcher.interrupt();
+
+        try
+        {
+            watchService.close();
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to close the hot reload watch service", e);
+        }
+
+        try
+        {
+            watcher.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        Reload reload = pending.getAndSet(null);
+        if (reload != null && reload.replacement() != null) reload.replacement().release();
+    }
+
+    // ----------- Watcher thread -----------
+
+    private void runWatcher()
+    {
+        Set<String> changed = new HashSet<>();
+
+        while (running)
+        {
+            try
+            {
+                collect(watchService.take(), changed);
+
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) collect(key, changed);
+            }
+            catch (InterruptedException | ClosedWatchServiceException e)
+            {
+                return;
+            }
+
+            if (changed.isEmpty()) continue;
+
+            try
+            {
+                reload(changed);
+            }
+            catch (InterruptedException e)
+            {
+                return;
+            }
+            catch (RuntimeException e)
+            {
+                LOGGER.log(Level.WARNING, "Hot reload failed for " + tmxFile, e);
+            }
+            changed.clear();
+        }
+    }
+
+    /**
+     * Notes which watched files an event batch touched.
+     */
+    private void collect(WatchKey key, Set<String> changed)
+    {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents())
+        {
+            // Lost events: check the map itself
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+            {
+                changed.add(MAP);
+                continue;
+            }
+
+            String owner = watchedFiles.get(directory.resolve((Path) event.context()));
+            if (owner != null) changed.add(owner);
+        }
+        key.reset();
+    }
+
+    /**
+     * Parses the map again and hands the result to the game thread.
+     *
+     * @param changed What changed: MAP and/or tileset cache keys.
+     */
+    private void reload(Set<String> changed) throws InterruptedException
+    {
+        // Diffs are computed against the live tiles, so the previous reload must be applied first
+        while (pending.get() != null)
+        {
+            if (!running) return;
+            Thread.sleep(SETTLE_MILLIS);
+        }
+
+        boolean tilesetsChanged = false;
+        for (String owner : changed)
+        {
+            if (owner.equals(MAP)) continue;
+
+            CompletableFuture<TilesetCache.TilesetData> data = parser.reloadTileset(owner);
+            if (data != null)
+            {
+                tilesetsChanged = true;
+                LOGGER.info("Hot reload: tileset changed: " + owner);
+            }
+        }
+
+        TiledMap reloaded = parser.loadFromTMX(tmxFile.toString());
+        if (reloaded == null)
+        {
+            LOGGER.warning("Hot reload: could not parse " + tmxFile + ", keeping the current map");
+            return;
+        }
+
+        // New tiles only fit the live map if its tilesets are unchanged
+        MapDiff diff = tilesetsChanged ? null : MapDiff.compute(map, reloaded);
+
+        if (diff != null)
+        {
+            reloaded.release();
+            if (diff.isEmpty())
+            {
+                LOGGER.fine("Hot reload: no tile changed in " + tmxFile);
+                return;
+            }
+
+            LOGGER.info("Hot reload: " + diff.getChangedCellCount() + " tile(s) changed in "
+                    + diff.getLayerCount() + " layer(s) of " + tmxFile);
+            pending.set(new Reload(diff, null));
+        }
+        else
+        {
+            LOGGER.info("Hot reload: replacing the map " + tmxFile);
+            watchTilesets(reloaded);
+            pending.set(new Reload(null, reloaded));
+        }
+
+        // shutdown() may have missed a reload set while it was running
+        if (!running)
+        {
+            Reload dropped = pending.getAndSet(null);
+            if (dropped != null && dropped.replacement() != null) dropped.replacement().release();
+        }
+    }
+
+    private void watchTilesets(TiledMap map)
+    {
+        for (TiledTileset tileset : map.getTilesets())
+        {
+            String cacheKey = tileset.getCacheKey();
+            if (cacheKey == null) continue; // Embedded tilesets change with the TMX file
+
+            watchResource(cacheKey, cacheKey);
+            if (tileset.getSource() != null) watchResource(tileset.getSource(), cacheKey);
+        }
+    }
+
+    /**
+     * Watches a class path resource, if it is a plain file.
+     */
+    private void watchResource(String resource, String owner)
+    {
+        URL url = MapHotReloader.class.getClassLoader().getResource(resource);
+        if (url == null || !"file".equals(url.getProtocol()))
+        {
+            LOGGER.fine("Hot reload: not watching " + resource + " (not a file)");
+            return;
+        }
+
+        try
+        {
+            watch(Path.of(url.toURI()), owner);
+        }
+        catch (URISyntaxException | IOException | RuntimeException e)
+        {
+            LOGGER.log(Level.WARNING, "Hot reload: cannot watch " + resource, e);
+        }
+    }
+
+    private void watch(Path file, String owner) throws IOException
+    {
+        Path normalized = file.toAbsolutePath().normalize();
+        watchedFiles.put(normalized, owner);
+
+        // Saves often replace the file (create) rather than write it (modify)
+        Path directory = normalized.getParent();
+        if (watchedDirectories.add(directory))
+        {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package misa.data.tiled2misa;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+/**
+ * MisaMapReader loads {@code .misamap} files written by {@link MisaMapWriter}.
+ *
+ * <p>
+ * The file is memory-mapped, and every tile layer wraps its slice of the mapping instead of
+ * copying it: loading only reads the header, strings and object table, and tile pages are
+ * brought in by the OS as they are first drawn. The mapping stays valid after the channel is
+ * closed and is released with the layers that use it.
+ * </p>
+ */
+final class MisaMapReader
+{
+    private static final Logger LOGGER = Logger.getLogger(MisaMapReader.class.getName());
+
+    private final TiledParser owner;       // Loads tilesets for us
+    private final LoadProgress progress;   // Progress of this load
+
+    private ByteBuffer buffer;
+    private String[] strings;
+
+    /**
+     * @param owner The parser that loads tilesets.
+     * @param progress Progress of this load.
+     */
+    MisaMapReader(TiledParser owner, LoadProgress progress)
+    {
+        this.owner = owner;
+        this.progress = progress;
+    }
+
+    /**
+     * Loads a .misamap file.
+     *
+     * @param path The file.
+     * @return The map.
+     * @throws IOException If the file cannot be read or is not a valid .misamap file.
+     */
+    TiledMap read(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Map file is too large: " + path);
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if (buffer.remaining() < MisaMapWriter.HEADER_BYTES || buffer.getInt() != MisaMapWriter.MAGIC)
+            throw new IOException("Not a misamap file: " + path);
+
+        int version = buffer.getInt();
+        if (version != MisaMapWriter.VERSION)
+            throw new IOException("Unsupported misamap version " + version + " in " + path);
+
+        List<CompletableFuture<TiledTileset>> pendingTilesets = new ArrayList<>();
+        try
+        {
+            return readMap(pendingTilesets);
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e)
+        {
+            owner.discardTilesets(pendingTilesets);
+            throw new IOException("Corrupt misamap file: " + path, e);
+        }
+    }
+
+    private TiledMap readMap(List<CompletableFuture<TiledTileset>> pendingTilesets)
+    {
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int tileWidth = buffer.getInt();
+        int tileHeight = buffer.getInt();
+        int stringCount = buffer.getInt();
+        int tilesetCount = buffer.getInt();
+        int layerCount = buffer.getInt();
+        int chunkedLayerCount = buffer.getInt();
+        int objectGroupCount = buffer.getInt();
+
+        // Strings
+        strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++)
+        {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        align();
+
+        // Tilesets: start them all, then read the rest while they load
+        List<TiledTileset> directTilesets = new ArrayList<>();
+        for (int i = 0; i < tilesetCount; i++)
+        {
+            int kind = buffer.getInt();
+            String source = string(buffer.getInt());
+            int firstGID = buffer.getInt();
+
+            if (kind == MisaMapWriter.TILESET_TSX)
+            {
+                pendingTilesets.add(owner.loadResolvedTileset(source, firstGID, progress));
+            }
+            else
+            {
+                pendingTilesets.add(CompletableFuture.completedFuture(new TiledTileset(source, firstGID)));
+            }
+        }
+
+        // Tile layers
+        List<TiledLayer> layers = new ArrayList<>(layerCount);
+        for (int i = 0; i < layerCount; i++)
+        {
+            layers.add(readTiles(string(buffer.getInt())));
+        }
+
+        // Chunked layers (all chunks are resident; the OS pages them in)
+        List<ChunkedLayer> chunkedLayers = new ArrayList<>(chunkedLayerCount);
+        for (int i = 0; i < chunkedLayerCount; i++)
+        {
+            String name = string(buffer.getInt());
+            int chunkCount = buffer.getInt();
+            List<ChunkedLayer.Chunk> chunks = new ArrayList<>(chunkCount);
+            for (int c = 0; c < chunkCount; c++)
+            {
+                int x = buffer.getInt();
+                int y = buffer.getInt();
+                TiledLayer tiles = readTiles(name);
+                chunks.add(new ChunkedLayer.Chunk(x, y, tiles.width(), tiles.height(), 0, 0, tiles));
+            }
+            chunkedLayers.add(new ChunkedLayer(name, "misamap", "", chunks, null));
+        }
+
+        // Object groups
+        List<TiledObjectGroup> objectGroups = new ArrayList<>(objectGroupCount);
+        for (int i = 0; i < objectGroupCount; i++)
+        {
+            String groupName = string(buffer.getInt());
+            TiledProperties groupProperties = readProperties();
+            int objectCount = buffer.getInt();
+
+            List<TiledObject> objects = new ArrayList<>(objectCount);
+            for (int o = 0; o < objectCount; o++)
+            {
+                int id = buffer.getInt();
+                String name = string(buffer.getInt());
+                String type = string(buffer.getInt());
+                double x = buffer.getDouble();
+                double y = buffer.getDouble();
+                double objectWidth = buffer.getDouble();
+                double objectHeight = buffer.getDouble();
+                objects.add(new TiledObject(id, name, type, x, y, objectWidth, objectHeight, readProperties()));
+            }
+            objectGroups.add(new TiledObjectGroup(groupName, objects, groupProperties));
+        }
+
+        List<TiledTileset> tilesets = owner.awaitTilesets(pendingTilesets);
+        LOGGER.info("Mapped misamap: " + tilesets.size() + " tileset(s), " + layers.size() + " layer(s), "
+                + chunkedLayers.size() + " chunked layer(s), " + objectGroups.size() + " object group(s)");
+
+        return new TiledMap.Builder()
+                .setWidth(width)
+                .setHeight(height)
+                .setTileWidth(tileWidth)
+                .setTileHeight(tileHeight)
+                .setLayers(layers)
+                .setChunkedLayers(chunkedLayers)
+                .setTilesets(tilesets)
+                .setObjectGroups(objectGroups)
+                .build();
+    }
+
+    /**
+     * Wraps one tile block of the file as a layer, without copying it.
+     */
+    private TiledLayer readTiles(String name)
+    {
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int gidBytes = buffer.getInt();
+        boolean flipped = buffer.getInt() != 0;
+
+        if (width < 0 || height < 0 || (gidBytes != 2 && gidBytes != 4))
+            throw new IllegalArgumentException("Bad tile block in layer " + name);
+
+        int cells = Math.multiplyExact(width, height);
+        ByteBuffer gids = slice(cells * gidBytes);
+        ByteBuffer flags = flipped ? slice(cells) : null;
+        align();
+
+        return new TiledLayer(name, width, height, gids, gidBytes == 2, flags);
+    }
+
+    /**
+     * Reads a property block. Types are stored, so values are parsed as they were in the TMX.
+     */
+    private TiledProperties readProperties()
+    {
+        int count = buffer.getInt();
+        TiledProperties.Type[] types = TiledProperties.Type.values();
+        TiledProperties.Builder properties = new TiledProperties.Builder();
+        for (int p = 0; p < count; p++)
+        {
+            String name = string(buffer.getInt());
+            String value = string(buffer.getInt());
+            int type = buffer.getInt();
+            if (type < 0 || type >= types.length)
+                throw new IllegalArgumentException("Bad property type " + type + " for " + name);
+            properties.add(name, types[type], value);
+        }
+        return properties.build();
+    }
+
+    /**
+     * Takes the next bytes of the file as a little-endian view.
+     */
+    private ByteBuffer slice(int length)
+    {
+        ByteBuffer slice = buffer.slice(buffer.position(), length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(buffer.position() + length);
+        return slice;
+    }
+
+    private String string(int index)
+    {
+        return index < 0 ? null : strings[index];
+    }
+
+    private void align()
+    {
+        buffer.position((buffer.position() + 3) & ~3);
+    }
+}
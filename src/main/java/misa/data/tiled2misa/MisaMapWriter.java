@@ -0,0 +1,349 @@
+package misa.data.tiled2misa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * MisaMapWriter converts maps to the binary {@code .misamap} format.
+ *
+ * <p>
+ * A .misamap file holds the same data as the TMX it was made from, laid out so that it can
+ * be memory-mapped and used as is (see {@link TiledParser#loadFromMisaMap(String)}). All
+ * values are little-endian:
+ * <pre>
+ * header      magic "MISA", version, map width, height, tile width, tile height,
+ *             string, tileset, layer, chunked layer and object group counts (all int)
+ * strings     per string: byte length (int), UTF-8 bytes; padded to 4 bytes
+ * tilesets    per tileset: kind (0 = TSX, 1 = image), path string, first gid (int)
+ * layers      per layer: name string, width, height, gid bytes (2 or 4), has flags (int),
+ *             gids, flags (one byte per cell, if any); padded to 4 bytes
+ * chunked     per layer: name string, chunk count (int),
+ *             per chunk: x, y (int), then the chunk's tiles as a layer without the name
+ * objects     per group: name string, properties, object count (int),
+ *             per object: id, name string, type string (int), x, y, width, height (double),
+ *             properties
+ * properties  count (int), per property: name string, value string, type (int, a
+ *             {@link TiledProperties.Type} ordinal)
+ * </pre>
+ * Every name, type, path and property is stored once in the string table and referenced by
+ * index (-1 for null).
+ * </p>
+ *
+ * <p>
+ * Convert maps at build time, e.g.
+ * {@code java misa.data.tiled2misa.MisaMapWriter maps/town.tmx build/town.misamap maps/}.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public final class MisaMapWriter
+{
+    private static final Logger LOGGER = Logger.getLogger(MisaMapWriter.class.getName());
+
+    /** "MISA" read as a little-endian int. */
+    static final int MAGIC = 0x4153494D;
+
+    /** Current format version. */
+    static final int VERSION = 2;
+
+    /** Size of the fixed header in bytes. */
+    static final int HEADER_BYTES = 44;
+
+    static final int TILESET_TSX = 0;
+    static final int TILESET_IMAGE = 1;
+
+    // Interned strings, in table order
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+    private MisaMapWriter()
+    {
+    }
+
+    /**
+     * Converts a TMX file on the command line.
+     *
+     * @param args Input TMX path, output .misamap path and optionally the resource base path for tilesets.
+     * @throws IOException If the output cannot be written.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 2)
+        {
+            System.err.println("Usage: MisaMapWriter <input.tmx> <output.misamap> [resourceBasePath]");
+            System.exit(1);
+        }
+
+        TiledParser parser = new TiledParser(new ArrayList<>());
+        if (args.length > 2) parser.setResourceBasePath(args[2]);
+        convert(parser, args[0], Path.of(args[1]));
+    }
+
+    /**
+     * Loads a TMX file and writes it as a .misamap file.
+     *
+     * @param parser Parser used to read the TMX file (with its resource base path set).
+     * @param tmxPath Path to the TMX file.
+     * @param output The file to write.
+     * @throws IOException If the TMX file cannot be loaded or the output cannot be written.
+     */
+    public static void convert(TiledParser parser, String tmxPath, Path output) throws IOException
+    {
+        TiledMap map = parser.loadFromTMX(tmxPath);
+        if (map == null) throw new IOException("Could not load TMX file: " + tmxPath);
+
+        try
+        {
+            write(map, output);
+        }
+        finally
+        {
+            map.release();
+        }
+    }
+
+    /**
+     * Writes a map as a .misamap file.
+     * <p>
+     * Tilesets loaded from TSX files are stored by their TSX path, so the loaded map gets the
+     * same animations. Tilesets created directly from an image are stored by their image path.
+     *
+     * @param map The map.
+     * @param output The file to write.
+     * @throws IOException If the file cannot be written, or a chunk of the map cannot be read.
+     */
+    public static void write(TiledMap map, Path output) throws IOException
+    {
+        MisaMapWriter writer = new MisaMapWriter();
+        ByteBuffer data = writer.encode(map);
+        int size = data.limit();
+
+        try (FileChannel channel = FileChannel.open(output,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            while (data.hasRemaining()) channel.write(data);
+        }
+
+        LOGGER.info("Wrote misamap: " + output + " (" + size + " bytes, "
+                + writer.strings.size() + " string(s))");
+    }
+
+    /**
+     * Lays out the whole file in memory.
+     */
+    private ByteBuffer encode(TiledMap map) throws IOException
+    {
+        // Intern every string first, so the table can be written before the sections using it
+        for (TiledTileset tileset : map.getTilesets()) intern(tilesetPath(tileset));
+        for (TiledLayer layer : map.getLayers()) intern(layer.name());
+        for (ChunkedLayer layer : map.getChunkedLayers()) intern(layer.name());
+        for (TiledObjectGroup group : map.getObjectGroups())
+        {
+            intern(group.name());
+            internProperties(group.properties());
+            for (TiledObject object : group.objects())
+            {
+                intern(object.name());
+                intern(object.type());
+                internProperties(object.properties());
+            }
+        }
+
+        // Header
+        putInt(MAGIC);
+        putInt(VERSION);
+        putInt(map.getWidth());
+        putInt(map.getHeight());
+        putInt(map.getTileWidth());
+        putInt(map.getTileHeight());
+        putInt(strings.size());
+        putInt(map.getTilesets().size());
+        putInt(map.getLayers().size());
+        putInt(map.getChunkedLayers().size());
+        putInt(map.getObjectGroups().size());
+
+        // Strings
+        for (String string : strings)
+        {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+        align();
+
+        // Tilesets
+        for (TiledTileset tileset : map.getTilesets())
+        {
+            putInt(tileset.getCacheKey() != null ? TILESET_TSX : TILESET_IMAGE);
+            putInt(indexOf(tilesetPath(tileset)));
+            putInt(tileset.firstGID());
+        }
+
+        // Tile layers
+        for (TiledLayer layer : map.getLayers())
+        {
+            putInt(indexOf(layer.name()));
+            putTiles(layer);
+        }
+
+        // Chunked layers
+        for (ChunkedLayer layer : map.getChunkedLayers())
+        {
+            List<ChunkedLayer.Chunk> chunks = new ArrayList<>(layer.getChunkCount());
+            layer.forEachChunk((key, chunk) -> chunks.add(chunk));
+
+            putInt(indexOf(layer.name()));
+            putInt(chunks.size());
+            for (ChunkedLayer.Chunk chunk : chunks)
+            {
+                TiledLayer tiles = chunk.tiles() != null ? chunk.tiles()
+                        : layer.decodeChunk(Math.floorDiv(chunk.x(), layer.getChunkWidth()), Math.floorDiv(chunk.y(), layer.getChunkHeight()));
+                putInt(chunk.x());
+                putInt(chunk.y());
+                putTiles(tiles);
+            }
+        }
+
+        // Object groups
+        for (TiledObjectGroup group : map.getObjectGroups())
+        {
+            putInt(indexOf(group.name()));
+            putProperties(group.properties());
+            putInt(group.objects().size());
+            for (TiledObject object : group.objects())
+            {
+                putInt(object.id());
+                putInt(indexOf(object.name()));
+                putInt(indexOf(object.type()));
+                putDouble(object.x());
+                putDouble(object.y());
+                putDouble(object.width());
+                putDouble(object.height());
+                putProperties(object.properties());
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Writes a layer's size and tile arrays, in the layer's own storage width.
+     */
+    private void putTiles(TiledLayer layer)
+    {
+        int cells = layer.width() * layer.height();
+        int gidBytes = layer.getGidBytes();
+        boolean flipped = layer.hasFlippedTiles();
+
+        putInt(layer.width());
+        putInt(layer.height());
+        putInt(gidBytes);
+        putInt(flipped ? 1 : 0);
+
+        ensure(cells * (gidBytes + 1));
+        for (int i = 0; i < cells; i++)
+        {
+            if (gidBytes == 2)
+            {
+                buffer.putShort((short) layer.getGid(i));
+            }
+            else
+            {
+                buffer.putInt(layer.getGid(i));
+            }
+        }
+        if (flipped)
+        {
+            for (int i = 0; i < cells; i++) buffer.put((byte) layer.getFlags(i));
+        }
+        align();
+    }
+
+    /**
+     * Writes properties with their types, so they load without being parsed again.
+     */
+    private void putProperties(TiledProperties properties)
+    {
+        putInt(properties.size());
+        for (int i = 0; i < properties.size(); i++)
+        {
+            putInt(indexOf(properties.getName(i)));
+            putInt(indexOf(properties.getValue(i)));
+            putInt(properties.getType(i).ordinal());
+        }
+    }
+
+    private void internProperties(TiledProperties properties)
+    {
+        for (int i = 0; i < properties.size(); i++)
+        {
+            intern(properties.getName(i));
+            intern(properties.getValue(i));
+        }
+    }
+
+    private static String tilesetPath(TiledTileset tileset)
+    {
+        return tileset.getCacheKey() != null ? tileset.getCacheKey() : tileset.getSource();
+    }
+
+    private void intern(String string)
+    {
+        if (string == null || stringIndex.containsKey(string)) return;
+        stringIndex.put(string, strings.size());
+        strings.add(string);
+    }
+
+    /**
+     * @return Index of an interned string, or -1 for null.
+     */
+    private int indexOf(String string)
+    {
+        return string == null ? -1 : stringIndex.get(string);
+    }
+
+    private void putInt(int value)
+    {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    private void putDouble(double value)
+    {
+        ensure(8);
+        buffer.putDouble(value);
+    }
+
+    /**
+     * Pads to a multiple of 4 bytes, so the tile arrays that follow are aligned.
+     */
+    private void align()
+    {
+        ensure(3);
+        while ((buffer.position() & 3) != 0) buffer.put((byte) 0);
+    }
+
+    private void ensure(int bytes)
+    {
+        if (buffer.remaining() >= bytes) return;
+
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+        ByteBuffer grown = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+}
@@ -0,0 +1,232 @@
+package misa.data.tiled2misa;
+
+import misa.util.collections.IntArrayList;
+import misa.util.collections.LongObjectMap;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A uniform grid over the bounds of a set of objects, for area queries.
+ *
+ * <p>
+ * Each object is listed in every grid cell its bounds touch, so a query only looks at the
+ * objects in the cells it covers instead of at every object of the map. Objects that would
+ * span more than {@value #MAX_CELLS_PER_OBJECT} cells (e.g. a map-wide music zone) are kept
+ * in a separate list that every query checks.
+ * </p>
+ *
+ * <p>
+ * A grid fits Tiled objects better than a tree: they are static, mostly tile-sized and
+ * spread evenly over the map, so building is a single pass and no balancing is needed.
+ * </p>
+ *
+ * <p>
+ * The index is immutable and queries do not allocate, so it may be queried from any thread.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public final class ObjectIndex
+{
+    /** Objects covering more cells than this are not put in the grid. */
+    static final int MAX_CELLS_PER_OBJECT = 64;
+
+    private final TiledObject[] objects;
+    private final double cellSize;
+
+    // Object indices per grid cell, by packed cell coordinates
+    private final LongObjectMap<IntArrayList> cells = new LongObjectMap<>();
+
+    // First cell each object is listed in, for reporting an object once per query
+    private final int[] firstCellX;
+    private final int[] firstCellY;
+
+    // Objects too large for the grid
+    private final IntArrayList oversized = new IntArrayList();
+
+    /**
+     * Builds an index.
+     *
+     * @param objects The objects to index.
+     * @param cellSize Grid cell size in pixels; a few tiles works well.
+     */
+    public ObjectIndex(List<TiledObject> objects, double cellSize)
+    {
+        if (!(cellSize > 0)) throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+
+        this.objects = objects.toArray(new TiledObject[0]);
+        this.cellSize = cellSize;
+        this.firstCellX = new int[this.objects.length];
+        this.firstCellY = new int[this.objects.length];
+
+        for (int i = 0; i < this.objects.length; i++)
+        {
+            TiledObject object = this.objects[i];
+            int left = cell(object.x());
+            int top = cell(object.y());
+            int right = cell(object.x() + Math.max(0, object.width()));
+            int bottom = cell(object.y() + Math.max(0, object.height()));
+
+            firstCellX[i] = left;
+            firstCellY[i] = top;
+
+            if ((long) (right - left + 1) * (bottom - top + 1) > MAX_CELLS_PER_OBJECT)
+            {
+                oversized.add(i);
+                continue;
+            }
+
+            for (int cy = top; cy <= bottom; cy++)
+            {
+                for (int cx = left; cx <= right; cx++)
+                {
+                    long key = ChunkedLayer.key(cx, cy);
+                    IntArrayList list = cells.get(key);
+                    if (list == null)
+                    {
+                        list = new IntArrayList(4);
+                        cells.put(key, list);
+                    }
+                    list.add(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the objects whose bounds overlap a box. Edges count, so point objects and
+     * zero-size queries match too.
+     *
+     * @param x Left edge of the box, in pixels.
+     * @param y Top edge.
+     * @param width Box width.
+     * @param height Box height.
+     * @param out Receives the matching objects (not cleared).
+     * @return Number of objects added.
+     */
+    public int query(double x, double y, double width, double height, List<? super TiledObject> out)
+    {
+        return query(x, y, width, height, null, out);
+    }
+
+    /**
+     * Finds the objects of one type whose bounds overlap a box, e.g. the triggers around the player.
+     *
+     * @param x Left edge of the box, in pixels.
+     * @param y Top edge.
+     * @param width Box width.
+     * @param height Box height.
+     * @param type Object type to match (null for any).
+     * @param out Receives the matching objects (not cleared).
+     * @return Number of objects added.
+     */
+    public int query(double x, double y, double width, double height, String type, List<? super TiledObject> out)
+    {
+        double maxX = x + Math.max(0, width);
+        double maxY = y + Math.max(0, height);
+        int left = cell(x);
+        int top = cell(y);
+        int right = cell(maxX);
+        int bottom = cell(maxY);
+        int found = 0;
+
+        // A query covering more cells than there are objects is faster as a plain scan
+        if ((long) (right - left + 1) * (bottom - top + 1) > objects.length)
+        {
+            for (TiledObject object : objects)
+            {
+                if (matches(object, type, x, y, maxX, maxY))
+                {
+                    out.add(object);
+                    found++;
+                }
+            }
+            return found;
+        }
+
+        for (int i = 0; i < oversized.size(); i++)
+        {
+            TiledObject object = objects[oversized.get(i)];
+            if (matches(object, type, x, y, maxX, maxY))
+            {
+                out.add(object);
+                found++;
+            }
+        }
+
+        for (int cy = top; cy <= bottom; cy++)
+        {
+            for (int cx = left; cx <= right; cx++)
+            {
+                IntArrayList list = cells.get(ChunkedLayer.key(cx, cy));
+                if (list == null) continue;
+
+                for (int n = 0; n < list.size(); n++)
+                {
+                    int i = list.get(n);
+
+                    // An object spanning several covered cells is reported from the first of them only
+                    if (cx != Math.max(firstCellX[i], left) || cy != Math.max(firstCellY[i], top)) continue;
+
+                    if (matches(objects[i], type, x, y, maxX, maxY))
+                    {
+                        out.add(objects[i]);
+                        found++;
+                    }
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * @return Number of indexed objects.
+     */
+    public int size()
+    {
+        return objects.length;
+    }
+
+    /**
+     * @return Grid cell size in pixels.
+     */
+    public double getCellSize()
+    {
+        return cellSize;
+    }
+
+    /**
+     * @return Objects of the index, in the order given at construction.
+     */
+    public List<TiledObject> getObjects()
+    {
+        return List.of(objects);
+    }
+
+    /**
+     * @return Number of grid cells holding at least one object.
+     */
+    public int getCellCount()
+    {
+        return cells.size();
+    }
+
+    /**
+     * @return Number of objects too large for the grid, checked by every query.
+     */
+    public int getOversizedCount()
+    {
+        return oversized.size();
+    }
+
+    private static boolean matches(TiledObject object, String type, double minX, double minY, double maxX, double maxY)
+    {
+        return (type == null || Objects.equals(type, object.type())) && object.overlaps(minX, minY, maxX, maxY);
+    }
+
+    private int cell(double coordinate)
+    {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+}
@@ -0,0 +1,206 @@
+package misa.data.tiled2misa;
+
+import java.util.Arrays;
+
+/**
+ * The tile animations of one tileset, stored as flat frame/duration tables.
+ *
+ * <p>
+ * Tiled stores animations per tile in the TSX file:
+ * <pre>
+ * &lt;tile id="12"&gt;
+ *     &lt;animation&gt;
+ *         &lt;frame tileid="12" duration="200"/&gt;
+ *         &lt;frame tileid="13" duration="200"/&gt;
+ *     &lt;/animation&gt;
+ * &lt;/tile&gt;
+ * </pre>
+ * Here every animation is a slice of two shared arrays: frame tile IDs, and the time
+ * (in milliseconds from the start of the cycle) at which each frame ends.
+ * </p>
+ *
+ * <p>
+ * Use {@link TileAnimations.Builder} to create instances.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public final class TileAnimations
+{
+    /** A tileset without animations. */
+    public static final TileAnimations EMPTY = new Builder().build();
+
+    private final int[] tileIds;      // Animated local tile IDs, sorted
+    private final int[] firstFrame;   // Start of each animation's frames (one extra entry at the end)
+    private final int[] frameTileIds; // Local tile ID shown by each frame
+    private final int[] frameEnds;    // End time of each frame within its cycle (ms)
+
+    /**
+     * Private constructor — use Builder to create TileAnimations instances.
+     */
+    private TileAnimations(int[] tileIds, int[] firstFrame, int[] frameTileIds, int[] frameEnds)
+    {
+        this.tileIds = tileIds;
+        this.firstFrame = firstFrame;
+        this.frameTileIds = frameTileIds;
+        this.frameEnds = frameEnds;
+    }
+
+    /**
+     * @return Number of animated tiles.
+     */
+    public int size()
+    {
+        return tileIds.length;
+    }
+
+    /**
+     * @param animation Animation index (0 to size - 1).
+     * @return The local tile ID that carries this animation.
+     */
+    public int getTileId(int animation)
+    {
+        return tileIds[animation];
+    }
+
+    /**
+     * Finds the animation of a tile.
+     *
+     * @param localId Local tile ID.
+     * @return The animation index, or -1 if the tile is not animated.
+     */
+    public int indexOf(int localId)
+    {
+        int index = Arrays.binarySearch(tileIds, localId);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * @param animation Animation index.
+     * @return Number of frames.
+     */
+    public int getFrameCount(int animation)
+    {
+        return firstFrame[animation + 1] - firstFrame[animation];
+    }
+
+    /**
+     * @param animation Animation index.
+     * @param frame Frame index.
+     * @return Local tile ID shown by the frame.
+     */
+    public int getFrameTileId(int animation, int frame)
+    {
+        return frameTileIds[firstFrame[animation] + frame];
+    }
+
+    /**
+     * @param animation Animation index.
+     * @return Length of one full cycle in milliseconds.
+     */
+    public int getCycleDuration(int animation)
+    {
+        return frameEnds[firstFrame[animation + 1] - 1];
+    }
+
+    /**
+     * Gets the tile shown by an animation at a point in time.
+     *
+     * @param animation Animation index.
+     * @param timeMillis Time since the animations started (milliseconds).
+     * @return The local tile ID to draw.
+     */
+    public int tileAt(int animation, long timeMillis)
+    {
+        int start = firstFrame[animation];
+        int end = firstFrame[animation + 1];
+        int cycle = frameEnds[end - 1];
+        if (cycle <= 0) return frameTileIds[start];
+
+        int time = (int) (timeMillis % cycle);
+        for (int frame = start; frame < end; frame++)
+        {
+            if (time < frameEnds[frame]) return frameTileIds[frame];
+        }
+        return frameTileIds[end - 1];
+    }
+
+    /**
+     * Builder for {@link TileAnimations}.
+     */
+    public static class Builder
+    {
+        private int[][] frames = new int[0][];
+        private int[][] durations = new int[0][];
+        private int[] tileIds = new int[0];
+        private int count;
+
+        /**
+         * Adds an animation.
+         *
+         * @param localId The animated tile's local ID.
+         * @param frameTileIds Local tile ID of each frame.
+         * @param frameDurations Duration of each frame in milliseconds.
+         * @return This builder instance.
+         */
+        public Builder addAnimation(int localId, int[] frameTileIds, int[] frameDurations)
+        {
+            if (frameTileIds.length == 0 || frameTileIds.length != frameDurations.length)
+                throw new IllegalArgumentException("Animation of tile " + localId + " needs one duration per frame.");
+
+            if (count == tileIds.length)
+            {
+                int capacity = Math.max(4, count * 2);
+                tileIds = Arrays.copyOf(tileIds, capacity);
+                frames = Arrays.copyOf(frames, capacity);
+                durations = Arrays.copyOf(durations, capacity);
+            }
+
+            tileIds[count] = localId;
+            frames[count] = frameTileIds.clone();
+            durations[count] = frameDurations.clone();
+            count++;
+            return this;
+        }
+
+        /**
+         * Packs the animations into flat tables.
+         *
+         * @return The finished TileAnimations.
+         */
+        public TileAnimations build()
+        {
+            // Sort animations by tile ID so lookups can binary search
+            Integer[] sorted = new Integer[count];
+            for (int i = 0; i < count; i++) sorted[i] = i;
+            Arrays.sort(sorted, (a, b) -> Integer.compare(tileIds[a], tileIds[b]));
+
+            int totalFrames = 0;
+            for (int i = 0; i < count; i++) totalFrames += frames[i].length;
+
+            int[] ids = new int[count];
+            int[] first = new int[count + 1];
+            int[] frameIds = new int[totalFrames];
+            int[] ends = new int[totalFrames];
+
+            int next = 0;
+            for (int i = 0; i < count; i++)
+            {
+                int source = sorted[i];
+                ids[i] = tileIds[source];
+                first[i] = next;
+
+                int time = 0;
+                for (int f = 0; f < frames[source].length; f++)
+                {
+                    time += Math.max(0, durations[source][f]);
+                    frameIds[next] = frames[source][f];
+                    ends[next] = time;
+                    next++;
+                }
+            }
+            first[count] = next;
+
+            return new TileAnimations(ids, first, frameIds, ends);
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package misa.data.tiled2misa;
+
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * TileDataDecoder turns the text of a layer's {@code <data>} element into tile IDs as it arrives.
+ *
+ * <p>
+ * The streaming parser hands over each chunk of characters straight from the XML reader,
+ * so the layer text is never collected into one String. Tile IDs are written into the
+ * layer array as soon as they are complete.
+ * </p>
+ *
+ * <p>
+ * Use {@link #forEncoding(String, String, int, int)} to get a decoder for a data encoding and compression.
+ * </p>
+ */
+abstract class TileDataDecoder
+{
+    private static final Logger LOGGER = Logger.getLogger(TileDataDecoder.class.getName());
+
+    protected final int width;
+    protected final int height;
+    protected final int[] tiles; // Raw gids, row-major
+
+    // Number of tile IDs read so far
+    protected int count;
+
+    protected TileDataDecoder(int width, int height)
+    {
+        this.width = width;
+        this.height = height;
+        this.tiles = new int[width * height];
+    }
+
+    /**
+     * Creates a decoder for a {@code <data encoding="..." compression="...">} element.
+     *
+     * @param encoding The encoding attribute ("csv" or "base64").
+     * @param compression The compression attribute ("", "zlib" or "gzip"; ignored for csv).
+     * @param width Layer width in tiles.
+     * @param height Layer height in tiles.
+     * @return A decoder, or null if the encoding or compression is not supported.
+     */
+    static TileDataDecoder forEncoding(String encoding, String compression, int width, int height)
+    {
+        if (!isSupported(encoding, compression)) return null;
+        if ("csv".equalsIgnoreCase(encoding)) return new CsvDecoder(width, height);
+        return new Base64Decoder(width, height, compression);
+    }
+
+    /**
+     * @param encoding The encoding attribute.
+     * @param compression The compression attribute.
+     * @return True if {@link #forEncoding} can decode this combination.
+     */
+    static boolean isSupported(String encoding, String compression)
+    {
+        boolean compressed = compression != null && !compression.isEmpty();
+        if ("csv".equalsIgnoreCase(encoding)) return true;
+        return "base64".equalsIgnoreCase(encoding) && (!compressed || isSupportedCompression(compression));
+    }
+
+    /**
+     * @param compression A compression attribute value.
+     * @return True for "zlib" and "gzip" (Tiled's zstd is not supported).
+     */
+    static boolean isSupportedCompression(String compression)
+    {
+        return "zlib".equalsIgnoreCase(compression) || "gzip".equalsIgnoreCase(compression);
+    }
+
+    /**
+     * Decodes a whole element text at once (for the DOM parser).
+     *
+     * @param text The element text.
+     * @return The raw tile IDs (flags included), row-major.
+     */
+    int[] decode(String text)
+    {
+        char[] buffer = new char[Math.min(text.length(), 8192)];
+        for (int start = 0; start < text.length(); start += buffer.length)
+        {
+            int length = Math.min(buffer.length, text.length() - start);
+            text.getChars(start, start + length, buffer, 0);
+            feed(buffer, 0, length);
+        }
+        return finish();
+    }
+
+    /**
+     * Decodes a chunk of the element's text.
+     *
+     * @param chars Character buffer.
+     * @param start First character to read.
+     * @param length Number of characters.
+     */
+    abstract void feed(char[] chars, int start, int length);
+
+    /**
+     * Completes decoding.
+     *
+     * @return The raw tile IDs (flags included), row-major.
+     * @throws IllegalStateException If the data held fewer tiles than the layer needs.
+     */
+    abstract int[] finish();
+
+    /**
+     * Stores the next tile ID in reading order. IDs past the end of the layer are counted but dropped.
+     */
+    protected final void put(int gid)
+    {
+        if (count < tiles.length) tiles[count] = gid;
+        count++;
+    }
+
+    /**
+     * Comma-separated decimal tile IDs.
+     * <p>
+     * Digits are accumulated straight into the tile array in one pass, so no String is created
+     * per tile. Whitespace and newlines may surround any ID.
+     */
+    private static final class CsvDecoder extends TileDataDecoder
+    {
+        // Largest raw tile ID: 32 bits, flip flags included
+        private static final long MAX_ID = 0xFFFFFFFFL;
+
+        private long value;
+        private boolean hasDigits;
+        private boolean digitsEnded; // Whitespace seen after the digits of the current ID
+
+        private CsvDecoder(int width, int height)
+        {
+            super(width, height);
+        }
+
+        @Override
+        int[] decode(String text)
+        {
+            // Scan the DOM's String in place instead of copying it out in blocks
+            for (int i = 0; i < text.length(); i++) accept(text.charAt(i));
+            return finish();
+        }
+
+        @Override
+        void feed(char[] chars, int start, int length)
+        {
+            for (int i = start; i < start + length; i++) accept(chars[i]);
+        }
+
+        private void accept(char c)
+        {
+            if (c >= '0' && c <= '9')
+            {
+                if (digitsEnded) throw new NumberFormatException("Missing comma in CSV data at tile " + count);
+
+                value = value * 10 + (c - '0');
+                if (value > MAX_ID) throw new NumberFormatException("Tile ID out of range in CSV data at tile " + count);
+                hasDigits = true;
+            }
+            else if (c == ',')
+            {
+                if (!hasDigits) throw new NumberFormatException("Empty tile ID in CSV data at tile " + count);
+                put((int) value);
+                value = 0;
+                hasDigits = false;
+                digitsEnded = false;
+            }
+            else if (Character.isWhitespace(c))
+            {
+                if (hasDigits) digitsEnded = true;
+            }
+            else
+            {
+                throw new NumberFormatException("Unexpected character '" + c + "' in CSV data at tile " + count);
+            }
+        }
+
+        @Override
+        int[] finish()
+        {
+            // The last ID has no trailing comma
+            if (hasDigits) put((int) value);
+
+            if (count != width * height)
+            {
+                LOGGER.warning("CSV tile count mismatch: expected " + (width * height) + ", got " + count);
+                if (count < width * height)
+                    throw new IllegalStateException("CSV data ended after " + count + " of " + (width * height) + " tiles.");
+            }
+            return tiles;
+        }
+    }
+
+    /**
+     * Base64 of little-endian 32-bit tile IDs, optionally zlib or gzip compressed.
+     * <p>
+     * Decoded bytes go through a small staging buffer into an Inflater, and inflated bytes
+     * are packed into tile IDs as they come out, so no byte array of the whole layer is built.
+     */
+    private static final class Base64Decoder extends TileDataDecoder
+    {
+        private static final int BUFFER_SIZE = 4096;
+
+        // Gzip header fields, read in this order
+        private static final int HEADER_FIXED = 0;
+        private static final int HEADER_EXTRA_LENGTH = 1;
+        private static final int HEADER_EXTRA = 2;
+        private static final int HEADER_NAME = 3;
+        private static final int HEADER_COMMENT = 4;
+        private static final int HEADER_CRC = 5;
+        private static final int HEADER_DONE = 6;
+
+        private int quad;       // Base64 characters collected into 24 bits
+        private int quadLength; // Characters in quad (0-3)
+        private int word;       // Bytes collected into the next tile ID
+        private int wordLength; // Bytes in word (0-3)
+        private boolean ended;  // Padding seen
+
+        // Compressed data only
+        private final Inflater inflater;
+        private final byte[] staging;
+        private final byte[] inflated;
+        private int stagingLength;
+
+        // Gzip header parsing (gzip only)
+        private int headerField;
+        private int headerBytes;
+        private int headerFlags;
+        private int extraRemaining;
+
+        private Base64Decoder(int width, int height, String compression)
+        {
+            super(width, height);
+
+            boolean gzip = "gzip".equalsIgnoreCase(compression);
+            if (gzip || "zlib".equalsIgnoreCase(compression))
+            {
+                inflater = new Inflater(gzip); // Gzip bodies are raw deflate streams
+                staging = new byte[BUFFER_SIZE];
+                inflated = new byte[BUFFER_SIZE];
+                headerField = gzip ? HEADER_FIXED : HEADER_DONE;
+            }
+            else
+            {
+                inflater = null;
+                staging = null;
+                inflated = null;
+                headerField = HEADER_DONE;
+            }
+        }
+
+        @Override
+        void feed(char[] chars, int start, int length)
+        {
+            for (int i = start; i < start + length; i++)
+            {
+                char c = chars[i];
+                if (Character.isWhitespace(c)) continue;
+                if (c == '=')
+                {
+                    ended = true;
+                    continue;
+                }
+                if (ended) throw new IllegalArgumentException("Base64 data continues after padding.");
+
+                quad = (quad << 6) | sextet(c);
+                if (++quadLength == 4)
+                {
+                    acceptByte(quad >>> 16);
+                    acceptByte(quad >>> 8);
+                    acceptByte(quad);
+                    quad = 0;
+                    quadLength = 0;
+                }
+            }
+        }
+
+        @Override
+        int[] finish()
+        {
+            try
+            {
+                // Flush a final group shortened by padding
+                if (quadLength == 2)
+                {
+                    acceptByte(quad >>> 4);
+                }
+                else if (quadLength == 3)
+                {
+                    acceptByte(quad >>> 10);
+                    acceptByte(quad >>> 2);
+                }
+                else if (quadLength == 1)
+                {
+                    throw new IllegalArgumentException("Truncated base64 data.");
+                }
+
+                if (inflater != null)
+                {
+                    inflateStaging();
+                    if (!inflater.finished()) throw new IllegalArgumentException("Truncated compressed data.");
+                }
+            }
+            finally
+            {
+                if (inflater != null) inflater.end();
+            }
+
+            if (count < width * height)
+                throw new IllegalStateException("Base64 data ended after " + count + " of " + (width * height) + " tiles.");
+            return tiles;
+        }
+
+        /**
+         * Takes one decoded byte: a tile ID byte, or compressed input.
+         */
+        private void acceptByte(int b)
+        {
+            if (inflater == null)
+            {
+                packByte(b);
+                return;
+            }
+
+            if (headerField != HEADER_DONE)
+            {
+                gzipHeaderByte(b & 0xFF);
+                return;
+            }
+
+            staging[stagingLength++] = (byte) b;
+            if (stagingLength == staging.length) inflateStaging();
+        }
+
+        /**
+         * Inflates everything in the staging buffer into tile IDs.
+         */
+        private void inflateStaging()
+        {
+            if (stagingLength == 0 || inflater.finished())
+            {
+                stagingLength = 0; // Anything after the stream (e.g. the gzip trailer) is ignored
+                return;
+            }
+
+            inflater.setInput(staging, 0, stagingLength);
+            try
+            {
+                while (!inflater.finished() && !inflater.needsInput())
+                {
+                    int length = inflater.inflate(inflated);
+                    if (length == 0 && inflater.needsDictionary())
+                        throw new IllegalArgumentException("Compressed data needs a preset dictionary.");
+
+                    for (int i = 0; i < length; i++) packByte(inflated[i]);
+                }
+            }
+            catch (DataFormatException e)
+            {
+                throw new IllegalArgumentException("Corrupt compressed data: " + e.getMessage(), e);
+            }
+            stagingLength = 0;
+        }
+
+        /**
+         * Skips one byte of a gzip member header (RFC 1952).
+         */
+        private void gzipHeaderByte(int b)
+        {
+            switch (headerField)
+            {
+                case HEADER_FIXED ->
+                {
+                    if ((headerBytes == 0 && b != 0x1F) || (headerBytes == 1 && b != 0x8B))
+                        throw new IllegalArgumentException("Layer data is not gzip compressed.");
+                    if (headerBytes == 2 && b != 8)
+                        throw new IllegalArgumentException("Unsupported gzip compression method " + b + ".");
+                    if (headerBytes == 3) headerFlags = b;
+
+                    if (++headerBytes == 10) nextHeaderField(HEADER_EXTRA_LENGTH);
+                }
+                case HEADER_EXTRA_LENGTH ->
+                {
+                    extraRemaining |= b << (8 * headerBytes);
+                    if (++headerBytes == 2) nextHeaderField(HEADER_EXTRA);
+                }
+                case HEADER_EXTRA ->
+                {
+                    if (--extraRemaining <= 0) nextHeaderField(HEADER_NAME);
+                }
+                case HEADER_NAME ->
+                {
+                    if (b == 0) nextHeaderField(HEADER_COMMENT);
+                }
+                case HEADER_COMMENT ->
+                {
+                    if (b == 0) nextHeaderField(HEADER_CRC);
+                }
+                case HEADER_CRC ->
+                {
+                    if (++headerBytes == 2) nextHeaderField(HEADER_DONE);
+                }
+                default ->
+                {
+                }
+            }
+        }
+
+        /**
+         * Moves to the next header field that is present, given the header flags.
+         */
+        private void nextHeaderField(int field)
+        {
+            headerBytes = 0;
+            if (field == HEADER_EXTRA_LENGTH && (headerFlags & 0x04) == 0) field = HEADER_NAME;
+            if (field == HEADER_EXTRA && extraRemaining == 0) field = HEADER_NAME;
+            if (field == HEADER_NAME && (headerFlags & 0x08) == 0) field = HEADER_COMMENT;
+            if (field == HEADER_COMMENT && (headerFlags & 0x10) == 0) field = HEADER_CRC;
+            if (field == HEADER_CRC && (headerFlags & 0x02) == 0) field = HEADER_DONE;
+            headerField = field;
+        }
+
+        /**
+         * Adds one byte to the next tile ID (Tiled stores IDs little-endian).
+         */
+        private void packByte(int b)
+        {
+            word |= (b & 0xFF) << (8 * wordLength);
+            if (++wordLength == 4)
+            {
+                put(word);
+                word = 0;
+                wordLength = 0;
+            }
+        }
+
+        private static int sextet(char c)
+        {
+            if (c >= 'A' && c <= 'Z') return c - 'A';
+            if (c >= 'a' && c <= 'z') return c - 'a' + 26;
+            if (c >= '0' && c <= '9') return c - '0' + 52;
+            if (c == '+') return 62;
+            if (c == '/') return 63;
+            throw new IllegalArgumentException("Illegal base64 character '" + c + "'.");
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package misa.data.tiled2misa;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * TileOcclusion records, for every map cell, the topmost layer holding a fully opaque tile.
+ *
+ * <p>
+ * Layers are drawn bottom to top, so any tile on a lower layer in the same cell is
+ * completely covered and does not need to be drawn. Maps that stack several full layers
+ * (ground, detail, walls...) skip a large part of their fill this way.
+ * </p>
+ *
+ * <p>
+ * Computed once when the {@link TiledMap} is built, from the tile classes of
+ * {@link TiledTileset#classifyTiles}. A hot reload ({@link MapDiff}) updates only the
+ * cells it changes.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public final class TileOcclusion
+{
+    private final int width;
+    private final int height;
+
+    // Topmost opaque layer index per cell (-1 when no layer is opaque there)
+    private final short[] topOpaqueLayer;
+
+    private int hiddenTileCount;
+
+    private TileOcclusion(int width, int height, short[] topOpaqueLayer, int hiddenTileCount)
+    {
+        this.width = width;
+        this.height = height;
+        this.topOpaqueLayer = topOpaqueLayer;
+        this.hiddenTileCount = hiddenTileCount;
+    }
+
+    /**
+     * Computes occlusion for a map.
+     *
+     * @param map The map (its tilesets must already be classified).
+     * @return The occlusion data.
+     */
+    static TileOcclusion compute(TiledMap map)
+    {
+        int width = Math.max(0, map.getWidth());
+        int height = Math.max(0, map.getHeight());
+        short[] top = new short[width * height];
+        Arrays.fill(top, (short) -1);
+
+        List<TiledLayer> layers = map.getLayers();
+        int layerCount = Math.min(layers.size(), Short.MAX_VALUE);
+
+        // Walk from the top layer down; the first opaque tile found in a cell wins
+        for (int layerIndex = layerCount - 1; layerIndex >= 0; layerIndex--)
+        {
+            TiledLayer layer = layers.get(layerIndex);
+            int layerWidth = Math.min(width, layer.width());
+            int layerHeight = Math.min(height, layer.height());
+
+            for (int y = 0; y < layerHeight; y++)
+            {
+                for (int x = 0; x < layerWidth; x++)
+                {
+                    int cell = y * width + x;
+                    if (top[cell] >= 0) continue;
+
+                    int gid = layer.getGid(x, y); // Flips do not change opacity
+                    if (gid == 0) continue;
+
+                    TiledTileset tileset = map.getTilesetForTile(gid);
+                    if (tileset != null && tileset.isTileOpaque(gid - tileset.firstGID()))
+                    {
+                        top[cell] = (short) layerIndex;
+                    }
+                }
+            }
+        }
+
+        // Count the non-empty tiles that will be skipped
+        int hidden = 0;
+        for (int layerIndex = 0; layerIndex < layerCount; layerIndex++)
+        {
+            TiledLayer layer = layers.get(layerIndex);
+            int layerWidth = Math.min(width, layer.width());
+            int layerHeight = Math.min(height, layer.height());
+
+            for (int y = 0; y < layerHeight; y++)
+            {
+                for (int x = 0; x < layerWidth; x++)
+                {
+                    if (layer.getGid(x, y) != 0 && layerIndex < top[y * width + x]) hidden++;
+                }
+            }
+        }
+
+        return new TileOcclusion(width, height, top, hidden);
+    }
+
+    /**
+     * Takes a cell's hidden tiles out of the count, before its tiles change.
+     * Must be followed by {@link #updateCell} once they have.
+     *
+     * @param map The map this occlusion belongs to.
+     * @param x Cell X (tiles).
+     * @param y Cell Y (tiles).
+     */
+    void forgetCell(TiledMap map, int x, int y)
+    {
+        hiddenTileCount -= countHidden(map, x, y);
+    }
+
+    /**
+     * Recomputes one cell after its tiles changed.
+     *
+     * @param map The map this occlusion belongs to.
+     * @param x Cell X (tiles).
+     * @param y Cell Y (tiles).
+     * @return True if the cell's topmost opaque layer changed.
+     */
+    boolean updateCell(TiledMap map, int x, int y)
+    {
+        List<TiledLayer> layers = map.getLayers();
+        int cell = y * width + x;
+        short top = -1;
+
+        for (int layerIndex = Math.min(layers.size(), Short.MAX_VALUE) - 1; layerIndex >= 0; layerIndex--)
+        {
+            int gid = layers.get(layerIndex).getGid(x, y);
+            if (gid == 0) continue;
+
+            TiledTileset tileset = map.getTilesetForTile(gid);
+            if (tileset != null && tileset.isTileOpaque(gid - tileset.firstGID()))
+            {
+                top = (short) layerIndex;
+                break;
+            }
+        }
+
+        boolean changed = topOpaqueLayer[cell] != top;
+        topOpaqueLayer[cell] = top;
+        hiddenTileCount += countHidden(map, x, y);
+        return changed;
+    }
+
+    private int countHidden(TiledMap map, int x, int y)
+    {
+        int top = topOpaqueLayer[y * width + x];
+        int hidden = 0;
+        for (int layerIndex = 0; layerIndex < top; layerIndex++)
+        {
+            if (map.getLayers().get(layerIndex).getGid(x, y) != 0) hidden++;
+        }
+        return hidden;
+    }
+
+    /**
+     * Gets the topmost layer with an opaque tile in a cell.
+     *
+     * @param x Cell X (tiles).
+     * @param y Cell Y (tiles).
+     * @return The layer index, or -1 if no layer is opaque there (or the cell is outside the map).
+     */
+    public int getTopOpaqueLayer(int x, int y)
+    {
+        if (x < 0 || y < 0 || x >= width || y >= height) return -1;
+        return topOpaqueLayer[y * width + x];
+    }
+
+    /**
+     * Checks whether a layer's tile in a cell is completely covered by an opaque tile above it.
+     *
+     * @param layerIndex Index of the layer in the map.
+     * @param x Cell X (tiles).
+     * @param y Cell Y (tiles).
+     * @return True if the tile does not need to be drawn.
+     */
+    public boolean isHidden(int layerIndex, int x, int y)
+    {
+        return layerIndex < getTopOpaqueLayer(x, y);
+    }
+
+    /**
+     * @return Number of non-empty tiles that are hidden under opaque tiles.
+     */
+    public int getHiddenTileCount()
+    {
+        return hiddenTileCount;
+    }
+}
@@ -1,5 +1,7 @@
 package misa.data.tiled2misa;
 
+import java.nio.ByteBuffer;
+
 /**
  * Represents a single tile layer inside a Tiled map (.tmx file).
  *
@@ -9,22 +11,358 @@ package misa.data.tiled2misa;
  *     <li><b>name</b> - The human-readable name of the layer (e.g., "Background", "Collisions").</li>
  *     <li><b>width</b> - Width of the layer in tiles.</li>
  *     <li><b>height</b> - Height of the layer in tiles.</li>
- *     <li><b>tileData</b> - 2D array storing tile IDs for each tile position.</li>
+ *     <li><b>tiles</b> - The global tile ID (gid) and flip flags of every cell.</li>
  * </ul>
  * </p>
  *
  * <p>
- * Tile IDs are stored as {@code long} values to allow additional metadata,
- * such as tile flipping and rotation flags.
+ * Tiled stores flip and rotation flags in the top bits of each gid. They are split off when
+ * the layer is created: gids are kept in one row-major array ({@code short[]} when every gid
+ * fits in 16 bits, {@code int[]} otherwise), and flags in a separate {@code byte[]} that only
+ * exists if some tile is actually flipped.
+ * </p>
+ *
+ * <p>
+ * Layers loaded from a {@code .misamap} file read the same two arrays straight from the
+ * memory-mapped file instead (see {@link MisaMapReader}).
+ * </p>
+ *
+ * <p>
+ * Tiles only change when a map is hot reloaded ({@link MapHotReloader}), on the thread
+ * that applies the reload.
  * </p>
  */
-public record TiledLayer(String name, int width, int height, long[][] tileData)
+@SuppressWarnings("unused")
+public final class TiledLayer
 {
-    /*
-     * 1. `name` - Name of the layer as defined in Tiled.
-     * 2. `width` and `height` - Size of the layer in tiles.
-     * 3. `tileData` - 2D array where each entry:
-     *      - Represents the global tile ID (gid) at that tile location.
-     *      - May include metadata flags (e.g., flipped, rotated tiles).
+    /** Flag: the tile is mirrored left to right. */
+    public static final int FLIPPED_HORIZONTALLY = 0x8;
+    /** Flag: the tile is mirrored top to bottom. */
+    public static final int FLIPPED_VERTICALLY = 0x4;
+    /** Flag: the tile is mirrored along its top-left to bottom-right diagonal (applied first). */
+    public static final int FLIPPED_DIAGONALLY = 0x2;
+    /** Flag: the tile is rotated by 120 degrees (hexagonal maps only). */
+    public static final int ROTATED_HEXAGONAL_120 = 0x1;
+
+    /** Mask keeping the gid of a raw Tiled gid, without its 4 flag bits. */
+    public static final int GID_MASK = 0x0FFFFFFF;
+
+    // Tiled's flag bits are the top 4 bits of a raw gid
+    private static final int FLAG_SHIFT = 28;
+
+    private final String name;
+    private final int width;
+    private final int height;
+
+    // Row-major gids without flags; exactly one of the two is set
+    private short[] shortGids;
+    private int[] intGids;
+
+    // Row-major flags (null when no tile has any)
+    private byte[] flags;
+
+    // Memory-mapped storage, used instead of the arrays above (little-endian; null when unused)
+    private ByteBuffer mappedGids;
+    private ByteBuffer mappedFlags;
+    private final boolean mappedShortGids;
+
+    /**
+     * Creates a layer from raw Tiled gids (flags included).
+     *
+     * @param name Name of the layer as defined in Tiled.
+     * @param width Width in tiles.
+     * @param height Height in tiles.
+     * @param rawGids Row-major gids as stored by Tiled (width * height entries). The array is
+     *                reused by the layer and must not be modified afterwards.
+     */
+    public TiledLayer(String name, int width, int height, int[] rawGids)
+    {
+        if (rawGids.length != width * height)
+            throw new IllegalArgumentException("Layer " + name + " needs " + (width * height) + " tiles, got " + rawGids.length);
+
+        this.name = name;
+        this.width = width;
+        this.height = height;
+
+        // Split off the flags and find the largest gid
+        byte[] flagData = null;
+        int maxGid = 0;
+        for (int i = 0; i < rawGids.length; i++)
+        {
+            int raw = rawGids[i];
+            int cellFlags = raw >>> FLAG_SHIFT;
+            if (cellFlags != 0)
+            {
+                if (flagData == null) flagData = new byte[rawGids.length];
+                flagData[i] = (byte) cellFlags;
+                raw &= GID_MASK;
+                rawGids[i] = raw;
+            }
+            if (raw > maxGid) maxGid = raw;
+        }
+        this.flags = flagData;
+        this.mappedGids = null;
+        this.mappedFlags = null;
+        this.mappedShortGids = false;
+
+        if (maxGid <= 0xFFFF)
+        {
+            short[] compact = new short[rawGids.length];
+            for (int i = 0; i < rawGids.length; i++) compact[i] = (short) rawGids[i];
+            this.shortGids = compact;
+            this.intGids = null;
+        }
+        else
+        {
+            this.shortGids = null;
+            this.intGids = rawGids;
+        }
+    }
+
+    /**
+     * Creates a layer from a [row][column] array of raw Tiled gids (flags included).
+     *
+     * @param name Name of the layer as defined in Tiled.
+     * @param width Width in tiles.
+     * @param height Height in tiles.
+     * @param tileData Raw gids, one row per entry.
+     */
+    public TiledLayer(String name, int width, int height, long[][] tileData)
+    {
+        this(name, width, height, flatten(tileData, width, height));
+    }
+
+    /**
+     * Creates a layer that reads its tiles from buffers without copying them.
+     *
+     * @param name Name of the layer.
+     * @param width Width in tiles.
+     * @param height Height in tiles.
+     * @param gids Row-major gids without flags, 2 or 4 little-endian bytes each.
+     * @param shortGids True for 2-byte gids.
+     * @param flags Row-major flags, one byte each (null if no tile is flipped).
+     */
+    TiledLayer(String name, int width, int height, ByteBuffer gids, boolean shortGids, ByteBuffer flags)
+    {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.shortGids = null;
+        this.intGids = null;
+        this.flags = null;
+        this.mappedGids = gids;
+        this.mappedFlags = flags;
+        this.mappedShortGids = shortGids;
+    }
+
+    /**
+     * @return Name of the layer as defined in Tiled.
+     */
+    public String name()
+    {
+        return name;
+    }
+
+    /**
+     * @return Width in tiles.
+     */
+    public int width()
+    {
+        return width;
+    }
+
+    /**
+     * @return Height in tiles.
+     */
+    public int height()
+    {
+        return height;
+    }
+
+    /**
+     * Gets the gid of a cell, without flip flags.
+     *
+     * @param x Tile column.
+     * @param y Tile row.
+     * @return The gid, or 0 if the cell is empty or outside the layer.
+     */
+    public int getGid(int x, int y)
+    {
+        if (x < 0 || y < 0 || x >= width || y >= height) return 0;
+        return getGid(y * width + x);
+    }
+
+    /**
+     * Gets the gid of a cell by its row-major index, without flip flags.
+     *
+     * @param index Cell index (y * width + x).
+     * @return The gid (0 for an empty cell).
+     */
+    public int getGid(int index)
+    {
+        if (shortGids != null) return shortGids[index] & 0xFFFF;
+        if (intGids != null) return intGids[index];
+        return mappedShortGids ? mappedGids.getShort(index << 1) & 0xFFFF : mappedGids.getInt(index << 2);
+    }
+
+    /**
+     * Gets the flip flags of a cell.
+     *
+     * @param x Tile column.
+     * @param y Tile row.
+     * @return A combination of the FLIPPED_* and ROTATED_* constants (0 if not flipped).
+     */
+    public int getFlags(int x, int y)
+    {
+        if (x < 0 || y < 0 || x >= width || y >= height) return 0;
+        return getFlags(y * width + x);
+    }
+
+    /**
+     * Gets the flip flags of a cell by its row-major index.
+     *
+     * @param index Cell index (y * width + x).
+     * @return A combination of the FLIPPED_* and ROTATED_* constants (0 if not flipped).
+     */
+    public int getFlags(int index)
+    {
+        if (flags != null) return flags[index];
+        return mappedFlags == null ? 0 : mappedFlags.get(index);
+    }
+
+    /**
+     * Gets a cell as Tiled stores it: the gid with the flags in its top bits.
+     *
+     * @param x Tile column.
+     * @param y Tile row.
+     * @return The raw gid as an unsigned value.
+     */
+    public long getRawGid(int x, int y)
+    {
+        return ((long) getFlags(x, y) << FLAG_SHIFT) | getGid(x, y);
+    }
+
+    /**
+     * @return True if any tile in the layer is flipped or rotated.
+     */
+    public boolean hasFlippedTiles()
+    {
+        return flags != null || mappedFlags != null;
+    }
+
+    /**
+     * @return Bytes used by the tile storage (for mapped layers, bytes of the file it reads).
+     */
+    public long getStorageBytes()
+    {
+        long cells = (long) width * height;
+        return cells * getGidBytes() + (hasFlippedTiles() ? cells : 0);
+    }
+
+    /**
+     * @return True if the tiles are read from a memory-mapped file.
+     */
+    public boolean isMapped()
+    {
+        return mappedGids != null;
+    }
+
+    /**
+     * @return Bytes per stored gid (2 or 4).
+     */
+    int getGidBytes()
+    {
+        if (mappedGids != null) return mappedShortGids ? 2 : 4;
+        return shortGids != null ? 2 : 4;
+    }
+
+    /**
+     * Changes one cell (see {@link MapDiff}). The storage is widened or copied out of the
+     * mapped file as needed.
+     *
+     * @param index Cell index (y * width + x).
+     * @param gid The new gid, without flags.
+     * @param cellFlags The new flip flags.
+     */
+    void setTile(int index, int gid, int cellFlags)
+    {
+        if (mappedGids != null) unmap();
+
+        if (shortGids != null && (gid & 0xFFFF) != gid)
+        {
+            int[] wide = new int[shortGids.length];
+            for (int i = 0; i < wide.length; i++) wide[i] = shortGids[i] & 0xFFFF;
+            intGids = wide;
+            shortGids = null;
+        }
+
+        if (shortGids != null) shortGids[index] = (short) gid;
+        else intGids[index] = gid;
+
+        if (cellFlags != 0 && flags == null) flags = new byte[width * height];
+        if (flags != null) flags[index] = (byte) cellFlags;
+    }
+
+    /**
+     * Copies mapped tiles into arrays, so they can be changed.
+     */
+    private void unmap()
+    {
+        int cells = width * height;
+        if (mappedShortGids)
+        {
+            short[] gids = new short[cells];
+            for (int i = 0; i < cells; i++) gids[i] = mappedGids.getShort(i << 1);
+            shortGids = gids;
+        }
+        else
+        {
+            int[] gids = new int[cells];
+            for (int i = 0; i < cells; i++) gids[i] = mappedGids.getInt(i << 2);
+            intGids = gids;
+        }
+
+        if (mappedFlags != null)
+        {
+            byte[] cellFlags = new byte[cells];
+            mappedFlags.get(0, cellFlags);
+            flags = cellFlags;
+        }
+
+        mappedGids = null;
+        mappedFlags = null;
+    }
+
+    /**
+     * Builds a [row][column] copy of the raw gids (flags included).
+     * <p>
+     * This allocates a copy of the whole layer on every call.
+     *
+     * @return The raw gids.
+     * @deprecated Read cells with {@link #getGid(int, int)} and {@link #getFlags(int, int)}
+     *             (or the index overloads), which read the layer's storage directly.
+     */
+    @Deprecated(forRemoval = true)
+    public long[][] tileData()
+    {
+        long[][] tileData = new long[height][width];
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++) tileData[y][x] = getRawGid(x, y);
+        }
+        return tileData;
+    }
+
+    /**
+     * Copies [row][column] raw gids into one row-major array.
      */
+    private static int[] flatten(long[][] tileData, int width, int height)
+    {
+        int[] raw = new int[width * height];
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++) raw[y * width + x] = (int) tileData[y][x];
+        }
+        return raw;
+    }
 }
@@ -2,7 +2,9 @@ package misa.data.tiled2misa;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 /**
@@ -10,7 +12,10 @@ import java.util.logging.Logger;
  *
  * <p>
  * Once created, a TiledMap is immutable. Access its layers, tilesets, and objects
- * through unmodifiable lists.
+ * through unmodifiable lists. The only exception is a hot reload in development
+ * ({@link MapHotReloader}), which writes changed tiles into the live layers between
+ * game ticks; threads other than the game thread read a hot reloaded map under
+ * {@link MapHotReloader#getReadLock()}.
  * </p>
  *
  * <p>
@@ -30,8 +35,19 @@ public class TiledMap
 
     // Parsed map data
     private final List<TiledLayer> layers;
+    private final List<ChunkedLayer> chunkedLayers;
     private final List<TiledTileset> tilesets;
     private final List<TiledObject> objects;
+    private final List<TiledObjectGroup> objectGroups;
+
+    // Spatial indexes over the objects, built on first query (key null = all objects)
+    private final Map<String, ObjectIndex> objectIndexes = new HashMap<>();
+
+    // Topmost opaque layer per cell, for skipping hidden tiles
+    private final TileOcclusion occlusion;
+
+    // Set once the map's tilesets were given back to the TilesetCache
+    private boolean released;
 
     /**
      * Private constructor — use Builder to create TiledMap instances.
@@ -46,19 +62,27 @@ public class TiledMap
         this.tileWidth = builder.tileWidth;
         this.tileHeight = builder.tileHeight;
         this.layers = Collections.unmodifiableList(builder.layers);
+        this.chunkedLayers = Collections.unmodifiableList(builder.chunkedLayers);
         this.tilesets = Collections.unmodifiableList(builder.tilesets);
         this.objects = Collections.unmodifiableList(builder.objects);
+        this.objectGroups = Collections.unmodifiableList(builder.objectGroups);
+
+        // Classify tiles once so the renderer can skip tiles hidden under opaque ones
+        for (TiledTileset tileset : tilesets) tileset.classifyTiles(tileWidth, tileHeight);
+        this.occlusion = TileOcclusion.compute(this);
 
         // Log map construction info
         LOGGER.info("TiledMap constructed:");
         LOGGER.info(" - Map Size: " + width + " x " + height + " tiles");
         LOGGER.info(" - Tile Size: " + tileWidth + " x " + tileHeight + " pixels");
         LOGGER.info(" - Layers: " + layers.size());
+        if (!chunkedLayers.isEmpty()) LOGGER.info(" - Chunked layers (infinite): " + chunkedLayers.size());
         LOGGER.info(" - Tilesets: " + tilesets.size());
-        LOGGER.info(" - Objects: " + objects.size());
+        LOGGER.info(" - Objects: " + objects.size() + " in " + objectGroups.size() + " group(s)");
+        LOGGER.info(" - Hidden tiles (occluded): " + occlusion.getHiddenTileCount());
 
         // Check for missing parts (warn if needed)
-        if (layers.isEmpty())
+        if (layers.isEmpty() && chunkedLayers.isEmpty())
         {
             LOGGER.warning("TiledMap has no layers. Nothing will render.");
         }
@@ -116,6 +140,22 @@ public class TiledMap
         return layers;
     }
 
+    /**
+     * @return Unmodifiable list of the chunked tile layers of an infinite map (empty otherwise).
+     */
+    public List<ChunkedLayer> getChunkedLayers()
+    {
+        return chunkedLayers;
+    }
+
+    /**
+     * @return True if the map is infinite (its tiles are in {@link #getChunkedLayers()}).
+     */
+    public boolean isInfinite()
+    {
+        return !chunkedLayers.isEmpty();
+    }
+
     /**
      * @return Unmodifiable list of all tilesets used in the map.
      */
@@ -132,6 +172,113 @@ public class TiledMap
         return objects;
     }
 
+    /**
+     * @return Unmodifiable list of the object layers, in file order.
+     */
+    public List<TiledObjectGroup> getObjectGroups()
+    {
+        return objectGroups;
+    }
+
+    /**
+     * Finds an object layer by name.
+     *
+     * @param name Layer name as defined in Tiled.
+     * @return The first object layer with that name, or null.
+     */
+    public TiledObjectGroup getObjectGroup(String name)
+    {
+        for (TiledObjectGroup group : objectGroups)
+        {
+            if (group.name() != null && group.name().equals(name)) return group;
+        }
+        return null;
+    }
+
+    /**
+     * Gets a spatial index over all objects of the map, for queries like "triggers
+     * overlapping the player". Built on first use.
+     *
+     * @return The index.
+     */
+    public ObjectIndex getObjectIndex()
+    {
+        synchronized (objectIndexes)
+        {
+            return objectIndexes.computeIfAbsent(null, key -> new ObjectIndex(objects, indexCellSize()));
+        }
+    }
+
+    /**
+     * Gets a spatial index over the objects of one object layer. Built on first use.
+     *
+     * @param groupName Layer name as defined in Tiled.
+     * @return The index, or null if there is no such layer.
+     */
+    public ObjectIndex getObjectIndex(String groupName)
+    {
+        TiledObjectGroup group = getObjectGroup(groupName);
+        if (group == null) return null;
+
+        synchronized (objectIndexes)
+        {
+            return objectIndexes.computeIfAbsent(groupName, key -> new ObjectIndex(group.objects(), indexCellSize()));
+        }
+    }
+
+    /**
+     * Index cells of four tiles: small enough to skip most objects, large enough that
+     * tile-sized objects fall in one or two cells.
+     */
+    private double indexCellSize()
+    {
+        int tileSize = Math.max(tileWidth, tileHeight);
+        return tileSize > 0 ? tileSize * 4.0 : 64.0;
+    }
+
+    /**
+     * @return Per-cell occlusion data (which layers are hidden under opaque tiles).
+     */
+    public TileOcclusion getOcclusion()
+    {
+        return occlusion;
+    }
+
+    /**
+     * Gives this map's tilesets back to the {@link TilesetCache}, so tilesets no other map
+     * uses can be unloaded. Call it once the map is no longer rendered; calling it again
+     * does nothing.
+     */
+    public synchronized void release()
+    {
+        if (released) return;
+        released = true;
+
+        for (TiledTileset tileset : tilesets)
+        {
+            if (tileset.getCacheKey() != null) TilesetCache.release(tileset.getCacheKey());
+        }
+    }
+
+    /**
+     * Finds the tileset a global tile ID belongs to.
+     *
+     * @param gid The global tile ID (without flip flags).
+     * @return The tileset with the highest firstGID that is <= gid, or null.
+     */
+    public TiledTileset getTilesetForTile(long gid)
+    {
+        TiledTileset best = null;
+
+        // Search through all tilesets, find the highest firstGID that is <= gid
+        for (TiledTileset ts : tilesets)
+        {
+            if (gid >= ts.firstGID()) best = ts;
+        }
+
+        return best;
+    }
+
     /**
      * Builder for constructing immutable {@link TiledMap} instances.
      *
@@ -145,7 +292,7 @@ public class TiledMap
      *      .setTileHeight(16)
      *      .setLayers(layers)
      *      .setTilesets(tilesets)
-     *      .setObjects(objects)
+     *      .setObjectGroups(objectGroups)
      *      .build();
      * </pre>
      * </p>
@@ -155,8 +302,10 @@ public class TiledMap
         private int width, height;
         private int tileWidth, tileHeight;
         private List<TiledLayer> layers = new ArrayList<>();
+        private List<ChunkedLayer> chunkedLayers = new ArrayList<>();
         private List<TiledTileset> tilesets = new ArrayList<>();
         private List<TiledObject> objects = new ArrayList<>();
+        private List<TiledObjectGroup> objectGroups = new ArrayList<>();
 
         // ----------- Builder Setters -----------
 
@@ -225,6 +374,19 @@ public class TiledMap
             return this;
         }
 
+        /**
+         * Sets the list of chunked tile layers (infinite maps).
+         *
+         * @param chunkedLayers The chunked layers to set.
+         * @return This builder instance.
+         */
+        public Builder setChunkedLayers(List<ChunkedLayer> chunkedLayers)
+        {
+            LOGGER.info("Builder: setting " + chunkedLayers.size() + " chunked layer(s)");
+            this.chunkedLayers = new ArrayList<>(chunkedLayers);
+            return this;
+        }
+
         /**
          * Sets the list of tilesets.
          *
@@ -239,7 +401,22 @@ public class TiledMap
         }
 
         /**
-         * Sets the list of objects.
+         * Sets the object layers. The object list is set to all of their objects, in layer order.
+         *
+         * @param objectGroups The object layers to set.
+         * @return This builder instance.
+         */
+        public Builder setObjectGroups(List<TiledObjectGroup> objectGroups)
+        {
+            LOGGER.info("Builder: setting " + objectGroups.size() + " object group(s)");
+            this.objectGroups = new ArrayList<>(objectGroups);
+            this.objects = new ArrayList<>();
+            for (TiledObjectGroup group : objectGroups) this.objects.addAll(group.objects());
+            return this;
+        }
+
+        /**
+         * Sets the list of objects, without layer information.
          *
          * @param objects The objects to set.
          * @return This builder instance.
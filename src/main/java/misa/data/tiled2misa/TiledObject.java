@@ -13,7 +13,7 @@ import java.util.Map;
  *     <li><b>type</b> - Category or classification of the object (default "Undefined").</li>
  *     <li><b>x</b>, <b>y</b> - Position of the object in pixels.</li>
  *     <li><b>width</b>, <b>height</b> - Size of the object in pixels.</li>
- *     <li><b>properties</b> - Custom key-value pairs attached to the object.</li>
+ *     <li><b>properties</b> - Custom properties attached to the object, parsed by their Tiled type.</li>
  * </ul>
  * </p>
  */
@@ -25,9 +25,48 @@ public record TiledObject(
         double y,                 // Y-coordinate in pixels
         double width,             // Width in pixels
         double height,            // Height in pixels
-        Map<String, String> properties // Custom properties as key-value pairs
+        TiledProperties properties // Custom properties (also usable as a name -> value map)
 )
 {
+    /**
+     * Creates an object with untyped (string) properties.
+     *
+     * @param id Unique object identifier.
+     * @param name Name of the object.
+     * @param type Type/category of the object.
+     * @param x X-coordinate in pixels.
+     * @param y Y-coordinate in pixels.
+     * @param width Width in pixels.
+     * @param height Height in pixels.
+     * @param properties Custom properties as key-value pairs.
+     */
+    public TiledObject(int id, String name, String type, double x, double y, double width, double height, Map<String, String> properties)
+    {
+        this(id, name, type, x, y, width, height, TiledProperties.of(properties));
+    }
+
+    /**
+     * @param px X-coordinate in pixels.
+     * @param py Y-coordinate in pixels.
+     * @return True if the point is inside the object's bounds (edges included).
+     */
+    public boolean contains(double px, double py)
+    {
+        return px >= x && px <= x + width && py >= y && py <= y + height;
+    }
+
+    /**
+     * @param minX Left edge of the box, in pixels.
+     * @param minY Top edge.
+     * @param maxX Right edge.
+     * @param maxY Bottom edge.
+     * @return True if the object's bounds touch the box (edges included, so point objects can match).
+     */
+    public boolean overlaps(double minX, double minY, double maxX, double maxY)
+    {
+        return x <= maxX && x + width >= minX && y <= maxY && y + height >= minY;
+    }
+
     /*
      * 1. `id` ensures that every object is uniquely identifiable inside the map.
      * 2. `name` and `type` allow you to label and categorize objects for gameplay logic.
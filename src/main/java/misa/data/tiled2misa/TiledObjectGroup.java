@@ -0,0 +1,31 @@
+package misa.data.tiled2misa;
+
+import java.util.List;
+
+/**
+ * An object layer ({@code <objectgroup>}) of a Tiled map.
+ *
+ * <p>
+ * Groups keep the layer names and properties set in Tiled, so game code can ask for
+ * "the triggers" or "the spawns" instead of filtering every object of the map.
+ * </p>
+ *
+ * @param name Name of the layer as defined in Tiled.
+ * @param objects The layer's objects, in file order (unmodifiable).
+ * @param properties Custom properties of the layer itself.
+ */
+public record TiledObjectGroup(
+        String name,                 // Layer name
+        List<TiledObject> objects,   // Objects in the layer
+        TiledProperties properties   // Layer properties
+)
+{
+    /**
+     * Creates a group, copying the object list.
+     */
+    public TiledObjectGroup
+    {
+        objects = List.copyOf(objects);
+        if (properties == null) properties = TiledProperties.EMPTY;
+    }
+}
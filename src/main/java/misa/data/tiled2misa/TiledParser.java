@@ -3,10 +3,16 @@ package misa.data.tiled2misa;
 import org.w3c.dom.*;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import java.awt.Image;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -15,7 +21,22 @@ import java.util.logging.Logger;
  *
  * <p>
  * It supports parsing maps from both filesystem files and classpath InputStreams,
- * and can handle multiple data encodings (CSV, Base64).
+ * and can handle multiple data encodings (CSV, Base64 with optional zlib or gzip compression).
+ * </p>
+ *
+ * <p>
+ * By default, TMX files are read with a streaming StAX parser; see {@link #setStreaming(boolean)}.
+ * </p>
+ *
+ * <p>
+ * External tilesets are shared between maps through the {@link TilesetCache} and loaded in
+ * parallel. Call {@link TiledMap#release()} when a map is no longer needed.
+ * </p>
+ *
+ * <p>
+ * Tileset loading and tile layer decoding run on a worker pool (see {@link #setExecutor(Executor)})
+ * while the rest of the file is read, and the load joins on them before the map is built.
+ * A {@link ProgressListener} can follow the load, e.g. for a loading screen.
  * </p>
  */
 public class TiledParser
@@ -25,6 +46,33 @@ public class TiledParser
     private String resourceBasePath = "";
     private final List<TiledTileset> tilesets;
 
+    // Read TMX files with the streaming StAX parser instead of building a DOM
+    private boolean streaming = true;
+
+    // Runs tileset loads and layer decodes
+    private Executor executor = ForkJoinPool.commonPool();
+
+    // Notified as load tasks complete (may be null)
+    private ProgressListener progressListener;
+
+    /**
+     * Receives the progress of map loads.
+     */
+    public interface ProgressListener
+    {
+        /**
+         * Called each time a load task (a tileset, a tile layer or an object layer) completes.
+         * <p>
+         * Tasks are counted as the map file is read, so {@code total} can grow until the file
+         * is read to the end; the load is done when the loading method returns. Called from
+         * worker threads, one call at a time.
+         *
+         * @param completed Tasks completed so far.
+         * @param total Tasks found so far.
+         */
+        void onProgress(int completed, int total);
+    }
+
     /**
      * Creates a new TiledParser.
      *
@@ -50,6 +98,51 @@ public class TiledParser
         LOGGER.info("Resource base path set to: " + this.resourceBasePath);
     }
 
+    /**
+     * Chooses how TMX files are read.
+     * <p>
+     * The streaming parser (the default) reads the file in one pass and decodes tile data
+     * straight into the layer arrays, without building a DOM. The DOM parser builds the
+     * whole document tree first. Both produce the same TiledMap.
+     *
+     * @param streaming True for the streaming parser, false for the DOM parser.
+     */
+    public void setStreaming(boolean streaming)
+    {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Sets the pool that loads tilesets and decodes tile layers.
+     * <p>
+     * Defaults to the common ForkJoinPool. Pass {@code Runnable::run} to do all the work on
+     * the loading thread.
+     *
+     * @param executor The executor.
+     */
+    public void setExecutor(Executor executor)
+    {
+        this.executor = Objects.requireNonNull(executor, "executor");
+    }
+
+    /**
+     * @return The pool that loads tilesets and decodes tile layers.
+     */
+    Executor getExecutor()
+    {
+        return executor;
+    }
+
+    /**
+     * Sets the listener notified as map loads progress.
+     *
+     * @param listener The listener, or null for none.
+     */
+    public void setProgressListener(ProgressListener listener)
+    {
+        this.progressListener = listener;
+    }
+
     /**
      * Loads and parses a TMX map file from the filesystem.
      *
@@ -72,9 +165,17 @@ public class TiledParser
                 return null;
             }
 
+            if (streaming)
+            {
+                try (InputStream inputStream = new BufferedInputStream(new FileInputStream(xmlFile)))
+                {
+                    return new TmxStreamParser(this, xmlFile.toPath(), newProgress()).parse(inputStream);
+                }
+            }
+
             Document document = parseXMLFile(xmlFile);
             LOGGER.info("TMX file parsed successfully.");
-            return createTiledMapFromDocument(document);
+            return createTiledMapFromDocument(document, newProgress());
         }
         catch (Exception e)
         {
@@ -93,9 +194,11 @@ public class TiledParser
     {
         try
         {
+            if (streaming) return new TmxStreamParser(this, null, newProgress()).parse(inputStream);
+
             Document document = parseXMLStream(inputStream);
             LOGGER.info("Successfully parsed TMX data from InputStream.");
-            return createTiledMapFromDocument(document);
+            return createTiledMapFromDocument(document, newProgress());
         }
         catch (Exception e)
         {
@@ -104,6 +207,36 @@ public class TiledParser
         }
     }
 
+    /**
+     * Loads a map converted to the binary {@code .misamap} format (see {@link MisaMapWriter}).
+     * <p>
+     * The file is memory-mapped and tile layers read their tiles straight from it, so
+     * loading does not depend on the map size. Tilesets are loaded as for TMX files.
+     *
+     * @param filePath Path to the .misamap file.
+     * @return A constructed TiledMap, or null if loading failed.
+     */
+    @SuppressWarnings("unused")
+    public TiledMap loadFromMisaMap(String filePath)
+    {
+        LOGGER.info("Attempting to load misamap file: " + filePath);
+
+        try
+        {
+            return new MisaMapReader(this, newProgress()).read(Path.of(filePath));
+        }
+        catch (Exception e)
+        {
+            LOGGER.log(Level.SEVERE, "Exception while loading misamap file: " + filePath, e);
+            return null;
+        }
+    }
+
+    private LoadProgress newProgress()
+    {
+        return progressListener != null ? new LoadProgress(progressListener) : LoadProgress.NONE;
+    }
+
     // --- Low-Level XML Parsing Methods ---
 
     private Document parseXMLFile(File file) throws Exception
@@ -131,7 +264,7 @@ public class TiledParser
 
     // --- Map Creation Methods ---
 
-    private TiledMap createTiledMapFromDocument(Document document)
+    private TiledMap createTiledMapFromDocument(Document document, LoadProgress progress)
     {
         // Root <map> element
         Element mapElement = document.getDocumentElement();
@@ -151,10 +284,25 @@ public class TiledParser
                 tileHeight
         ));
 
-        // Parse layers, tilesets, and object layers
-        List<TiledTileset> parsedTilesets = parseTilesets(document);
-        List<TiledLayer> parsedLayers = parseLayers(document);
-        List<TiledObject> parsedObjects = parseObjectLayers(document);
+        // Start the tilesets and layer decodes, then parse object layers while they run
+        List<CompletableFuture<TiledTileset>> pendingTilesets = parseTilesets(document, progress);
+        List<CompletableFuture<TiledLayer>> pendingLayers;
+        List<CompletableFuture<ChunkedLayer>> pendingChunkedLayers = new ArrayList<>();
+        List<TiledObjectGroup> parsedObjectGroups;
+        try
+        {
+            pendingLayers = parseLayers(document, pendingChunkedLayers, progress);
+            parsedObjectGroups = parseObjectLayers(document, progress);
+        }
+        catch (RuntimeException e)
+        {
+            discardTilesets(pendingTilesets);
+            throw e;
+        }
+
+        List<TiledLayer> parsedLayers = awaitAll(pendingLayers);
+        List<ChunkedLayer> parsedChunkedLayers = awaitAll(pendingChunkedLayers);
+        List<TiledTileset> parsedTilesets = awaitTilesets(pendingTilesets);
 
         // Build final TiledMap object
         return new TiledMap.Builder()
@@ -163,8 +311,9 @@ public class TiledParser
                 .setTileWidth(tileWidth)
                 .setTileHeight(tileHeight)
                 .setLayers(parsedLayers)
+                .setChunkedLayers(parsedChunkedLayers)
                 .setTilesets(parsedTilesets)
-                .setObjects(parsedObjects)
+                .setObjectGroups(parsedObjectGroups)
                 .build();
     }
 
@@ -184,41 +333,144 @@ public class TiledParser
 
     // --- Tileset Parsing ---
 
-    private List<TiledTileset> parseTilesets(Document document)
+    private List<CompletableFuture<TiledTileset>> parseTilesets(Document document, LoadProgress progress)
     {
-        List<TiledTileset> tilesets = new ArrayList<>();
+        List<CompletableFuture<TiledTileset>> pending = new ArrayList<>();
         NodeList tilesetNodes = document.getElementsByTagName("tileset");
 
         LOGGER.info("Parsing tilesets... Found: " + tilesetNodes.getLength());
 
+        // Every load is started here; they run in parallel and are awaited once the layers are parsed
         for (int i = 0; i < tilesetNodes.getLength(); i++)
         {
             Element tilesetElement = (Element) tilesetNodes.item(i);
-            String source = tilesetElement.getAttribute("source");
-            int firstGID = getIntAttribute(tilesetElement, "firstgid");
+            pending.add(loadTileset(tilesetElement.getAttribute("source"), getIntAttribute(tilesetElement, "firstgid"), progress));
+        }
 
-            String tsxPath = resourceBasePath + source;
-            LOGGER.info("Reading TSX: " + tsxPath + " (firstgid=" + firstGID + ")");
+        return pending;
+    }
 
-            String imagePath = extractImagePathFromTSX(tsxPath);
+    /**
+     * Starts loading the tileset referenced by a {@code <tileset source="..." firstgid="...">} element.
+     * <p>
+     * The TSX file and image come from the {@link TilesetCache}, and are loaded on the
+     * executor if no other map uses them yet.
+     *
+     * @param source Path of the external TSX file, relative to the resource base path.
+     * @param firstGID First global tile ID of the tileset.
+     * @param progress Progress of the map load.
+     * @return The tileset, once loaded (null if its TSX file could not be read).
+     */
+    CompletableFuture<TiledTileset> loadTileset(String source, int firstGID, LoadProgress progress)
+    {
+        return loadResolvedTileset(TilesetCache.normalize(resourceBasePath + source), firstGID, progress);
+    }
 
-            if (imagePath != null)
-            {
-                tilesets.add(new TiledTileset(imagePath, firstGID));
-                LOGGER.info("Loaded tileset image: " + imagePath);
-            }
-            else
+    /**
+     * Starts loading a tileset by its resolved TSX path (as returned by {@link TiledTileset#getCacheKey()}).
+     *
+     * @param tsxPath Normalized resource path of the TSX file.
+     * @param firstGID First global tile ID of the tileset.
+     * @param progress Progress of the map load.
+     * @return The tileset, once loaded (null if its TSX file could not be read).
+     */
+    CompletableFuture<TiledTileset> loadResolvedTileset(String tsxPath, int firstGID, LoadProgress progress)
+    {
+        LOGGER.info("Reading TSX: " + tsxPath + " (firstgid=" + firstGID + ")");
+
+        return progress.track(TilesetCache.acquire(tsxPath, this::loadTilesetData, executor).handle((data, error) ->
+        {
+            if (data == null)
             {
+                if (error != null) LOGGER.log(Level.SEVERE, "Failed to load tileset: " + tsxPath, error);
                 LOGGER.warning("Could not resolve image path from TSX: " + tsxPath);
+                TilesetCache.release(tsxPath);
+                return null;
             }
+
+            TiledTileset tileset = new TiledTileset(data.imagePath(), firstGID, data.image(), tsxPath);
+            tileset.setAnimations(data.animations());
+            return tileset;
+        }));
+    }
+
+    /**
+     * Reads a cached tileset again, so maps loaded from now on see the changed file.
+     *
+     * @param tsxPath Normalized resource path of the TSX file.
+     * @return The reload, or null if no map uses the tileset.
+     */
+    CompletableFuture<TilesetCache.TilesetData> reloadTileset(String tsxPath)
+    {
+        return TilesetCache.refresh(tsxPath, this::loadTilesetData, executor);
+    }
+
+    /**
+     * Waits for tilesets started with {@link #loadTileset(String, int, LoadProgress)}.
+     *
+     * @param pending The loads, in map order.
+     * @return The tilesets that loaded, in map order.
+     */
+    List<TiledTileset> awaitTilesets(List<CompletableFuture<TiledTileset>> pending)
+    {
+        return awaitAll(pending);
+    }
+
+    /**
+     * Waits for background load tasks.
+     *
+     * @param pending The tasks, in map order.
+     * @return Their results, in map order, without the tasks that failed (null results).
+     */
+    static <T> List<T> awaitAll(List<CompletableFuture<T>> pending)
+    {
+        List<T> loaded = new ArrayList<>(pending.size());
+        for (CompletableFuture<T> future : pending)
+        {
+            T result = future.join();
+            if (result != null) loaded.add(result);
         }
+        return loaded;
+    }
 
-        return tilesets;
+    /**
+     * Waits for tilesets of a map that failed to load and gives back their cache references.
+     *
+     * @param pending The loads.
+     */
+    void discardTilesets(List<CompletableFuture<TiledTileset>> pending)
+    {
+        for (TiledTileset tileset : awaitTilesets(pending)) TilesetCache.release(tileset.getCacheKey());
     }
 
-    private String extractImagePathFromTSX(String tsxPath)
+    /**
+     * Reads a TSX file and decodes its image. Runs on the executor.
+     */
+    private TilesetCache.TilesetData loadTilesetData(String tsxPath)
+    {
+        TsxData tsx = readTSX(tsxPath);
+        if (tsx == null) return null;
+
+        Image image = TiledTileset.loadImage(tsx.imagePath());
+        if (image == null) LOGGER.severe("Failed to load tileset image: " + tsx.imagePath() + " (Check file path and format)");
+        LOGGER.info("Loaded tileset image: " + tsx.imagePath()
+                + (tsx.animations().size() > 0 ? " (" + tsx.animations().size() + " animated tile(s))" : ""));
+        return new TilesetCache.TilesetData(tsx.imagePath(), image, tsx.animations());
+    }
+
+    /**
+     * What the parser needs from an external .tsx file.
+     *
+     * @param imagePath Resolved path of the tileset image.
+     * @param animations Tile animations declared in the file.
+     */
+    private record TsxData(String imagePath, TileAnimations animations)
     {
-        // Read the <image> tag inside the external .tsx file
+    }
+
+    private TsxData readTSX(String tsxPath)
+    {
+        // Read the <image> tag and the tile animations inside the external .tsx file
         LOGGER.fine("Attempting to load TSX resource: " + tsxPath);
 
         try (InputStream tsxStream = getClass().getClassLoader().getResourceAsStream(tsxPath))
@@ -239,7 +491,7 @@ public class TiledParser
 
             LOGGER.fine("Extracted tileset image: " + imageSource);
 
-            return resourceBasePath + imageSource;
+            return new TsxData(resourceBasePath + imageSource, parseTileAnimations(document));
         }
         catch (Exception e)
         {
@@ -248,11 +500,46 @@ public class TiledParser
         }
     }
 
+    private TileAnimations parseTileAnimations(Document tsxDocument)
+    {
+        // <tile id="..."><animation><frame tileid="..." duration="..."/>...</animation></tile>
+        TileAnimations.Builder builder = new TileAnimations.Builder();
+        NodeList tileNodes = tsxDocument.getElementsByTagName("tile");
+
+        for (int i = 0; i < tileNodes.getLength(); i++)
+        {
+            Element tileElement = (Element) tileNodes.item(i);
+            Element animationElement = (Element) tileElement.getElementsByTagName("animation").item(0);
+            if (animationElement == null) continue;
+
+            NodeList frameNodes = animationElement.getElementsByTagName("frame");
+            if (frameNodes.getLength() == 0) continue;
+
+            int[] frameTileIds = new int[frameNodes.getLength()];
+            int[] frameDurations = new int[frameNodes.getLength()];
+            for (int f = 0; f < frameNodes.getLength(); f++)
+            {
+                Element frameElement = (Element) frameNodes.item(f);
+                frameTileIds[f] = getIntAttribute(frameElement, "tileid");
+                frameDurations[f] = getIntAttribute(frameElement, "duration");
+            }
+
+            builder.addAnimation(getIntAttribute(tileElement, "id"), frameTileIds, frameDurations);
+        }
+
+        return builder.build();
+    }
+
     // --- Tile Layer Parsing ---
 
-    private List<TiledLayer> parseLayers(Document document)
+    /**
+     * Starts decoding every tile layer on the executor. The element text is read here,
+     * since DOM nodes must not be read from several threads.
+     */
+    private List<CompletableFuture<TiledLayer>> parseLayers(Document document, List<CompletableFuture<ChunkedLayer>> chunkedLayers,
+                                                           LoadProgress progress)
     {
-        List<TiledLayer> layers = new ArrayList<>();
+        List<CompletableFuture<TiledLayer>> layers = new ArrayList<>();
         NodeList layerNodes = document.getElementsByTagName("layer");
 
         LOGGER.info("Parsing tile layers... Found: " + layerNodes.getLength());
@@ -268,83 +555,101 @@ public class TiledParser
 
             Element dataElement = (Element) layerElement.getElementsByTagName("data").item(0);
             String encoding = dataElement.getAttribute("encoding");
+            String compression = dataElement.getAttribute("compression");
 
-            try
+            // Infinite maps store the layer as <chunk> elements
+            NodeList chunkNodes = dataElement.getElementsByTagName("chunk");
+            if (chunkNodes.getLength() > 0)
             {
-                long[][] tileData;
+                CompletableFuture<ChunkedLayer> chunkedLayer = parseChunkedLayer(layerName, chunkNodes, encoding, compression);
+                if (chunkedLayer != null) chunkedLayers.add(progress.track(chunkedLayer));
+                continue;
+            }
 
-                // Support CSV or Base64 tile encoding
-                if ("csv".equalsIgnoreCase(encoding))
-                {
-                    tileData = decodeCSVTileData(dataElement.getTextContent().trim(), layerWidth, layerHeight);
-                }
-                else if ("base64".equalsIgnoreCase(encoding))
+            // Support CSV or Base64 tile encoding, the latter optionally zlib/gzip compressed
+            if (!TileDataDecoder.isSupported(encoding, compression))
+            {
+                LOGGER.warning("Unsupported encoding type: " + encoding
+                        + (compression.isEmpty() ? "" : " (compression: " + compression + ")")
+                        + " in layer: " + layerName);
+                continue;
+            }
+
+            String text = dataElement.getTextContent();
+            CompletableFuture<TiledLayer> layer = CompletableFuture.supplyAsync(() ->
+            {
+                try
                 {
-                    tileData = decodeBase64TileData(dataElement.getTextContent().trim(), layerWidth, layerHeight);
+                    int[] tileData = TileDataDecoder.forEncoding(encoding, compression, layerWidth, layerHeight).decode(text);
+                    return new TiledLayer(layerName, layerWidth, layerHeight, tileData);
                 }
-                else
+                catch (Exception e)
                 {
-                    LOGGER.warning("Unsupported encoding type: " + encoding + " in layer: " + layerName);
-                    continue;
+                    LOGGER.log(Level.SEVERE, "Failed to parse layer: " + layerName, e);
+                    return null;
                 }
-
-                layers.add(new TiledLayer(layerName, layerWidth, layerHeight, tileData));
-            }
-            catch (Exception e)
-            {
-                LOGGER.log(Level.SEVERE, "Failed to parse layer: " + layerName, e);
-            }
+            }, executor);
+            layers.add(progress.track(layer));
         }
 
         return layers;
     }
 
-    private long[][] decodeCSVTileData(String csvData, int width, int height)
+    private CompletableFuture<ChunkedLayer> parseChunkedLayer(String layerName, NodeList chunkNodes, String encoding, String compression)
     {
-        // Decode comma-separated tile IDs
-        long[][] tileData = new long[height][width];
-        String[] tokens = csvData.split(",");
-
-        if (tokens.length != width * height)
+        if (!TileDataDecoder.isSupported(encoding, compression))
         {
-            LOGGER.warning("CSV tile count mismatch: expected " + (width * height) + ", got " + tokens.length);
+            LOGGER.warning("Unsupported encoding type: " + encoding
+                    + (compression.isEmpty() ? "" : " (compression: " + compression + ")")
+                    + " in layer: " + layerName);
+            return null;
         }
 
-        for (int row = 0; row < height; row++)
+        // The whole document is in memory already, so every chunk is decoded now
+        int count = chunkNodes.getLength();
+        int[] bounds = new int[count * 4];
+        String[] texts = new String[count];
+        for (int i = 0; i < count; i++)
         {
-            for (int col = 0; col < width; col++)
-            {
-                int index = row * width + col;
-                tileData[row][col] = Long.parseLong(tokens[index].trim());
-            }
+            Element chunkElement = (Element) chunkNodes.item(i);
+            bounds[i * 4] = getIntAttribute(chunkElement, "x");
+            bounds[i * 4 + 1] = getIntAttribute(chunkElement, "y");
+            bounds[i * 4 + 2] = getIntAttribute(chunkElement, "width");
+            bounds[i * 4 + 3] = getIntAttribute(chunkElement, "height");
+            texts[i] = chunkElement.getTextContent();
         }
 
-        return tileData;
-    }
-
-    private long[][] decodeBase64TileData(String encodedData, int width, int height)
-    {
-        // Decode Base64-encoded tile IDs
-        byte[] decodedData = Base64.getDecoder().decode(encodedData);
-        ByteBuffer buffer = ByteBuffer.wrap(decodedData);
-        long[][] tileData = new long[height][width];
-
-        for (int row = 0; row < height; row++)
+        return CompletableFuture.supplyAsync(() ->
         {
-            for (int col = 0; col < width; col++)
+            List<ChunkedLayer.Chunk> chunks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
             {
-                tileData[row][col] = buffer.getInt() & 0xFFFFFFFFL;
+                int x = bounds[i * 4];
+                int y = bounds[i * 4 + 1];
+                int width = bounds[i * 4 + 2];
+                int height = bounds[i * 4 + 3];
+
+                try
+                {
+                    int[] tileData = TileDataDecoder.forEncoding(encoding, compression, width, height).decode(texts[i]);
+                    chunks.add(new ChunkedLayer.Chunk(x, y, width, height, 0, 0, new TiledLayer(layerName, width, height, tileData)));
+                }
+                catch (Exception e)
+                {
+                    LOGGER.log(Level.SEVERE, "Failed to parse chunk (" + x + ", " + y + ") of layer: " + layerName, e);
+                }
             }
-        }
 
-        return tileData;
+            LOGGER.info("Chunked layer: " + layerName + " (" + chunks.size() + " chunk(s))");
+            return new ChunkedLayer(layerName, encoding, compression, chunks, null);
+        }, executor);
     }
 
     // --- Object Layer Parsing ---
 
-    private List<TiledObject> parseObjectLayers(Document document)
+    private List<TiledObjectGroup> parseObjectLayers(Document document, LoadProgress progress)
     {
-        List<TiledObject> objects = new ArrayList<>();
+        List<TiledObjectGroup> groups = new ArrayList<>();
         NodeList objectGroupNodes = document.getElementsByTagName("objectgroup");
 
         LOGGER.info("Parsing object groups... Found: " + objectGroupNodes.getLength());
@@ -353,15 +658,27 @@ public class TiledParser
         {
             Element objectGroupElement = (Element) objectGroupNodes.item(i);
             NodeList objectNodes = objectGroupElement.getElementsByTagName("object");
+            List<TiledObject> objects = new ArrayList<>(objectNodes.getLength());
 
             for (int j = 0; j < objectNodes.getLength(); j++)
             {
                 Element objectElement = (Element) objectNodes.item(j);
                 objects.add(parseObject(objectElement));
             }
+
+            // The layer's own properties are in a direct <properties> child; the objects' are nested deeper
+            TiledProperties.Builder properties = new TiledProperties.Builder();
+            for (Node child = objectGroupElement.getFirstChild(); child != null; child = child.getNextSibling())
+            {
+                if (child instanceof Element element && element.getTagName().equals("properties"))
+                    parseProperties(element, properties);
+            }
+
+            groups.add(new TiledObjectGroup(objectGroupElement.getAttribute("name"), objects, properties.build()));
+            progress.done();
         }
 
-        return objects;
+        return groups;
     }
 
     private TiledObject parseObject(Element objectElement)
@@ -375,16 +692,22 @@ public class TiledParser
         double width = objectElement.hasAttribute("width") ? Double.parseDouble(objectElement.getAttribute("width")) : 0;
         double height = objectElement.hasAttribute("height") ? Double.parseDouble(objectElement.getAttribute("height")) : 0;
 
-        Map<String, String> properties = new HashMap<>();
-        NodeList propertyNodes = objectElement.getElementsByTagName("property");
+        TiledProperties.Builder properties = new TiledProperties.Builder();
+        parseProperties(objectElement, properties);
+
+        LOGGER.fine("Parsed object: " + name + " (type=" + type + ", id=" + id + ")");
+        return new TiledObject(id, name, type, x, y, width, height, properties.build());
+    }
+
+    private void parseProperties(Element parent, TiledProperties.Builder properties)
+    {
+        // Each <property> carries its Tiled type ("int", "bool", ...; absent for strings)
+        NodeList propertyNodes = parent.getElementsByTagName("property");
         for (int p = 0; p < propertyNodes.getLength(); p++)
         {
             Element propertyElement = (Element) propertyNodes.item(p);
-            properties.put(propertyElement.getAttribute("name"), propertyElement.getAttribute("value"));
+            properties.add(propertyElement.getAttribute("name"), propertyElement.getAttribute("type"), propertyElement.getAttribute("value"));
         }
-
-        LOGGER.fine("Parsed object: " + name + " (type=" + type + ", id=" + id + ")");
-        return new TiledObject(id, name, type, x, y, width, height, properties);
     }
 
     /**
@@ -0,0 +1,442 @@
+package misa.data.tiled2misa;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Custom properties of a Tiled object or object group, parsed by their Tiled type.
+ *
+ * <p>
+ * Tiled writes a {@code type} attribute next to every property that is not a plain string:
+ * <pre>
+ * &lt;property name="damage" type="int" value="3"/&gt;
+ * &lt;property name="tint" type="color" value="#ff80ff00"/&gt;
+ * </pre>
+ * Values are parsed once, at load, and kept as raw {@code long} bits, so the typed getters
+ * neither parse nor box. A value that does not parse as its declared type is kept as a string.
+ * </p>
+ *
+ * <p>
+ * TiledProperties is also an unmodifiable {@code Map} from name to the value as written in the
+ * file, so code that only needs strings can keep using it as one.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public final class TiledProperties extends AbstractMap<String, String>
+{
+    private static final Logger LOGGER = Logger.getLogger(TiledProperties.class.getName());
+
+    /** No properties. */
+    public static final TiledProperties EMPTY = new Builder().build();
+
+    /**
+     * Property types, as named by Tiled's {@code type} attribute.
+     */
+    public enum Type
+    {
+        STRING,
+        INT,
+        FLOAT,
+        BOOL,
+        COLOR,
+        FILE,
+        OBJECT;
+
+        /**
+         * @param tiledType Value of the {@code type} attribute (null or empty for a string).
+         * @return The type; unknown types (e.g. custom classes) are treated as strings.
+         */
+        public static Type fromTiled(String tiledType)
+        {
+            if (tiledType == null) return STRING;
+
+            return switch (tiledType)
+            {
+                case "int" -> INT;
+                case "float" -> FLOAT;
+                case "bool" -> BOOL;
+                case "color" -> COLOR;
+                case "file" -> FILE;
+                case "object" -> OBJECT;
+                default -> STRING;
+            };
+        }
+    }
+
+    // Parallel arrays, in file order
+    private final String[] names;
+    private final String[] values;
+    private final Type[] types;
+    private final long[] bits;
+
+    private TiledProperties(Builder builder)
+    {
+        this.names = Arrays.copyOf(builder.names, builder.size);
+        this.values = Arrays.copyOf(builder.values, builder.size);
+        this.types = Arrays.copyOf(builder.types, builder.size);
+        this.bits = Arrays.copyOf(builder.bits, builder.size);
+    }
+
+    /**
+     * Wraps plain string properties.
+     *
+     * @param properties Name to value.
+     * @return The properties, all typed as strings.
+     */
+    public static TiledProperties of(Map<String, String> properties)
+    {
+        if (properties instanceof TiledProperties tiledProperties) return tiledProperties;
+        if (properties == null || properties.isEmpty()) return EMPTY;
+
+        Builder builder = new Builder();
+        for (Map.Entry<String, String> entry : properties.entrySet()) builder.add(entry.getKey(), Type.STRING, entry.getValue());
+        return builder.build();
+    }
+
+    // ----------- Typed getters -----------
+
+    /**
+     * @param name Property name.
+     * @return The property's type, or null if there is no such property.
+     */
+    public Type getType(String name)
+    {
+        int index = indexOf(name);
+        return index < 0 ? null : types[index];
+    }
+
+    /**
+     * @param name Property name.
+     * @return The value as written in the file, or null if there is no such property.
+     */
+    public String getString(String name)
+    {
+        int index = indexOf(name);
+        return index < 0 ? null : values[index];
+    }
+
+    /**
+     * Gets an int, object (id) or float property as an int. Untyped (string) values are parsed.
+     *
+     * @param name Property name.
+     * @param defaultValue Returned if the property is missing or not a number.
+     * @return The value.
+     */
+    public int getInt(String name, int defaultValue)
+    {
+        int index = indexOf(name);
+        if (index < 0) return defaultValue;
+
+        return switch (types[index])
+        {
+            case INT, OBJECT -> (int) bits[index];
+            case FLOAT -> (int) Double.longBitsToDouble(bits[index]);
+            case STRING -> parseOr(values[index], Type.INT, defaultValue);
+            default -> defaultValue;
+        };
+    }
+
+    /**
+     * Gets a float or int property as a float. Untyped (string) values are parsed.
+     *
+     * @param name Property name.
+     * @param defaultValue Returned if the property is missing or not a number.
+     * @return The value.
+     */
+    public float getFloat(String name, float defaultValue)
+    {
+        int index = indexOf(name);
+        if (index < 0) return defaultValue;
+
+        return switch (types[index])
+        {
+            case FLOAT -> (float) Double.longBitsToDouble(bits[index]);
+            case INT, OBJECT -> bits[index];
+            case STRING -> parseFloatOr(values[index], defaultValue);
+            default -> defaultValue;
+        };
+    }
+
+    /**
+     * Gets a bool property. Untyped values "true" and "false" are accepted too.
+     *
+     * @param name Property name.
+     * @param defaultValue Returned if the property is missing or not a boolean.
+     * @return The value.
+     */
+    public boolean getBoolean(String name, boolean defaultValue)
+    {
+        int index = indexOf(name);
+        if (index < 0) return defaultValue;
+        if (types[index] == Type.BOOL) return bits[index] != 0;
+
+        String value = values[index].trim();
+        if (value.equalsIgnoreCase("true")) return true;
+        if (value.equalsIgnoreCase("false")) return false;
+        return defaultValue;
+    }
+
+    /**
+     * Gets a color property as ARGB. Untyped "#AARRGGBB" / "#RRGGBB" values are parsed.
+     *
+     * @param name Property name.
+     * @param defaultArgb Returned if the property is missing, empty or not a color.
+     * @return The color as ARGB.
+     */
+    public int getColor(String name, int defaultArgb)
+    {
+        int index = indexOf(name);
+        if (index < 0) return defaultArgb;
+
+        return switch (types[index])
+        {
+            case COLOR -> values[index].isEmpty() ? defaultArgb : (int) bits[index];
+            case STRING -> parseOr(values[index], Type.COLOR, defaultArgb);
+            default -> defaultArgb;
+        };
+    }
+
+    // ----------- Indexed access -----------
+
+    /**
+     * @return Number of properties.
+     */
+    @Override
+    public int size()
+    {
+        return names.length;
+    }
+
+    /**
+     * @param index Property index (file order).
+     * @return Its name.
+     */
+    public String getName(int index)
+    {
+        return names[index];
+    }
+
+    /**
+     * @param index Property index.
+     * @return Its value as written in the file.
+     */
+    public String getValue(int index)
+    {
+        return values[index];
+    }
+
+    /**
+     * @param index Property index.
+     * @return Its type.
+     */
+    public Type getType(int index)
+    {
+        return types[index];
+    }
+
+    // ----------- Map view -----------
+
+    @Override
+    public String get(Object name)
+    {
+        int index = name instanceof String string ? indexOf(string) : -1;
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public boolean containsKey(Object name)
+    {
+        return name instanceof String string && indexOf(string) >= 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet()
+    {
+        return new AbstractSet<>()
+        {
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator()
+            {
+                return new Iterator<>()
+                {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return next < names.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, String> next()
+                    {
+                        if (next >= names.length) throw new NoSuchElementException();
+                        int index = next++;
+                        return new SimpleImmutableEntry<>(names[index], values[index]);
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return names.length;
+            }
+        };
+    }
+
+    private int indexOf(String name)
+    {
+        // Objects have a handful of properties; a linear search beats hashing here
+        for (int i = 0; i < names.length; i++)
+        {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    private static int parseOr(String value, Type type, int defaultValue)
+    {
+        try
+        {
+            return (int) parseBits(value, type);
+        }
+        catch (NumberFormatException e)
+        {
+            return defaultValue;
+        }
+    }
+
+    private static float parseFloatOr(String value, float defaultValue)
+    {
+        try
+        {
+            return (float) Double.longBitsToDouble(parseBits(value, Type.FLOAT));
+        }
+        catch (NumberFormatException e)
+        {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Parses a value into raw bits for its type. Every bit pattern is a valid value
+     * (-0.0 is {@code Long.MIN_VALUE}), so failure is reported by the exception only.
+     *
+     * @return The bits.
+     * @throws NumberFormatException If the value does not parse as the type.
+     */
+    private static long parseBits(String value, Type type)
+    {
+        String trimmed = value.trim();
+        return switch (type)
+        {
+            case INT, OBJECT -> Long.parseLong(trimmed);
+            case FLOAT -> Double.doubleToRawLongBits(Double.parseDouble(trimmed));
+            case BOOL -> Boolean.parseBoolean(trimmed) ? 1L : 0L;
+            case COLOR -> parseColor(trimmed);
+            case STRING, FILE -> 0L;
+        };
+    }
+
+    /**
+     * Parses a Tiled color ("#AARRGGBB" or "#RRGGBB") into ARGB bits. An empty value (no color) is 0.
+     */
+    private static long parseColor(String value)
+    {
+        if (value.isEmpty()) return 0L;
+
+        String hex = value.startsWith("#") ? value.substring(1) : value;
+        if (hex.length() != 6 && hex.length() != 8) throw new NumberFormatException("Not a color: " + value);
+        long argb = Long.parseLong(hex, 16);
+
+        // Colors without alpha are fully opaque
+        if (hex.length() == 6) argb |= 0xFF000000L;
+
+        return argb & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Collects properties while a map is parsed.
+     */
+    public static class Builder
+    {
+        private String[] names = new String[4];
+        private String[] values = new String[4];
+        private Type[] types = new Type[4];
+        private long[] bits = new long[4];
+        private int size;
+
+        /**
+         * Adds a property, parsing it by its Tiled type.
+         *
+         * @param name Property name.
+         * @param tiledType Value of Tiled's {@code type} attribute (null or empty for a string).
+         * @param value The value as written in the file.
+         * @return This builder instance.
+         */
+        public Builder add(String name, String tiledType, String value)
+        {
+            return add(name, Type.fromTiled(tiledType), value);
+        }
+
+        /**
+         * Adds a property of a known type. A value that does not parse as the type is kept as a string.
+         *
+         * @param name Property name.
+         * @param type Property type.
+         * @param value The value as written in the file.
+         * @return This builder instance.
+         */
+        public Builder add(String name, Type type, String value)
+        {
+            if (value == null) value = "";
+
+            long parsed;
+            try
+            {
+                parsed = parseBits(value, type);
+            }
+            catch (NumberFormatException e)
+            {
+                LOGGER.warning("Property '" + name + "' is not a valid " + type + ": " + value + " (kept as string)");
+                type = Type.STRING;
+                parsed = 0L;
+            }
+
+            // A repeated name replaces the earlier value, as in a map
+            int index = 0;
+            while (index < size && !names[index].equals(name)) index++;
+
+            if (index == names.length)
+            {
+                int capacity = size * 2;
+                names = Arrays.copyOf(names, capacity);
+                values = Arrays.copyOf(values, capacity);
+                types = Arrays.copyOf(types, capacity);
+                bits = Arrays.copyOf(bits, capacity);
+            }
+
+            names[index] = name;
+            values[index] = value;
+            types[index] = type;
+            bits[index] = parsed;
+            if (index == size) size++;
+            return this;
+        }
+
+        /**
+         * @return The properties.
+         */
+        public TiledProperties build()
+        {
+            return new TiledProperties(this);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package misa.data.tiled2misa;
 
+import misa.core.rendering.ImagePreparer;
+
 import javax.imageio.ImageIO;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.io.InputStream;
 import java.io.IOException;
 import java.util.logging.Logger;
@@ -22,6 +25,16 @@ public class TiledTileset
     private final String source;  // File path to the tileset image
     private final int firstGID;   // First Global Tile ID for this tileset
     private final Image image;    // The loaded tileset image
+    private final String cacheKey; // Entry in the TilesetCache this tileset holds (null if not cached)
+
+    // Transparency class of each tile (java.awt.Transparency constants), filled by classifyTiles
+    private byte[] tileTransparency = new byte[0];
+
+    // Tile animations from the TSX file
+    private TileAnimations animations = TileAnimations.EMPTY;
+
+    // Sheet copies with every tile flipped in place, indexed by the H/V/D flip flags (built on first use)
+    private final Image[] flippedImages = new Image[8];
 
     /**
      * Constructor to initialize the TiledTileset with a source path and firstGID.
@@ -34,6 +47,7 @@ public class TiledTileset
         this.source = source;
         this.firstGID = firstGID;
         this.image = loadImage(source);
+        this.cacheKey = null;
 
         // Log success or failure of loading
         if (image != null)
@@ -47,14 +61,31 @@ public class TiledTileset
     }
 
     /**
-     * Loads the image from the specified source path.
+     * Creates a tileset around an image loaded through the {@link TilesetCache}.
+     *
+     * @param source The file path to the tileset image.
+     * @param firstGID The first Global Tile ID associated with the tileset.
+     * @param image The shared, already loaded image.
+     * @param cacheKey The cache entry this tileset holds a reference to.
+     */
+    TiledTileset(String source, int firstGID, Image image, String cacheKey)
+    {
+        this.source = source;
+        this.firstGID = firstGID;
+        this.image = image;
+        this.cacheKey = cacheKey;
+    }
+
+    /**
+     * Loads the image from the specified source path and converts it to a
+     * display-compatible format for fast drawing.
      *
      * @param source The path to the image file.
      * @return The loaded Image, or null if loading fails.
      */
-    private Image loadImage(String source)
+    static Image loadImage(String source)
     {
-        try (InputStream stream = getClass().getClassLoader().getResourceAsStream(source))
+        try (InputStream stream = TiledTileset.class.getClassLoader().getResourceAsStream(source))
         {
             if (stream == null)
             {
@@ -62,14 +93,14 @@ public class TiledTileset
                 return null;
             }
 
-            Image img = ImageIO.read(stream);
+            BufferedImage img = ImageIO.read(stream);
 
             if (img == null)
             {
                 LOGGER.warning("ImageIO.read returned null — unsupported format or corrupted image: " + source);
             }
 
-            return img;
+            return ImagePreparer.prepare(img);
         }
         catch (IOException e)
         {
@@ -79,6 +110,93 @@ public class TiledTileset
         }
     }
 
+    /**
+     * Classifies every tile of the sheet as opaque, bitmask or translucent.
+     * <p>
+     * Called once at map load, when the tile size is known. The result drives
+     * occlusion culling: tiles under an opaque tile are never drawn.
+     *
+     * @param tileWidth Tile width in pixels.
+     * @param tileHeight Tile height in pixels.
+     */
+    public void classifyTiles(int tileWidth, int tileHeight)
+    {
+        if (!(image instanceof BufferedImage sheet) || tileWidth <= 0 || tileHeight <= 0) return;
+
+        int columns = sheet.getWidth() / tileWidth;
+        int rows = sheet.getHeight() / tileHeight;
+        byte[] classes = new byte[columns * rows];
+        int opaque = 0;
+
+        for (int localId = 0; localId < classes.length; localId++)
+        {
+            int x = (localId % columns) * tileWidth;
+            int y = (localId / columns) * tileHeight;
+            classes[localId] = (byte) ImagePreparer.classifyAlpha(sheet, x, y, tileWidth, tileHeight);
+            if (classes[localId] == Transparency.OPAQUE) opaque++;
+        }
+
+        // An animated tile is only as opaque as its least opaque frame
+        for (int i = 0; i < animations.size(); i++)
+        {
+            int tileId = animations.getTileId(i);
+            if (tileId < 0 || tileId >= classes.length) continue;
+
+            for (int frame = 0; frame < animations.getFrameCount(i); frame++)
+            {
+                int frameId = animations.getFrameTileId(i, frame);
+                byte frameClass = frameId >= 0 && frameId < classes.length ? classes[frameId] : Transparency.TRANSLUCENT;
+                if (frameClass > classes[tileId])
+                {
+                    if (classes[tileId] == Transparency.OPAQUE) opaque--;
+                    classes[tileId] = frameClass;
+                }
+            }
+        }
+
+        tileTransparency = classes;
+        LOGGER.fine("Classified " + classes.length + " tile(s) in " + source + ", " + opaque + " opaque");
+    }
+
+    /**
+     * Gets the transparency class of a tile.
+     *
+     * @param localId Tile index within this tileset (gid - firstGID).
+     * @return A {@link Transparency} constant; TRANSLUCENT if the tile was not classified.
+     */
+    public int getTileTransparency(int localId)
+    {
+        if (localId < 0 || localId >= tileTransparency.length) return Transparency.TRANSLUCENT;
+        return tileTransparency[localId];
+    }
+
+    /**
+     * @param localId Tile index within this tileset.
+     * @return True if every pixel of the tile is fully opaque.
+     */
+    public boolean isTileOpaque(int localId)
+    {
+        return getTileTransparency(localId) == Transparency.OPAQUE;
+    }
+
+    /**
+     * Sets the tile animations read from the TSX file.
+     *
+     * @param animations The animations.
+     */
+    public void setAnimations(TileAnimations animations)
+    {
+        this.animations = animations != null ? animations : TileAnimations.EMPTY;
+    }
+
+    /**
+     * @return The tile animations of this tileset (empty if none).
+     */
+    public TileAnimations getAnimations()
+    {
+        return animations;
+    }
+
     /**
      * Checks if this tileset contains the given global tile ID.
      *
@@ -98,6 +216,78 @@ public class TiledTileset
         return image;
     }
 
+    /**
+     * Gets a copy of the sheet in which every tile is flipped inside its own cell.
+     * <p>
+     * Tiles keep their position, so a flipped tile is drawn with the same source rectangle
+     * as the unflipped one. Each flag combination is built once, the first time it is used.
+     * Following Tiled, the diagonal flip is applied first, then the horizontal and vertical ones.
+     * On non-square tiles the diagonal flip is stretched to fit the cell.
+     *
+     * @param flags Flip flags ({@link TiledLayer#FLIPPED_HORIZONTALLY} etc.; the hexagonal bit is ignored).
+     * @param tileWidth Tile width in pixels.
+     * @param tileHeight Tile height in pixels.
+     * @return The flipped sheet, or the original image if no flip applies.
+     */
+    public Image getFlippedImage(int flags, int tileWidth, int tileHeight)
+    {
+        int variant = (flags >> 1) & 0x7;
+        if (variant == 0 || !(image instanceof BufferedImage sheet) || tileWidth <= 0 || tileHeight <= 0) return image;
+
+        Image flipped = flippedImages[variant];
+        if (flipped == null)
+        {
+            flipped = buildFlippedSheet(sheet, flags, tileWidth, tileHeight);
+            flippedImages[variant] = flipped;
+        }
+        return flipped;
+    }
+
+    /**
+     * Flips every whole tile of a sheet in place. Pixels outside whole tiles are copied unchanged.
+     */
+    private static BufferedImage buildFlippedSheet(BufferedImage sheet, int flags, int tileWidth, int tileHeight)
+    {
+        int width = sheet.getWidth();
+        int height = sheet.getHeight();
+        int[] source = sheet.getRGB(0, 0, width, height, null, 0, width);
+        int[] target = source.clone();
+
+        boolean horizontal = (flags & TiledLayer.FLIPPED_HORIZONTALLY) != 0;
+        boolean vertical = (flags & TiledLayer.FLIPPED_VERTICALLY) != 0;
+        boolean diagonal = (flags & TiledLayer.FLIPPED_DIAGONALLY) != 0;
+
+        int columns = width / tileWidth;
+        int rows = height / tileHeight;
+
+        for (int row = 0; row < rows; row++)
+        {
+            for (int column = 0; column < columns; column++)
+            {
+                int originX = column * tileWidth;
+                int originY = row * tileHeight;
+
+                for (int y = 0; y < tileHeight; y++)
+                {
+                    for (int x = 0; x < tileWidth; x++)
+                    {
+                        // Undo the flips in reverse order to find the source pixel
+                        int fx = horizontal ? tileWidth - 1 - x : x;
+                        int fy = vertical ? tileHeight - 1 - y : y;
+                        int sx = diagonal ? fy * tileWidth / tileHeight : fx;
+                        int sy = diagonal ? fx * tileHeight / tileWidth : fy;
+
+                        target[(originY + y) * width + originX + x] = source[(originY + sy) * width + originX + sx];
+                    }
+                }
+            }
+        }
+
+        BufferedImage flipped = ImagePreparer.createTarget(width, height, sheet.getTransparency());
+        flipped.setRGB(0, 0, width, height, target, 0, width);
+        return flipped;
+    }
+
     /**
      * @return The original source path for the image.
      */
@@ -106,6 +296,14 @@ public class TiledTileset
         return source;
     }
 
+    /**
+     * @return The TilesetCache entry this tileset holds, or null if it was not loaded through the cache.
+     */
+    String getCacheKey()
+    {
+        return cacheKey;
+    }
+
     /**
      * @return The first global tile ID for this tileset.
      */
@@ -0,0 +1,196 @@
+package misa.data.tiled2misa;
+
+import java.awt.Image;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * TilesetCache shares loaded tilesets between maps.
+ *
+ * <p>
+ * Reading a TSX file and decoding its image is the slowest part of loading a map, and
+ * maps of one game usually share their tilesets. This process-wide cache keeps each
+ * external tileset once, keyed by its resolved resource path, together with the number
+ * of maps using it. {@link TiledParser} acquires an entry for every tileset a map
+ * references; {@link TiledMap#release()} gives them back, and an entry is dropped
+ * (so its image can be collected) when no map uses it any more.
+ * </p>
+ *
+ * <p>
+ * Entries are loaded asynchronously, so all tilesets of a map load in parallel. A second
+ * map asking for a tileset that is still loading waits for the same load.
+ * </p>
+ *
+ * <p>
+ * Only the parsed TSX data and decoded image are shared. Each map still gets its own
+ * {@link TiledTileset}, since the first gid of a tileset differs between maps.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public final class TilesetCache
+{
+    private static final Logger LOGGER = Logger.getLogger(TilesetCache.class.getName());
+
+    // Resolved TSX path -> entry (guarded by itself)
+    private static final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * What a TSX file provides once loaded.
+     *
+     * @param imagePath Resolved path of the tileset image.
+     * @param image The decoded image (null if it could not be loaded).
+     * @param animations Tile animations declared in the file.
+     */
+    record TilesetData(String imagePath, Image image, TileAnimations animations)
+    {
+    }
+
+    private static final class Entry
+    {
+        private CompletableFuture<TilesetData> data; // Replaced by refresh()
+        private int references;
+
+        private Entry(CompletableFuture<TilesetData> data)
+        {
+            this.data = data;
+        }
+    }
+
+    private TilesetCache()
+    {
+    }
+
+    /**
+     * Takes a reference to a tileset, starting to load it if it is not cached.
+     * Every call must be matched by one {@link #release(String)}.
+     *
+     * @param path Resolved TSX path (see {@link #normalize(String)}).
+     * @param loader Loads the tileset; returns null if it cannot be read.
+     * @param executor Runs the loader if the tileset is not cached.
+     * @return The tileset data, once loaded (null data if the load failed).
+     */
+    static CompletableFuture<TilesetData> acquire(String path, Function<String, TilesetData> loader, Executor executor)
+    {
+        CompletableFuture<TilesetData> created = null;
+        CompletableFuture<TilesetData> data;
+
+        synchronized (entries)
+        {
+            Entry entry = entries.get(path);
+            if (entry == null)
+            {
+                created = new CompletableFuture<>();
+                entry = new Entry(created);
+                entries.put(path, entry);
+                LOGGER.fine("TilesetCache: loading " + path);
+            }
+            else
+            {
+                LOGGER.fine("TilesetCache: reusing " + path);
+            }
+            entry.references++;
+            data = entry.data;
+        }
+
+        // Started outside the lock, so a caller-runs executor does not block other maps
+        if (created != null) created.completeAsync(() -> loader.apply(path), executor);
+        return data;
+    }
+
+    /**
+     * Loads a cached tileset again, after its file changed (see {@link MapHotReloader}).
+     * Maps loaded from now on get the new data; maps already loaded keep the old one.
+     *
+     * @param path Resolved TSX path.
+     * @param loader Loads the tileset; returns null if it cannot be read.
+     * @param executor Runs the loader.
+     * @return The new data, once loaded, or null if the tileset is not cached.
+     */
+    static CompletableFuture<TilesetData> refresh(String path, Function<String, TilesetData> loader, Executor executor)
+    {
+        CompletableFuture<TilesetData> created = new CompletableFuture<>();
+
+        synchronized (entries)
+        {
+            Entry entry = entries.get(path);
+            if (entry == null) return null;
+
+            entry.data = created;
+            LOGGER.fine("TilesetCache: reloading " + path);
+        }
+
+        created.completeAsync(() -> loader.apply(path), executor);
+        return created;
+    }
+
+    /**
+     * Gives back a reference taken with {@link #acquire}. The entry is dropped when its last reference is released.
+     *
+     * @param path Resolved TSX path.
+     */
+    static void release(String path)
+    {
+        synchronized (entries)
+        {
+            Entry entry = entries.get(path);
+            if (entry == null)
+            {
+                LOGGER.warning("TilesetCache: released a tileset that is not cached: " + path);
+                return;
+            }
+
+            if (--entry.references <= 0)
+            {
+                entries.remove(path);
+                LOGGER.fine("TilesetCache: dropped " + path);
+            }
+        }
+    }
+
+    /**
+     * Resolves "." and ".." segments so that equal resources share one entry.
+     *
+     * @param path A resource path.
+     * @return The normalized path, with "/" separators.
+     */
+    static String normalize(String path)
+    {
+        try
+        {
+            return Paths.get(path).normalize().toString().replace('\\', '/');
+        }
+        catch (RuntimeException e)
+        {
+            return path;
+        }
+    }
+
+    /**
+     * @return Number of cached tilesets.
+     */
+    public static int size()
+    {
+        synchronized (entries)
+        {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @param path Resource path of a TSX file.
+     * @return Number of loaded maps using it (0 if it is not cached).
+     */
+    public static int getReferenceCount(String path)
+    {
+        synchronized (entries)
+        {
+            Entry entry = entries.get(normalize(path));
+            return entry == null ? 0 : entry.references;
+        }
+    }
+}
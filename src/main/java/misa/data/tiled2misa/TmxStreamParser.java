@@ -0,0 +1,512 @@
+package misa.data.tiled2misa;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * TmxStreamParser reads a TMX map in one pass with a StAX reader, without building a DOM.
+ *
+ * <p>
+ * Tile layer data is handed to the parser's executor in blocks of characters as it is read,
+ * and decoded there into the layer array (see {@link TileDataDecoder}). The blocks of one
+ * layer are decoded in order, while different layers decode in parallel with each other
+ * and with the reading of the rest of the file. Memory use is the finished map plus the
+ * blocks not yet decoded, instead of a node tree of the whole file.
+ * </p>
+ *
+ * <p>
+ * The result is the same TiledMap the DOM path of {@link TiledParser} builds, including
+ * which layers are skipped on unsupported or broken data.
+ * </p>
+ *
+ * <p>
+ * Layers of infinite maps become {@link ChunkedLayer}s. When the map comes from a file,
+ * chunk text is skipped and only its position is kept (found by {@link ChunkIndexer}),
+ * so chunks can be decoded later on demand.
+ * </p>
+ */
+final class TmxStreamParser
+{
+    private static final Logger LOGGER = Logger.getLogger(TmxStreamParser.class.getName());
+
+    // Characters of layer text handed to a worker at once
+    private static final int BLOCK_CHARS = 32 * 1024;
+
+    private final TiledParser owner;       // Loads tilesets (TSX files) for us
+    private final Path file;               // The TMX file, or null when reading a plain stream
+    private final Executor executor;       // Decodes tile layers
+    private final LoadProgress progress;   // Progress of this load
+
+    // Map attributes
+    private int mapWidth;
+    private int mapHeight;
+    private int tileWidth;
+    private int tileHeight;
+    private boolean rootRead;
+    private boolean infinite;
+
+    private final List<CompletableFuture<TiledTileset>> pendingTilesets = new ArrayList<>();
+    private final List<CompletableFuture<TiledLayer>> pendingLayers = new ArrayList<>();
+    private final List<TiledObjectGroup> objectGroups = new ArrayList<>();
+    private final List<ChunkedLayer> chunkedLayers = new ArrayList<>();
+
+    // Layer being read
+    private String layerName;
+    private int layerWidth;
+    private int layerHeight;
+    private boolean layerHasData;
+    private TileDataDecoder decoder;
+    private CompletableFuture<TiledLayer> layerTiles;
+    private int layerOrdinal = -1;
+
+    // Layer text not yet handed to the executor, and the decode of the blocks handed so far
+    private char[] block;
+    private int blockLength;
+    private CompletableFuture<Void> decodeChain;
+
+    // Chunked layer being read (infinite maps)
+    private List<List<ChunkedLayer.Chunk>> chunkIndex;
+    private ChunkFile chunkFile;
+    private List<ChunkedLayer.Chunk> layerChunks;
+    private String dataEncoding;
+    private String dataCompression;
+    private int chunkX;
+    private int chunkY;
+    private int chunkWidth;
+    private int chunkHeight;
+
+    // Object group being read
+    private int objectGroupDepth;
+    private String groupName;
+    private List<TiledObject> groupObjects;
+    private TiledProperties.Builder groupProperties;
+
+    // Object being read (its properties follow the attributes)
+    private TiledObject pendingObject;
+    private TiledProperties.Builder objectProperties;
+
+    /**
+     * @param owner The parser that loads tilesets.
+     * @param file The TMX file being read, or null for a stream (chunks are then decoded at load).
+     * @param progress Progress of this load.
+     */
+    TmxStreamParser(TiledParser owner, Path file, LoadProgress progress)
+    {
+        this.owner = owner;
+        this.file = file;
+        this.executor = owner.getExecutor();
+        this.progress = progress;
+    }
+
+    /**
+     * Reads a TMX document.
+     *
+     * @param inputStream Stream containing TMX data (not closed).
+     * @return The constructed TiledMap.
+     * @throws XMLStreamException If the XML is malformed.
+     * @throws IOException If the chunks of an infinite map file cannot be indexed.
+     */
+    TiledMap parse(InputStream inputStream) throws XMLStreamException, IOException
+    {
+        XMLStreamReader reader = createFactory().createXMLStreamReader(inputStream);
+        try
+        {
+            while (reader.hasNext())
+            {
+                switch (reader.next())
+                {
+                    case XMLStreamConstants.START_ELEMENT -> startElement(reader);
+                    case XMLStreamConstants.END_ELEMENT -> endElement(reader.getLocalName());
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                    {
+                        if (decoder != null) feed(reader);
+                    }
+                    default ->
+                    {
+                    }
+                }
+            }
+        }
+        catch (XMLStreamException | IOException | RuntimeException e)
+        {
+            owner.discardTilesets(pendingTilesets);
+            throw e;
+        }
+        finally
+        {
+            reader.close();
+        }
+
+        List<TiledLayer> layers = TiledParser.awaitAll(pendingLayers);
+        List<TiledTileset> tilesets = owner.awaitTilesets(pendingTilesets);
+        LOGGER.info("Streamed TMX: " + tilesets.size() + " tileset(s), " + layers.size()
+                + " layer(s), " + chunkedLayers.size() + " chunked layer(s), " + objectGroups.size() + " object group(s)");
+
+        return new TiledMap.Builder()
+                .setWidth(mapWidth)
+                .setHeight(mapHeight)
+                .setTileWidth(tileWidth)
+                .setTileHeight(tileHeight)
+                .setLayers(layers)
+                .setChunkedLayers(chunkedLayers)
+                .setTilesets(tilesets)
+                .setObjectGroups(objectGroups)
+                .build();
+    }
+
+    private void startElement(XMLStreamReader reader) throws IOException
+    {
+        String name = reader.getLocalName();
+
+        if (!rootRead)
+        {
+            // Root <map> element
+            rootRead = true;
+            mapWidth = intAttribute(reader, "width");
+            mapHeight = intAttribute(reader, "height");
+            tileWidth = intAttribute(reader, "tilewidth");
+            tileHeight = intAttribute(reader, "tileheight");
+            infinite = "1".equals(attribute(reader, "infinite"));
+
+            LOGGER.info(String.format(
+                    "Map attributes — Size: %dx%d | Tile: %dx%d%s",
+                    mapWidth, mapHeight, tileWidth, tileHeight, infinite ? " | infinite" : ""
+            ));
+
+            // Index chunk positions so chunks can be read back later
+            if (infinite && file != null)
+            {
+                chunkIndex = ChunkIndexer.scan(file);
+                chunkFile = new ChunkFile(file);
+            }
+            return;
+        }
+
+        switch (name)
+        {
+            case "tileset" ->
+            {
+                // Loads in the background while the rest of the file is read
+                pendingTilesets.add(owner.loadTileset(attribute(reader, "source"), intAttribute(reader, "firstgid"), progress));
+            }
+            case "layer" ->
+            {
+                layerName = attribute(reader, "name");
+                layerWidth = intAttribute(reader, "width");
+                layerHeight = intAttribute(reader, "height");
+                layerHasData = false;
+                layerTiles = null;
+                layerChunks = null;
+                layerOrdinal++;
+                LOGGER.info("Layer: " + layerName + " (" + layerWidth + "x" + layerHeight + ")");
+            }
+            case "data" ->
+            {
+                // Only the first <data> of a layer is read
+                if (layerName == null || layerHasData) return;
+                layerHasData = true;
+
+                String encoding = attribute(reader, "encoding");
+                String compression = attribute(reader, "compression");
+
+                if (infinite)
+                {
+                    // Tiles come in <chunk> elements; each gets its own decoder
+                    dataEncoding = encoding;
+                    dataCompression = compression;
+                    if (TileDataDecoder.isSupported(encoding, compression)) layerChunks = new ArrayList<>();
+                }
+                else
+                {
+                    decoder = TileDataDecoder.forEncoding(encoding, compression, layerWidth, layerHeight);
+                    if (decoder != null)
+                    {
+                        block = new char[BLOCK_CHARS];
+                        blockLength = 0;
+                        decodeChain = CompletableFuture.completedFuture(null);
+                    }
+                }
+
+                if (decoder == null && layerChunks == null)
+                {
+                    LOGGER.warning("Unsupported encoding type: " + encoding
+                            + (compression.isEmpty() ? "" : " (compression: " + compression + ")")
+                            + " in layer: " + layerName);
+                }
+            }
+            case "chunk" ->
+            {
+                if (layerChunks == null) return;
+                chunkX = intAttribute(reader, "x");
+                chunkY = intAttribute(reader, "y");
+                chunkWidth = intAttribute(reader, "width");
+                chunkHeight = intAttribute(reader, "height");
+
+                // Without a file to read back from, decode now
+                if (file == null) decoder = TileDataDecoder.forEncoding(dataEncoding, dataCompression, chunkWidth, chunkHeight);
+            }
+            case "objectgroup" ->
+            {
+                if (objectGroupDepth++ > 0) return;
+                groupName = attribute(reader, "name");
+                groupObjects = new ArrayList<>();
+                groupProperties = new TiledProperties.Builder();
+            }
+            case "object" ->
+            {
+                if (objectGroupDepth == 0) return;
+                flushObject();
+                objectProperties = new TiledProperties.Builder();
+                pendingObject = readObject(reader);
+            }
+            case "property" ->
+            {
+                // Properties before the first object belong to the group itself
+                TiledProperties.Builder target = pendingObject != null ? objectProperties : groupProperties;
+                if (objectGroupDepth > 0 && target != null)
+                    target.add(attribute(reader, "name"), reader.getAttributeValue(null, "type"), attribute(reader, "value"));
+            }
+            default ->
+            {
+            }
+        }
+    }
+
+    private void endElement(String name)
+    {
+        switch (name)
+        {
+            case "data" ->
+            {
+                if (decoder == null || decodeChain == null) return;
+                submitBlock();
+
+                TileDataDecoder layerDecoder = decoder;
+                String layer = layerName;
+                int width = layerWidth;
+                int height = layerHeight;
+                layerTiles = decodeChain
+                        .thenApplyAsync(done -> new TiledLayer(layer, width, height, layerDecoder.finish()), executor)
+                        .exceptionally(error ->
+                        {
+                            LOGGER.log(Level.SEVERE, "Failed to parse layer: " + layer,
+                                    error instanceof CompletionException ? error.getCause() : error);
+                            return null;
+                        });
+
+                decoder = null;
+                decodeChain = null;
+                block = null;
+            }
+            case "chunk" ->
+            {
+                if (layerChunks == null) return;
+                if (file != null)
+                {
+                    layerChunks.add(new ChunkedLayer.Chunk(chunkX, chunkY, chunkWidth, chunkHeight, 0, 0, null));
+                    return;
+                }
+
+                try
+                {
+                    TiledLayer tiles = new TiledLayer(layerName, chunkWidth, chunkHeight, decoder.finish());
+                    layerChunks.add(new ChunkedLayer.Chunk(chunkX, chunkY, chunkWidth, chunkHeight, 0, 0, tiles));
+                }
+                catch (RuntimeException e)
+                {
+                    LOGGER.log(Level.SEVERE, "Failed to parse chunk (" + chunkX + ", " + chunkY + ") of layer: " + layerName, e);
+                }
+                decoder = null;
+            }
+            case "layer" ->
+            {
+                if (layerName == null) return;
+                if (!layerHasData)
+                    throw new IllegalStateException("Layer " + layerName + " has no <data> element.");
+
+                if (infinite)
+                {
+                    if (layerChunks != null)
+                    {
+                        chunkedLayers.add(createChunkedLayer());
+                        progress.done();
+                    }
+                    layerName = null;
+                    layerChunks = null;
+                    return;
+                }
+
+                if (layerTiles != null) pendingLayers.add(progress.track(layerTiles));
+                layerName = null;
+                layerTiles = null;
+            }
+            case "object" -> flushObject();
+            case "objectgroup" ->
+            {
+                if (--objectGroupDepth > 0) return;
+                flushObject();
+                objectGroups.add(new TiledObjectGroup(groupName, groupObjects, groupProperties.build()));
+                progress.done();
+                groupName = null;
+                groupObjects = null;
+                groupProperties = null;
+            }
+            default ->
+            {
+            }
+        }
+    }
+
+    /**
+     * Builds the chunked layer just read, taking chunk positions from the file index when streaming.
+     */
+    private ChunkedLayer createChunkedLayer()
+    {
+        if (file == null) return new ChunkedLayer(layerName, dataEncoding, dataCompression, layerChunks, null);
+
+        List<ChunkedLayer.Chunk> indexed = layerOrdinal < chunkIndex.size() ? chunkIndex.get(layerOrdinal) : List.of();
+        boolean matches = indexed.size() == layerChunks.size();
+        for (int i = 0; matches && i < indexed.size(); i++)
+        {
+            matches = indexed.get(i).x() == layerChunks.get(i).x() && indexed.get(i).y() == layerChunks.get(i).y();
+        }
+        if (!matches)
+            throw new IllegalStateException("Chunk positions of layer " + layerName + " could not be indexed.");
+
+        return new ChunkedLayer(layerName, dataEncoding, dataCompression, indexed, chunkFile);
+    }
+
+    /**
+     * Passes the current text event to the decoder: layer text is queued for the executor,
+     * chunk text (plain streams of infinite maps) is decoded right away.
+     */
+    private void feed(XMLStreamReader reader)
+    {
+        char[] chars = reader.getTextCharacters();
+        int start = reader.getTextStart();
+        int length = reader.getTextLength();
+
+        if (decodeChain == null)
+        {
+            try
+            {
+                decoder.feed(chars, start, length);
+            }
+            catch (RuntimeException e)
+            {
+                LOGGER.log(Level.SEVERE, "Failed to parse layer: " + layerName, e);
+                decoder = null;
+            }
+            return;
+        }
+
+        // The reader reuses its buffer, so the text is copied into blocks
+        while (length > 0)
+        {
+            int count = Math.min(length, block.length - blockLength);
+            System.arraycopy(chars, start, block, blockLength, count);
+            blockLength += count;
+            start += count;
+            length -= count;
+            if (blockLength == block.length) submitBlock();
+        }
+    }
+
+    /**
+     * Hands the filled part of the current block to the executor, after the blocks before it.
+     */
+    private void submitBlock()
+    {
+        if (blockLength == 0) return;
+
+        TileDataDecoder layerDecoder = decoder;
+        char[] text = block;
+        int length = blockLength;
+        decodeChain = decodeChain.thenRunAsync(() -> layerDecoder.feed(text, 0, length), executor);
+
+        block = new char[BLOCK_CHARS];
+        blockLength = 0;
+    }
+
+    /**
+     * Reads the attributes of an {@code <object>}. Its properties are attached by {@link #flushObject()}.
+     */
+    private static TiledObject readObject(XMLStreamReader reader)
+    {
+        int id = Integer.parseInt(attribute(reader, "id"));
+        String name = reader.getAttributeValue(null, "name");
+        String type = reader.getAttributeValue(null, "type");
+        String width = reader.getAttributeValue(null, "width");
+        String height = reader.getAttributeValue(null, "height");
+
+        return new TiledObject(
+                id,
+                name != null ? name : "Unnamed",
+                type != null ? type : "Undefined",
+                Double.parseDouble(attribute(reader, "x")),
+                Double.parseDouble(attribute(reader, "y")),
+                width != null ? Double.parseDouble(width) : 0,
+                height != null ? Double.parseDouble(height) : 0,
+                TiledProperties.EMPTY
+        );
+    }
+
+    /**
+     * Adds the object being read (if any) to its group, with the properties read since its start.
+     */
+    private void flushObject()
+    {
+        if (pendingObject == null) return;
+
+        TiledObject object = pendingObject;
+        pendingObject = new TiledObject(object.id(), object.name(), object.type(), object.x(), object.y(),
+                object.width(), object.height(), objectProperties.build());
+        groupObjects.add(pendingObject);
+        LOGGER.fine("Parsed object: " + pendingObject.name() + " (type=" + pendingObject.type() + ", id=" + pendingObject.id() + ")");
+        pendingObject = null;
+        objectProperties = null;
+    }
+
+    /**
+     * Gets an attribute, or "" if it is missing (like DOM's getAttribute).
+     */
+    private static String attribute(XMLStreamReader reader, String name)
+    {
+        String value = reader.getAttributeValue(null, name);
+        return value != null ? value : "";
+    }
+
+    private static int intAttribute(XMLStreamReader reader, String name)
+    {
+        try
+        {
+            return Integer.parseInt(attribute(reader, name));
+        }
+        catch (NumberFormatException e)
+        {
+            LOGGER.warning("Invalid or missing integer attribute: " + name);
+            return 0;
+        }
+    }
+
+    private static XMLInputFactory createFactory()
+    {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
@@ -0,0 +1,86 @@
+package misa.entities;
+
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+/**
+ * A simple pool of reusable GameObjects.
+ *
+ * <p>
+ * Obtaining from the pool reuses a previously freed entity when one is available,
+ * and only creates a new one when the pool is empty. This avoids allocation churn
+ * for entities that are spawned and destroyed often (projectiles, pickups, map objects).
+ * </p>
+ *
+ * <p>
+ * Note: reused entities do not fire a new EntitySpawnEvent; that only happens when
+ * the GameObject is first constructed.
+ * </p>
+ *
+ * @param <T> The GameObject type stored in the pool.
+ */
+@SuppressWarnings("unused")
+public class EntityPool<T extends GameObject>
+{
+    private final ArrayDeque<T> freeEntities;
+    private final Supplier<T> factory;
+    private final int maxSize;
+
+    /**
+     * Creates a new EntityPool.
+     *
+     * @param factory Creates a new entity when the pool is empty.
+     * @param maxSize Maximum number of freed entities kept for reuse.
+     */
+    public EntityPool(Supplier<T> factory, int maxSize)
+    {
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.freeEntities = new ArrayDeque<>(Math.min(maxSize, 256));
+    }
+
+    /**
+     * Gets an entity from the pool, creating one if none are free.
+     *
+     * @return A reusable entity.
+     */
+    public T obtain()
+    {
+        T entity = freeEntities.pollFirst();
+        return entity != null ? entity : factory.get();
+    }
+
+    /**
+     * Returns an entity to the pool so it can be reused.
+     *
+     * @param entity The entity to free.
+     */
+    public void free(T entity)
+    {
+        if (entity != null && freeEntities.size() < maxSize)
+        {
+            freeEntities.addFirst(entity);
+        }
+    }
+
+    /**
+     * Creates entities ahead of time so later spawns do not allocate.
+     *
+     * @param count Number of entities to prepare.
+     */
+    public void prefill(int count)
+    {
+        for (int i = 0; i < count && freeEntities.size() < maxSize; i++)
+        {
+            freeEntities.addFirst(factory.get());
+        }
+    }
+
+    /**
+     * @return Number of entities currently waiting for reuse.
+     */
+    public int getFreeCount()
+    {
+        return freeEntities.size();
+    }
+}
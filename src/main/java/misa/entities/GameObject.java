@@ -1,5 +1,8 @@
 package misa.entities;
 
+import misa.core.Updatable;
+import misa.core.rendering.RenderQueue;
+import misa.core.rendering.SpriteBatch;
 import misa.core.events.EventManager;
 import misa.core.events.gameplay.entity.EntityDestroyEvent;
 import misa.core.events.gameplay.entity.EntitySpawnEvent;
@@ -21,14 +24,34 @@ import java.util.logging.Logger;
  * - Position (coordinateX, coordinateY)
  * - Animation (via Animator and loaded frames)
  * - Event system integration (spawn, destroy, tile enter/exit)
+ * - Update scheduling (tick interval)
+ * - Draw ordering (render layer and sort Y)
  * <p>
  * Extend this class to create game-specific objects.
  */
 @SuppressWarnings("unused")
-public abstract class GameObject
+public abstract class GameObject implements Updatable
 {
     private static final Logger LOGGER = Logger.getLogger(GameObject.class.getName());
 
+    // Whether a class overrides drawAtPixel, looked up once per class
+    private static final ClassValue<Boolean> CUSTOM_DRAWING = new ClassValue<>()
+    {
+        @Override
+        protected Boolean computeValue(Class<?> type)
+        {
+            try
+            {
+                return type.getMethod("drawAtPixel", Graphics2D.class, int.class, int.class, int.class)
+                        .getDeclaringClass() != GameObject.class;
+            }
+            catch (NoSuchMethodException e)
+            {
+                return false;
+            }
+        }
+    };
+
     // World position (in units)
     public double coordinateX;
     public double coordinateY;
@@ -43,6 +66,12 @@ public abstract class GameObject
     protected boolean shouldAnimate;
     protected boolean shouldLoop;
 
+    // Update scheduling: update once every N ticks
+    protected int tickInterval = 1;
+
+    // Draw ordering: drawn after map layers with a lower or equal render layer, sorted by Y within a layer
+    protected int renderLayer = RenderQueue.MAX_LAYER;
+
     /**
      * Creates a new GameObject.
      *
@@ -210,6 +239,43 @@ public abstract class GameObject
         this.coordinateY = coordinateY;
     }
 
+    // ----------- Draw Ordering -----------
+
+    /**
+     * @return The render layer this GameObject is drawn on.
+     */
+    public int getRenderLayer()
+    {
+        return renderLayer;
+    }
+
+    /**
+     * Sets the render layer this GameObject is drawn on.
+     * <p>
+     * Objects are drawn after every map layer whose render layer is lower or equal,
+     * e.g. use the "Ground" layer's render layer to draw between "Ground" and "Overhead".
+     * The default ({@link RenderQueue#MAX_LAYER}) draws above the whole map.
+     *
+     * @param renderLayer Render layer (0-255).
+     */
+    public void setRenderLayer(int renderLayer)
+    {
+        this.renderLayer = renderLayer;
+    }
+
+    /**
+     * Gets the depth used to order objects within a render layer.
+     * <p>
+     * Objects with a larger sort Y are drawn later (on top). Override this to sort by
+     * the bottom of a tall sprite instead of its position.
+     *
+     * @return Sort Y in world units.
+     */
+    public float getSortY()
+    {
+        return (float) coordinateY;
+    }
+
     // ----------- Event Manager Setter -----------
 
     /**
@@ -251,11 +317,68 @@ public abstract class GameObject
      * <p>
      * Override this method to define GameObject-specific update behavior.
      */
+    @Override
     public void update()
     {
         // No default behavior
     }
 
+    /**
+     * @return Number of ticks between updates of this GameObject.
+     */
+    @Override
+    public int getTickInterval()
+    {
+        return tickInterval;
+    }
+
+    /**
+     * Sets how often this GameObject is updated.
+     * <p>
+     * Must be set before the object is registered with the GameLoop, or followed by
+     * {@link misa.core.TickScheduler#reschedule(Updatable)}.
+     *
+     * @param tickInterval Number of ticks between updates (values below 1 mean every tick).
+     */
+    public void setTickInterval(int tickInterval)
+    {
+        this.tickInterval = Math.max(1, tickInterval);
+    }
+
+    /**
+     * Records this GameObject's draw commands into a SpriteBatch.
+     * <p>
+     * The Renderer uses this instead of drawing directly so sprites can be sorted and
+     * batched by texture. Subclasses that override {@link #drawAtPixel} are recorded with
+     * {@link SpriteBatch#drawCustom}, so their drawing code still runs at flush time (without
+     * texture batching); override this method instead to have their sprites batched.
+     *
+     * @param batch The batch to record into.
+     * @param px Pixel X coordinate.
+     * @param py Pixel Y coordinate.
+     * @param sizeInPixels Size of the rendered object in pixels.
+     * @param depth Draw depth assigned by the Renderer.
+     */
+    public void submitSprites(SpriteBatch batch, int px, int py, int sizeInPixels, int depth)
+    {
+        if (CUSTOM_DRAWING.get(getClass()))
+        {
+            batch.drawCustom(this, px, py, sizeInPixels, depth);
+            return;
+        }
+
+        BufferedImage frame = shouldAnimate ? animator.advance(currentAnimationFrames, shouldLoop) : null;
+
+        if (frame != null)
+        {
+            batch.draw(frame, px, py, sizeInPixels, sizeInPixels, depth);
+        }
+        else
+        {
+            batch.fillRect(Color.RED.getRGB(), px, py, sizeInPixels, sizeInPixels, depth);
+        }
+    }
+
     /**
      * Draws the GameObject at a specific pixel location.
      *
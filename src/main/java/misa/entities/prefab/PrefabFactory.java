@@ -0,0 +1,36 @@
+package misa.entities.prefab;
+
+import misa.data.tiled2misa.TiledObject;
+import misa.entities.GameObject;
+
+/**
+ * Creates and configures the entities for a {@link PrefabTemplate}.
+ *
+ * @param <T> The GameObject type this factory produces.
+ */
+public interface PrefabFactory<T extends GameObject>
+{
+    /**
+     * Creates a brand-new entity.
+     * <p>
+     * Only called when the template has no pool. A pooled template takes entities from its
+     * {@link misa.entities.EntityPool}, which creates new ones with its own supplier; pass
+     * {@code factory::create} to the pool to use this method there too.
+     * Position, animations and tick interval are applied afterwards.
+     *
+     * @return A new entity.
+     */
+    T create();
+
+    /**
+     * Applies per-object data after the template defaults have been applied.
+     *
+     * @param entity The spawned (or reused) entity.
+     * @param source The TiledObject it was spawned from.
+     * @param properties Typed properties (template defaults overridden by the object's own values).
+     */
+    default void configure(T entity, TiledObject source, PrefabProperties properties)
+    {
+        // No default behavior
+    }
+}
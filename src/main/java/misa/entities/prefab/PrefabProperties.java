@@ -0,0 +1,158 @@
+package misa.entities.prefab;
+
+/**
+ * Typed property values for one prefab instance.
+ *
+ * <p>
+ * Values start as the template's precompiled defaults and are then overridden by
+ * the properties set on the TiledObject. The same PrefabProperties instance is
+ * reused for every spawn of a template, so read what you need inside
+ * {@link PrefabFactory#configure} and do not keep a reference to it.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class PrefabProperties
+{
+    private final PrefabTemplate<?> template;
+    private final long[] values;
+    private final String[] strings;
+
+    /**
+     * Creates a property buffer sized for a template.
+     *
+     * @param template The template these properties belong to.
+     */
+    PrefabProperties(PrefabTemplate<?> template)
+    {
+        this.template = template;
+        this.values = new long[template.getPropertyCount()];
+        this.strings = new String[template.getPropertyCount()];
+    }
+
+    /**
+     * Resets every property to the template's default.
+     *
+     * @param defaultValues Default raw values.
+     * @param defaultStrings Default string values.
+     */
+    void reset(long[] defaultValues, String[] defaultStrings)
+    {
+        System.arraycopy(defaultValues, 0, values, 0, values.length);
+        System.arraycopy(defaultStrings, 0, strings, 0, strings.length);
+    }
+
+    /**
+     * Overrides one property with a value from the map.
+     *
+     * @param index Property index.
+     * @param bits Raw parsed value.
+     * @param string Original string value.
+     */
+    void set(int index, long bits, String string)
+    {
+        values[index] = bits;
+        strings[index] = string;
+    }
+
+    // ----------- Index Lookups -----------
+
+    /**
+     * @return The template these properties belong to.
+     */
+    public PrefabTemplate<?> getTemplate()
+    {
+        return template;
+    }
+
+    /**
+     * @param index Property index from {@link PrefabTemplate#getPropertyIndex(String)}.
+     * @return The property as an int.
+     */
+    public int getInt(int index)
+    {
+        return (int) values[index];
+    }
+
+    /**
+     * @param index Property index.
+     * @return The property as a float.
+     */
+    public float getFloat(int index)
+    {
+        return (float) Double.longBitsToDouble(values[index]);
+    }
+
+    /**
+     * @param index Property index.
+     * @return The property as a boolean.
+     */
+    public boolean getBool(int index)
+    {
+        return values[index] != 0;
+    }
+
+    /**
+     * @param index Property index.
+     * @return The property as an ARGB color.
+     */
+    public int getColor(int index)
+    {
+        return (int) values[index];
+    }
+
+    /**
+     * @param index Property index.
+     * @return The original string value of the property.
+     */
+    public String getString(int index)
+    {
+        return strings[index];
+    }
+
+    // ----------- Name Lookups (slower, convenient) -----------
+
+    /**
+     * @param name Property name.
+     * @return The property as an int.
+     */
+    public int getInt(String name)
+    {
+        return getInt(template.requirePropertyIndex(name));
+    }
+
+    /**
+     * @param name Property name.
+     * @return The property as a float.
+     */
+    public float getFloat(String name)
+    {
+        return getFloat(template.requirePropertyIndex(name));
+    }
+
+    /**
+     * @param name Property name.
+     * @return The property as a boolean.
+     */
+    public boolean getBool(String name)
+    {
+        return getBool(template.requirePropertyIndex(name));
+    }
+
+    /**
+     * @param name Property name.
+     * @return The property as an ARGB color.
+     */
+    public int getColor(String name)
+    {
+        return getColor(template.requirePropertyIndex(name));
+    }
+
+    /**
+     * @param name Property name.
+     * @return The original string value of the property.
+     */
+    public String getString(String name)
+    {
+        return getString(template.requirePropertyIndex(name));
+    }
+}
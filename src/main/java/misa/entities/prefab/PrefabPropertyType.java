@@ -0,0 +1,54 @@
+package misa.entities.prefab;
+
+/**
+ * The value types a prefab property can hold.
+ *
+ * <p>
+ * Numeric, boolean and color values are stored as raw {@code long} bits so
+ * instantiating a prefab never boxes them.
+ * </p>
+ */
+public enum PrefabPropertyType
+{
+    STRING,
+    INT,
+    FLOAT,
+    BOOL,
+    COLOR;
+
+    /**
+     * Parses a Tiled property string into raw bits for this type.
+     *
+     * @param value The string value from the TMX file.
+     * @return The value encoded as long bits (0 for STRING).
+     * @throws NumberFormatException if the value cannot be parsed as this type.
+     */
+    long parseBits(String value)
+    {
+        return switch (this)
+        {
+            case STRING -> 0L;
+            case INT -> Long.parseLong(value.trim());
+            case FLOAT -> Double.doubleToRawLongBits(Double.parseDouble(value.trim()));
+            case BOOL -> Boolean.parseBoolean(value.trim()) ? 1L : 0L;
+            case COLOR -> parseColor(value.trim());
+        };
+    }
+
+    /**
+     * Parses a Tiled color string ("#AARRGGBB" or "#RRGGBB") into ARGB bits.
+     *
+     * @param value The color string.
+     * @return ARGB color as long bits.
+     */
+    private static long parseColor(String value)
+    {
+        String hex = value.startsWith("#") ? value.substring(1) : value;
+        long argb = Long.parseLong(hex, 16);
+
+        // Colors without alpha are fully opaque
+        if (hex.length() <= 6) argb |= 0xFF000000L;
+
+        return argb & 0xFFFFFFFFL;
+    }
+}
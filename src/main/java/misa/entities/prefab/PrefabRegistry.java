@@ -0,0 +1,141 @@
+package misa.entities.prefab;
+
+import misa.core.GameLoop;
+import misa.data.tiled2misa.TiledMap;
+import misa.data.tiled2misa.TiledObject;
+import misa.entities.GameObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * PrefabRegistry maps Tiled object types to precompiled {@link PrefabTemplate}s
+ * and spawns entities for every object in a map.
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ * PrefabRegistry prefabs = new PrefabRegistry();
+ * prefabs.register(chestTemplate);
+ * prefabs.register(npcTemplate);
+ * prefabs.instantiateAll(map, gameLoop);
+ * </pre>
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class PrefabRegistry
+{
+    private static final Logger LOGGER = Logger.getLogger(PrefabRegistry.class.getName());
+
+    // Tiled object type -> compiled template
+    private final Map<String, PrefabTemplate<?>> templates = new HashMap<>();
+
+    // Object types we already warned about, so missing prefabs only log once
+    private final Set<String> unknownTypes = new HashSet<>();
+
+    /**
+     * Registers a template under its object type, replacing any previous one.
+     *
+     * @param template The compiled template.
+     */
+    public void register(PrefabTemplate<?> template)
+    {
+        templates.put(template.getType(), template);
+    }
+
+    /**
+     * Removes the template for an object type.
+     *
+     * @param type The Tiled object type.
+     */
+    public void unregister(String type)
+    {
+        templates.remove(type);
+    }
+
+    /**
+     * @param type The Tiled object type.
+     * @return The registered template, or null if none exists.
+     */
+    public PrefabTemplate<?> getTemplate(String type)
+    {
+        return templates.get(type);
+    }
+
+    /**
+     * Spawns a single object if a template exists for its type.
+     *
+     * @param object The TiledObject to spawn.
+     * @param tileWidth Map tile width in pixels.
+     * @param tileHeight Map tile height in pixels.
+     * @return The spawned entity, or null if the type has no template.
+     */
+    public GameObject instantiate(TiledObject object, int tileWidth, int tileHeight)
+    {
+        PrefabTemplate<?> template = templates.get(object.type());
+        if (template == null)
+        {
+            if (unknownTypes.add(object.type()))
+            {
+                LOGGER.fine("No prefab registered for object type: " + object.type());
+            }
+            return null;
+        }
+
+        return template.instantiate(object, tileWidth, tileHeight);
+    }
+
+    /**
+     * Spawns entities for every object in the map that has a registered template.
+     *
+     * @param map The loaded map.
+     * @param out List that receives the spawned entities.
+     * @return Number of entities spawned.
+     */
+    public int instantiateAll(TiledMap map, List<? super GameObject> out)
+    {
+        List<TiledObject> objects = map.getObjects();
+        int tileWidth = Math.max(1, map.getTileWidth());
+        int tileHeight = Math.max(1, map.getTileHeight());
+        int spawned = 0;
+
+        for (int i = 0; i < objects.size(); i++)
+        {
+            GameObject entity = instantiate(objects.get(i), tileWidth, tileHeight);
+            if (entity == null) continue;
+
+            out.add(entity);
+            spawned++;
+        }
+
+        LOGGER.info("Spawned " + spawned + " prefab(s) from " + objects.size() + " map object(s)");
+        return spawned;
+    }
+
+    /**
+     * Spawns every map object with a template and registers it with the GameLoop
+     * for both rendering and updating.
+     *
+     * @param map The loaded map.
+     * @param gameLoop The GameLoop to register the entities with.
+     * @return Number of entities spawned.
+     */
+    public int instantiateAll(TiledMap map, GameLoop gameLoop)
+    {
+        List<GameObject> spawned = new ArrayList<>();
+        instantiateAll(map, spawned);
+
+        for (int i = 0; i < spawned.size(); i++)
+        {
+            GameObject entity = spawned.get(i);
+            gameLoop.addGameObject(entity);
+            gameLoop.addUpdatable(entity);
+        }
+        return spawned.size();
+    }
+}
@@ -0,0 +1,341 @@
+package misa.entities.prefab;
+
+import misa.data.tiled2misa.TiledObject;
+import misa.entities.EntityPool;
+import misa.entities.GameObject;
+import misa.systems.animation.AnimationLoader;
+
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * A precompiled blueprint for spawning entities of one Tiled object type.
+ *
+ * <p>
+ * Everything that does not change between instances is resolved once when the template
+ * is built: property names and types are fixed into arrays, default values are parsed,
+ * and animation frames are loaded. Spawning then only copies defaults, parses the few
+ * properties a map object overrides, and applies them to a (possibly pooled) entity.
+ * </p>
+ *
+ * <p>
+ * Use {@link PrefabTemplate.Builder} to create templates.
+ * </p>
+ *
+ * @param <T> The GameObject type this template spawns.
+ */
+@SuppressWarnings("unused")
+public class PrefabTemplate<T extends GameObject>
+{
+    private static final Logger LOGGER = Logger.getLogger(PrefabTemplate.class.getName());
+
+    private final String type;
+    private final PrefabFactory<T> factory;
+    private final EntityPool<T> pool;
+
+    // Precompiled property table
+    private final String[] propertyNames;
+    private final PrefabPropertyType[] propertyTypes;
+    private final long[] defaultValues;
+    private final String[] defaultStrings;
+    private final Map<String, Integer> propertyIndices;
+
+    // Resolved animations, shared by every instance
+    private final Map<String, BufferedImage[]> animations;
+    private final String initialAnimation;
+
+    private final int tickInterval;
+
+    // Reused for every spawn of this template
+    private final PrefabProperties scratchProperties;
+
+    /**
+     * Private constructor — use Builder to create PrefabTemplate instances.
+     *
+     * @param builder The populated Builder instance.
+     */
+    private PrefabTemplate(Builder<T> builder)
+    {
+        this.type = builder.type;
+        this.factory = builder.factory;
+        this.pool = builder.pool;
+        this.initialAnimation = builder.initialAnimation;
+        this.tickInterval = builder.tickInterval;
+
+        int count = builder.properties.size();
+        this.propertyNames = new String[count];
+        this.propertyTypes = new PrefabPropertyType[count];
+        this.defaultValues = new long[count];
+        this.defaultStrings = new String[count];
+        this.propertyIndices = new HashMap<>();
+
+        int index = 0;
+        for (Map.Entry<String, PropertySpec> entry : builder.properties.entrySet())
+        {
+            PropertySpec spec = entry.getValue();
+            propertyNames[index] = entry.getKey();
+            propertyTypes[index] = spec.type;
+            defaultStrings[index] = spec.defaultValue;
+            defaultValues[index] = spec.type.parseBits(spec.defaultValue);
+            propertyIndices.put(entry.getKey(), index);
+            index++;
+        }
+
+        // Load animation frames once; every instance shares the same arrays
+        this.animations = builder.animationPaths.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(AnimationLoader.loadNamedAnimations(builder.animationPaths));
+
+        if (initialAnimation != null && !animations.containsKey(initialAnimation))
+        {
+            LOGGER.warning("Prefab '" + type + "' initial animation not found: " + initialAnimation);
+        }
+
+        this.scratchProperties = new PrefabProperties(this);
+        LOGGER.info("Prefab compiled: " + type + " (" + count + " properties, " + animations.size() + " animations)");
+    }
+
+    /**
+     * Spawns one entity from a TiledObject.
+     *
+     * @param source The object placed in the map.
+     * @param tileWidth Map tile width in pixels (used to convert pixels to units).
+     * @param tileHeight Map tile height in pixels.
+     * @return The spawned entity.
+     */
+    public T instantiate(TiledObject source, int tileWidth, int tileHeight)
+    {
+        T entity = pool != null ? pool.obtain() : factory.create();
+
+        entity.setPosition(source.x() / tileWidth, source.y() / tileHeight);
+        entity.setTickInterval(tickInterval);
+
+        if (!animations.isEmpty())
+        {
+            entity.setNamedAnimations(animations);
+            if (initialAnimation != null) entity.playAnimation(initialAnimation);
+        }
+
+        factory.configure(entity, source, resolveProperties(source));
+        return entity;
+    }
+
+    /**
+     * Fills the scratch property buffer with defaults and the object's overrides.
+     *
+     * @param source The TiledObject being spawned.
+     * @return The filled (reused) property buffer.
+     */
+    private PrefabProperties resolveProperties(TiledObject source)
+    {
+        scratchProperties.reset(defaultValues, defaultStrings);
+
+        Map<String, String> overrides = source.properties();
+        if (overrides == null || overrides.isEmpty()) return scratchProperties;
+
+        // Walk the template's own property list so only known properties are parsed
+        for (int i = 0; i < propertyNames.length; i++)
+        {
+            String value = overrides.get(propertyNames[i]);
+            if (value == null) continue;
+
+            try
+            {
+                scratchProperties.set(i, propertyTypes[i].parseBits(value), value);
+            }
+            catch (NumberFormatException e)
+            {
+                LOGGER.warning("Object " + source.id() + " has invalid " + propertyTypes[i]
+                        + " value for '" + propertyNames[i] + "': " + value + " (using default)");
+            }
+        }
+
+        return scratchProperties;
+    }
+
+    // ----------- Getters -----------
+
+    /**
+     * @return The Tiled object type this template spawns.
+     */
+    public String getType()
+    {
+        return type;
+    }
+
+    /**
+     * @return Number of declared properties.
+     */
+    public int getPropertyCount()
+    {
+        return propertyNames.length;
+    }
+
+    /**
+     * Looks up a property's index so it can be read without a name lookup at spawn time.
+     *
+     * @param name Property name.
+     * @return The property's index, or -1 if it was not declared.
+     */
+    public int getPropertyIndex(String name)
+    {
+        Integer index = propertyIndices.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Same as {@link #getPropertyIndex(String)} but fails loudly for unknown names.
+     *
+     * @param name Property name.
+     * @return The property's index.
+     * @throws IllegalArgumentException if the property was not declared.
+     */
+    int requirePropertyIndex(String name)
+    {
+        int index = getPropertyIndex(name);
+        if (index < 0)
+        {
+            throw new IllegalArgumentException("Prefab '" + type + "' has no property named " + name);
+        }
+        return index;
+    }
+
+    /**
+     * @return The resolved animations shared by every instance.
+     */
+    public Map<String, BufferedImage[]> getAnimations()
+    {
+        return animations;
+    }
+
+    /**
+     * @return The pool used for spawning, or null if entities are always created fresh.
+     */
+    public EntityPool<T> getPool()
+    {
+        return pool;
+    }
+
+    /**
+     * Property declaration kept by the Builder until the template is compiled.
+     */
+    private record PropertySpec(PrefabPropertyType type, String defaultValue) {}
+
+    /**
+     * Builder for constructing {@link PrefabTemplate} instances.
+     *
+     * <p>
+     * Example usage:
+     * <pre>
+     * PrefabTemplate&lt;Chest&gt; chest = new PrefabTemplate.Builder&lt;&gt;("Chest", Chest::new)
+     *      .addProperty("gold", PrefabPropertyType.INT, "0")
+     *      .addProperty("locked", PrefabPropertyType.BOOL, "false")
+     *      .setAnimations(Map.of("Closed", new String[] { "chest/closed.png" }))
+     *      .setInitialAnimation("Closed")
+     *      .build();
+     * </pre>
+     * </p>
+     *
+     * @param <T> The GameObject type the template spawns.
+     */
+    public static class Builder<T extends GameObject>
+    {
+        private final String type;
+        private final PrefabFactory<T> factory;
+        private final Map<String, PropertySpec> properties = new LinkedHashMap<>();
+        private Map<String, String[]> animationPaths = new HashMap<>();
+        private String initialAnimation;
+        private EntityPool<T> pool;
+        private int tickInterval = 1;
+
+        /**
+         * Starts a template for a Tiled object type.
+         *
+         * @param type The object's {@code type} attribute in Tiled.
+         * @param factory Creates and configures entities for this type.
+         */
+        public Builder(String type, PrefabFactory<T> factory)
+        {
+            this.type = type;
+            this.factory = factory;
+        }
+
+        /**
+         * Declares a typed property and its default value.
+         *
+         * @param name Property name as used in Tiled.
+         * @param propertyType The value type.
+         * @param defaultValue Default value, in Tiled's string format.
+         * @return This builder instance.
+         */
+        public Builder<T> addProperty(String name, PrefabPropertyType propertyType, String defaultValue)
+        {
+            properties.put(name, new PropertySpec(propertyType, defaultValue));
+            return this;
+        }
+
+        /**
+         * Sets the animations (name → frame resource paths) loaded once for all instances.
+         *
+         * @param animationPaths The animations to load.
+         * @return This builder instance.
+         */
+        public Builder<T> setAnimations(Map<String, String[]> animationPaths)
+        {
+            this.animationPaths = new HashMap<>(animationPaths);
+            return this;
+        }
+
+        /**
+         * Sets the animation played when an instance spawns.
+         *
+         * @param initialAnimation Animation name.
+         * @return This builder instance.
+         */
+        public Builder<T> setInitialAnimation(String initialAnimation)
+        {
+            this.initialAnimation = initialAnimation;
+            return this;
+        }
+
+        /**
+         * Sets a pool that spawned entities are drawn from. The pool creates entities
+         * with its own supplier, not the factory (e.g. {@code new EntityPool<>(factory::create, 64)}).
+         *
+         * @param pool The entity pool.
+         * @return This builder instance.
+         */
+        public Builder<T> setPool(EntityPool<T> pool)
+        {
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * Sets the tick interval applied to every instance.
+         *
+         * @param tickInterval Number of ticks between updates.
+         * @return This builder instance.
+         */
+        public Builder<T> setTickInterval(int tickInterval)
+        {
+            this.tickInterval = Math.max(1, tickInterval);
+            return this;
+        }
+
+        /**
+         * Compiles the template.
+         *
+         * @return A new PrefabTemplate.
+         * @throws NumberFormatException if a default value does not match its declared type.
+         */
+        public PrefabTemplate<T> build()
+        {
+            return new PrefabTemplate<>(this);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package misa.systems.animation;
 
+import misa.core.rendering.ImagePreparer;
+
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
@@ -64,8 +66,20 @@ public class AnimationLoader
         return result;
     }
 
+    /**
+     * Gets every image loaded and cached so far (e.g. to pack them into a texture atlas).
+     *
+     * @return Snapshot of the cached images.
+     */
+    public static List<BufferedImage> getLoadedImages()
+    {
+        return new ArrayList<>(IMAGE_CACHE.values());
+    }
+
     /**
      * Loads a single image from the classpath or cache.
+     * <p>
+     * Newly loaded images are converted to a display-compatible format before caching.
      *
      * @param path The resource path to the image.
      * @return The loaded BufferedImage, or null if loading failed.
@@ -86,7 +100,7 @@ public class AnimationLoader
                 return null;
             }
 
-            BufferedImage image = ImageIO.read(is);
+            BufferedImage image = ImagePreparer.prepare(ImageIO.read(is));
 
             if (image != null)
             {
@@ -173,6 +173,35 @@ public class Animator
         );
     }
 
+    /**
+     * Advances the animation clock and returns the frame to show, without drawing it.
+     * <p>
+     * Used when drawing is deferred to a {@link misa.core.rendering.SpriteBatch}.
+     *
+     * @param animationFrames Array of animation frames.
+     * @param shouldLoop Whether animation should loop.
+     * @return The current frame, or null if there are no frames.
+     */
+    public BufferedImage advance(BufferedImage[] animationFrames, boolean shouldLoop)
+    {
+        if (animationFrames == null || animationFrames.length == 0)
+        {
+            return null;
+        }
+
+        long currentTime = System.nanoTime();
+        if (shouldUpdateFrame(currentTime))
+        {
+            updateCurrentFrame(animationFrames, shouldLoop);
+            lastFrameTime = currentTime;
+        }
+
+        // Animation may have been switched to a shorter one since the last frame
+        if (currentFrame >= animationFrames.length) currentFrame = 0;
+
+        return animationFrames[currentFrame];
+    }
+
     /**
      * Sets the frame duration (speed of animation).
      *
@@ -0,0 +1,201 @@
+package misa.systems.animation;
+
+import misa.core.Updatable;
+import misa.data.tiled2misa.TileAnimations;
+import misa.data.tiled2misa.TiledLayer;
+import misa.data.tiled2misa.TiledMap;
+import misa.data.tiled2misa.TiledTileset;
+import misa.util.collections.IntArrayList;
+
+import java.util.logging.Logger;
+
+/**
+ * TileClock drives every animated map tile from one shared timer.
+ *
+ * <p>
+ * Instead of each water or torch tile keeping its own frame counter, the clock advances
+ * once per tick and rewrites a global remap table: for every animated GID, the GID of the
+ * frame to draw right now. Rendering a tile is then one array lookup, and all copies of a
+ * tile stay in sync, no matter how many there are.
+ * </p>
+ *
+ * <p>
+ * Register the clock with the GameLoop and give it to the Renderer:
+ * <pre>
+ * TileClock tileClock = new TileClock(gameLoop.getTargetUPS());
+ * tileClock.setMap(map);
+ * gameLoop.addUpdatable(tileClock);
+ * renderer.setTileClock(tileClock);
+ * </pre>
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class TileClock implements Updatable
+{
+    private static final Logger LOGGER = Logger.getLogger(TileClock.class.getName());
+
+    private final double millisPerTick;
+    private double elapsedMillis;
+
+    // Remap table: gid -> gid to draw (identity for tiles that are not animated)
+    private int[] remap = new int[0];
+    private boolean[] animated = new boolean[0];
+
+    // Animated gids and where their animation lives
+    private final IntArrayList animatedGids = new IntArrayList();
+    private TileAnimations[] animationTables = new TileAnimations[0];
+    private int[] animationIndices = new int[0];
+    private int[] firstGids = new int[0];
+
+    // Incremented whenever any animated tile changes frame
+    private int version;
+
+    /**
+     * Creates a tile clock.
+     *
+     * @param ticksPerSecond How many times per second {@link #update()} is called (the GameLoop's target UPS).
+     */
+    public TileClock(int ticksPerSecond)
+    {
+        if (ticksPerSecond <= 0)
+            throw new IllegalArgumentException("ticksPerSecond must be > 0.");
+
+        this.millisPerTick = 1000.0 / ticksPerSecond;
+    }
+
+    /**
+     * Builds the remap table for a map's tilesets and restarts the clock.
+     *
+     * @param map The map (null clears all animations).
+     */
+    public void setMap(TiledMap map)
+    {
+        animatedGids.clear();
+        elapsedMillis = 0;
+
+        if (map == null)
+        {
+            remap = new int[0];
+            animated = new boolean[0];
+            version++;
+            return;
+        }
+
+        // Collect every animated gid
+        int maxGid = 0;
+        int count = 0;
+        for (TiledTileset tileset : map.getTilesets()) count += tileset.getAnimations().size();
+
+        animationTables = new TileAnimations[count];
+        animationIndices = new int[count];
+        firstGids = new int[count];
+
+        for (TiledTileset tileset : map.getTilesets())
+        {
+            TileAnimations animations = tileset.getAnimations();
+            for (int i = 0; i < animations.size(); i++)
+            {
+                int gid = tileset.firstGID() + animations.getTileId(i);
+                int slot = animatedGids.size();
+                animatedGids.add(gid);
+                animationTables[slot] = animations;
+                animationIndices[slot] = i;
+                firstGids[slot] = tileset.firstGID();
+                maxGid = Math.max(maxGid, gid);
+            }
+        }
+
+        // Identity table up to the highest animated gid; higher gids are never remapped
+        remap = new int[animatedGids.isEmpty() ? 0 : maxGid + 1];
+        for (int gid = 0; gid < remap.length; gid++) remap[gid] = gid;
+        animated = new boolean[remap.length];
+        for (int i = 0; i < animatedGids.size(); i++) animated[animatedGids.get(i)] = true;
+
+        refresh();
+        version++;
+        LOGGER.info("TileClock tracking " + animatedGids.size() + " animated tile(s)");
+    }
+
+    /**
+     * Advances the clock by one tick and updates the frames of all animated tiles.
+     */
+    @Override
+    public void update()
+    {
+        elapsedMillis += millisPerTick;
+        if (refresh()) version++;
+    }
+
+    /**
+     * Gets the GID to draw for a tile right now. Flip flags are kept.
+     *
+     * @param gid The GID stored in the map (flags included).
+     * @return The GID of the current animation frame, or the same GID if it is not animated.
+     */
+    public long remap(long gid)
+    {
+        // One read of the table: setMap() may replace it with a shorter one meanwhile
+        int[] table = remap;
+        long base = gid & TiledLayer.GID_MASK;
+        if (base >= table.length) return gid;
+        return (gid & ~(long) TiledLayer.GID_MASK) | table[(int) base];
+    }
+
+    /**
+     * @param gid A GID (flags ignored).
+     * @return True if the tile is animated.
+     */
+    public boolean isAnimated(long gid)
+    {
+        boolean[] table = animated;
+        long base = gid & TiledLayer.GID_MASK;
+        return base < table.length && table[(int) base];
+    }
+
+    /**
+     * @return Number of animated tiles being tracked.
+     */
+    public int getAnimatedTileCount()
+    {
+        return animatedGids.size();
+    }
+
+    /**
+     * @return A counter that changes whenever any animated tile switches frame.
+     */
+    public int getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * @return Milliseconds since the clock started.
+     */
+    public long getElapsedMillis()
+    {
+        return (long) elapsedMillis;
+    }
+
+    /**
+     * Recomputes the current frame of every animated gid.
+     *
+     * @return True if any frame changed.
+     */
+    private boolean refresh()
+    {
+        boolean changed = false;
+        long time = (long) elapsedMillis;
+        int[] gids = animatedGids.elements();
+
+        for (int slot = 0; slot < animatedGids.size(); slot++)
+        {
+            int frameGid = firstGids[slot] + animationTables[slot].tileAt(animationIndices[slot], time);
+            if (remap[gids[slot]] != frameGid)
+            {
+                remap[gids[slot]] = frameGid;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+}
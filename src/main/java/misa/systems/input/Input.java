@@ -1,9 +1,9 @@
 package misa.systems.input;
 
+import misa.util.collections.IntSet;
+
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * Input system for tracking key states globally.
@@ -16,8 +16,8 @@ import java.util.Set;
 @SuppressWarnings("unused")
 public class Input implements KeyListener
 {
-    // Set of currently pressed key codes
-    private static final Set<Integer> pressedKeys = new HashSet<>();
+    // Set of currently pressed key codes (primitive set, so polling never boxes)
+    private static final IntSet pressedKeys = new IntSet();
 
     /**
      * Called when a key is pressed.
@@ -0,0 +1,617 @@
+package misa.systems.transform;
+
+import misa.core.Updatable;
+import misa.entities.GameObject;
+import misa.util.collections.IntArrayList;
+
+import java.util.Arrays;
+
+/**
+ * TransformHierarchy stores parent/child positions for attached objects
+ * (held items, mounts, UI anchors, etc.).
+ *
+ * <p>
+ * Each node has a local position relative to its parent. World positions are
+ * recomputed lazily: moving a node only marks it dirty, and the next call to
+ * {@link #update()} (or any world position getter) recomputes that node's subtree.
+ * Untouched branches are never visited.
+ * </p>
+ *
+ * <p>
+ * Node handles stay stable, but the data used to resolve positions (local and world
+ * positions, parent and bound object) is stored by slot, in depth-first order:
+ * parents come before their children and every subtree is one contiguous slot range.
+ * A dirty subtree is recomputed with a single forward pass over adjacent memory, reading
+ * each parent's world position from an earlier slot. Structural changes (creating,
+ * destroying or reparenting nodes) re-pack the slots once, before the next resolve.
+ * </p>
+ *
+ * <p>
+ * Nodes can be bound to a {@link GameObject}. A bound root node follows the
+ * object's coordinates; a bound child node writes its world position back into the object.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class TransformHierarchy implements Updatable
+{
+    /** Parent value used for root nodes. */
+    public static final int NO_PARENT = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Tree structure, indexed by node handle
+    private int[] parent;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] previousSibling;
+    private boolean[] alive;
+    private boolean[] dirty;
+
+    // Slot holding each node's data (handle -> slot)
+    private int[] slotOf;
+
+    // Resolve data, indexed by slot in depth-first order (new nodes are appended until the next re-pack)
+    private int[] slotParent;     // Slot of the parent, or NO_PARENT
+    private double[] localX;
+    private double[] localY;
+    private double[] worldX;
+    private double[] worldY;
+    private GameObject[] boundObjects;
+    private int[] subtreeSize;
+    private int slotCount;        // Used slots, including those of destroyed nodes until the next re-pack
+
+    // Second set of slot arrays, swapped with the ones above when re-packing
+    private int[] spareSlotParent;
+    private double[] spareLocalX;
+    private double[] spareLocalY;
+    private double[] spareWorldX;
+    private double[] spareWorldY;
+    private GameObject[] spareBoundObjects;
+
+    // Root list (linked through nextSibling/previousSibling)
+    private int firstRoot = NO_PARENT;
+
+    // Nodes moved since the last resolve
+    private final IntArrayList dirtyNodes;
+
+    // Roots that copy their position from a bound GameObject every update
+    private int[] syncedRoots;
+    private int syncedRootCount;
+
+    // Free handle stack for reuse
+    private final IntArrayList freeHandles;
+    private int highWater;
+
+    private int liveCount;
+    private boolean structureDirty;
+
+    // Scratch stack used while re-packing
+    private int[] stack;
+
+    /**
+     * Creates an empty TransformHierarchy.
+     */
+    public TransformHierarchy()
+    {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty TransformHierarchy with room for a number of nodes.
+     *
+     * @param initialCapacity Expected number of nodes.
+     */
+    public TransformHierarchy(int initialCapacity)
+    {
+        int capacity = Math.max(1, initialCapacity);
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        previousSibling = new int[capacity];
+        alive = new boolean[capacity];
+        dirty = new boolean[capacity];
+        slotOf = new int[capacity];
+        allocateSlots(capacity);
+        dirtyNodes = new IntArrayList(capacity);
+        syncedRoots = new int[capacity];
+        freeHandles = new IntArrayList(capacity);
+        stack = new int[capacity];
+    }
+
+    // ----------- Node Management -----------
+
+    /**
+     * Creates a new node.
+     *
+     * @param parentNode Parent node handle, or {@link #NO_PARENT} for a root.
+     * @param x Local X position (units, relative to the parent).
+     * @param y Local Y position (units, relative to the parent).
+     * @return The handle of the new node.
+     */
+    public int createNode(int parentNode, double x, double y)
+    {
+        if (parentNode != NO_PARENT) checkAlive(parentNode);
+
+        int node = allocateHandle();
+        alive[node] = true;
+        parent[node] = NO_PARENT;
+        firstChild[node] = NO_PARENT;
+        nextSibling[node] = NO_PARENT;
+        previousSibling[node] = NO_PARENT;
+        liveCount++;
+
+        // Appended for now; the next re-pack moves it after its parent
+        if (slotCount == localX.length) growSlots(slotCount * 2);
+        int slot = slotCount++;
+        slotOf[node] = slot;
+        slotParent[slot] = NO_PARENT;
+        localX[slot] = x;
+        localY[slot] = y;
+        worldX[slot] = 0;
+        worldY[slot] = 0;
+        boundObjects[slot] = null;
+
+        link(node, parentNode);
+        structureDirty = true;
+        markDirty(node);
+        return node;
+    }
+
+    /**
+     * Creates a node bound to a GameObject.
+     * <p>
+     * As a root, the node follows the object. As a child, the object is moved to the node's world position.
+     *
+     * @param parentNode Parent node handle, or {@link #NO_PARENT} for a root.
+     * @param gameObject The GameObject to bind.
+     * @param x Local X position (ignored for roots, which take the object's coordinates).
+     * @param y Local Y position (ignored for roots, which take the object's coordinates).
+     * @return The handle of the new node.
+     */
+    public int createNode(int parentNode, GameObject gameObject, double x, double y)
+    {
+        int node = parentNode == NO_PARENT
+                ? createNode(NO_PARENT, gameObject.getCoordinateX(), gameObject.getCoordinateY())
+                : createNode(parentNode, x, y);
+        boundObjects[slotOf[node]] = gameObject;
+        return node;
+    }
+
+    /**
+     * Destroys a node and its whole subtree.
+     *
+     * @param node The node to destroy.
+     */
+    public void destroyNode(int node)
+    {
+        checkAlive(node);
+        unlink(node);
+
+        // Free the subtree iteratively
+        int top = 0;
+        stack = ensureCapacity(stack, 1);
+        stack[top++] = node;
+        while (top > 0)
+        {
+            int current = stack[--top];
+            for (int child = firstChild[current]; child != NO_PARENT; child = nextSibling[child])
+            {
+                stack = ensureCapacity(stack, top + 1);
+                stack[top++] = child;
+            }
+
+            alive[current] = false;
+            dirty[current] = false;
+            boundObjects[slotOf[current]] = null; // The slot itself is dropped by the next re-pack
+            freeHandles.add(current);
+            liveCount--;
+        }
+
+        structureDirty = true;
+    }
+
+    /**
+     * Attaches a node to a new parent, keeping its local position.
+     *
+     * @param node The node to move.
+     * @param newParent The new parent, or {@link #NO_PARENT} to make it a root.
+     * @throws IllegalArgumentException if the new parent is inside the node's own subtree.
+     */
+    public void setParent(int node, int newParent)
+    {
+        checkAlive(node);
+        if (newParent != NO_PARENT)
+        {
+            checkAlive(newParent);
+            for (int ancestor = newParent; ancestor != NO_PARENT; ancestor = parent[ancestor])
+            {
+                if (ancestor == node)
+                {
+                    throw new IllegalArgumentException("Cannot parent node " + node + " to its own descendant " + newParent);
+                }
+            }
+        }
+
+        if (parent[node] == newParent) return;
+
+        unlink(node);
+        link(node, newParent);
+        structureDirty = true;
+        markDirty(node);
+    }
+
+    /**
+     * Binds a GameObject to an existing node (or unbinds it when null).
+     *
+     * @param node The node.
+     * @param gameObject The GameObject to bind, or null.
+     */
+    public void bind(int node, GameObject gameObject)
+    {
+        checkAlive(node);
+        boundObjects[slotOf[node]] = gameObject;
+        structureDirty = true; // Synced root list needs rebuilding
+        markDirty(node);
+    }
+
+    // ----------- Positions -----------
+
+    /**
+     * Sets a node's position relative to its parent.
+     *
+     * @param node The node.
+     * @param x Local X (units).
+     * @param y Local Y (units).
+     */
+    public void setLocalPosition(int node, double x, double y)
+    {
+        checkAlive(node);
+        int slot = slotOf[node];
+        if (localX[slot] == x && localY[slot] == y) return;
+
+        localX[slot] = x;
+        localY[slot] = y;
+        markDirty(node);
+    }
+
+    /**
+     * Moves a node relative to its current local position.
+     *
+     * @param node The node.
+     * @param dx X offset (units).
+     * @param dy Y offset (units).
+     */
+    public void translate(int node, double dx, double dy)
+    {
+        checkAlive(node);
+        setLocalPosition(node, localX[slotOf[node]] + dx, localY[slotOf[node]] + dy);
+    }
+
+    /**
+     * @param node The node.
+     * @return Local X position relative to the parent.
+     */
+    public double getLocalX(int node)
+    {
+        return localX[slotOf[node]];
+    }
+
+    /**
+     * @param node The node.
+     * @return Local Y position relative to the parent.
+     */
+    public double getLocalY(int node)
+    {
+        return localY[slotOf[node]];
+    }
+
+    /**
+     * Gets a node's world X position, recomputing dirty subtrees first if needed.
+     *
+     * @param node The node.
+     * @return World X position (units).
+     */
+    public double getWorldX(int node)
+    {
+        resolve();
+        return worldX[slotOf[node]];
+    }
+
+    /**
+     * Gets a node's world Y position, recomputing dirty subtrees first if needed.
+     *
+     * @param node The node.
+     * @return World Y position (units).
+     */
+    public double getWorldY(int node)
+    {
+        resolve();
+        return worldY[slotOf[node]];
+    }
+
+    /**
+     * @param node The node.
+     * @return The node's parent, or {@link #NO_PARENT} for roots.
+     */
+    public int getParent(int node)
+    {
+        return parent[node];
+    }
+
+    /**
+     * @return Number of live nodes.
+     */
+    public int size()
+    {
+        return liveCount;
+    }
+
+    // ----------- Update -----------
+
+    /**
+     * Pulls positions from bound root objects and recomputes every dirty subtree.
+     * <p>
+     * Register the hierarchy with the GameLoop after gameplay Updatables so attached
+     * objects see their parent's final position for the tick.
+     */
+    @Override
+    public void update()
+    {
+        if (structureDirty) rebuildOrder();
+
+        // Bound roots follow their GameObject
+        for (int i = 0; i < syncedRootCount; i++)
+        {
+            int root = syncedRoots[i];
+            GameObject gameObject = boundObjects[slotOf[root]];
+            setLocalPosition(root, gameObject.getCoordinateX(), gameObject.getCoordinateY());
+        }
+
+        resolve();
+    }
+
+    /**
+     * Recomputes world positions for all dirty subtrees.
+     */
+    public void resolve()
+    {
+        if (structureDirty) rebuildOrder();
+        int dirtyCount = dirtyNodes.size();
+        if (dirtyCount == 0) return;
+
+        // Convert dirty nodes to slots, then sort so parents come before descendants
+        int[] positions = dirtyNodes.elements();
+        for (int i = 0; i < dirtyCount; i++)
+        {
+            int node = positions[i];
+            dirty[node] = false;
+            positions[i] = alive[node] ? slotOf[node] : Integer.MAX_VALUE;
+        }
+        dirtyNodes.sort();
+
+        int coveredEnd = 0;
+        for (int i = 0; i < dirtyCount; i++)
+        {
+            int start = positions[i];
+            if (start == Integer.MAX_VALUE) break; // Destroyed nodes sort last
+            if (start < coveredEnd) continue; // Already recomputed as part of an ancestor's subtree
+
+            int end = start + subtreeSize[start];
+            recomputeRange(start, end);
+            coveredEnd = end;
+        }
+
+        dirtyNodes.clear();
+    }
+
+    /**
+     * Recomputes world positions for a contiguous range of slots.
+     *
+     * @param start First slot (inclusive).
+     * @param end Last slot (exclusive).
+     */
+    private void recomputeRange(int start, int end)
+    {
+        for (int k = start; k < end; k++)
+        {
+            int p = slotParent[k];
+
+            if (p == NO_PARENT)
+            {
+                worldX[k] = localX[k];
+                worldY[k] = localY[k];
+            }
+            else
+            {
+                // The parent's slot is earlier, so its world position is already final
+                worldX[k] = worldX[p] + localX[k];
+                worldY[k] = worldY[p] + localY[k];
+
+                // Only children are driven by the hierarchy; bound roots drive it instead
+                GameObject gameObject = boundObjects[k];
+                if (gameObject != null)
+                {
+                    gameObject.setPosition(worldX[k], worldY[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Re-packs the slots into depth-first order after structural changes, dropping the slots
+     * of destroyed nodes, and rebuilds the subtree sizes and synced root list.
+     */
+    private void rebuildOrder()
+    {
+        syncedRoots = ensureCapacity(syncedRoots, liveCount);
+        stack = ensureCapacity(stack, liveCount);
+
+        int count = 0;
+        syncedRootCount = 0;
+
+        for (int root = firstRoot; root != NO_PARENT; root = nextSibling[root])
+        {
+            if (boundObjects[slotOf[root]] != null) syncedRoots[syncedRootCount++] = root;
+
+            int top = 0;
+            stack[top++] = root;
+            while (top > 0)
+            {
+                int node = stack[--top];
+                int from = slotOf[node];
+
+                // Parents are visited first, so the parent's slot is already its new one
+                spareSlotParent[count] = parent[node] == NO_PARENT ? NO_PARENT : slotOf[parent[node]];
+                spareLocalX[count] = localX[from];
+                spareLocalY[count] = localY[from];
+                spareWorldX[count] = worldX[from];
+                spareWorldY[count] = worldY[from];
+                spareBoundObjects[count] = boundObjects[from];
+                slotOf[node] = count++;
+
+                for (int child = firstChild[node]; child != NO_PARENT; child = nextSibling[child])
+                {
+                    stack[top++] = child;
+                }
+            }
+        }
+
+        // Let destroyed objects be collected
+        Arrays.fill(boundObjects, 0, slotCount, null);
+
+        int[] swapParent = slotParent;
+        slotParent = spareSlotParent;
+        spareSlotParent = swapParent;
+        double[] swap = localX;
+        localX = spareLocalX;
+        spareLocalX = swap;
+        swap = localY;
+        localY = spareLocalY;
+        spareLocalY = swap;
+        swap = worldX;
+        worldX = spareWorldX;
+        spareWorldX = swap;
+        swap = worldY;
+        worldY = spareWorldY;
+        spareWorldY = swap;
+        GameObject[] swapBound = boundObjects;
+        boundObjects = spareBoundObjects;
+        spareBoundObjects = swapBound;
+        slotCount = count;
+
+        // Accumulate subtree sizes from the leaves up
+        Arrays.fill(subtreeSize, 0, count, 1);
+        for (int k = count - 1; k >= 0; k--)
+        {
+            int p = slotParent[k];
+            if (p != NO_PARENT) subtreeSize[p] += subtreeSize[k];
+        }
+
+        structureDirty = false;
+    }
+
+    // ----------- Internal Helpers -----------
+
+    private void markDirty(int node)
+    {
+        if (dirty[node]) return;
+        dirty[node] = true;
+        dirtyNodes.add(node);
+    }
+
+    private void link(int node, int newParent)
+    {
+        parent[node] = newParent;
+        int head = newParent == NO_PARENT ? firstRoot : firstChild[newParent];
+
+        previousSibling[node] = NO_PARENT;
+        nextSibling[node] = head;
+        if (head != NO_PARENT) previousSibling[head] = node;
+
+        if (newParent == NO_PARENT) firstRoot = node;
+        else firstChild[newParent] = node;
+    }
+
+    private void unlink(int node)
+    {
+        int prev = previousSibling[node];
+        int next = nextSibling[node];
+
+        if (prev != NO_PARENT) nextSibling[prev] = next;
+        else if (parent[node] == NO_PARENT) firstRoot = next;
+        else firstChild[parent[node]] = next;
+
+        if (next != NO_PARENT) previousSibling[next] = prev;
+
+        previousSibling[node] = NO_PARENT;
+        nextSibling[node] = NO_PARENT;
+        parent[node] = NO_PARENT;
+    }
+
+    private int allocateHandle()
+    {
+        if (!freeHandles.isEmpty()) return freeHandles.removeLast();
+
+        if (highWater == parent.length) grow(parent.length * 2);
+        return highWater++;
+    }
+
+    private void grow(int capacity)
+    {
+        parent = Arrays.copyOf(parent, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        previousSibling = Arrays.copyOf(previousSibling, capacity);
+        alive = Arrays.copyOf(alive, capacity);
+        dirty = Arrays.copyOf(dirty, capacity);
+        slotOf = Arrays.copyOf(slotOf, capacity);
+    }
+
+    private void allocateSlots(int capacity)
+    {
+        slotParent = new int[capacity];
+        localX = new double[capacity];
+        localY = new double[capacity];
+        worldX = new double[capacity];
+        worldY = new double[capacity];
+        boundObjects = new GameObject[capacity];
+        subtreeSize = new int[capacity];
+        spareSlotParent = new int[capacity];
+        spareLocalX = new double[capacity];
+        spareLocalY = new double[capacity];
+        spareWorldX = new double[capacity];
+        spareWorldY = new double[capacity];
+        spareBoundObjects = new GameObject[capacity];
+    }
+
+    private void growSlots(int capacity)
+    {
+        slotParent = Arrays.copyOf(slotParent, capacity);
+        localX = Arrays.copyOf(localX, capacity);
+        localY = Arrays.copyOf(localY, capacity);
+        worldX = Arrays.copyOf(worldX, capacity);
+        worldY = Arrays.copyOf(worldY, capacity);
+        boundObjects = Arrays.copyOf(boundObjects, capacity);
+        subtreeSize = Arrays.copyOf(subtreeSize, capacity);
+        spareSlotParent = new int[capacity];
+        spareLocalX = new double[capacity];
+        spareLocalY = new double[capacity];
+        spareWorldX = new double[capacity];
+        spareWorldY = new double[capacity];
+        spareBoundObjects = new GameObject[capacity];
+    }
+
+    private void checkAlive(int node)
+    {
+        if (node < 0 || node >= highWater || !alive[node])
+        {
+            throw new IllegalArgumentException("Invalid transform node: " + node);
+        }
+    }
+
+    private static int[] ensureCapacity(int[] array, int required)
+    {
+        if (required <= array.length) return array;
+        return Arrays.copyOf(array, Math.max(required, array.length * 2));
+    }
+}
@@ -0,0 +1,222 @@
+package misa.test;
+
+import misa.core.rendering.RasterBlitter;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.util.Random;
+
+/**
+ * RasterCheck compares {@link RasterBlitter} against Graphics2D on random draws.
+ *
+ * <p>
+ * Every draw is done twice, once with {@code Graphics2D.drawImage} (nearest-neighbour) and once
+ * with the blitter, into identical targets, and the resulting pixels are compared. Draws cover
+ * opaque, bitmask and translucent sources in the formats images are loaded and prepared in,
+ * 1:1, whole-number and fractional scales, and destinations clipped by the target edges, on
+ * both supported target types. The draws are then replayed in horizontal bands of a third
+ * target (blitters sharing one source cache, clipped like StripRenderer's bands), which must
+ * match the whole-frame result. Run it headless after changing the blitter's loops:
+ * <pre>
+ * java -Djava.awt.headless=true -cp build/classes/java/main misa.test.RasterCheck [draws] [seed]
+ * </pre>
+ * The exit status is 1 if any pixel differs.
+ * </p>
+ */
+@SuppressWarnings("unused")
+final class RasterCheck
+{
+    private static final int TARGET_WIDTH = 96;
+    private static final int TARGET_HEIGHT = 64;
+
+    private RasterCheck()
+    {
+    }
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args Optional number of draws per source and target (default 2000) and random seed (default 1).
+     */
+    public static void main(String[] args)
+    {
+        int draws = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+        Random random = new Random(seed);
+
+        // Java2D scales some formats with different rounding, so each format is its own case
+        BufferedImage[] sources = {
+                source(random, new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB), Mode.OPAQUE),
+                source(random, new BufferedImage(16, 16, BufferedImage.TYPE_3BYTE_BGR), Mode.OPAQUE),
+                source(random, new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB), Mode.OPAQUE),
+                source(random, new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB), Mode.BITMASK),
+                source(random, bitmaskImage(16, 16), Mode.BITMASK),
+                source(random, new BufferedImage(13, 7, BufferedImage.TYPE_INT_ARGB), Mode.TRANSLUCENT),
+                source(random, new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB_PRE), Mode.TRANSLUCENT),
+                source(random, new BufferedImage(16, 16, BufferedImage.TYPE_4BYTE_ABGR), Mode.TRANSLUCENT)
+        };
+        String[] sourceNames = {
+                "opaque (RGB)", "opaque (3BYTE_BGR)", "opaque (ARGB)", "bitmask (ARGB)", "bitmask (ARGB_BM)",
+                "translucent (ARGB)", "translucent (ARGB_PRE)", "translucent (4BYTE_ABGR)"
+        };
+        int[] targetTypes = {BufferedImage.TYPE_INT_ARGB_PRE, BufferedImage.TYPE_INT_RGB};
+        String[] targetNames = {"ARGB_PRE", "RGB"};
+
+        long failures = 0;
+        for (int t = 0; t < targetTypes.length; t++)
+        {
+            for (int s = 0; s < sources.length; s++)
+            {
+                for (Scale scale : Scale.values())
+                {
+                    long mismatched = compare(random, sources[s], targetTypes[t], scale, draws);
+                    failures += mismatched;
+                    System.out.println((mismatched == 0 ? "OK   " : "FAIL ") + sourceNames[s] + " onto " + targetNames[t]
+                            + ", " + scale.name().toLowerCase() + " scale: " + draws + " draws, " + mismatched + " mismatched pixel(s)");
+                }
+            }
+        }
+
+        if (failures > 0) System.exit(1);
+    }
+
+    /**
+     * Draws the same random draws with Graphics2D, the blitter and blitter bands,
+     * then counts pixels that differ from Graphics2D or between the blitter and the bands.
+     */
+    private static long compare(Random random, BufferedImage source, int targetType, Scale scale, int draws)
+    {
+        BufferedImage expected = new BufferedImage(TARGET_WIDTH, TARGET_HEIGHT, targetType);
+        BufferedImage actual = new BufferedImage(TARGET_WIDTH, TARGET_HEIGHT, targetType);
+        BufferedImage banded = new BufferedImage(TARGET_WIDTH, TARGET_HEIGHT, targetType);
+
+        // A translucent background, so blending onto existing pixels is covered too
+        int background = 0x80336699;
+        Graphics2D graphics = expected.createGraphics();
+        graphics.setColor(new Color(background, true));
+        graphics.fillRect(0, 0, TARGET_WIDTH, TARGET_HEIGHT);
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+
+        RasterBlitter blitter = new RasterBlitter(actual);
+        blitter.clear(background);
+
+        // sx, sy, sw, sh, dx, dy, dw, dh per draw, replayed on the bands
+        int[] recorded = new int[draws * 8];
+
+        for (int i = 0; i < draws; i++)
+        {
+            int sw = 1 + random.nextInt(source.getWidth());
+            int sh = 1 + random.nextInt(source.getHeight());
+            int sx = random.nextInt(source.getWidth() - sw + 1);
+            int sy = random.nextInt(source.getHeight() - sh + 1);
+
+            int dw;
+            int dh;
+            switch (scale)
+            {
+                case NONE ->
+                {
+                    dw = sw;
+                    dh = sh;
+                }
+                case WHOLE ->
+                {
+                    dw = sw * (1 + random.nextInt(4));
+                    dh = sh * (1 + random.nextInt(4));
+                }
+                default ->
+                {
+                    dw = 1 + random.nextInt(sw * 3);
+                    dh = 1 + random.nextInt(sh * 3);
+                }
+            }
+
+            // Allow destinations hanging over every edge
+            int dx = random.nextInt(TARGET_WIDTH + dw) - dw / 2 - 4;
+            int dy = random.nextInt(TARGET_HEIGHT + dh) - dh / 2 - 4;
+
+            graphics.drawImage(source, dx, dy, dx + dw, dy + dh, sx, sy, sx + sw, sy + sh, null);
+            blitter.drawImage(source, sx, sy, sw, sh, dx, dy, dw, dh);
+            System.arraycopy(new int[] {sx, sy, sw, sh, dx, dy, dw, dh}, 0, recorded, i * 8, 8);
+        }
+        graphics.dispose();
+
+        // Uneven bands, so band edges fall at different positions within the draws
+        RasterBlitter whole = new RasterBlitter(banded);
+        whole.clear(background);
+        int[] bandEdges = {0, 7, 25, 26, 51, TARGET_HEIGHT};
+        for (int b = 0; b + 1 < bandEdges.length; b++)
+        {
+            RasterBlitter band = whole.retarget(banded);
+            band.setClip(0, bandEdges[b], TARGET_WIDTH, bandEdges[b + 1] - bandEdges[b]);
+            for (int i = 0; i < draws; i++)
+            {
+                int d = i * 8;
+                band.drawImage(source, recorded[d], recorded[d + 1], recorded[d + 2], recorded[d + 3],
+                        recorded[d + 4], recorded[d + 5], recorded[d + 6], recorded[d + 7]);
+            }
+        }
+
+        int[] expectedPixels = ((DataBufferInt) expected.getRaster().getDataBuffer()).getData();
+        int[] actualPixels = ((DataBufferInt) actual.getRaster().getDataBuffer()).getData();
+        int[] bandedPixels = ((DataBufferInt) banded.getRaster().getDataBuffer()).getData();
+        // The top byte of TYPE_INT_RGB pixels is padding, which some Java2D loops leave alpha bits in
+        int mask = targetType == BufferedImage.TYPE_INT_RGB ? 0x00FFFFFF : 0xFFFFFFFF;
+        long mismatched = 0;
+        for (int i = 0; i < expectedPixels.length; i++)
+        {
+            int pixel = actualPixels[i] & mask;
+            if ((expectedPixels[i] & mask) != pixel || (bandedPixels[i] & mask) != pixel) mismatched++;
+        }
+        return mismatched;
+    }
+
+    private enum Scale
+    {
+        NONE,
+        WHOLE,
+        FRACTIONAL
+    }
+
+    private enum Mode
+    {
+        OPAQUE,
+        BITMASK,
+        TRANSLUCENT
+    }
+
+    /**
+     * Creates a 1-bit alpha image, the format of compatible {@code BITMASK} images on most screens.
+     */
+    private static BufferedImage bitmaskImage(int width, int height)
+    {
+        DirectColorModel colorModel = new DirectColorModel(25, 0xFF0000, 0xFF00, 0xFF, 0x1000000);
+        return new BufferedImage(colorModel, colorModel.createCompatibleWritableRaster(width, height), false, null);
+    }
+
+    /**
+     * Fills a source image with random pixels of the given alpha class.
+     */
+    private static BufferedImage source(Random random, BufferedImage image, Mode mode)
+    {
+        for (int y = 0; y < image.getHeight(); y++)
+        {
+            for (int x = 0; x < image.getWidth(); x++)
+            {
+                int rgb = random.nextInt() & 0xFFFFFF;
+                int alpha = switch (mode)
+                {
+                    case OPAQUE -> 0xFF;
+                    case BITMASK -> random.nextBoolean() ? 0xFF : 0;
+                    case TRANSLUCENT -> random.nextInt(256);
+                };
+                image.setRGB(x, y, (alpha << 24) | rgb);
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,54 @@
+package misa.test;
+
+import misa.data.tiled2misa.TiledProperties;
+
+/**
+ * Checks that typed Tiled properties keep values whose bits look like special markers
+ * (-0.0 and the smallest long both have the bits of {@code Long.MIN_VALUE}).
+ *
+ * <p>
+ * Run headless; the exit status is 1 if a check fails:
+ * <pre>
+ * java -cp build/classes/java/main misa.test.TiledPropertiesCheck
+ * </pre>
+ * </p>
+ */
+@SuppressWarnings("unused")
+final class TiledPropertiesCheck
+{
+    private static int failures;
+
+    private TiledPropertiesCheck()
+    {
+    }
+
+    public static void main(String[] args)
+    {
+        TiledProperties properties = new TiledProperties.Builder()
+                .add("negativeZero", "float", "-0.0")
+                .add("negativeZeroShort", "float", "-0")
+                .add("smallestInt", "int", "-9223372036854775808")
+                .add("speed", "float", "2.5")
+                .add("broken", "float", "fast")
+                .add("untyped", "", "-0.0")
+                .build();
+
+        check("-0.0 stays a float", properties.getType("negativeZero") == TiledProperties.Type.FLOAT);
+        check("-0.0 reads as -0.0", Float.floatToRawIntBits(properties.getFloat("negativeZero", 5f)) == Float.floatToRawIntBits(-0f));
+        check("-0 stays a float", properties.getType("negativeZeroShort") == TiledProperties.Type.FLOAT);
+        check("-0 reads as -0.0", Float.floatToRawIntBits(properties.getFloat("negativeZeroShort", 5f)) == Float.floatToRawIntBits(-0f));
+        check("smallest long stays an int", properties.getType("smallestInt") == TiledProperties.Type.INT);
+        check("float reads back", properties.getFloat("speed", 5f) == 2.5f);
+        check("unparseable float is kept as string", properties.getType("broken") == TiledProperties.Type.STRING);
+        check("unparseable float reads as default", properties.getFloat("broken", 5f) == 5f);
+        check("untyped -0.0 parses on read", Float.floatToRawIntBits(properties.getFloat("untyped", 5f)) == Float.floatToRawIntBits(-0f));
+
+        if (failures > 0) System.exit(1);
+    }
+
+    private static void check(String name, boolean passed)
+    {
+        System.out.println((passed ? "OK   " : "FAIL ") + name);
+        if (!passed) failures++;
+    }
+}
@@ -0,0 +1,171 @@
+package misa.util.collections;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size 2D grid of bits packed into a {@code long[]}.
+ *
+ * <p>
+ * Useful for per-tile flags (solid, dirty, visible, occluded) where a
+ * {@code boolean[][]} would cost one byte per cell plus one array object per row.
+ * Cells are stored row-major, 64 per word.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class BitGrid
+{
+    private final int width;
+    private final int height;
+    private final long[] words;
+
+    /**
+     * Creates a grid with every bit cleared.
+     *
+     * @param width Width in cells.
+     * @param height Height in cells.
+     */
+    public BitGrid(int width, int height)
+    {
+        if (width < 0 || height < 0)
+            throw new IllegalArgumentException("Invalid grid size: " + width + "x" + height);
+
+        this.width = width;
+        this.height = height;
+        this.words = new long[(int) (((long) width * height + 63) >>> 6)];
+    }
+
+    /**
+     * Reads a cell. Cells outside the grid read as false.
+     *
+     * @param x Column.
+     * @param y Row.
+     * @return True if the bit is set.
+     */
+    public boolean get(int x, int y)
+    {
+        if (x < 0 || y < 0 || x >= width || y >= height) return false;
+        int index = y * width + x;
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets a cell.
+     *
+     * @param x Column.
+     * @param y Row.
+     */
+    public void set(int x, int y)
+    {
+        int index = checkedIndex(x, y);
+        words[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Clears a cell.
+     *
+     * @param x Column.
+     * @param y Row.
+     */
+    public void clear(int x, int y)
+    {
+        int index = checkedIndex(x, y);
+        words[index >>> 6] &= ~(1L << index);
+    }
+
+    /**
+     * Sets or clears a cell.
+     *
+     * @param x Column.
+     * @param y Row.
+     * @param value New value.
+     */
+    public void set(int x, int y, boolean value)
+    {
+        if (value) set(x, y);
+        else clear(x, y);
+    }
+
+    /**
+     * Clears every cell.
+     */
+    public void clearAll()
+    {
+        Arrays.fill(words, 0L);
+    }
+
+    /**
+     * Sets every cell.
+     */
+    public void setAll()
+    {
+        Arrays.fill(words, -1L);
+
+        // Keep the unused tail bits clear so cardinality stays correct
+        int tail = (width * height) & 63;
+        if (tail != 0) words[words.length - 1] = (1L << tail) - 1;
+    }
+
+    /**
+     * @return Number of set cells.
+     */
+    public int cardinality()
+    {
+        int count = 0;
+        for (long word : words) count += Long.bitCount(word);
+        return count;
+    }
+
+    /**
+     * Finds the next set cell at or after a row-major index.
+     * <p>
+     * Iterate with {@code for (int i = grid.nextSetIndex(0); i >= 0; i = grid.nextSetIndex(i + 1))},
+     * where {@code x = i % width} and {@code y = i / width}.
+     *
+     * @param fromIndex Row-major index to start at.
+     * @return The next set index, or -1 if none remain.
+     */
+    public int nextSetIndex(int fromIndex)
+    {
+        int total = width * height;
+        if (fromIndex >= total || fromIndex < 0) return -1;
+
+        int wordIndex = fromIndex >>> 6;
+        long word = words[wordIndex] & (-1L << fromIndex);
+
+        while (true)
+        {
+            if (word != 0)
+            {
+                int index = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                return index < total ? index : -1;
+            }
+            if (++wordIndex == words.length) return -1;
+            word = words[wordIndex];
+        }
+    }
+
+    /**
+     * @return Width in cells.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * @return Height in cells.
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+
+    private int checkedIndex(int x, int y)
+    {
+        if (x < 0 || y < 0 || x >= width || y >= height)
+        {
+            throw new IndexOutOfBoundsException("Cell (" + x + ", " + y + ") outside " + width + "x" + height + " grid");
+        }
+        return y * width + x;
+    }
+}
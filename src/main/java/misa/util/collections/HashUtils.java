@@ -0,0 +1,58 @@
+package misa.util.collections;
+
+/**
+ * Hashing helpers shared by the open-addressing collections.
+ */
+final class HashUtils
+{
+    private static final int INT_PHI = 0x9E3779B9;
+    private static final long LONG_PHI = 0x9E3779B97F4A7C15L;
+
+    private HashUtils()
+    {
+    }
+
+    /**
+     * Scrambles an int key so nearby keys (tile IDs, key codes) spread over the table.
+     *
+     * @param key The key.
+     * @return A well-distributed hash.
+     */
+    static int mix(int key)
+    {
+        int hash = key * INT_PHI;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Scrambles a long key (e.g. packed chunk coordinates) down to an int hash.
+     *
+     * @param key The key.
+     * @return A well-distributed hash.
+     */
+    static int mix(long key)
+    {
+        long hash = key * LONG_PHI;
+        hash ^= hash >>> 32;
+        return (int) (hash ^ (hash >>> 16));
+    }
+
+    /**
+     * Finds a power-of-two table size that holds a number of entries under a load factor.
+     *
+     * @param expectedSize Number of entries.
+     * @param loadFactor Maximum fill ratio.
+     * @return Table size (a power of two, at least 4).
+     */
+    static int tableSizeFor(int expectedSize, float loadFactor)
+    {
+        long needed = (long) Math.ceil(Math.max(1, expectedSize) / (double) loadFactor);
+        int size = 4;
+        while (size < needed)
+        {
+            if (size >= (1 << 30)) throw new IllegalStateException("Collection too large: " + expectedSize);
+            size <<= 1;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,176 @@
+package misa.util.collections;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of {@code int} values backed by a plain array.
+ *
+ * <p>
+ * Replaces {@code ArrayList<Integer>} on hot paths. {@link #elements()} exposes the
+ * backing array for tight loops; only the first {@link #size()} entries are valid.
+ * Not thread-safe.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class IntArrayList
+{
+    private int[] elements;
+    private int size;
+
+    /**
+     * Creates an empty list.
+     */
+    public IntArrayList()
+    {
+        this(16);
+    }
+
+    /**
+     * Creates an empty list with an initial capacity.
+     *
+     * @param initialCapacity Number of values that fit before growing.
+     */
+    public IntArrayList(int initialCapacity)
+    {
+        elements = new int[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Appends a value.
+     *
+     * @param value The value to add.
+     */
+    public void add(int value)
+    {
+        if (size == elements.length) elements = Arrays.copyOf(elements, size * 2);
+        elements[size++] = value;
+    }
+
+    /**
+     * @param index Position in the list.
+     * @return The value at that position.
+     */
+    public int get(int index)
+    {
+        if (index >= size) throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        return elements[index];
+    }
+
+    /**
+     * Replaces the value at a position.
+     *
+     * @param index Position in the list.
+     * @param value The new value.
+     */
+    public void set(int index, int value)
+    {
+        if (index >= size) throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        elements[index] = value;
+    }
+
+    /**
+     * Removes the value at a position by moving the last value into its place.
+     * <p>
+     * O(1), but does not keep order.
+     *
+     * @param index Position to remove.
+     * @return The removed value.
+     */
+    public int removeSwap(int index)
+    {
+        int value = get(index);
+        elements[index] = elements[--size];
+        return value;
+    }
+
+    /**
+     * Removes and returns the last value.
+     *
+     * @return The last value.
+     */
+    public int removeLast()
+    {
+        if (size == 0) throw new IndexOutOfBoundsException("List is empty");
+        return elements[--size];
+    }
+
+    /**
+     * @param value The value to look for.
+     * @return Index of the first occurrence, or -1.
+     */
+    public int indexOf(int value)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (elements[i] == value) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @param value The value to look for.
+     * @return True if the list contains the value.
+     */
+    public boolean contains(int value)
+    {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Sorts the values in ascending order.
+     */
+    public void sort()
+    {
+        Arrays.sort(elements, 0, size);
+    }
+
+    /**
+     * Makes room for a number of values without growing again.
+     *
+     * @param capacity Required capacity.
+     */
+    public void ensureCapacity(int capacity)
+    {
+        if (capacity > elements.length) elements = Arrays.copyOf(elements, Math.max(capacity, elements.length * 2));
+    }
+
+    /**
+     * @return The backing array. Only the first {@link #size()} entries are valid.
+     */
+    public int[] elements()
+    {
+        return elements;
+    }
+
+    /**
+     * @return A copy of the values.
+     */
+    public int[] toArray()
+    {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * @return Number of values.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return True if the list is empty.
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Removes every value, keeping the current capacity.
+     */
+    public void clear()
+    {
+        size = 0;
+    }
+}
@@ -0,0 +1,273 @@
+package misa.util.collections;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from {@code int} keys to objects.
+ *
+ * <p>
+ * Keys are stored in a flat {@code int[]} with linear probing, so lookups never box
+ * the key and never chase per-entry node objects like {@link java.util.HashMap} does.
+ * Removal uses backward-shift deletion, so there are no tombstones to clean up.
+ * </p>
+ *
+ * <p>
+ * Not thread-safe.
+ * </p>
+ *
+ * @param <V> The value type.
+ */
+@SuppressWarnings("unused")
+public class IntObjectMap<V>
+{
+    private static final float LOAD_FACTOR = 0.6f;
+
+    // 0 marks an empty slot; the key 0 itself is stored separately
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    private boolean hasZeroKey;
+    private V zeroValue;
+
+    /**
+     * Visitor used by {@link #forEach(Visitor)}.
+     *
+     * @param <V> The value type.
+     */
+    public interface Visitor<V>
+    {
+        void visit(int key, V value);
+    }
+
+    /**
+     * Creates an empty map.
+     */
+    public IntObjectMap()
+    {
+        this(16);
+    }
+
+    /**
+     * Creates an empty map sized for a number of entries.
+     *
+     * @param expectedSize Number of entries expected without resizing.
+     */
+    public IntObjectMap(int expectedSize)
+    {
+        allocate(HashUtils.tableSizeFor(expectedSize, LOAD_FACTOR));
+    }
+
+    /**
+     * @param key The key.
+     * @return The value for the key, or null if absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key)
+    {
+        if (key == 0) return hasZeroKey ? zeroValue : null;
+
+        int index = HashUtils.mix(key) & mask;
+        while (true)
+        {
+            int current = keys[index];
+            if (current == key) return (V) values[index];
+            if (current == 0) return null;
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * @param key The key.
+     * @return True if the key is present.
+     */
+    public boolean containsKey(int key)
+    {
+        if (key == 0) return hasZeroKey;
+
+        int index = HashUtils.mix(key) & mask;
+        while (true)
+        {
+            int current = keys[index];
+            if (current == key) return true;
+            if (current == 0) return false;
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Associates a value with a key.
+     *
+     * @param key The key.
+     * @param value The value.
+     * @return The previous value, or null if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value)
+    {
+        if (key == 0)
+        {
+            V previous = zeroValue;
+            if (!hasZeroKey) size++;
+            hasZeroKey = true;
+            zeroValue = value;
+            return previous;
+        }
+
+        int index = HashUtils.mix(key) & mask;
+        while (true)
+        {
+            int current = keys[index];
+            if (current == key)
+            {
+                V previous = (V) values[index];
+                values[index] = value;
+                return previous;
+            }
+            if (current == 0)
+            {
+                keys[index] = key;
+                values[index] = value;
+                if (++size > resizeThreshold) rehash(keys.length * 2);
+                return null;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key The key.
+     * @return The removed value, or null if the key was absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key)
+    {
+        if (key == 0)
+        {
+            if (!hasZeroKey) return null;
+            V previous = zeroValue;
+            hasZeroKey = false;
+            zeroValue = null;
+            size--;
+            return previous;
+        }
+
+        int index = HashUtils.mix(key) & mask;
+        while (true)
+        {
+            int current = keys[index];
+            if (current == 0) return null;
+            if (current == key)
+            {
+                V previous = (V) values[index];
+                shiftBack(index);
+                size--;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Visits every entry. The map must not be modified while visiting.
+     *
+     * @param visitor Receives each key and value.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Visitor<? super V> visitor)
+    {
+        if (hasZeroKey) visitor.visit(0, zeroValue);
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (keys[i] != 0) visitor.visit(keys[i], (V) values[i]);
+        }
+    }
+
+    /**
+     * @return Number of entries.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return True if the map has no entries.
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Removes every entry, keeping the current capacity.
+     */
+    public void clear()
+    {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        hasZeroKey = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    /**
+     * Closes the gap left by a removed slot by moving later entries of the same probe chain back.
+     *
+     * @param gap Index of the removed slot.
+     */
+    private void shiftBack(int gap)
+    {
+        int index = gap;
+        while (true)
+        {
+            index = (index + 1) & mask;
+            int key = keys[index];
+            if (key == 0) break;
+
+            int home = HashUtils.mix(key) & mask;
+
+            // Move the entry if its home slot is not between the gap and its current slot
+            if (((index - home) & mask) >= ((index - gap) & mask))
+            {
+                keys[gap] = key;
+                values[gap] = values[index];
+                gap = index;
+            }
+        }
+
+        keys[gap] = 0;
+        values[gap] = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void rehash(int capacity)
+    {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            int key = oldKeys[i];
+            if (key == 0) continue;
+
+            int index = HashUtils.mix(key) & mask;
+            while (keys[index] != 0) index = (index + 1) & mask;
+            keys[index] = key;
+            values[index] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+}
@@ -0,0 +1,204 @@
+package misa.util.collections;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * An open-addressing hash set of {@code int} values.
+ *
+ * <p>
+ * Replaces {@code HashSet<Integer>} on hot paths: values are never boxed and
+ * live in one flat array. Not thread-safe.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public class IntSet
+{
+    private static final float LOAD_FACTOR = 0.6f;
+
+    // 0 marks an empty slot; the value 0 itself is tracked separately
+    private int[] slots;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+    private boolean hasZero;
+
+    /**
+     * Creates an empty set.
+     */
+    public IntSet()
+    {
+        this(16);
+    }
+
+    /**
+     * Creates an empty set sized for a number of values.
+     *
+     * @param expectedSize Number of values expected without resizing.
+     */
+    public IntSet(int expectedSize)
+    {
+        allocate(HashUtils.tableSizeFor(expectedSize, LOAD_FACTOR));
+    }
+
+    /**
+     * @param value The value to look for.
+     * @return True if the set contains the value.
+     */
+    public boolean contains(int value)
+    {
+        if (value == 0) return hasZero;
+
+        int index = HashUtils.mix(value) & mask;
+        while (true)
+        {
+            int current = slots[index];
+            if (current == value) return true;
+            if (current == 0) return false;
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value The value to add.
+     * @return True if the value was not already present.
+     */
+    public boolean add(int value)
+    {
+        if (value == 0)
+        {
+            if (hasZero) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+
+        int index = HashUtils.mix(value) & mask;
+        while (true)
+        {
+            int current = slots[index];
+            if (current == value) return false;
+            if (current == 0)
+            {
+                slots[index] = value;
+                if (++size > resizeThreshold) rehash(slots.length * 2);
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param value The value to remove.
+     * @return True if the value was present.
+     */
+    public boolean remove(int value)
+    {
+        if (value == 0)
+        {
+            if (!hasZero) return false;
+            hasZero = false;
+            size--;
+            return true;
+        }
+
+        int index = HashUtils.mix(value) & mask;
+        while (true)
+        {
+            int current = slots[index];
+            if (current == 0) return false;
+            if (current == value)
+            {
+                shiftBack(index);
+                size--;
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Visits every value. The set must not be modified while visiting.
+     *
+     * @param consumer Receives each value.
+     */
+    public void forEach(IntConsumer consumer)
+    {
+        if (hasZero) consumer.accept(0);
+        for (int slot : slots)
+        {
+            if (slot != 0) consumer.accept(slot);
+        }
+    }
+
+    /**
+     * @return Number of values.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return True if the set is empty.
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Removes every value, keeping the current capacity.
+     */
+    public void clear()
+    {
+        Arrays.fill(slots, 0);
+        hasZero = false;
+        size = 0;
+    }
+
+    private void shiftBack(int gap)
+    {
+        int index = gap;
+        while (true)
+        {
+            index = (index + 1) & mask;
+            int value = slots[index];
+            if (value == 0) break;
+
+            int home = HashUtils.mix(value) & mask;
+            if (((index - home) & mask) >= ((index - gap) & mask))
+            {
+                slots[gap] = value;
+                gap = index;
+            }
+        }
+        slots[gap] = 0;
+    }
+
+    private void rehash(int capacity)
+    {
+        int[] oldSlots = slots;
+        allocate(capacity);
+
+        for (int value : oldSlots)
+        {
+            if (value == 0) continue;
+
+            int index = HashUtils.mix(value) & mask;
+            while (slots[index] != 0) index = (index + 1) & mask;
+            slots[index] = value;
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        slots = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+}